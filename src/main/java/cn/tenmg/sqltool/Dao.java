@@ -1,11 +1,20 @@
 package cn.tenmg.sqltool;
 
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.sql.DataSource;
 
 import cn.tenmg.dsql.DSQLFactory;
+import cn.tenmg.sqltool.data.CloseableIterator;
+import cn.tenmg.sqltool.data.FanOutResult;
 import cn.tenmg.sqltool.data.Page;
+import cn.tenmg.sqltool.data.StatementResult;
+import cn.tenmg.sqltool.sharding.ShardFunction;
+import cn.tenmg.sqltool.sql.StatementOptions;
 
 /**
  * 数据库访问对象
@@ -749,6 +758,50 @@ public interface Dao {
 	 */
 	<T> T get(DataSource dataSource, T obj);
 
+	/**
+	 * 根据实体对象列表的主键批量查询并组装实体对象。主键值分批以IN列表（联合主键为OR连接的条件组）查询，每批不超过默认批容量及SQL方言的参数个数限制
+	 * 
+	 * @param rows
+	 *            实体对象列表
+	 * @return 返回与实体对象列表顺序一一对应的实体对象列表，记录不存在时对应的元素为null
+	 */
+	<T> List<T> get(List<T> rows);
+
+	/**
+	 * 根据实体对象列表的主键批量查询并组装实体对象。主键值分批以IN列表（联合主键为OR连接的条件组）查询，每批不超过默认批容量及SQL方言的参数个数限制
+	 * 
+	 * @param dataSource
+	 *            数据源
+	 * @param rows
+	 *            实体对象列表
+	 * @return 返回与实体对象列表顺序一一对应的实体对象列表，记录不存在时对应的元素为null
+	 */
+	<T> List<T> get(DataSource dataSource, List<T> rows);
+
+	/**
+	 * 根据主键值集合批量查询并组装实体对象，仅适用于单一主键的实体类
+	 * 
+	 * @param type
+	 *            实体类
+	 * @param ids
+	 *            主键值集合
+	 * @return 返回与主键值集合迭代顺序一一对应的实体对象列表，记录不存在时对应的元素为null
+	 */
+	<T> List<T> getAll(Class<T> type, Collection<?> ids);
+
+	/**
+	 * 根据主键值集合批量查询并组装实体对象，仅适用于单一主键的实体类
+	 * 
+	 * @param dataSource
+	 *            数据源
+	 * @param type
+	 *            实体类
+	 * @param ids
+	 *            主键值集合
+	 * @return 返回与主键值集合迭代顺序一一对应的实体对象列表，记录不存在时对应的元素为null
+	 */
+	<T> List<T> getAll(DataSource dataSource, Class<T> type, Collection<?> ids);
+
 	/**
 	 * 使用动态结构化查询语言（DSQL）并组装对象，其中类型可以是实体对象，也可以是String、Number、
 	 * Date、BigDecimal类型，这时将返回结果集中的第1行第1列的值
@@ -889,6 +942,258 @@ public interface Dao {
 	 */
 	<T> List<T> select(DataSource dataSource, Class<T> type, String dsql, Object params);
 
+	/**
+	 * 使用动态结构化查询语言（DSQL）并组装对象列表，执行前将语句选项应用到预编译语句。语句选项中值为null的选项使用DSQL元素上配置的同名属性，
+	 * 仍为null时保持驱动的默认值（每次获取的行数则使用方言的默认值）
+	 * 
+	 * @param options
+	 *            语句选项
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数对象
+	 * @return 返回查询到的对象列表
+	 */
+	<T> List<T> select(StatementOptions options, Class<T> type, String dsql, Object... params);
+
+	/**
+	 * 使用动态结构化查询语言（DSQL）并组装对象列表，执行前将语句选项应用到预编译语句。语句选项中值为null的选项使用DSQL元素上配置的同名属性，
+	 * 仍为null时保持驱动的默认值（每次获取的行数则使用方言的默认值）
+	 * 
+	 * @param dataSource
+	 *            数据源
+	 * @param options
+	 *            语句选项
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数对象
+	 * @return 返回查询到的对象列表
+	 */
+	<T> List<T> select(DataSource dataSource, StatementOptions options, Class<T> type, String dsql, Object... params);
+
+	/**
+	 * 使用动态结构化查询语言（DSQL）并组装对象列表，执行前将语句选项应用到预编译语句。语句选项中值为null的选项使用DSQL元素上配置的同名属性，
+	 * 仍为null时保持驱动的默认值（每次获取的行数则使用方言的默认值）
+	 * 
+	 * @param options
+	 *            语句选项
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数对象
+	 * @return 返回查询到的对象列表
+	 */
+	<T> List<T> select(StatementOptions options, Class<T> type, String dsql, Object params);
+
+	/**
+	 * 使用动态结构化查询语言（DSQL）并组装对象列表，执行前将语句选项应用到预编译语句。语句选项中值为null的选项使用DSQL元素上配置的同名属性，
+	 * 仍为null时保持驱动的默认值（每次获取的行数则使用方言的默认值）
+	 * 
+	 * @param dataSource
+	 *            数据源
+	 * @param options
+	 *            语句选项
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数对象
+	 * @return 返回查询到的对象列表
+	 */
+	<T> List<T> select(DataSource dataSource, StatementOptions options, Class<T> type, String dsql, Object params);
+
+	/**
+	 * 使用动态结构化查询语言（DSQL）按比例随机抽样查询对象列表。DSQL中使用了抽样宏（#[sample(表名)]）时按方言对表抽样
+	 * （PostgreSQL、SQL Server使用TABLESAMPLE，Oracle使用SAMPLE，MySQL、SQLite使用随机数过滤），否则使用随机数过滤整个查询的结果。
+	 * 抽样的结果是近似的，返回的记录数在期望值附近波动
+	 * 
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param fraction
+	 *            抽样比例，取值范围为(0, 1]
+	 * @param params
+	 *            参数对象
+	 * @return 返回抽样查询到的对象列表
+	 */
+	<T> List<T> sample(Class<T> type, String dsql, double fraction, Object... params);
+
+	/**
+	 * 使用动态结构化查询语言（DSQL）按比例随机抽样查询对象列表。DSQL中使用了抽样宏（#[sample(表名)]）时按方言对表抽样
+	 * （PostgreSQL、SQL Server使用TABLESAMPLE，Oracle使用SAMPLE，MySQL、SQLite使用随机数过滤），否则使用随机数过滤整个查询的结果。
+	 * 抽样的结果是近似的，返回的记录数在期望值附近波动
+	 * 
+	 * @param dataSource
+	 *            数据源
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param fraction
+	 *            抽样比例，取值范围为(0, 1]
+	 * @param params
+	 *            参数对象
+	 * @return 返回抽样查询到的对象列表
+	 */
+	<T> List<T> sample(DataSource dataSource, Class<T> type, String dsql, double fraction, Object... params);
+
+	/**
+	 * 使用动态结构化查询语言（DSQL）按比例随机抽样查询对象列表。DSQL中使用了抽样宏（#[sample(表名)]）时按方言对表抽样
+	 * （PostgreSQL、SQL Server使用TABLESAMPLE，Oracle使用SAMPLE，MySQL、SQLite使用随机数过滤），否则使用随机数过滤整个查询的结果。
+	 * 抽样的结果是近似的，返回的记录数在期望值附近波动
+	 * 
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param fraction
+	 *            抽样比例，取值范围为(0, 1]
+	 * @param params
+	 *            参数对象
+	 * @return 返回抽样查询到的对象列表
+	 */
+	<T> List<T> sample(Class<T> type, String dsql, double fraction, Object params);
+
+	/**
+	 * 使用动态结构化查询语言（DSQL）按比例随机抽样查询对象列表。DSQL中使用了抽样宏（#[sample(表名)]）时按方言对表抽样
+	 * （PostgreSQL、SQL Server使用TABLESAMPLE，Oracle使用SAMPLE，MySQL、SQLite使用随机数过滤），否则使用随机数过滤整个查询的结果。
+	 * 抽样的结果是近似的，返回的记录数在期望值附近波动
+	 * 
+	 * @param dataSource
+	 *            数据源
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param fraction
+	 *            抽样比例，取值范围为(0, 1]
+	 * @param params
+	 *            参数对象
+	 * @return 返回抽样查询到的对象列表
+	 */
+	<T> List<T> sample(DataSource dataSource, Class<T> type, String dsql, double fraction, Object params);
+
+	/**
+	 * 使用指定类，指定动态结构化查询语言（DSQL）和指定参数按分区列的取值范围并行查询对象。查询将被拆分为多个分区，每个分区使用独立的连接并行查询，
+	 * 查询结果通过迭代器合并输出，在途的记录数不超过默认缓冲区大小（sqltool.defaultBufferSize）。分区方式与Spark JDBC数据源一致：
+	 * 上下界仅用于计算分区步长，不会过滤任何记录。分区列必须是查询结果中的数值列。该方法将根据DSQL中的别名将对象映射为指定类的对象，
+	 * 需要保证DSQL中的别名和对象属性名保持一致。
+	 * 
+	 * @param <T>
+	 *            实体类
+	 * @param type
+	 *            指定类
+	 * @param dsql
+	 *            指定动态结构化查询语言（DSQL）
+	 * @param partitionColumn
+	 *            分区列
+	 * @param lowerBound
+	 *            分区列的下界
+	 * @param upperBound
+	 *            分区列的上界
+	 * @param numPartitions
+	 *            分区数
+	 * @param params
+	 *            指定参数（分别列出参数名和参数值）
+	 * @return 返回查询结果的迭代器，未遍历完毕即停止使用时应将其关闭
+	 */
+	<T> CloseableIterator<T> selectParallel(Class<T> type, String dsql, String partitionColumn, long lowerBound,
+			long upperBound, int numPartitions, Object... params);
+
+	/**
+	 * 使用指定类，指定动态结构化查询语言（DSQL）和指定参数按分区列的取值范围并行查询对象。查询将被拆分为多个分区，每个分区使用独立的连接并行查询，
+	 * 查询结果通过迭代器合并输出，在途的记录数不超过默认缓冲区大小（sqltool.defaultBufferSize）。分区方式与Spark JDBC数据源一致：
+	 * 上下界仅用于计算分区步长，不会过滤任何记录。分区列必须是查询结果中的数值列。该方法将根据DSQL中的别名将对象映射为指定类的对象，
+	 * 需要保证DSQL中的别名和对象属性名保持一致。
+	 * 
+	 * @param <T>
+	 *            实体类
+	 * @param dataSource
+	 *            数据源
+	 * @param type
+	 *            指定类
+	 * @param dsql
+	 *            指定动态结构化查询语言（DSQL）
+	 * @param partitionColumn
+	 *            分区列
+	 * @param lowerBound
+	 *            分区列的下界
+	 * @param upperBound
+	 *            分区列的上界
+	 * @param numPartitions
+	 *            分区数
+	 * @param params
+	 *            指定参数（分别列出参数名和参数值）
+	 * @return 返回查询结果的迭代器，未遍历完毕即停止使用时应将其关闭
+	 */
+	<T> CloseableIterator<T> selectParallel(DataSource dataSource, Class<T> type, String dsql, String partitionColumn, long lowerBound,
+			long upperBound, int numPartitions, Object... params);
+
+	/**
+	 * 使用指定类，指定动态结构化查询语言（DSQL）和指定参数按分区列的取值范围并行查询对象。查询将被拆分为多个分区，每个分区使用独立的连接并行查询，
+	 * 查询结果通过迭代器合并输出，在途的记录数不超过默认缓冲区大小（sqltool.defaultBufferSize）。分区方式与Spark JDBC数据源一致：
+	 * 上下界仅用于计算分区步长，不会过滤任何记录。分区列必须是查询结果中的数值列。该方法将根据DSQL中的别名将对象映射为指定类的对象，
+	 * 需要保证DSQL中的别名和对象属性名保持一致。
+	 * 
+	 * @param <T>
+	 *            实体类
+	 * @param type
+	 *            指定类
+	 * @param dsql
+	 *            指定动态结构化查询语言（DSQL）
+	 * @param partitionColumn
+	 *            分区列
+	 * @param lowerBound
+	 *            分区列的下界
+	 * @param upperBound
+	 *            分区列的上界
+	 * @param numPartitions
+	 *            分区数
+	 * @param params
+	 *            参数对象
+	 * @return 返回查询结果的迭代器，未遍历完毕即停止使用时应将其关闭
+	 */
+	<T> CloseableIterator<T> selectParallel(Class<T> type, String dsql, String partitionColumn, long lowerBound,
+			long upperBound, int numPartitions, Object params);
+
+	/**
+	 * 使用指定类，指定动态结构化查询语言（DSQL）和指定参数按分区列的取值范围并行查询对象。查询将被拆分为多个分区，每个分区使用独立的连接并行查询，
+	 * 查询结果通过迭代器合并输出，在途的记录数不超过默认缓冲区大小（sqltool.defaultBufferSize）。分区方式与Spark JDBC数据源一致：
+	 * 上下界仅用于计算分区步长，不会过滤任何记录。分区列必须是查询结果中的数值列。该方法将根据DSQL中的别名将对象映射为指定类的对象，
+	 * 需要保证DSQL中的别名和对象属性名保持一致。
+	 * 
+	 * @param <T>
+	 *            实体类
+	 * @param dataSource
+	 *            数据源
+	 * @param type
+	 *            指定类
+	 * @param dsql
+	 *            指定动态结构化查询语言（DSQL）
+	 * @param partitionColumn
+	 *            分区列
+	 * @param lowerBound
+	 *            分区列的下界
+	 * @param upperBound
+	 *            分区列的上界
+	 * @param numPartitions
+	 *            分区数
+	 * @param params
+	 *            参数对象
+	 * @return 返回查询结果的迭代器，未遍历完毕即停止使用时应将其关闭
+	 */
+	<T> CloseableIterator<T> selectParallel(DataSource dataSource, Class<T> type, String dsql, String partitionColumn, long lowerBound,
+			long upperBound, int numPartitions, Object params);
+
 	/**
 	 * 使用指定类，指定动态结构化查询语言（DSQL），指定页码，指定页容量和指定参数（分别列出参数名和参数值）分页查询对象。
 	 * 该方法将根据DSQL中的别名将对象映射为指定类的对象， 需要保证DSQL中的别名和对象属性名保持一致。
@@ -1071,6 +1376,86 @@ public interface Dao {
 	<T> Page<T> page(DataSource dataSource, Class<T> type, String dsql, String cntDsql,
 			long currentPage, int pageSize, Object params);
 
+	/**
+	 * 使用指定类，指定动态结构化查询语言（DSQL），指定页容量和指定参数逐页遍历查询结果。第一页在调用时查询并统计总记录数，
+	 * 后续页在后台使用独立的连接预先查询，预取的页数由默认预取深度（sqltool.defaultPrefetch）决定，预取深度不大于0时不预取。
+	 * 该方法将根据DSQL中的别名将对象映射为指定类的对象， 需要保证DSQL中的别名和对象属性名保持一致。
+	 * 
+	 * @param <T>
+	 *            实体类
+	 * @param type
+	 *            指定类
+	 * @param dsql
+	 *            指定动态结构化查询语言（DSQL）
+	 * @param pageSize
+	 *            指定页容量
+	 * @param params
+	 *            指定参数（分别列出参数名和参数值）
+	 * @return 返回分页查询结果的迭代器
+	 */
+	<T> Iterator<Page<T>> pages(Class<T> type, String dsql, int pageSize, Object... params);
+
+	/**
+	 * 使用指定类，指定动态结构化查询语言（DSQL），指定页容量和指定参数逐页遍历查询结果。第一页在调用时查询并统计总记录数，
+	 * 后续页在后台使用独立的连接预先查询，预取的页数由默认预取深度（sqltool.defaultPrefetch）决定，预取深度不大于0时不预取。
+	 * 该方法将根据DSQL中的别名将对象映射为指定类的对象， 需要保证DSQL中的别名和对象属性名保持一致。
+	 * 
+	 * @param <T>
+	 *            实体类
+	 * @param dataSource
+	 *            数据源
+	 * @param type
+	 *            指定类
+	 * @param dsql
+	 *            指定动态结构化查询语言（DSQL）
+	 * @param pageSize
+	 *            指定页容量
+	 * @param params
+	 *            指定参数（分别列出参数名和参数值）
+	 * @return 返回分页查询结果的迭代器
+	 */
+	<T> Iterator<Page<T>> pages(DataSource dataSource, Class<T> type, String dsql, int pageSize, Object... params);
+
+	/**
+	 * 使用指定类，指定动态结构化查询语言（DSQL），指定页容量和指定参数逐页遍历查询结果。第一页在调用时查询并统计总记录数，
+	 * 后续页在后台使用独立的连接预先查询，预取的页数由默认预取深度（sqltool.defaultPrefetch）决定，预取深度不大于0时不预取。
+	 * 该方法将根据DSQL中的别名将对象映射为指定类的对象， 需要保证DSQL中的别名和对象属性名保持一致。
+	 * 
+	 * @param <T>
+	 *            实体类
+	 * @param type
+	 *            指定类
+	 * @param dsql
+	 *            指定动态结构化查询语言（DSQL）
+	 * @param pageSize
+	 *            指定页容量
+	 * @param params
+	 *            参数对象
+	 * @return 返回分页查询结果的迭代器
+	 */
+	<T> Iterator<Page<T>> pages(Class<T> type, String dsql, int pageSize, Object params);
+
+	/**
+	 * 使用指定类，指定动态结构化查询语言（DSQL），指定页容量和指定参数逐页遍历查询结果。第一页在调用时查询并统计总记录数，
+	 * 后续页在后台使用独立的连接预先查询，预取的页数由默认预取深度（sqltool.defaultPrefetch）决定，预取深度不大于0时不预取。
+	 * 该方法将根据DSQL中的别名将对象映射为指定类的对象， 需要保证DSQL中的别名和对象属性名保持一致。
+	 * 
+	 * @param <T>
+	 *            实体类
+	 * @param dataSource
+	 *            数据源
+	 * @param type
+	 *            指定类
+	 * @param dsql
+	 *            指定动态结构化查询语言（DSQL）
+	 * @param pageSize
+	 *            指定页容量
+	 * @param params
+	 *            参数对象
+	 * @return 返回分页查询结果的迭代器
+	 */
+	<T> Iterator<Page<T>> pages(DataSource dataSource, Class<T> type, String dsql, int pageSize, Object params);
+
 	/**
 	 * 使用动态结构化查询语言（DSQL）执行插入、修改、删除操作
 	 * 
@@ -1185,4 +1570,146 @@ public interface Dao {
 	 */
 	void execute(DataSource dataSource, Transaction transaction);
 
+	/**
+	 * 使用默认数据源在一个事务中执行SQL脚本。脚本按方言的语法拆分为语句，连续的数据操纵语句以批处理方式执行。
+	 * 注意：部分数据库（例如MySQL、Oracle）执行数据定义语句时会隐式提交事务
+	 * 
+	 * @param reader
+	 *            SQL脚本的读取器，执行完毕后不会关闭
+	 * @return 返回与脚本中的语句一一对应的执行结果
+	 */
+	List<StatementResult> runScript(Reader reader);
+
+	/**
+	 * 使用指定数据源在一个事务中执行SQL脚本。脚本按方言的语法拆分为语句，连续的数据操纵语句以批处理方式执行。
+	 * 注意：部分数据库（例如MySQL、Oracle）执行数据定义语句时会隐式提交事务
+	 * 
+	 * @param dataSource
+	 *            数据源
+	 * @param reader
+	 *            SQL脚本的读取器，执行完毕后不会关闭
+	 * @return 返回与脚本中的语句一一对应的执行结果
+	 */
+	List<StatementResult> runScript(DataSource dataSource, Reader reader);
+
+	/**
+	 * 使用默认数据源在一个事务中执行UTF-8编码的SQL脚本文件
+	 * 
+	 * @param path
+	 *            SQL脚本文件的路径
+	 * @return 返回与脚本中的语句一一对应的执行结果
+	 */
+	List<StatementResult> runScript(Path path);
+
+	/**
+	 * 使用指定数据源在一个事务中执行UTF-8编码的SQL脚本文件
+	 * 
+	 * @param dataSource
+	 *            数据源
+	 * @param path
+	 *            SQL脚本文件的路径
+	 * @return 返回与脚本中的语句一一对应的执行结果
+	 */
+	List<StatementResult> runScript(DataSource dataSource, Path path);
+
+	/**
+	 * 创建使用默认数据源的多查询。多查询收集的查询在执行时使用同一连接，数据源支持时以一条语句发送所有查询
+	 * 
+	 * @return 返回多查询对象
+	 */
+	MultiQuery multi();
+
+	/**
+	 * 创建使用指定数据源的多查询。多查询收集的查询在执行时使用同一连接，数据源支持时以一条语句发送所有查询
+	 * 
+	 * @param dataSource
+	 *            数据源
+	 * @return 返回多查询对象
+	 */
+	MultiQuery multi(DataSource dataSource);
+
+	/**
+	 * 创建使用配置的分片规则（sqltool.sharding.*）的分片访问对象
+	 * 
+	 * @return 返回分片访问对象
+	 */
+	Sharding sharding();
+
+	/**
+	 * 创建分片访问对象
+	 * 
+	 * @param dataSources
+	 *            按分片序号排列的数据源
+	 * @param shardFunction
+	 *            分片函数
+	 * @return 返回分片访问对象
+	 */
+	Sharding sharding(List<DataSource> dataSources, ShardFunction shardFunction);
+
+	/**
+	 * 在所有数据源上并行执行同一查询。查询语句最外层含排序时按排序归并各数据源的查询结果，否则按数据源名称的顺序连接；
+	 * 部分数据源查询失败时不影响其他数据源的查询结果
+	 * 
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数对象
+	 * @return 返回多数据源并行查询结果
+	 */
+	<T> FanOutResult<T> selectAll(Class<T> type, String dsql, Object... params);
+
+	/**
+	 * 在所有数据源上并行执行同一查询。查询语句最外层含排序时按排序归并各数据源的查询结果，否则按数据源名称的顺序连接；
+	 * 部分数据源查询失败时不影响其他数据源的查询结果
+	 * 
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数对象
+	 * @return 返回多数据源并行查询结果
+	 */
+	<T> FanOutResult<T> selectAll(Class<T> type, String dsql, Object params);
+
+	/**
+	 * 在指定的数据源上并行执行同一查询。查询在共享执行器中执行，最大并行数由sqltool.fanOutParallelism配置（默认为8），
+	 * 语句选项中的查询超时时间同时作为单个数据源的超时时间，从该数据源开始查询时起计算，超时的数据源记为查询失败
+	 * 
+	 * @param dataSourceNames
+	 *            数据源名称，为null时使用所有数据源
+	 * @param options
+	 *            语句选项
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数对象
+	 * @return 返回多数据源并行查询结果
+	 */
+	<T> FanOutResult<T> selectAll(Collection<String> dataSourceNames, StatementOptions options, Class<T> type,
+			String dsql, Object... params);
+
+	/**
+	 * 在指定的数据源上并行执行同一查询。查询在共享执行器中执行，最大并行数由sqltool.fanOutParallelism配置（默认为8），
+	 * 语句选项中的查询超时时间同时作为单个数据源的超时时间，从该数据源开始查询时起计算，超时的数据源记为查询失败
+	 * 
+	 * @param dataSourceNames
+	 *            数据源名称，为null时使用所有数据源
+	 * @param options
+	 *            语句选项
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数对象
+	 * @return 返回多数据源并行查询结果
+	 */
+	<T> FanOutResult<T> selectAll(Collection<String> dataSourceNames, StatementOptions options, Class<T> type,
+			String dsql, Object params);
+
 }
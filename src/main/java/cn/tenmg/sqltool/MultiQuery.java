@@ -0,0 +1,73 @@
+package cn.tenmg.sqltool;
+
+import java.util.List;
+
+import cn.tenmg.sqltool.data.Result;
+
+/**
+ * 多查询。收集多个互不依赖的查询后使用同一连接执行，数据源支持时以一条语句发送所有查询并依次获取各查询的结果集，否则在同一连接上依次执行
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public interface MultiQuery {
+
+	/**
+	 * 添加查询单条记录的查询
+	 *
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数对象
+	 * @return 返回查询结果，执行后可获取
+	 */
+	<T> Result<T> get(Class<T> type, String dsql, Object... params);
+
+	/**
+	 * 添加查询单条记录的查询
+	 *
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数对象
+	 * @return 返回查询结果，执行后可获取
+	 */
+	<T> Result<T> get(Class<T> type, String dsql, Object params);
+
+	/**
+	 * 添加查询记录列表的查询
+	 *
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数对象
+	 * @return 返回查询结果，执行后可获取
+	 */
+	<T> Result<List<T>> select(Class<T> type, String dsql, Object... params);
+
+	/**
+	 * 添加查询记录列表的查询
+	 *
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数对象
+	 * @return 返回查询结果，执行后可获取
+	 */
+	<T> Result<List<T>> select(Class<T> type, String dsql, Object params);
+
+	/**
+	 * 执行已添加的所有查询。执行后可通过添加查询时返回的结果获取各查询的结果，同一多查询对象仅能执行一次
+	 */
+	void execute();
+
+}
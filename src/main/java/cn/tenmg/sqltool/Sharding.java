@@ -0,0 +1,142 @@
+package cn.tenmg.sqltool;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+/**
+ * 分片访问对象。按实体类中使用{@link cn.tenmg.sqltool.config.annotion.ShardKey}注解的属性和分片函数确定数据所在的分片，
+ * 批量写入时按分片拆分并行写入，查询时能确定分片则仅查询该分片，否则并行查询所有分片并归并结果。并行的写入和查询在共享执行器中执行，
+ * 单次调用的最大并行数由sqltool.fanOutParallelism配置
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public interface Sharding {
+
+	/**
+	 * 获取分片键的值所在分片的数据源
+	 *
+	 * @param shardKey
+	 *            分片键的值
+	 * @return 返回数据源
+	 */
+	DataSource getDataSource(Object shardKey);
+
+	/**
+	 * 按分片拆分实体对象集，并行地使用默认批容量分别在各分片中批量插入（各分片分别提交，不保证跨分片的原子性）
+	 *
+	 * @param rows
+	 *            实体对象集
+	 */
+	<T> void insertBatch(List<T> rows);
+
+	/**
+	 * 按分片拆分实体对象集，并行地分别在各分片中批量插入（各分片分别提交，不保证跨分片的原子性）
+	 *
+	 * @param rows
+	 *            实体对象集
+	 * @param batchSize
+	 *            批容量
+	 */
+	<T> void insertBatch(List<T> rows, int batchSize);
+
+	/**
+	 * 按分片拆分实体对象集，并行地使用默认批容量分别在各分片中批量软保存（各分片分别提交，不保证跨分片的原子性）
+	 *
+	 * @param rows
+	 *            实体对象集
+	 */
+	<T> void saveBatch(List<T> rows);
+
+	/**
+	 * 按分片拆分实体对象集，并行地使用默认批容量分别在各分片中批量部分硬保存（各分片分别提交，不保证跨分片的原子性）
+	 *
+	 * @param rows
+	 *            实体对象集
+	 * @param hardFields
+	 *            硬保存属性
+	 */
+	<T> void saveBatch(List<T> rows, String... hardFields);
+
+	/**
+	 * 按分片拆分实体对象集，并行地分别在各分片中批量软保存（各分片分别提交，不保证跨分片的原子性）
+	 *
+	 * @param rows
+	 *            实体对象集
+	 * @param batchSize
+	 *            批容量
+	 */
+	<T> void saveBatch(List<T> rows, int batchSize);
+
+	/**
+	 * 按分片拆分实体对象集，并行地分别在各分片中批量部分硬保存（各分片分别提交，不保证跨分片的原子性）
+	 *
+	 * @param rows
+	 *            实体对象集
+	 * @param batchSize
+	 *            批容量
+	 * @param hardFields
+	 *            硬保存属性
+	 */
+	<T> void saveBatch(List<T> rows, int batchSize, String... hardFields);
+
+	/**
+	 * 按分片拆分实体对象集，并行地使用默认批容量分别在各分片中批量删除（各分片分别提交，不保证跨分片的原子性）
+	 *
+	 * @param rows
+	 *            实体对象集
+	 */
+	<T> void deleteBatch(List<T> rows);
+
+	/**
+	 * 按分片拆分实体对象集，并行地分别在各分片中批量删除（各分片分别提交，不保证跨分片的原子性）
+	 *
+	 * @param rows
+	 *            实体对象集
+	 * @param batchSize
+	 *            批容量
+	 */
+	<T> void deleteBatch(List<T> rows, int batchSize);
+
+	/**
+	 * 根据实体对象查询。分片键的值不为null时仅查询所在分片，否则并行查询所有分片并依次合并结果
+	 *
+	 * @param obj
+	 *            实体对象
+	 * @return 返回查询到的实体对象列表
+	 */
+	<T> List<T> select(T obj);
+
+	/**
+	 * 使用动态结构化查询语言（DSQL）并组装对象列表，其中类型可以是实体对象，也可以是String、Number、
+	 * Date、BigDecimal类型，这时将返回结果集中的第1列的值。对象类型为实体且查询语句最外层的WHERE子句以AND连接的条件中含分片键列的等值或IN条件
+	 * （例如<code>STAFF_ID = :staffId</code>）时仅查询参数值所在的分片，否则并行查询所有分片，并按查询语句最外层的排序和行数限制归并结果
+	 *
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数对象
+	 * @return 返回查询到的对象列表
+	 */
+	<T> List<T> select(Class<T> type, String dsql, Object... params);
+
+	/**
+	 * 使用动态结构化查询语言（DSQL）并组装对象列表，其中类型可以是实体对象，也可以是String、Number、
+	 * Date、BigDecimal类型，这时将返回结果集中的第1列的值。对象类型为实体且查询语句最外层的WHERE子句以AND连接的条件中含分片键列的等值或IN条件
+	 * （例如<code>STAFF_ID = :staffId</code>）时仅查询参数值所在的分片，否则并行查询所有分片，并按查询语句最外层的排序和行数限制归并结果
+	 *
+	 * @param type
+	 *            对象类型
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数对象
+	 * @return 返回查询到的对象列表
+	 */
+	<T> List<T> select(Class<T> type, String dsql, Object params);
+
+}
@@ -0,0 +1,19 @@
+package cn.tenmg.sqltool.config.annotion;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * 实体类属性对应分片键注解。分片读写时按该属性的值确定数据所在的分片，查询时仅当WHERE子句以等值或IN条件限定了该属性对应的列时按条件的参数确定分片，否则查询所有分片
+ * 
+ * @author June wjzhao@aliyun.com
+ * 
+ * @since 1.5.4
+ */
+@Target({ FIELD })
+@Retention(RUNTIME)
+public @interface ShardKey {
+}
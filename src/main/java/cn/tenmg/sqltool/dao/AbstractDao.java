@@ -1,46 +1,88 @@
 package cn.tenmg.sqltool.dao;
 
 import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.sql.DataSource;
 
 import cn.tenmg.dsl.Script;
 import cn.tenmg.dsl.utils.CollectionUtils;
+import cn.tenmg.dsql.DSQLFactory;
 import cn.tenmg.dsql.NamedSQL;
 import cn.tenmg.sql.paging.SQLMetaData;
 import cn.tenmg.sql.paging.utils.JDBCUtils;
 import cn.tenmg.sql.paging.utils.SQLUtils;
 import cn.tenmg.sqltool.Dao;
+import cn.tenmg.sqltool.MultiQuery;
+import cn.tenmg.sqltool.Sharding;
 import cn.tenmg.sqltool.Transaction;
+import cn.tenmg.sqltool.dao.ParallelTasks.Outcome;
+import cn.tenmg.sqltool.data.CloseableIterator;
+import cn.tenmg.sqltool.data.FanOutResult;
 import cn.tenmg.sqltool.data.Page;
+import cn.tenmg.sqltool.data.StatementResult;
+import cn.tenmg.sqltool.datasource.CurrentWorkloadHolder;
+import cn.tenmg.sqltool.datasource.HedgePolicy;
+import cn.tenmg.sqltool.datasource.RoutingDataSource;
+import cn.tenmg.sqltool.datasource.Workload;
+import cn.tenmg.sqltool.datasource.WorkloadLaneDataSource;
 import cn.tenmg.sqltool.exception.DetermineSQLDialectException;
+import cn.tenmg.sqltool.exception.IllegalCallException;
 import cn.tenmg.sqltool.exception.IllegalConfigException;
+import cn.tenmg.sqltool.exception.PkNotFoundException;
 import cn.tenmg.sqltool.exception.SQLExecutorException;
 import cn.tenmg.sqltool.exception.TransactionException;
+import cn.tenmg.sqltool.macro.Hint;
 import cn.tenmg.sqltool.macro.Paging;
+import cn.tenmg.sqltool.macro.Sampling;
+import cn.tenmg.sqltool.sharding.ShardFunction;
+import cn.tenmg.sqltool.sharding.ShardingRule;
+import cn.tenmg.sqltool.sql.CompiledSQL;
 import cn.tenmg.sqltool.sql.DML;
 import cn.tenmg.sqltool.sql.DMLParser;
 import cn.tenmg.sqltool.sql.MergeSQL;
+import cn.tenmg.sqltool.sql.PagingPlan;
 import cn.tenmg.sqltool.sql.SQLDialect;
 import cn.tenmg.sqltool.sql.SQLExecuter;
+import cn.tenmg.sqltool.sql.StatementOptions;
+import cn.tenmg.sqltool.sql.TempTable;
 import cn.tenmg.sqltool.sql.UpdateSQL;
 import cn.tenmg.sqltool.sql.executer.ExecuteSQLExecuter;
 import cn.tenmg.sqltool.sql.executer.ExecuteUpdateSQLExecuter;
 import cn.tenmg.sqltool.sql.executer.GetSQLExecuter;
 import cn.tenmg.sqltool.sql.executer.LongResultSQLExecuter;
 import cn.tenmg.sqltool.sql.executer.SelectSQLExecuter;
+import cn.tenmg.sqltool.sql.executer.StatementOptionsSQLExecuter;
 import cn.tenmg.sqltool.sql.parser.DeleteDMLParser;
 import cn.tenmg.sqltool.sql.parser.GetDMLParser;
 import cn.tenmg.sqltool.sql.parser.InsertDMLParser;
 import cn.tenmg.sqltool.sql.parser.UpdateDMLParser;
+import cn.tenmg.sqltool.sql.utils.CompiledSQLUtils;
 import cn.tenmg.sqltool.sql.utils.EntityUtils;
+import cn.tenmg.sqltool.sql.utils.InListUtils;
+import cn.tenmg.sqltool.sql.utils.PagingPlanUtils;
+import cn.tenmg.sqltool.sql.utils.PartitionUtils;
+import cn.tenmg.sqltool.sql.utils.ScriptUtils;
+import cn.tenmg.sqltool.sql.utils.ShardingUtils;
+import cn.tenmg.sqltool.sql.utils.TempTableUtils;
 import cn.tenmg.sqltool.transaction.CurrentConnectionHolder;
 import cn.tenmg.sqltool.transaction.TransactionExecutor;
 import cn.tenmg.sqltool.utils.JDBCExecuteUtils;
@@ -55,16 +97,112 @@ import cn.tenmg.sqltool.utils.SQLDialectUtils;
  */
 public abstract class AbstractDao implements Dao {
 
-	private static final Map<DataSource, SQLDialect> DIALECTS = new HashMap<DataSource, SQLDialect>();
+	private static final Map<DataSource, SQLDialect> DIALECTS = new ConcurrentHashMap<DataSource, SQLDialect>();
+
+	private static final Map<DataSource, String> IN_LIST_BINDINGS = new ConcurrentHashMap<DataSource, String>();
 
 	abstract boolean isShowSql();
 
 	abstract int getDefaultBatchSize();
 
+	abstract int getDefaultPrefetch();
+
+	abstract int getDefaultBufferSize();
+
+	abstract int getTempTableThreshold();
+
+	/**
+	 * 获取分片规则
+	 *
+	 * @return 返回分片规则。未配置分片时返回null
+	 */
+	abstract ShardingRule getShardingRule();
+
+	/**
+	 * 获取所有数据源
+	 *
+	 * @return 返回以数据源名称为键的数据源
+	 */
+	abstract Map<String, DataSource> getDataSources();
+
+	/**
+	 * 获取多数据源并行查询的最大并行数
+	 *
+	 * @return 返回最大并行数
+	 */
+	abstract int getFanOutParallelism();
+
+	/**
+	 * 获取对冲读策略
+	 *
+	 * @return 返回对冲读策略。未配置对冲读时返回null
+	 */
+	abstract HedgePolicy getHedgePolicy();
+
+	/**
+	 * 获取合并查询
+	 *
+	 * @return 返回合并查询。未配置合并查询时返回null
+	 */
+	abstract SingleFlight getSingleFlight();
+
+	/**
+	 * 获取用于解析指定DSQL的工厂。延迟加载DSQL的数据库访问对象仅返回包含该DSQL所在文件的工厂
+	 *
+	 * @param dsql
+	 *            DSQL编号或DSQL脚本，为null时返回可用于转换命名参数SQL的工厂
+	 * @return 返回用于解析指定DSQL的工厂
+	 */
+	DSQLFactory getDSQLFactory(String dsql) {
+		return getDSQLFactory();
+	}
+
+	/**
+	 * 获取DSQL元素上配置的语句选项
+	 *
+	 * @param id
+	 *            DSQL编号
+	 * @return 返回DSQL元素上配置的语句选项。未配置时返回null
+	 */
+	StatementOptions getStatementOptions(String id) {
+		return null;
+	}
+
 	protected static synchronized void cacheSQLDialect(DataSource dataSource, SQLDialect dialect) {
 		DIALECTS.put(dataSource, dialect);
 	}
 
+	/**
+	 * 缓存数据源的集合参数绑定方式
+	 * 
+	 * @param dataSource
+	 *            数据源
+	 * @param inListBinding
+	 *            集合参数的绑定方式，可选值为{@link InListUtils#EXPAND}、{@link InListUtils#PAD}和{@link InListUtils#ARRAY}，为null时原样展开
+	 */
+	protected static synchronized void cacheInListBinding(DataSource dataSource, String inListBinding) {
+		if (inListBinding == null) {
+			IN_LIST_BINDINGS.remove(dataSource);
+		} else if (InListUtils.EXPAND.equals(inListBinding) || InListUtils.PAD.equals(inListBinding)
+				|| InListUtils.ARRAY.equals(inListBinding)) {
+			IN_LIST_BINDINGS.put(dataSource, inListBinding);
+		} else {
+			throw new IllegalConfigException("Unsupported inListBinding: ".concat(inListBinding));
+		}
+	}
+
+	/**
+	 * 移除数据源缓存的SQL方言、集合参数绑定方式和分页查询计划
+	 *
+	 * @param dataSource
+	 *            数据源
+	 */
+	static synchronized void uncache(DataSource dataSource) {
+		DIALECTS.remove(dataSource);
+		IN_LIST_BINDINGS.remove(dataSource);
+		PagingPlanUtils.uncache(dataSource);
+	}
+
 	protected SQLDialect getSQLDialect(DataSource dataSource) {
 		SQLDialect dialect = DIALECTS.get(dataSource);
 		if (dialect == null) {
@@ -533,24 +671,78 @@ public abstract class AbstractDao implements Dao {
 		return execute(dataSource, obj, GetDMLParser.getInstance(), new GetSQLExecuter<T>((Class<T>) obj.getClass()));
 	}
 
+	@Override
+	public <T> List<T> get(List<T> rows) {
+		return get(getDefaultDataSource(), rows);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> List<T> get(DataSource dataSource, List<T> rows) {
+		if (CollectionUtils.isEmpty(rows)) {
+			return new ArrayList<T>();
+		}
+		Class<T> type = null;
+		for (int i = 0, size = rows.size(); i < size && type == null; i++) {
+			T row = rows.get(i);
+			if (row != null) {
+				type = (Class<T>) row.getClass();
+			}
+		}
+		if (type == null) {
+			return new ArrayList<T>(rows);
+		}
+		List<Field> idFields = GetDMLParser.getInstance().parse(type).getFields();
+		List<List<Object>> keys = new ArrayList<List<Object>>(rows.size());
+		for (int i = 0, size = rows.size(); i < size; i++) {
+			T row = rows.get(i);
+			keys.add(row == null ? null : EntityUtils.getParams(row, idFields));
+		}
+		return getAll(dataSource, type, keys);
+	}
+
+	@Override
+	public <T> List<T> getAll(Class<T> type, Collection<?> ids) {
+		return getAll(getDefaultDataSource(), type, ids);
+	}
+
+	@Override
+	public <T> List<T> getAll(DataSource dataSource, Class<T> type, Collection<?> ids) {
+		if (ids == null || ids.isEmpty()) {
+			return new ArrayList<T>();
+		}
+		if (GetDMLParser.getInstance().parse(type).getFields().size() != 1) {
+			throw new PkNotFoundException("Single primary key not found in class ".concat(type.getName())
+					.concat(", please use get(List<T>) for composite primary key"));
+		}
+		List<List<Object>> keys = new ArrayList<List<Object>>(ids.size());
+		for (Iterator<?> it = ids.iterator(); it.hasNext();) {
+			Object id = it.next();
+			keys.add(id == null ? null : Collections.singletonList(id));
+		}
+		return getAll(dataSource, type, keys);
+	}
+
 	@Override
 	public <T> T get(Class<T> type, String dsql, Object... params) {
-		return get(getDefaultDataSource(), parse(dsql, params), type);
+		DataSource dataSource = getDefaultDataSource();
+		return get(dataSource, parse(dataSource, dsql, params), type);
 	}
 
 	@Override
 	public <T> T get(DataSource dataSource, Class<T> type, String dsql, Object... params) {
-		return get(dataSource, parse(dsql, params), type);
+		return get(dataSource, parse(dataSource, dsql, params), type);
 	}
 
 	@Override
 	public <T> T get(Class<T> type, String dsql, Object params) {
-		return get(getDefaultDataSource(), parse(dsql, params), type);
+		DataSource dataSource = getDefaultDataSource();
+		return get(dataSource, parse(dataSource, dsql, params), type);
 	}
 
 	@Override
 	public <T> T get(DataSource dataSource, Class<T> type, String dsql, Object params) {
-		return get(dataSource, parse(dsql, params), type);
+		return get(dataSource, parse(dataSource, dsql, params), type);
 	}
 
 	@Override
@@ -568,88 +760,129 @@ public abstract class AbstractDao implements Dao {
 
 	@Override
 	public <T> List<T> select(Class<T> type, String dsql, Object... params) {
-		return select(getDefaultDataSource(), parse(dsql, params), type);
+		DataSource dataSource = getDefaultDataSource();
+		return select(dataSource, parse(dataSource, dsql, params), type);
 	}
 
 	@Override
 	public <T> List<T> select(DataSource dataSource, Class<T> type, String dsql, Object... params) {
-		return select(dataSource, parse(dsql, params), type);
+		return select(dataSource, parse(dataSource, dsql, params), type);
 	}
 
 	@Override
 	public <T> List<T> select(Class<T> type, String dsql, Object params) {
-		return select(getDefaultDataSource(), parse(dsql, params), type);
+		DataSource dataSource = getDefaultDataSource();
+		return select(dataSource, parse(dataSource, dsql, params), type);
 	}
 
 	@Override
 	public <T> List<T> select(DataSource dataSource, Class<T> type, String dsql, Object params) {
-		return select(dataSource, parse(dsql, params), type);
+		return select(dataSource, parse(dataSource, dsql, params), type);
 	}
 
 	@Override
-	public <T> Page<T> page(Class<T> type, String dsql, long currentPage, int pageSize, Object... params) {
-		return page(getDefaultDataSource(), type, dsql, currentPage, pageSize, params);
+	public <T> List<T> select(StatementOptions options, Class<T> type, String dsql, Object... params) {
+		DataSource dataSource = getDefaultDataSource();
+		return select(dataSource, parse(dataSource, dsql, params), type, options);
 	}
 
 	@Override
-	public <T> Page<T> page(DataSource dataSource, Class<T> type, String dsql, long currentPage, int pageSize,
+	public <T> List<T> select(DataSource dataSource, StatementOptions options, Class<T> type, String dsql,
 			Object... params) {
-		Connection con = null;
-		Page<T> page = new Page<T>();
-		page.setCurrentPage(currentPage);
-		page.setPageSize(pageSize);
+		return select(dataSource, parse(dataSource, dsql, params), type, options);
+	}
+
+	@Override
+	public <T> List<T> select(StatementOptions options, Class<T> type, String dsql, Object params) {
+		DataSource dataSource = getDefaultDataSource();
+		return select(dataSource, parse(dataSource, dsql, params), type, options);
+	}
+
+	@Override
+	public <T> List<T> select(DataSource dataSource, StatementOptions options, Class<T> type, String dsql,
+			Object params) {
+		return select(dataSource, parse(dataSource, dsql, params), type, options);
+	}
+
+	@Override
+	public <T> List<T> sample(Class<T> type, String dsql, double fraction, Object... params) {
+		return sample(getDefaultDataSource(), type, dsql, fraction, (Object) params);
+	}
+
+	@Override
+	public <T> List<T> sample(DataSource dataSource, Class<T> type, String dsql, double fraction,
+			Object... params) {
+		return sample(dataSource, type, dsql, fraction, (Object) params);
+	}
+
+	@Override
+	public <T> List<T> sample(Class<T> type, String dsql, double fraction, Object params) {
+		return sample(getDefaultDataSource(), type, dsql, fraction, params);
+	}
+
+	@Override
+	public <T> List<T> sample(DataSource dataSource, Class<T> type, String dsql, double fraction, Object params) {
+		if (!(fraction > 0 && fraction <= 1)) {
+			throw new IllegalCallException("The sampling fraction must be greater than 0 and not greater than 1");
+		}
+		SQLDialect dialect = getSQLDialect(dataSource);
+		NamedSQL namedSQL;
+		boolean sampled;
+		Hint.initEnv(dialect);// 初始化宏的解析环境
+		Sampling.initSampleEnv(dialect, fraction);
 		try {
-			con = dataSource.getConnection();
-			con.setAutoCommit(true);
-			// con.setReadOnly(true);
-			boolean showSql = isShowSql();
-			SQLDialect dialect = getSQLDialect(dataSource);
-			Paging.initCountEnv(dialect);// 初始化Paging的计数查询SQL解析环境
-			NamedSQL namedSQL = parse(dsql, params);// 假设存在#[page(……)]，尝试解析COUNT查询SQL
-			Script<List<Object>> sql;
-			String id = namedSQL.getId();
-			SQLMetaData sqlMetaData;
-			if (Paging.isCounted()) {// 已被Paging解析为COUNT查询SQL
-				sql = toJDBC(namedSQL.getScript(), namedSQL.getParams());
-				Long total = JDBCExecuteUtils.execute(con, LongResultSQLExecuter.getInstance(), id, sql.getValue(),
-						sql.getParams(), showSql);
-				page.setTotal(total);
-				if (total != null && total > 0) {
-					page.setTotalPage(total % pageSize == 0 ? total / pageSize : total / pageSize + 1);
-					Paging.initPageEnv(dialect, con, page);// 初始化Paging的分页查询SQL解析环境
-					namedSQL = parse(dsql, params);// 解析分页查询SQL
-					sql = toJDBC(namedSQL.getScript(), namedSQL.getParams());
-					page.setRows(JDBCExecuteUtils.execute(con, new SelectSQLExecuter<T>(type), id, sql.getValue(),
-							sql.getParams(), showSql));
-				} else {
-					page.setTotalPage(0L);
-				}
-			} else {// 重新按普通场景解析
-				namedSQL = parse(dsql, params);
-				String script = namedSQL.getScript();
-				sqlMetaData = SQLUtils.getSQLMetaData(script);
-				Map<String, Object> usedParams = namedSQL.getParams();
-				sql = toJDBC(dialect.countSql(script, sqlMetaData), usedParams);
-				Long total = JDBCExecuteUtils.execute(con, LongResultSQLExecuter.getInstance(), id, sql.getValue(),
-						sql.getParams(), showSql);
-				page.setTotal(total);
-				if (total != null && total > 0) {
-					page.setTotalPage(total % pageSize == 0 ? total / pageSize : total / pageSize + 1);
-					sql = toJDBC(dialect.pageSql(con, script, usedParams, sqlMetaData, pageSize, currentPage),
-							usedParams);
-					page.setRows(JDBCExecuteUtils.execute(con, new SelectSQLExecuter<T>(type), id, sql.getValue(),
-							sql.getParams(), showSql));
-				} else {
-					page.setTotalPage(0L);
-				}
-			}
-		} catch (SQLException e) {
-			throw new SQLExecutorException(e);
+			DSQLFactory DSQLFactory = getDSQLFactory(dsql);
+			namedSQL = params instanceof Object[] ? DSQLFactory.parse(dsql, (Object[]) params)
+					: DSQLFactory.parse(dsql, params);
+			sampled = Sampling.isSampled();
 		} finally {
-			Paging.clear();
-			JDBCUtils.close(con);
+			Hint.clear();
+			Sampling.clear();
 		}
-		return page;
+		String namedScript = namedSQL.getScript();
+		return execute(dataSource, namedSQL.getId(), sampled ? namedScript : dialect.sampleSql(namedScript, fraction),
+				namedSQL.getParams(), new SelectSQLExecuter<T>(type), null);
+	}
+
+	@Override
+	public <T> CloseableIterator<T> selectParallel(Class<T> type, String dsql, String partitionColumn, long lowerBound,
+			long upperBound, int numPartitions, Object... params) {
+		DataSource dataSource = getDefaultDataSource();
+		return selectParallel(dataSource, parse(dataSource, dsql, params), type, partitionColumn, lowerBound,
+				upperBound, numPartitions);
+	}
+
+	@Override
+	public <T> CloseableIterator<T> selectParallel(DataSource dataSource, Class<T> type, String dsql, String partitionColumn,
+			long lowerBound, long upperBound, int numPartitions, Object... params) {
+		return selectParallel(dataSource, parse(dataSource, dsql, params), type, partitionColumn, lowerBound,
+				upperBound, numPartitions);
+	}
+
+	@Override
+	public <T> CloseableIterator<T> selectParallel(Class<T> type, String dsql, String partitionColumn, long lowerBound,
+			long upperBound, int numPartitions, Object params) {
+		DataSource dataSource = getDefaultDataSource();
+		return selectParallel(dataSource, parse(dataSource, dsql, params), type, partitionColumn, lowerBound,
+				upperBound, numPartitions);
+	}
+
+	@Override
+	public <T> CloseableIterator<T> selectParallel(DataSource dataSource, Class<T> type, String dsql, String partitionColumn,
+			long lowerBound, long upperBound, int numPartitions, Object params) {
+		return selectParallel(dataSource, parse(dataSource, dsql, params), type, partitionColumn, lowerBound,
+				upperBound, numPartitions);
+	}
+
+	@Override
+	public <T> Page<T> page(Class<T> type, String dsql, long currentPage, int pageSize, Object... params) {
+		return page(getDefaultDataSource(), type, dsql, currentPage, pageSize, params);
+	}
+
+	@Override
+	public <T> Page<T> page(DataSource dataSource, Class<T> type, String dsql, long currentPage, int pageSize,
+			Object... params) {
+		return paging(dataSource, type, dsql, null, currentPage, pageSize, params, null);
 	}
 
 	@Override
@@ -661,51 +894,7 @@ public abstract class AbstractDao implements Dao {
 	@Override
 	public <T> Page<T> page(DataSource dataSource, Class<T> type, String dsql, String cntDsql, long currentPage,
 			int pageSize, Object... params) {
-		Connection con = null;
-		Page<T> page = new Page<T>();
-		page.setCurrentPage(currentPage);
-		page.setPageSize(pageSize);
-		try {
-			con = dataSource.getConnection();
-			con.setAutoCommit(true);
-			// con.setReadOnly(true);
-			boolean showSql = isShowSql();
-			SQLDialect dialect = getSQLDialect(dataSource);
-			Paging.initCountEnv(dialect);// 初始化Paging的计数查询SQL解析环境
-			NamedSQL countNamedSQL = parse(cntDsql, params);
-			Script<List<Object>> sql;
-			if (Paging.isCounted()) {
-				sql = toJDBC(countNamedSQL.getScript(), countNamedSQL.getParams());
-			} else {
-				String script = countNamedSQL.getScript();
-				sql = toJDBC(dialect.countSql(script, SQLUtils.getSQLMetaData(script)), countNamedSQL.getParams());
-			}
-			Long total = JDBCExecuteUtils.execute(con, LongResultSQLExecuter.getInstance(), countNamedSQL.getId(),
-					sql.getValue(), sql.getParams(), showSql);
-			page.setTotal(total);
-			if (total != null && total > 0) {
-				page.setTotalPage(total % pageSize == 0 ? total / pageSize : total / pageSize + 1);
-				Paging.initPageEnv(dialect, con, page);// 初始化Paging的分页查询SQL解析环境
-				NamedSQL namedSQL = parse(dsql, params);// 假设存在#[page(……)]，尝试解析分页查询SQL
-				if (Paging.isPaged()) {// DSL已被Paging解析为分页查询SQL
-					sql = toJDBC(namedSQL.getScript(), namedSQL.getParams());
-				} else {
-					String script = namedSQL.getScript();
-					sql = toJDBC(dialect.pageSql(con, script, namedSQL.getParams(), SQLUtils.getSQLMetaData(script),
-							pageSize, currentPage), namedSQL.getParams());
-				}
-				page.setRows(JDBCExecuteUtils.execute(con, new SelectSQLExecuter<T>(type), namedSQL.getId(),
-						sql.getValue(), sql.getParams(), showSql));
-			} else {
-				page.setTotalPage(0L);
-			}
-		} catch (SQLException e) {
-			throw new SQLExecutorException(e);
-		} finally {
-			Paging.clear();
-			JDBCUtils.close(con);
-		}
-		return page;
+		return paging(dataSource, type, dsql, cntDsql, currentPage, pageSize, params, null);
 	}
 
 	@Override
@@ -716,62 +905,7 @@ public abstract class AbstractDao implements Dao {
 	@Override
 	public <T> Page<T> page(DataSource dataSource, Class<T> type, String dsql, long currentPage, int pageSize,
 			Object params) {
-		Connection con = null;
-		Page<T> page = new Page<T>();
-		page.setCurrentPage(currentPage);
-		page.setPageSize(pageSize);
-		try {
-			con = dataSource.getConnection();
-			con.setAutoCommit(true);
-			// con.setReadOnly(true);
-			boolean showSql = isShowSql();
-			SQLDialect dialect = getSQLDialect(dataSource);
-			Paging.initCountEnv(dialect);// 初始化Paging的计数查询SQL解析环境
-			NamedSQL namedSQL = parse(dsql, params);// 假设存在#[page(……)]，尝试解析COUNT查询SQL
-			Script<List<Object>> sql;
-			String id = namedSQL.getId();
-			SQLMetaData sqlMetaData;
-			if (Paging.isCounted()) {// 已被Paging解析为COUNT查询SQL
-				sql = toJDBC(namedSQL.getScript(), namedSQL.getParams());
-				Long total = JDBCExecuteUtils.execute(con, LongResultSQLExecuter.getInstance(), id, sql.getValue(),
-						sql.getParams(), showSql);
-				page.setTotal(total);
-				if (total != null && total > 0) {
-					page.setTotalPage(total % pageSize == 0 ? total / pageSize : total / pageSize + 1);
-					Paging.initPageEnv(dialect, con, page);// 初始化Paging的分页查询SQL解析环境
-					namedSQL = parse(dsql, params);// 解析分页查询SQL
-					sql = toJDBC(namedSQL.getScript(), namedSQL.getParams());
-					page.setRows(JDBCExecuteUtils.execute(con, new SelectSQLExecuter<T>(type), id, sql.getValue(),
-							sql.getParams(), showSql));
-				} else {
-					page.setTotalPage(0L);
-				}
-			} else {// 重新按普通场景解析
-				namedSQL = parse(dsql, params);
-				String script = namedSQL.getScript();
-				sqlMetaData = SQLUtils.getSQLMetaData(script);
-				Map<String, Object> usedParams = namedSQL.getParams();
-				sql = toJDBC(dialect.countSql(script, sqlMetaData), usedParams);
-				Long total = JDBCExecuteUtils.execute(con, LongResultSQLExecuter.getInstance(), id, sql.getValue(),
-						sql.getParams(), showSql);
-				page.setTotal(total);
-				if (total != null && total > 0) {
-					page.setTotalPage(total % pageSize == 0 ? total / pageSize : total / pageSize + 1);
-					sql = toJDBC(dialect.pageSql(con, script, usedParams, sqlMetaData, pageSize, currentPage),
-							usedParams);
-					page.setRows(JDBCExecuteUtils.execute(con, new SelectSQLExecuter<T>(type), id, sql.getValue(),
-							sql.getParams(), showSql));
-				} else {
-					page.setTotalPage(0L);
-				}
-			}
-		} catch (SQLException e) {
-			throw new SQLExecutorException(e);
-		} finally {
-			Paging.clear();
-			JDBCUtils.close(con);
-		}
-		return page;
+		return paging(dataSource, type, dsql, null, currentPage, pageSize, params, null);
 	}
 
 	@Override
@@ -782,91 +916,73 @@ public abstract class AbstractDao implements Dao {
 	@Override
 	public <T> Page<T> page(DataSource dataSource, Class<T> type, String dsql, String cntDsql, long currentPage,
 			int pageSize, Object params) {
-		Connection con = null;
-		Page<T> page = new Page<T>();
-		page.setCurrentPage(currentPage);
-		page.setPageSize(pageSize);
-		try {
-			con = dataSource.getConnection();
-			con.setAutoCommit(true);
-			// con.setReadOnly(true);
-			boolean showSql = isShowSql();
-			SQLDialect dialect = getSQLDialect(dataSource);
-			Paging.initCountEnv(dialect);// 初始化Paging的计数查询SQL解析环境
-			NamedSQL countNamedSQL = parse(cntDsql, params);
-			Script<List<Object>> sql;
-			if (Paging.isCounted()) {
-				sql = toJDBC(countNamedSQL.getScript(), countNamedSQL.getParams());
-			} else {
-				String script = countNamedSQL.getScript();
-				sql = toJDBC(dialect.countSql(script, SQLUtils.getSQLMetaData(script)), countNamedSQL.getParams());
-			}
-			Long total = JDBCExecuteUtils.execute(con, LongResultSQLExecuter.getInstance(), countNamedSQL.getId(),
-					sql.getValue(), sql.getParams(), showSql);
-			page.setTotal(total);
-			if (total != null && total > 0) {
-				page.setTotalPage(total % pageSize == 0 ? total / pageSize : total / pageSize + 1);
-				Paging.initPageEnv(dialect, con, page);// 初始化Paging的分页查询SQL解析环境
-				NamedSQL namedSQL = parse(dsql, params);// 假设存在#[page(……)]，尝试解析分页查询SQL
-				if (Paging.isPaged()) {// DSL已被Paging解析为分页查询SQL
-					sql = toJDBC(namedSQL.getScript(), namedSQL.getParams());
-				} else {
-					String script = namedSQL.getScript();
-					sql = toJDBC(dialect.pageSql(con, script, namedSQL.getParams(), SQLUtils.getSQLMetaData(script),
-							pageSize, currentPage), namedSQL.getParams());
-				}
-				page.setRows(JDBCExecuteUtils.execute(con, new SelectSQLExecuter<T>(type), namedSQL.getId(),
-						sql.getValue(), sql.getParams(), showSql));
-			} else {
-				page.setTotalPage(0L);
-			}
-		} catch (SQLException e) {
-			throw new SQLExecutorException(e);
-		} finally {
-			Paging.clear();
-			JDBCUtils.close(con);
-		}
-		return page;
+		return paging(dataSource, type, dsql, cntDsql, currentPage, pageSize, params, null);
+	}
+
+	@Override
+	public <T> Iterator<Page<T>> pages(Class<T> type, String dsql, int pageSize, Object... params) {
+		return pages(getDefaultDataSource(), type, dsql, pageSize, params);
+	}
+
+	@Override
+	public <T> Iterator<Page<T>> pages(DataSource dataSource, Class<T> type, String dsql, int pageSize,
+			Object... params) {
+		return new PagesIterator<T>(this, dataSource, type, dsql, pageSize, params, getDefaultPrefetch());
+	}
+
+	@Override
+	public <T> Iterator<Page<T>> pages(Class<T> type, String dsql, int pageSize, Object params) {
+		return pages(getDefaultDataSource(), type, dsql, pageSize, params);
+	}
+
+	@Override
+	public <T> Iterator<Page<T>> pages(DataSource dataSource, Class<T> type, String dsql, int pageSize,
+			Object params) {
+		return new PagesIterator<T>(this, dataSource, type, dsql, pageSize, params, getDefaultPrefetch());
 	}
 
 	@Override
 	public boolean execute(String dsql, Object... params) {
-		return execute(getDefaultDataSource(), parse(dsql, params));
+		DataSource dataSource = getDefaultDataSource();
+		return execute(dataSource, parse(dataSource, dsql, params));
 	}
 
 	@Override
 	public boolean execute(DataSource dataSource, String dsql, Object... params) {
-		return execute(dataSource, parse(dsql, params));
+		return execute(dataSource, parse(dataSource, dsql, params));
 	}
 
 	@Override
 	public boolean execute(String dsql, Object params) {
-		return execute(getDefaultDataSource(), parse(dsql, params));
+		DataSource dataSource = getDefaultDataSource();
+		return execute(dataSource, parse(dataSource, dsql, params));
 	}
 
 	@Override
 	public boolean execute(DataSource dataSource, String dsql, Object params) {
-		return execute(dataSource, parse(dsql, params));
+		return execute(dataSource, parse(dataSource, dsql, params));
 	}
 
 	@Override
 	public int executeUpdate(String dsql, Object... params) {
-		return executeUpdate(getDefaultDataSource(), parse(dsql, params));
+		DataSource dataSource = getDefaultDataSource();
+		return executeUpdate(dataSource, parse(dataSource, dsql, params));
 	}
 
 	@Override
 	public int executeUpdate(DataSource dataSource, String dsql, Object... params) {
-		return executeUpdate(dataSource, parse(dsql, params));
+		return executeUpdate(dataSource, parse(dataSource, dsql, params));
 	}
 
 	@Override
 	public int executeUpdate(String dsql, Object params) {
-		return executeUpdate(getDefaultDataSource(), parse(dsql, params));
+		DataSource dataSource = getDefaultDataSource();
+		return executeUpdate(dataSource, parse(dataSource, dsql, params));
 	}
 
 	@Override
 	public int executeUpdate(DataSource dataSource, String dsql, Object params) {
-		return executeUpdate(dataSource, parse(dsql, params));
+		return executeUpdate(dataSource, parse(dataSource, dsql, params));
 	}
 
 	@Override
@@ -902,20 +1018,428 @@ public abstract class AbstractDao implements Dao {
 		}
 	}
 
-	private NamedSQL parse(String dsql, Object... params) {
-		return getDSQLFactory().parse(dsql, params);
+	@Override
+	public List<StatementResult> runScript(Reader reader) {
+		return runScript(getDefaultDataSource(), reader);
 	}
 
-	private NamedSQL parse(String dsql, Object params) {
-		return getDSQLFactory().parse(dsql, params);
+	@Override
+	public List<StatementResult> runScript(DataSource dataSource, Reader reader) {
+		List<String> statements;
+		try {
+			statements = ScriptUtils.split(ScriptUtils.read(reader), getSQLDialect(dataSource).getScriptSyntax());
+		} catch (IOException e) {
+			throw new SQLExecutorException("An exception occurred while reading the SQL script", e);
+		}
+		Connection con = null;
+		try {
+			con = WorkloadLaneDataSource.getConnection(dataSource, Workload.BULK);
+			con.setAutoCommit(false);
+			// con.setReadOnly(false);
+			List<StatementResult> results = JDBCExecuteUtils.runScript(con, statements, getDefaultBatchSize(),
+					isShowSql());
+			con.commit();
+			return results;
+		} catch (SQLException e) {
+			try {
+				con.rollback();
+			} catch (SQLException ex) {
+				ex.printStackTrace();
+			}
+			throw new SQLExecutorException(e);
+		} finally {
+			JDBCUtils.close(con);
+		}
+	}
+
+	@Override
+	public List<StatementResult> runScript(Path path) {
+		return runScript(getDefaultDataSource(), path);
+	}
+
+	@Override
+	public List<StatementResult> runScript(DataSource dataSource, Path path) {
+		Reader reader = null;
+		try {
+			reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+			return runScript(dataSource, reader);
+		} catch (IOException e) {
+			throw new SQLExecutorException("An exception occurred while reading the SQL script " + path, e);
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	@Override
+	public MultiQuery multi() {
+		return multi(getDefaultDataSource());
+	}
+
+	@Override
+	public MultiQuery multi(DataSource dataSource) {
+		return new BasicMultiQuery(this, dataSource);
+	}
+
+	@Override
+	public Sharding sharding() {
+		ShardingRule shardingRule = getShardingRule();
+		if (shardingRule == null) {
+			throw new IllegalConfigException(
+					"Sharding is not configured, please check the configuration of sqltool.sharding.dataSources");
+		}
+		List<String> names = shardingRule.getDataSourceNames();
+		List<DataSource> dataSources = new ArrayList<DataSource>(names.size());
+		DataSource dataSource;
+		for (int i = 0, size = names.size(); i < size; i++) {
+			dataSource = getDataSource(names.get(i));
+			if (dataSource == null) {
+				throw new IllegalConfigException("Datasource for sharding not found: ".concat(names.get(i)));
+			}
+			dataSources.add(dataSource);
+		}
+		return sharding(dataSources, shardingRule.getShardFunction());
+	}
+
+	@Override
+	public Sharding sharding(List<DataSource> dataSources, ShardFunction shardFunction) {
+		return new BasicSharding(this, dataSources, shardFunction);
+	}
+
+	@Override
+	public <T> FanOutResult<T> selectAll(Class<T> type, String dsql, Object... params) {
+		return selectAll(null, null, type, dsql, (Object) params);
 	}
 
-	private Script<List<Object>> toJDBC(NamedSQL namedSQL) {
-		return getDSQLFactory().toJDBC(namedSQL);
+	@Override
+	public <T> FanOutResult<T> selectAll(Class<T> type, String dsql, Object params) {
+		return selectAll(null, null, type, dsql, params);
+	}
+
+	@Override
+	public <T> FanOutResult<T> selectAll(Collection<String> dataSourceNames, StatementOptions options, Class<T> type,
+			String dsql, Object... params) {
+		return selectAll(dataSourceNames, options, type, dsql, (Object) params);
+	}
+
+	@Override
+	public <T> FanOutResult<T> selectAll(Collection<String> dataSourceNames, final StatementOptions options,
+			final Class<T> type, String dsql, Object params) {
+		Map<String, DataSource> dataSources = getDataSources(dataSourceNames);
+		List<String> names = new ArrayList<String>(dataSources.size());
+		List<Callable<List<T>>> tasks = new ArrayList<Callable<List<T>>>(dataSources.size());
+		NamedSQL first = null;
+		for (Iterator<Entry<String, DataSource>> it = dataSources.entrySet().iterator(); it.hasNext();) {
+			Entry<String, DataSource> entry = it.next();
+			final DataSource dataSource = entry.getValue();
+			final NamedSQL namedSQL = parse(dataSource, dsql, params);// 各数据源的方言可能不同，分别解析
+			if (first == null) {
+				first = namedSQL;
+			}
+			names.add(entry.getKey());
+			tasks.add(new Callable<List<T>>() {
+				@Override
+				public List<T> call() throws Exception {
+					return select(dataSource, namedSQL, type, options);
+				}
+			});
+		}
+		// 执行前校验查询结果能否归并，不能归并时不执行查询
+		boolean nullsLargest = getSQLDialect(dataSources.values().iterator().next()).isNullsLargest();
+		ShardingUtils.merge(new ArrayList<List<T>>(), type, first.getScript(), first.getParams(), nullsLargest);
+		Integer queryTimeout = options == null ? null : options.getQueryTimeout();
+		List<Outcome<List<T>>> outcomes = ParallelTasks.invokeEach(tasks, getFanOutParallelism(),
+				queryTimeout == null ? 0 : queryTimeout * 1000L);
+		Map<String, List<T>> results = new LinkedHashMap<String, List<T>>();
+		Map<String, Throwable> failures = new LinkedHashMap<String, Throwable>();
+		Map<String, Long> elapsed = new LinkedHashMap<String, Long>();
+		List<List<T>> successes = new ArrayList<List<T>>(outcomes.size());
+		Outcome<List<T>> outcome;
+		for (int i = 0, size = outcomes.size(); i < size; i++) {
+			outcome = outcomes.get(i);
+			elapsed.put(names.get(i), outcome.getElapsedMillis());
+			if (outcome.getFailure() == null) {
+				results.put(names.get(i), outcome.getResult());
+				successes.add(outcome.getResult());
+			} else {
+				failures.put(names.get(i), outcome.getFailure());
+			}
+		}
+		FanOutResult<T> fanOutResult = new FanOutResult<T>();
+		fanOutResult.setRows(ShardingUtils.merge(successes, type, first.getScript(), first.getParams(), nullsLargest));
+		fanOutResult.setResults(results);
+		fanOutResult.setFailures(failures);
+		fanOutResult.setElapsed(elapsed);
+		return fanOutResult;
+	}
+
+	/**
+	 * 获取指定名称的数据源
+	 *
+	 * @param dataSourceNames
+	 *            数据源名称，为null时获取所有数据源
+	 * @return 返回以数据源名称为键的数据源。获取所有数据源时按名称排序，否则按指定的顺序排列
+	 */
+	private Map<String, DataSource> getDataSources(Collection<String> dataSourceNames) {
+		Map<String, DataSource> dataSources;
+		if (dataSourceNames == null) {
+			dataSources = new TreeMap<String, DataSource>(getDataSources());
+		} else {
+			dataSources = new LinkedHashMap<String, DataSource>();
+			String name;
+			DataSource dataSource;
+			for (Iterator<String> it = dataSourceNames.iterator(); it.hasNext();) {
+				name = it.next();
+				dataSource = getDataSource(name);
+				if (dataSource == null) {
+					throw new IllegalCallException("Datasource not found: ".concat(String.valueOf(name)));
+				}
+				dataSources.put(name, dataSource);
+			}
+		}
+		if (dataSources.isEmpty()) {
+			throw new IllegalCallException("At least one datasource is required for fan-out query");
+		}
+		return dataSources;
+	}
+
+	private NamedSQL parse(DataSource dataSource, String dsql, Object... params) {
+		SQLDialect dialect = getSQLDialect(dataSource);
+		Hint.initEnv(dialect);// 初始化宏的解析环境
+		Sampling.initEnv(dialect);
+		try {
+			return getDSQLFactory(dsql).parse(dsql, params);
+		} finally {
+			Hint.clear();
+			Sampling.clear();
+		}
+	}
+
+	private NamedSQL parse(DataSource dataSource, String dsql, Object params) {
+		SQLDialect dialect = getSQLDialect(dataSource);
+		Hint.initEnv(dialect);// 初始化宏的解析环境
+		Sampling.initEnv(dialect);
+		try {
+			return getDSQLFactory(dsql).parse(dsql, params);
+		} finally {
+			Hint.clear();
+			Sampling.clear();
+		}
+	}
+
+	private Script<List<Object>> toJDBC(DataSource dataSource, String id, String namedScript,
+			Map<String, Object> params) {
+		Script<Map<String, Object>> normalized = normalize(dataSource, namedScript, params);
+		return CompiledSQLUtils.toJDBC(getDSQLFactory(null), id, normalized.getValue(), normalized.getParams());
 	}
 
 	private Script<List<Object>> toJDBC(String namedscript, Map<String, ?> params) {
-		return getDSQLFactory().toJDBC(namedscript, params);
+		return getDSQLFactory(null).toJDBC(namedscript, params);
+	}
+
+	/**
+	 * 按数据源配置的集合参数绑定方式规范化命名参数SQL中的集合参数
+	 *
+	 * @param dataSource
+	 *            数据源
+	 * @param namedScript
+	 *            命名参数SQL
+	 * @param params
+	 *            参数集
+	 * @return 返回规范化后的命名参数SQL及参数集
+	 */
+	private Script<Map<String, Object>> normalize(DataSource dataSource, String namedScript,
+			Map<String, Object> params) {
+		String inListBinding = IN_LIST_BINDINGS.get(dataSource);
+		if (inListBinding == null) {
+			return new Script<Map<String, Object>>(namedScript, params);
+		}
+		return InListUtils.normalize(namedScript, params, inListBinding, getSQLDialect(dataSource));
+	}
+
+	/**
+	 * 解析动态结构化查询语言。参数为数组时按分别列出参数名和参数值的方式解析，否则按参数对象解析
+	 *
+	 * @param dataSource
+	 *            数据源
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param params
+	 *            参数
+	 * @return 返回命名参数SQL对象
+	 */
+	NamedSQL parseDSQL(DataSource dataSource, String dsql, Object params) {
+		return params instanceof Object[] ? parse(dataSource, dsql, (Object[]) params)
+				: parse(dataSource, dsql, params);
+	}
+
+	/**
+	 * 分页查询
+	 *
+	 * @param dataSource
+	 *            数据源
+	 * @param type
+	 *            指定类
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param cntDsql
+	 *            统计总数的动态结构化查询语言，可为null
+	 * @param currentPage
+	 *            页码
+	 * @param pageSize
+	 *            页容量
+	 * @param params
+	 *            参数
+	 * @param total
+	 *            已知的总记录数。为null时执行计数查询，否则不再执行计数查询
+	 * @return 返回查询到的对象并封装为Page对象
+	 */
+	<T> Page<T> paging(DataSource dataSource, Class<T> type, String dsql, String cntDsql, long currentPage,
+			int pageSize, Object params, Long total) {
+		Connection con = null;
+		Page<T> page = new Page<T>();
+		page.setCurrentPage(currentPage);
+		page.setPageSize(pageSize);
+		try {
+			con = RoutingDataSource.getConnection(dataSource, true);
+			con.setAutoCommit(true);
+			// con.setReadOnly(true);
+			boolean showSql = isShowSql();
+			SQLDialect dialect = getSQLDialect(dataSource);
+			NamedSQL namedSQL = parseDSQL(dataSource, dsql, params),
+					countNamedSQL = cntDsql == null ? namedSQL : parseDSQL(dataSource, cntDsql, params);
+			PagingPlan pagingPlan = getPagingPlan(dataSource, con, dialect, dsql, cntDsql, namedSQL, countNamedSQL,
+					params);
+			String sql;
+			List<Object> sqlParams;
+			if (total == null) {
+				CompiledSQL compiledSQL = pagingPlan.getCountSQL();
+				if (compiledSQL == null) {
+					Script<List<Object>> script = toJDBC(pagingPlan.getCountScript(), countNamedSQL.getParams());
+					sql = script.getValue();
+					sqlParams = script.getParams();
+				} else {// 使用已编译的计数查询SQL，仅需绑定参数
+					sql = compiledSQL.getScript();
+					sqlParams = CompiledSQLUtils.bind(compiledSQL, countNamedSQL.getParams());
+				}
+				total = JDBCExecuteUtils.execute(con, withOptions(dialect, countNamedSQL.getId(),
+						LongResultSQLExecuter.getInstance(), null), countNamedSQL.getId(), sql, sqlParams, showSql);
+			}
+			page.setTotal(total);
+			if (total != null && total > 0) {
+				page.setTotalPage(total % pageSize == 0 ? total / pageSize : total / pageSize + 1);
+				if (pagingPlan.getPageSegments() == null) {
+					Paging.initPageEnv(dialect, con, page);// 初始化Paging的分页查询SQL解析环境
+					NamedSQL pageNamedSQL = parseDSQL(dataSource, dsql, params);// 假设存在#[page(……)]，尝试解析分页查询SQL
+					Script<List<Object>> script;
+					if (Paging.isPaged()) {// DSL已被Paging解析为分页查询SQL
+						script = getDSQLFactory(null).toJDBC(pageNamedSQL);
+					} else {
+						String namedScript = namedSQL.getScript();
+						Map<String, Object> usedParams = namedSQL.getParams();
+						script = toJDBC(dialect.pageSql(con, namedScript, usedParams,
+								SQLUtils.getSQLMetaData(namedScript), pageSize, currentPage), usedParams);
+					}
+					sql = script.getValue();
+					sqlParams = script.getParams();
+				} else {// 使用分页查询SQL模板，仅需替换页码相关数值并绑定参数
+					sql = PagingPlanUtils.render(pagingPlan, pageSize, currentPage);
+					sqlParams = CompiledSQLUtils.bind(pagingPlan.getPageSQL(), namedSQL.getParams());
+				}
+				page.setRows(JDBCExecuteUtils.execute(con,
+						withOptions(dialect, namedSQL.getId(), new SelectSQLExecuter<T>(type), null), namedSQL.getId(),
+						sql, sqlParams, showSql));
+			} else {
+				page.setTotalPage(0L);
+			}
+		} catch (SQLException e) {
+			throw new SQLExecutorException(e);
+		} finally {
+			Paging.clear();
+			JDBCUtils.close(con);
+		}
+		return page;
+	}
+
+	/**
+	 * 获取分页查询计划。分页查询计划按数据源缓存，其键由DSQL、解析后的命名参数SQL及集合参数的大小组成，解析结果相同的分页查询将直接复用已编译的计数查询SQL和分页查询SQL模板
+	 *
+	 * @param dataSource
+	 *            数据源
+	 * @param con
+	 *            数据库连接
+	 * @param dialect
+	 *            SQL方言
+	 * @param dsql
+	 *            动态结构化查询语言
+	 * @param cntDsql
+	 *            统计总数的动态结构化查询语言，可为null
+	 * @param namedSQL
+	 *            动态结构化查询语言的解析结果
+	 * @param countNamedSQL
+	 *            统计总数的动态结构化查询语言的解析结果
+	 * @param params
+	 *            参数
+	 * @return 返回分页查询计划
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	private PagingPlan getPagingPlan(DataSource dataSource, Connection con, SQLDialect dialect, String dsql,
+			String cntDsql, NamedSQL namedSQL, NamedSQL countNamedSQL, Object params) throws SQLException {
+		String key = PagingPlanUtils.getKey(dsql, cntDsql, namedSQL.getScript(), namedSQL.getParams(),
+				countNamedSQL.getScript(), countNamedSQL.getParams());
+		PagingPlan pagingPlan = key == null ? null : PagingPlanUtils.getCachedPagingPlan(dataSource, key);
+		if (pagingPlan != null) {
+			return pagingPlan;
+		}
+		pagingPlan = new PagingPlan();
+		try {
+			Paging.initCountEnv(dialect);// 初始化Paging的计数查询SQL解析环境
+			NamedSQL counted = parseDSQL(dataSource, cntDsql == null ? dsql : cntDsql, params);// 假设存在#[page(……)]，尝试解析COUNT查询SQL
+			String countScript;
+			if (Paging.isCounted()) {// 已被Paging解析为COUNT查询SQL
+				countScript = counted.getScript();
+			} else {
+				String script = countNamedSQL.getScript();
+				countScript = dialect.countSql(script, SQLUtils.getSQLMetaData(script));
+			}
+			pagingPlan.setCountScript(countScript);
+			if (key == null) {// 参数形态无法确定，不编译也不缓存
+				return pagingPlan;
+			}
+			Map<String, Object> usedParams = namedSQL.getParams();
+			pagingPlan.setCountSQL(
+					CompiledSQLUtils.compile(getDSQLFactory(null), countScript, countNamedSQL.getParams()));
+			Paging.initPageEnv(dialect, con,
+					new Page<Object>(PagingPlanUtils.SENTINEL_PAGE, PagingPlanUtils.SENTINEL_PAGE_SIZE));
+			NamedSQL sentinel = parseDSQL(dataSource, dsql, params);// 假设存在#[page(……)]，尝试解析分页查询SQL
+			CompiledSQL sentinelSQL, checkSQL;
+			if (Paging.isPaged()) {// DSL已被Paging解析为分页查询SQL
+				pagingPlan.setPaged(true);
+				sentinelSQL = CompiledSQLUtils.compile(getDSQLFactory(null), sentinel.getScript(), usedParams);
+				Paging.initPageEnv(dialect, con,
+						new Page<Object>(PagingPlanUtils.SENTINEL_PAGE, PagingPlanUtils.CHECK_PAGE_SIZE));
+				checkSQL = CompiledSQLUtils.compile(getDSQLFactory(null),
+						parseDSQL(dataSource, dsql, params).getScript(), usedParams);
+			} else {
+				String script = namedSQL.getScript();
+				SQLMetaData sqlMetaData = SQLUtils.getSQLMetaData(script);
+				sentinelSQL = CompiledSQLUtils.compile(getDSQLFactory(null), dialect.pageSql(con, script, usedParams,
+						sqlMetaData, PagingPlanUtils.SENTINEL_PAGE_SIZE, PagingPlanUtils.SENTINEL_PAGE), usedParams);
+				checkSQL = CompiledSQLUtils.compile(getDSQLFactory(null), dialect.pageSql(con, script, usedParams,
+						sqlMetaData, PagingPlanUtils.CHECK_PAGE_SIZE, PagingPlanUtils.SENTINEL_PAGE), usedParams);
+			}
+			PagingPlanUtils.template(pagingPlan, sentinelSQL, checkSQL);
+			PagingPlanUtils.cachePagingPlan(dataSource, key, pagingPlan);
+		} finally {
+			Paging.clear();
+		}
+		return pagingPlan;
 	}
 
 	private <T> T execute(DataSource dataSource, Object obj, DMLParser dmlParser, SQLExecuter<T> sqlExecuter) {
@@ -923,12 +1447,35 @@ public abstract class AbstractDao implements Dao {
 		return execute(dataSource, null, dml.getSql(), EntityUtils.getParams(obj, dml.getFields()), sqlExecuter);
 	}
 
-	private <T> T execute(DataSource dataSource, String id, String sql, List<Object> params,
+	private <T> T execute(final DataSource dataSource, final String id, final String sql, final List<Object> params,
+			final SQLExecuter<T> sqlExecuter) {
+		SingleFlight singleFlight = getSingleFlight();
+		if (singleFlight != null && sqlExecuter.isReadOnly() && singleFlight.isEnabled(id)) {
+			return singleFlight.execute(dataSource, sql, params, sqlExecuter, new Callable<T>() {
+				@Override
+				public T call() {
+					return executeDirectly(dataSource, id, sql, params, sqlExecuter);
+				}
+			});
+		}
+		return executeDirectly(dataSource, id, sql, params, sqlExecuter);
+	}
+
+	private <T> T executeDirectly(DataSource dataSource, String id, String sql, List<Object> params,
 			SQLExecuter<T> sqlExecuter) {
+		HedgePolicy hedgePolicy = getHedgePolicy();
+		if (hedgePolicy != null && id != null && sqlExecuter.isReadOnly() && dataSource instanceof RoutingDataSource) {
+			try {
+				return HedgedRead.execute((RoutingDataSource) dataSource, hedgePolicy, id, sql, params, sqlExecuter,
+						isShowSql());
+			} catch (SQLException e) {
+				throw new SQLExecutorException(e);
+			}
+		}
 		Connection con = null;
 		T result = null;
 		try {
-			con = dataSource.getConnection();
+			con = RoutingDataSource.getConnection(dataSource, sqlExecuter.isReadOnly());
 			con.setAutoCommit(true);
 			// con.setReadOnly(sqlExecuter.isReadOnly());
 			result = JDBCExecuteUtils.execute(con, sqlExecuter, id, sql, params, isShowSql());
@@ -940,6 +1487,21 @@ public abstract class AbstractDao implements Dao {
 		return result;
 	}
 
+	private <T> List<T> getAll(DataSource dataSource, Class<T> type, List<List<Object>> keys) {
+		Connection con = null;
+		try {
+			con = RoutingDataSource.getConnection(dataSource, true);
+			con.setAutoCommit(true);
+			// con.setReadOnly(true);
+			return JDBCExecuteUtils.getAll(con, getSQLDialect(dataSource), type, keys, getDefaultBatchSize(),
+					isShowSql());
+		} catch (SQLException e) {
+			throw new SQLExecutorException(e);
+		} finally {
+			JDBCUtils.close(con);
+		}
+	}
+
 	private <T> int execute(DataSource dataSource, List<T> rows, DMLParser dmlParser) {
 		Connection con = null;
 		try {
@@ -1021,14 +1583,334 @@ public abstract class AbstractDao implements Dao {
 	}
 
 	private <T> T execute(DataSource dataSource, NamedSQL namedSQL, SQLExecuter<T> sqlExecuter) {
-		Script<List<Object>> sql = toJDBC(namedSQL);
-		return execute(dataSource, namedSQL.getId(), sql.getValue(), sql.getParams(), sqlExecuter);
+		return execute(dataSource, namedSQL, sqlExecuter, null);
+	}
+
+	private <T> T execute(DataSource dataSource, NamedSQL namedSQL, SQLExecuter<T> sqlExecuter,
+			StatementOptions options) {
+		return execute(dataSource, namedSQL.getId(), namedSQL.getScript(), namedSQL.getParams(), sqlExecuter,
+				options);
+	}
+
+	/**
+	 * 执行命名参数SQL。语句选项（含DSQL元素上配置的语句选项）指定了工作负载类别时，按该类别获取连接
+	 *
+	 * @param dataSource
+	 *            数据源
+	 * @param id
+	 *            DSQL编号
+	 * @param namedScript
+	 *            命名参数SQL
+	 * @param params
+	 *            参数集
+	 * @param sqlExecuter
+	 *            SQL执行器
+	 * @param options
+	 *            语句选项
+	 * @return 返回执行SQL的返回值
+	 */
+	private <T> T execute(DataSource dataSource, String id, String namedScript, Map<String, Object> params,
+			SQLExecuter<T> sqlExecuter, StatementOptions options) {
+		options = getStatementOptions(getSQLDialect(dataSource), id, sqlExecuter.isReadOnly(), options);
+		if (options == null) {
+			return execute(dataSource, id, namedScript, params, sqlExecuter);
+		}
+		Workload workload = options.getWorkload(), previous = CurrentWorkloadHolder.get();
+		if (workload != null) {
+			CurrentWorkloadHolder.set(workload);
+		}
+		try {
+			return execute(dataSource, id, namedScript, params,
+					new StatementOptionsSQLExecuter<T>(sqlExecuter, options));
+		} finally {
+			if (workload != null) {
+				CurrentWorkloadHolder.restore(previous);
+			}
+		}
+	}
+
+	private <T> T execute(DataSource dataSource, String id, String namedScript, Map<String, Object> params,
+			SQLExecuter<T> sqlExecuter) {
+		Map<TempTable, Collection<?>> tempTables = new LinkedHashMap<TempTable, Collection<?>>();
+		Script<Map<String, Object>> rewritten = TempTableUtils.toTempTables(namedScript, params,
+				getSQLDialect(dataSource), getTempTableThreshold(), tempTables);
+		if (tempTables.isEmpty()) {
+			Script<List<Object>> sql = toJDBC(dataSource, id, namedScript, params);
+			return execute(dataSource, id, sql.getValue(), sql.getParams(), sqlExecuter);
+		}
+		Script<List<Object>> sql = toJDBC(dataSource, id, rewritten.getValue(), rewritten.getParams());
+		return execute(dataSource, id, sql.getValue(), sql.getParams(), sqlExecuter, tempTables);
+	}
+
+	/**
+	 * 使用临时表执行SQL。临时表在同一连接上创建并插入集合元素，执行完毕后删除（或清空）
+	 *
+	 * @param dataSource
+	 *            数据源
+	 * @param id
+	 *            DSQL编号
+	 * @param sql
+	 *            SQL
+	 * @param params
+	 *            参数
+	 * @param sqlExecuter
+	 *            SQL执行器
+	 * @param tempTables
+	 *            临时表及其元素
+	 * @return 返回执行SQL的返回值
+	 */
+	private <T> T execute(DataSource dataSource, String id, String sql, List<Object> params,
+			SQLExecuter<T> sqlExecuter, Map<TempTable, Collection<?>> tempTables) {
+		Connection con = null;
+		try {
+			con = dataSource.getConnection();
+			con.setAutoCommit(true);
+			// con.setReadOnly(sqlExecuter.isReadOnly());
+			return execute(con, id, sql, params, sqlExecuter, tempTables);
+		} catch (SQLException e) {
+			throw new SQLExecutorException(e);
+		} finally {
+			JDBCUtils.close(con);
+		}
+	}
+
+	/**
+	 * 在指定连接上使用临时表执行SQL。临时表在该连接上创建并插入集合元素，执行完毕后删除（或清空）
+	 *
+	 * @param con
+	 *            连接对象
+	 * @param id
+	 *            DSQL编号
+	 * @param sql
+	 *            SQL
+	 * @param params
+	 *            参数
+	 * @param sqlExecuter
+	 *            SQL执行器
+	 * @param tempTables
+	 *            临时表及其元素，为空时直接执行SQL
+	 * @return 返回执行SQL的返回值
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	private <T> T execute(Connection con, String id, String sql, List<Object> params, SQLExecuter<T> sqlExecuter,
+			Map<TempTable, Collection<?>> tempTables) throws SQLException {
+		List<TempTable> created = new ArrayList<TempTable>();
+		boolean showSql = isShowSql();
+		try {
+			for (Iterator<Entry<TempTable, Collection<?>>> it = tempTables.entrySet().iterator(); it.hasNext();) {
+				Entry<TempTable, Collection<?>> entry = it.next();
+				created.add(entry.getKey());
+				JDBCExecuteUtils.createTempTable(con, entry.getKey(), entry.getValue(), getDefaultBatchSize(),
+						showSql);
+			}
+			T result = JDBCExecuteUtils.execute(con, sqlExecuter, id, sql, params, showSql);
+			while (!created.isEmpty()) {
+				JDBCExecuteUtils.dropTempTable(con, created.remove(created.size() - 1), showSql);
+			}
+			return result;
+		} finally {
+			for (int i = created.size() - 1; i >= 0; i--) {// 执行异常时仍尽量删除临时表，并保留原异常
+				try {
+					JDBCExecuteUtils.dropTempTable(con, created.get(i), showSql);
+				} catch (SQLException e) {
+					e.printStackTrace();
+				}
+			}
+		}
 	}
 
-	private <T> List<T> select(DataSource dataSource, NamedSQL namedSQL, Class<T> type) {
+	/**
+	 * 使用同一连接执行多个查询。数据源支持、无需使用临时表且各查询的语句选项可以合并时以一条语句发送所有查询，否则在该连接上依次执行
+	 *
+	 * @param dataSource
+	 *            数据源
+	 * @param namedSQLs
+	 *            命名参数SQL对象列表
+	 * @param sqlExecuters
+	 *            与命名参数SQL对象一一对应的SQL执行器
+	 * @return 返回与命名参数SQL对象一一对应的执行结果
+	 */
+	List<Object> executeMulti(DataSource dataSource, List<NamedSQL> namedSQLs, List<SQLExecuter<?>> sqlExecuters) {
+		SQLDialect dialect = getSQLDialect(dataSource);
+		int size = namedSQLs.size();
+		List<Script<List<Object>>> sqls = new ArrayList<Script<List<Object>>>(size);
+		List<Map<TempTable, Collection<?>>> tempTablesList = new ArrayList<Map<TempTable, Collection<?>>>(size);
+		StringBuilder ids = new StringBuilder();
+		boolean multi = size > 1, readOnly = true;
+		NamedSQL namedSQL;
+		Map<TempTable, Collection<?>> tempTables;
+		Script<Map<String, Object>> rewritten;
+		for (int i = 0; i < size; i++) {
+			namedSQL = namedSQLs.get(i);
+			tempTables = new LinkedHashMap<TempTable, Collection<?>>();
+			rewritten = TempTableUtils.toTempTables(namedSQL.getScript(), namedSQL.getParams(), dialect,
+					getTempTableThreshold(), tempTables);
+			if (tempTables.isEmpty()) {
+				sqls.add(toJDBC(dataSource, namedSQL.getId(), namedSQL.getScript(), namedSQL.getParams()));
+			} else {// 临时表须在查询前创建，无法合并为一条语句
+				multi = false;
+				readOnly = false;
+				sqls.add(toJDBC(dataSource, namedSQL.getId(), rewritten.getValue(), rewritten.getParams()));
+			}
+			tempTablesList.add(tempTables);
+			if (namedSQL.getId() != null) {
+				ids.append(ids.length() > 0 ? JDBCExecuteUtils.COMMA_SPACE : "").append(namedSQL.getId());
+			}
+		}
+		Connection con = null;
+		try {
+			con = RoutingDataSource.getConnection(dataSource, readOnly);// 临时表须在主库创建
+			con.setAutoCommit(true);
+			// con.setReadOnly(true);
+			if (multi && dialect.supportsMultiQueries(con.getMetaData().getURL())) {
+				List<StatementOptions> optionsList = new ArrayList<StatementOptions>(size);
+				for (int i = 0; i < size; i++) {
+					optionsList.add(getStatementOptions(dialect, namedSQLs.get(i).getId(),
+							sqlExecuters.get(i).isReadOnly(), null));
+				}
+				StatementOptions merged = merge(sqlExecuters, optionsList);
+				if (merged != null) {
+					return JDBCExecuteUtils.executeMulti(con, sqlExecuters, merged, optionsList,
+							ids.length() > 0 ? ids.toString() : null, sqls, isShowSql());
+				}
+			}
+			List<Object> results = new ArrayList<Object>(size);
+			Script<List<Object>> sql;
+			String id;
+			for (int i = 0; i < size; i++) {
+				sql = sqls.get(i);
+				id = namedSQLs.get(i).getId();
+				results.add(execute(con, id, sql.getValue(), sql.getParams(),
+						withOptions(dialect, id, sqlExecuters.get(i), null), tempTablesList.get(i)));
+			}
+			return results;
+		} catch (SQLException e) {
+			throw new SQLExecutorException(e);
+		} finally {
+			JDBCUtils.close(con);
+		}
+	}
+
+	/**
+	 * 合并以一条语句执行的多个查询的语句选项。每次获取的行数取最大值（各结果集仍使用各自的值）；查询超时时间作用于整条语句，取各查询之和；
+	 * 最大行数作用于每个结果集，所有查询均有上限（查询单条记录时为{@link GetSQLExecuter#MAX_ROWS}）时取最大值，否则不限制
+	 *
+	 * @param sqlExecuters
+	 *            与查询一一对应的SQL执行器
+	 * @param optionsList
+	 *            与查询一一对应的语句选项
+	 * @return 返回合并后的语句选项。部分查询指定了查询超时时间，或指定的最大行数与合并后的值不同而无法以一条语句执行时返回null
+	 */
+	private static StatementOptions merge(List<SQLExecuter<?>> sqlExecuters, List<StatementOptions> optionsList) {
+		Integer fetchSize = null, maxRows = null, queryTimeout = null, value;
+		boolean bounded = true, timed = false, untimed = false;
+		StatementOptions options;
+		for (int i = 0, size = optionsList.size(); i < size; i++) {
+			options = optionsList.get(i);
+			value = options == null ? null : options.getFetchSize();
+			if (value != null && (fetchSize == null || value > fetchSize)) {
+				fetchSize = value;
+			}
+			value = options == null ? null : options.getMaxRows();
+			if ((value == null || value <= 0) && sqlExecuters.get(i) instanceof GetSQLExecuter) {
+				value = GetSQLExecuter.MAX_ROWS;
+			}
+			if (value == null || value <= 0) {
+				bounded = false;
+			} else if (maxRows == null || value > maxRows) {
+				maxRows = value;
+			}
+			value = options == null ? null : options.getQueryTimeout();
+			if (value == null || value <= 0) {
+				untimed = true;
+			} else {
+				timed = true;
+				queryTimeout = queryTimeout == null ? value : queryTimeout + value;
+			}
+		}
+		if (timed && untimed) {
+			return null;
+		}
+		if (!bounded) {
+			maxRows = null;
+		}
+		for (int i = 0, size = optionsList.size(); i < size; i++) {// 指定的最大行数须对共享语句生效
+			options = optionsList.get(i);
+			value = options == null ? null : options.getMaxRows();
+			if (value != null && value > 0 && !value.equals(maxRows)) {
+				return null;
+			}
+		}
+		return new StatementOptions(fetchSize, maxRows, queryTimeout);
+	}
+
+	<T> List<T> select(DataSource dataSource, NamedSQL namedSQL, Class<T> type) {
 		return execute(dataSource, namedSQL, new SelectSQLExecuter<T>(type));
 	}
 
+	private <T> List<T> select(DataSource dataSource, NamedSQL namedSQL, Class<T> type, StatementOptions options) {
+		return execute(dataSource, namedSQL, new SelectSQLExecuter<T>(type), options);
+	}
+
+	/**
+	 * 使用语句选项包装SQL执行器
+	 *
+	 * @param dialect
+	 *            SQL方言
+	 * @param id
+	 *            DSQL编号
+	 * @param sqlExecuter
+	 *            SQL执行器
+	 * @param options
+	 *            指定的语句选项
+	 * @return 返回应用语句选项的SQL执行器。无任何语句选项时返回原SQL执行器
+	 */
+	private <T> SQLExecuter<T> withOptions(SQLDialect dialect, String id, SQLExecuter<T> sqlExecuter,
+			StatementOptions options) {
+		options = getStatementOptions(dialect, id, sqlExecuter.isReadOnly(), options);
+		return options == null ? sqlExecuter : new StatementOptionsSQLExecuter<T>(sqlExecuter, options);
+	}
+
+	/**
+	 * 获取实际使用的语句选项。指定的语句选项中值为null的选项依次使用DSQL元素上配置的语句选项和方言默认的每次获取的行数（仅只读语句）
+	 *
+	 * @param dialect
+	 *            SQL方言
+	 * @param id
+	 *            DSQL编号
+	 * @param readOnly
+	 *            是否只读语句
+	 * @param options
+	 *            指定的语句选项
+	 * @return 返回实际使用的语句选项。无任何语句选项时返回null
+	 */
+	private StatementOptions getStatementOptions(SQLDialect dialect, String id, boolean readOnly,
+			StatementOptions options) {
+		StatementOptions defaults = getStatementOptions(id);
+		int fetchSize = readOnly ? dialect.getDefaultFetchSize() : 0;
+		if (fetchSize > 0) {
+			StatementOptions dialectDefaults = new StatementOptions(fetchSize, null, null);
+			defaults = defaults == null ? dialectDefaults : defaults.withDefaults(dialectDefaults);
+		}
+		return options == null ? defaults : options.withDefaults(defaults);
+	}
+
+	private <T> CloseableIterator<T> selectParallel(DataSource dataSource, NamedSQL namedSQL, Class<T> type,
+			String partitionColumn, long lowerBound, long upperBound, int numPartitions) {
+		Script<Map<String, Object>> normalized = normalize(dataSource, namedSQL.getScript(), namedSQL.getParams());
+		String namedScript = normalized.getValue();
+		Map<String, Object> params = normalized.getParams();
+		List<String> predicates = PartitionUtils.predicates(partitionColumn, lowerBound, upperBound, numPartitions);
+		List<Script<List<Object>>> sqls = new ArrayList<Script<List<Object>>>(predicates.size());
+		for (int i = 0, size = predicates.size(); i < size; i++) {
+			sqls.add(toJDBC(PartitionUtils.wrap(namedScript, predicates.get(i)), params));
+		}
+		return new ParallelSelectIterator<T>(dataSource, type, namedSQL.getId(), sqls,
+				getStatementOptions(getSQLDialect(dataSource), namedSQL.getId(), true, null), isShowSql(),
+				getDefaultBufferSize());
+	}
+
 	private boolean execute(DataSource dataSource, NamedSQL namedSQL) {
 		return execute(dataSource, namedSQL, ExecuteSQLExecuter.getInstance());
 	}
@@ -1,20 +1,15 @@
 package cn.tenmg.sqltool.dao;
 
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Properties;
 
 import javax.sql.DataSource;
 
-import cn.tenmg.dsl.utils.MapUtils;
 import cn.tenmg.dsql.DSQLFactory;
-import cn.tenmg.dsql.factory.XMLFileDSQLFactory;
-import cn.tenmg.sqltool.datasource.DataSourceFactory;
-import cn.tenmg.sqltool.exception.IllegalConfigException;
-import cn.tenmg.sqltool.exception.InitializeDataSourceException;
-import cn.tenmg.sqltool.utils.SQLDialectUtils;
+import cn.tenmg.sqltool.datasource.HedgePolicy;
+import cn.tenmg.sqltool.sharding.ShardingRule;
+import cn.tenmg.sqltool.sql.StatementOptions;
 
 /**
  * 基本数据库访问对象
@@ -25,37 +20,65 @@ import cn.tenmg.sqltool.utils.SQLDialectUtils;
  */
 public class BasicDao extends AbstractDao {
 
-	private static final String DATASOURCE_PREFIX = "sqltool.datasource.", DEFAULT_NAME = "default",
-			DATASOURCE_REGEX = "^".concat(DATASOURCE_PREFIX.replaceAll("\\.", "\\\\."))
-					.concat("([\\S]+\\.){0,1}[^\\.]+$");
-
-	private static final int DATASOURCE_PREFIX_LEN = DATASOURCE_PREFIX.length();
-
 	private DataSource defaultDataSource;
 
 	private Map<String, DataSource> dataSources = new HashMap<String, DataSource>();
 
+	/**
+	 * 根据配置创建时租用的数据源，首次使用时才从JVM范围的数据源注册表获取
+	 */
+	private DataSourceLeases leases;
+
 	private DSQLFactory DSQLFactory;
 
+	private DSQLBundle bundle;
+
 	private boolean showSql;
 
 	private int defaultBatchSize = 500;
 
+	private int defaultPrefetch = 1;
+
+	private int defaultBufferSize = 1000;
+
+	private int tempTableThreshold = 10000;
+
+	private ShardingRule shardingRule;
+
+	private int fanOutParallelism = 8;
+
+	private HedgePolicy hedgePolicy;
+
+	private SingleFlight singleFlight;
+
 	public void setDefaultDataSource(DataSource defaultDataSource) {
 		this.defaultDataSource = defaultDataSource;
 	}
 
 	@Override
 	public DataSource getDefaultDataSource() {
+		if (defaultDataSource == null && leases != null) {
+			return leases.getDefault();
+		}
 		return defaultDataSource;
 	}
 
 	@Override
 	public DataSource getDataSource(String name) {
-		return dataSources.get(name);
+		DataSource dataSource = dataSources.get(name);
+		if (dataSource == null && leases != null) {
+			return leases.get(name);
+		}
+		return dataSource;
 	}
 
+	@Override
 	public Map<String, DataSource> getDataSources() {
+		if (leases == null) {
+			return dataSources;
+		}
+		Map<String, DataSource> dataSources = new HashMap<String, DataSource>(leases.getAll());
+		dataSources.putAll(this.dataSources);
 		return dataSources;
 	}
 
@@ -69,9 +92,25 @@ public class BasicDao extends AbstractDao {
 
 	@Override
 	public DSQLFactory getDSQLFactory() {
+		if (DSQLFactory == null && bundle != null) {// 延迟加载DSQL
+			return bundle.getDSQLFactory();
+		}
+		return DSQLFactory;
+	}
+
+	@Override
+	DSQLFactory getDSQLFactory(String dsql) {
+		if (DSQLFactory == null && bundle != null) {// 延迟加载DSQL
+			return bundle.getDSQLFactory(dsql);
+		}
 		return DSQLFactory;
 	}
 
+	@Override
+	StatementOptions getStatementOptions(String id) {
+		return bundle == null ? null : bundle.getStatementOptions(id);
+	}
+
 	public void setShowSql(boolean showSql) {
 		this.showSql = showSql;
 	}
@@ -90,6 +129,90 @@ public class BasicDao extends AbstractDao {
 		return defaultBatchSize;
 	}
 
+	public void setDefaultPrefetch(int defaultPrefetch) {
+		this.defaultPrefetch = defaultPrefetch;
+	}
+
+	@Override
+	public int getDefaultPrefetch() {
+		return defaultPrefetch;
+	}
+
+	public void setDefaultBufferSize(int defaultBufferSize) {
+		this.defaultBufferSize = defaultBufferSize;
+	}
+
+	@Override
+	public int getDefaultBufferSize() {
+		return defaultBufferSize;
+	}
+
+	public void setTempTableThreshold(int tempTableThreshold) {
+		this.tempTableThreshold = tempTableThreshold;
+	}
+
+	@Override
+	public int getTempTableThreshold() {
+		return tempTableThreshold;
+	}
+
+	public void setShardingRule(ShardingRule shardingRule) {
+		this.shardingRule = shardingRule;
+	}
+
+	@Override
+	public ShardingRule getShardingRule() {
+		return shardingRule;
+	}
+
+	public void setFanOutParallelism(int fanOutParallelism) {
+		this.fanOutParallelism = fanOutParallelism;
+	}
+
+	@Override
+	public int getFanOutParallelism() {
+		return fanOutParallelism;
+	}
+
+	public void setHedgePolicy(HedgePolicy hedgePolicy) {
+		this.hedgePolicy = hedgePolicy;
+	}
+
+	@Override
+	public HedgePolicy getHedgePolicy() {
+		return hedgePolicy;
+	}
+
+	public void setSingleFlight(SingleFlight singleFlight) {
+		this.singleFlight = singleFlight;
+	}
+
+	@Override
+	public SingleFlight getSingleFlight() {
+		return singleFlight;
+	}
+
+	/**
+	 * 设置数据源的集合参数绑定方式
+	 * 
+	 * @param dataSource
+	 *            数据源
+	 * @param inListBinding
+	 *            集合参数的绑定方式：expand（原样展开）、pad（按2的幂次补齐）或array（绑定为数组参数，方言不支持时按2的幂次补齐）
+	 */
+	public void setInListBinding(DataSource dataSource, String inListBinding) {
+		cacheInListBinding(dataSource, inListBinding);
+	}
+
+	/**
+	 * 关闭数据库访问对象，释放根据配置创建时租用的数据源。配置相同的数据源由同一JVM内所有数据库访问对象共享，最后一个引用释放时才关闭
+	 */
+	public void close() {
+		if (leases != null) {
+			leases.close();
+		}
+	}
+
 	public BasicDao() {
 		super();
 	}
@@ -102,66 +225,21 @@ public class BasicDao extends AbstractDao {
 		super();
 		String basePackages = properties.getProperty("sqltool.basePackages"),
 				suffix = properties.getProperty("sqltool.suffix");
-		if (suffix == null) {
-			this.DSQLFactory = new XMLFileDSQLFactory(basePackages);
+		if (Boolean.valueOf(properties.getProperty("sqltool.lazyLoad", "false"))) {
+			this.bundle = DSQLBundle.lazy(basePackages, suffix);
 		} else {
-			this.DSQLFactory = new XMLFileDSQLFactory(basePackages, suffix);
+			this.bundle = DSQLBundle.of(basePackages, suffix);
+			this.DSQLFactory = bundle.getDSQLFactory();
 		}
 		this.showSql = Boolean.valueOf(properties.getProperty("sqltool.showSql", "false"));
 		this.defaultBatchSize = Integer.valueOf(properties.getProperty("sqltool.defaultBatchSize", "500"));
-		Map<String, Properties> dataSourceConfigs = new HashMap<String, Properties>();
-		String key, name, param, firstName = null;
-		Object value;
-		Properties dataSourceConfig;
-		for (Iterator<Entry<Object, Object>> it = properties.entrySet().iterator(); it.hasNext();) {
-			Entry<Object, Object> entry = it.next();
-			key = entry.getKey().toString();
-			value = entry.getValue();
-			if (key.matches(DATASOURCE_REGEX)) {
-				param = key.substring(DATASOURCE_PREFIX_LEN);
-				int index = param.indexOf(".");
-				if (index > 0) {
-					name = param.substring(0, index);
-					param = param.substring(index + 1);
-				} else {
-					name = DEFAULT_NAME;
-				}
-				if (firstName == null) {
-					firstName = name;
-				}
-				dataSourceConfig = dataSourceConfigs.get(name);
-				if (dataSourceConfig == null) {
-					dataSourceConfig = new Properties();
-					dataSourceConfigs.put(name, dataSourceConfig);
-				}
-				dataSourceConfig.put(param, value);
-			}
-		}
-		if (MapUtils.isEmpty(dataSourceConfigs)) {
-			throw new IllegalConfigException("No datasource is configured, please check the configuration");
-		}
-		String defaultName = DEFAULT_NAME;
-		dataSourceConfig = dataSourceConfigs.get(DEFAULT_NAME);
-		if (dataSourceConfig == null) {// 默认数据源不存在则将第一个数据源作为默认数据源
-			defaultName = firstName;
-			dataSourceConfig = dataSourceConfigs.get(firstName);
-		}
-		try {
-			defaultDataSource = DataSourceFactory.createDataSource(dataSourceConfig);
-			dataSources.put(defaultName, defaultDataSource);
-			cacheSQLDialect(defaultDataSource, SQLDialectUtils.getSQLDialect(dataSourceConfig));
-			dataSourceConfigs.remove(defaultName);
-			DataSource dataSource;
-			for (Iterator<Entry<String, Properties>> it = dataSourceConfigs.entrySet().iterator(); it.hasNext();) {
-				Entry<String, Properties> entry = it.next();
-				dataSourceConfig = entry.getValue();
-				dataSource = DataSourceFactory.createDataSource(dataSourceConfig);
-				dataSources.put(entry.getKey(), dataSource);
-				cacheSQLDialect(dataSource, SQLDialectUtils.getSQLDialect(dataSourceConfig));
-			}
-		} catch (Exception e) {
-			throw new InitializeDataSourceException("An exception occurred while initializing datasource(s)", e);
-		}
-		closeDataSourcesWhenShutdown(dataSources.values());
+		this.defaultPrefetch = Integer.valueOf(properties.getProperty("sqltool.defaultPrefetch", "1"));
+		this.defaultBufferSize = Integer.valueOf(properties.getProperty("sqltool.defaultBufferSize", "1000"));
+		this.tempTableThreshold = Integer.valueOf(properties.getProperty("sqltool.tempTableThreshold", "10000"));
+		this.shardingRule = ShardingRule.of(properties);
+		this.fanOutParallelism = Integer.valueOf(properties.getProperty("sqltool.fanOutParallelism", "8"));
+		this.hedgePolicy = HedgePolicy.of(properties);
+		this.singleFlight = SingleFlight.of(properties);
+		this.leases = new DataSourceLeases(properties);
 	}
 }
@@ -0,0 +1,89 @@
+package cn.tenmg.sqltool.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import cn.tenmg.dsql.NamedSQL;
+import cn.tenmg.sqltool.MultiQuery;
+import cn.tenmg.sqltool.data.Result;
+import cn.tenmg.sqltool.exception.IllegalCallException;
+import cn.tenmg.sqltool.sql.SQLExecuter;
+import cn.tenmg.sqltool.sql.executer.GetSQLExecuter;
+import cn.tenmg.sqltool.sql.executer.SelectSQLExecuter;
+
+/**
+ * 基本多查询。添加查询时即解析动态结构化查询语言，执行时由数据库访问对象使用同一连接执行所有查询
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+class BasicMultiQuery implements MultiQuery {
+
+	private final AbstractDao dao;
+
+	private final DataSource dataSource;
+
+	private final List<NamedSQL> namedSQLs = new ArrayList<NamedSQL>();
+
+	private final List<SQLExecuter<?>> sqlExecuters = new ArrayList<SQLExecuter<?>>();
+
+	private final List<Result<?>> results = new ArrayList<Result<?>>();
+
+	private boolean executed = false;
+
+	BasicMultiQuery(AbstractDao dao, DataSource dataSource) {
+		this.dao = dao;
+		this.dataSource = dataSource;
+	}
+
+	@Override
+	public <T> Result<T> get(Class<T> type, String dsql, Object... params) {
+		return add(dsql, params, new GetSQLExecuter<T>(type));
+	}
+
+	@Override
+	public <T> Result<T> get(Class<T> type, String dsql, Object params) {
+		return add(dsql, params, new GetSQLExecuter<T>(type));
+	}
+
+	@Override
+	public <T> Result<List<T>> select(Class<T> type, String dsql, Object... params) {
+		return add(dsql, params, new SelectSQLExecuter<T>(type));
+	}
+
+	@Override
+	public <T> Result<List<T>> select(Class<T> type, String dsql, Object params) {
+		return add(dsql, params, new SelectSQLExecuter<T>(type));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void execute() {
+		if (executed) {
+			throw new IllegalCallException("The multi-query has already been executed");
+		}
+		executed = true;
+		if (namedSQLs.isEmpty()) {
+			return;
+		}
+		List<Object> values = dao.executeMulti(dataSource, namedSQLs, sqlExecuters);
+		for (int i = 0, size = results.size(); i < size; i++) {
+			((Result<Object>) results.get(i)).setValue(values.get(i));
+		}
+	}
+
+	private <T> Result<T> add(String dsql, Object params, SQLExecuter<T> sqlExecuter) {
+		if (executed) {
+			throw new IllegalCallException("Cannot add a query to a multi-query that has already been executed");
+		}
+		namedSQLs.add(dao.parseDSQL(dataSource, dsql, params));
+		sqlExecuters.add(sqlExecuter);
+		Result<T> result = new Result<T>();
+		results.add(result);
+		return result;
+	}
+
+}
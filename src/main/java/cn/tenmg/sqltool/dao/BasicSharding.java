@@ -0,0 +1,277 @@
+package cn.tenmg.sqltool.dao;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+
+import javax.sql.DataSource;
+
+import cn.tenmg.dsl.utils.CollectionUtils;
+import cn.tenmg.dsql.NamedSQL;
+import cn.tenmg.sqltool.Sharding;
+import cn.tenmg.sqltool.dao.ParallelTasks.Outcome;
+import cn.tenmg.sqltool.exception.IllegalCallException;
+import cn.tenmg.sqltool.exception.IllegalConfigException;
+import cn.tenmg.sqltool.exception.SQLExecutorException;
+import cn.tenmg.sqltool.sharding.ShardFunction;
+import cn.tenmg.sqltool.sql.utils.ShardingUtils;
+
+/**
+ * 基本分片访问对象。各分片的数据源须使用相同的方言，动态结构化查询语言仅解析一次
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+class BasicSharding implements Sharding {
+
+	private static final int INSERT = 0, SAVE = 1, DELETE = 2;
+
+	private final AbstractDao dao;
+
+	private final List<DataSource> dataSources;
+
+	private final ShardFunction shardFunction;
+
+	BasicSharding(AbstractDao dao, List<DataSource> dataSources, ShardFunction shardFunction) {
+		if (CollectionUtils.isEmpty(dataSources)) {
+			throw new IllegalConfigException("At least one datasource is required for sharding");
+		}
+		this.dao = dao;
+		this.dataSources = dataSources;
+		this.shardFunction = shardFunction;
+	}
+
+	@Override
+	public DataSource getDataSource(Object shardKey) {
+		return dataSources.get(shard(shardKey));
+	}
+
+	@Override
+	public <T> void insertBatch(List<T> rows) {
+		insertBatch(rows, dao.getDefaultBatchSize());
+	}
+
+	@Override
+	public <T> void insertBatch(List<T> rows, int batchSize) {
+		write(INSERT, rows, batchSize);
+	}
+
+	@Override
+	public <T> void saveBatch(List<T> rows) {
+		saveBatch(rows, dao.getDefaultBatchSize());
+	}
+
+	@Override
+	public <T> void saveBatch(List<T> rows, String... hardFields) {
+		saveBatch(rows, dao.getDefaultBatchSize(), hardFields);
+	}
+
+	@Override
+	public <T> void saveBatch(List<T> rows, int batchSize) {
+		write(SAVE, rows, batchSize, (String[]) null);
+	}
+
+	@Override
+	public <T> void saveBatch(List<T> rows, int batchSize, String... hardFields) {
+		write(SAVE, rows, batchSize, hardFields);
+	}
+
+	@Override
+	public <T> void deleteBatch(List<T> rows) {
+		deleteBatch(rows, dao.getDefaultBatchSize());
+	}
+
+	@Override
+	public <T> void deleteBatch(List<T> rows, int batchSize) {
+		write(DELETE, rows, batchSize);
+	}
+
+	@Override
+	public <T> List<T> select(final T obj) {
+		Object shardKey = ShardingUtils.getShardKey(obj);
+		if (shardKey != null) {
+			return dao.select(getDataSource(shardKey), obj);
+		}
+		List<Callable<List<T>>> tasks = new ArrayList<Callable<List<T>>>(dataSources.size());
+		for (int i = 0, size = dataSources.size(); i < size; i++) {
+			final DataSource dataSource = dataSources.get(i);
+			tasks.add(new Callable<List<T>>() {
+				@Override
+				public List<T> call() throws Exception {
+					return dao.select(dataSource, obj);
+				}
+			});
+		}
+		List<List<T>> results = invokeAll(tasks);
+		List<T> rows = new ArrayList<T>();
+		for (int i = 0, size = results.size(); i < size; i++) {
+			rows.addAll(results.get(i));
+		}
+		return rows;
+	}
+
+	@Override
+	public <T> List<T> select(Class<T> type, String dsql, Object... params) {
+		return select(type, dsql, (Object) params);
+	}
+
+	@Override
+	public <T> List<T> select(final Class<T> type, String dsql, Object params) {
+		final NamedSQL namedSQL = dao.parseDSQL(dataSources.get(0), dsql, params);
+		TreeSet<Integer> shards = getShards(type, namedSQL);
+		if (shards.size() == 1) {
+			return dao.select(dataSources.get(shards.first()), namedSQL, type);
+		}
+		List<Callable<List<T>>> tasks = new ArrayList<Callable<List<T>>>(shards.size());
+		for (Iterator<Integer> it = shards.iterator(); it.hasNext();) {
+			final DataSource dataSource = dataSources.get(it.next());
+			tasks.add(new Callable<List<T>>() {
+				@Override
+				public List<T> call() throws Exception {
+					return dao.select(dataSource, namedSQL, type);
+				}
+			});
+		}
+		return ShardingUtils.merge(invokeAll(tasks), type, namedSQL.getScript(),
+				namedSQL.getParams(), dao.getSQLDialect(dataSources.get(0)).isNullsLargest());
+	}
+
+	/**
+	 * 在共享执行器中并行执行各分片的任务，最大并行数与扇出查询相同。全部结束后返回结果或抛出第一个异常
+	 *
+	 * @param tasks
+	 *            任务
+	 * @return 返回与任务一一对应的结果
+	 */
+	private <R> List<R> invokeAll(List<Callable<R>> tasks) {
+		List<Outcome<R>> outcomes = ParallelTasks.invokeEach(tasks, dao.getFanOutParallelism(), 0);
+		List<R> results = new ArrayList<R>(outcomes.size());
+		for (int i = 0, size = outcomes.size(); i < size; i++) {
+			Outcome<R> outcome = outcomes.get(i);
+			Throwable failure = outcome.getFailure();
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			} else if (failure instanceof Error) {
+				throw (Error) failure;
+			} else if (failure != null) {
+				throw new SQLExecutorException(failure);
+			}
+			results.add(outcome.getResult());
+		}
+		return results;
+	}
+
+	private int shard(Object shardKey) {
+		if (shardKey == null) {
+			throw new IllegalCallException("The value of the shard key must not be null");
+		}
+		int shard = shardFunction.shard(shardKey, dataSources.size());
+		if (shard < 0 || shard >= dataSources.size()) {
+			throw new IllegalConfigException("The shard function returned an illegal shard " + shard
+					+ " for the shard key " + shardKey + ", there are " + dataSources.size() + " shards");
+		}
+		return shard;
+	}
+
+	/**
+	 * 根据查询语句中限定分片键的参数确定需要查询的分片，参见{@link ShardingUtils#getShardKeyParam(Class, String)}
+	 *
+	 * @param type
+	 *            对象类型
+	 * @param namedSQL
+	 *            命名参数SQL对象
+	 * @return 返回需要查询的分片序号。无法确定时返回所有分片
+	 */
+	private TreeSet<Integer> getShards(Class<?> type, NamedSQL namedSQL) {
+		TreeSet<Integer> shards = new TreeSet<Integer>();
+		String param = ShardingUtils.getShardKeyParam(type, namedSQL.getScript());
+		Map<String, Object> params = namedSQL.getParams();
+		Object value = param == null || params == null ? null : params.get(param);
+		if (value instanceof Collection) {
+			for (Iterator<?> it = ((Collection<?>) value).iterator(); it.hasNext();) {
+				Object shardKey = it.next();
+				if (shardKey != null) {
+					shards.add(shard(shardKey));
+				}
+			}
+		} else if (value != null && value.getClass().isArray()) {
+			for (int i = 0, length = Array.getLength(value); i < length; i++) {
+				Object shardKey = Array.get(value, i);
+				if (shardKey != null) {
+					shards.add(shard(shardKey));
+				}
+			}
+		} else if (value != null) {
+			shards.add(shard(value));
+		}
+		if (shards.isEmpty()) {
+			for (int i = 0, size = dataSources.size(); i < size; i++) {
+				shards.add(i);
+			}
+		}
+		return shards;
+	}
+
+	/**
+	 * 按分片拆分实体对象集，并行地分别在各分片中批量写入
+	 *
+	 * @param operation
+	 *            写入操作
+	 * @param rows
+	 *            实体对象集
+	 * @param batchSize
+	 *            批容量
+	 * @param hardFields
+	 *            硬保存属性，软保存时为null
+	 */
+	private <T> void write(final int operation, List<T> rows, final int batchSize, final String... hardFields) {
+		if (CollectionUtils.isEmpty(rows)) {
+			return;
+		}
+		Map<Integer, List<T>> groups = new TreeMap<Integer, List<T>>();
+		T row;
+		Integer shard;
+		List<T> group;
+		for (int i = 0, size = rows.size(); i < size; i++) {
+			row = rows.get(i);
+			shard = shard(ShardingUtils.getShardKey(row));
+			group = groups.get(shard);
+			if (group == null) {
+				group = new ArrayList<T>();
+				groups.put(shard, group);
+			}
+			group.add(row);
+		}
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(groups.size());
+		for (Iterator<Entry<Integer, List<T>>> it = groups.entrySet().iterator(); it.hasNext();) {
+			Entry<Integer, List<T>> entry = it.next();
+			final DataSource dataSource = dataSources.get(entry.getKey());
+			final List<T> shardRows = entry.getValue();
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					if (operation == INSERT) {
+						dao.insertBatch(dataSource, shardRows, batchSize);
+					} else if (operation == SAVE && hardFields == null) {
+						dao.saveBatch(dataSource, shardRows, batchSize);
+					} else if (operation == SAVE) {
+						dao.saveBatch(dataSource, shardRows, batchSize, hardFields);
+					} else {
+						dao.deleteBatch(dataSource, shardRows, batchSize);
+					}
+					return null;
+				}
+			});
+		}
+		invokeAll(tasks);
+	}
+
+}
@@ -0,0 +1,244 @@
+package cn.tenmg.sqltool.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.tenmg.dsql.DSQLFactory;
+import cn.tenmg.dsql.factory.XMLFileDSQLFactory;
+import cn.tenmg.sqltool.sql.StatementOptions;
+
+/**
+ * 动态结构化查询语言（DSQL）包。同一JVM内基础包名和后缀相同的数据库访问对象共享同一个已解析的DSQL工厂，避免重复扫描类路径和解析XML文件。
+ * 序列化时以字节数组的形式携带驱动端已解析的DSQL工厂，反序列化时仅在当前JVM尚无该DSQL工厂时才还原，因此分布式环境的执行端无需再扫描和解析XML文件，
+ * 且同一执行端的后续任务仅需复制字节数组。延迟加载的DSQL包仅建立DSQL编号到所在文件的索引，使用时才解析对应的文件。
+ * 非延迟加载的DSQL包在同一JVM内首次创建时额外读取一次DSQL元素上的语句选项，并随DSQL包序列化
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+final class DSQLBundle implements Serializable {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 3036522806941525174L;
+
+	private static final char KEY_SEPARATOR = '\u0000';
+
+	private static final ConcurrentHashMap<String, DSQLFactory> FACTORIES = new ConcurrentHashMap<String, DSQLFactory>();
+
+	private final String basePackages;
+
+	private final String suffix;
+
+	private final boolean lazy;
+
+	/**
+	 * DSQL编号到语句选项的映射，仅非延迟加载时使用；延迟加载时语句选项随DSQL索引读取
+	 */
+	private final Map<String, StatementOptions> options;
+
+	private transient DSQLFactory DSQLFactory;
+
+	private transient byte[] bytes;
+
+	private DSQLBundle(String basePackages, String suffix, boolean lazy, DSQLFactory DSQLFactory,
+			Map<String, StatementOptions> options) {
+		this.basePackages = basePackages;
+		this.suffix = suffix;
+		this.lazy = lazy;
+		this.DSQLFactory = DSQLFactory;
+		this.options = options;
+	}
+
+	/**
+	 * 获取DSQL包。当前JVM已有基础包名和后缀相同的DSQL工厂时直接使用，否则扫描并解析XML文件；DSQL元素上的语句选项同样在当前JVM内仅读取一次
+	 *
+	 * @param basePackages
+	 *            基础包名
+	 * @param suffix
+	 *            DSQL文件后缀，为null时使用默认后缀
+	 * @return 返回DSQL包
+	 */
+	static DSQLBundle of(String basePackages, String suffix) {
+		return new DSQLBundle(basePackages, suffix, false, load(basePackages, suffix),
+				DSQLIndex.get(basePackages, suffix).getStatementOptions());
+	}
+
+	/**
+	 * 获取延迟加载的DSQL包。创建时仅建立DSQL编号到所在文件的索引，每个文件在其中的DSQL首次被使用时才解析
+	 *
+	 * @param basePackages
+	 *            基础包名
+	 * @param suffix
+	 *            DSQL文件后缀，为null时使用默认后缀
+	 * @return 返回DSQL包
+	 */
+	static DSQLBundle lazy(String basePackages, String suffix) {
+		DSQLIndex.get(basePackages, suffix);
+		return new DSQLBundle(basePackages, suffix, true, FACTORIES.get(key(basePackages, suffix)), null);
+	}
+
+	/**
+	 * 获取包含所有DSQL的工厂。延迟加载的DSQL包将在首次调用时扫描并解析所有XML文件
+	 *
+	 * @return 返回包含所有DSQL的工厂
+	 */
+	DSQLFactory getDSQLFactory() {
+		if (DSQLFactory == null) {// 延迟加载或反序列化时未能还原DSQL工厂
+			DSQLFactory = load(basePackages, suffix);
+		}
+		return DSQLFactory;
+	}
+
+	/**
+	 * 获取用于解析指定DSQL的工厂。延迟加载时仅解析该DSQL所在的文件，DSQL脚本及未被索引的编号使用包含所有DSQL的工厂
+	 *
+	 * @param dsql
+	 *            DSQL编号或DSQL脚本，为null时返回可用于转换命名参数SQL的任一工厂
+	 * @return 返回用于解析指定DSQL的工厂
+	 */
+	DSQLFactory getDSQLFactory(String dsql) {
+		if (lazy && DSQLFactory == null) {
+			DSQLFactory DSQLFactory = DSQLIndex.get(basePackages, suffix).getDSQLFactory(dsql);
+			if (DSQLFactory != null) {
+				return DSQLFactory;
+			}
+		}
+		return getDSQLFactory();
+	}
+
+	/**
+	 * 获取DSQL元素上配置的语句选项
+	 *
+	 * @param id
+	 *            DSQL编号
+	 * @return 返回DSQL元素上配置的语句选项。未配置时返回null
+	 */
+	StatementOptions getStatementOptions(String id) {
+		if (lazy) {
+			return DSQLIndex.get(basePackages, suffix).getStatementOptions(id);
+		}
+		return id == null || options == null ? null : options.get(id);
+	}
+
+	private static DSQLFactory load(String basePackages, String suffix) {
+		String key = key(basePackages, suffix);
+		DSQLFactory DSQLFactory = FACTORIES.get(key);
+		if (DSQLFactory == null) {
+			DSQLFactory = suffix == null ? new XMLFileDSQLFactory(basePackages)
+					: new XMLFileDSQLFactory(basePackages, suffix);
+			DSQLFactory old = FACTORIES.putIfAbsent(key, DSQLFactory);
+			if (old != null) {
+				DSQLFactory = old;
+			}
+		}
+		return DSQLFactory;
+	}
+
+	private static String key(String basePackages, String suffix) {
+		return String.valueOf(basePackages) + KEY_SEPARATOR + String.valueOf(suffix);
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeObject(getBytes());
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		byte[] bytes = (byte[]) in.readObject();
+		String key = key(basePackages, suffix);
+		DSQLFactory = FACTORIES.get(key);
+		if (DSQLFactory == null && bytes != null) {
+			DSQLFactory = restore(bytes);
+			if (DSQLFactory != null) {
+				DSQLFactory old = FACTORIES.putIfAbsent(key, DSQLFactory);
+				if (old != null) {
+					DSQLFactory = old;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 获取DSQL工厂序列化后的字节数组，结果将被缓存以便多次序列化时复用
+	 *
+	 * @return 返回DSQL工厂序列化后的字节数组。DSQL工厂不可序列化时返回null
+	 */
+	private synchronized byte[] getBytes() {
+		if (bytes == null && DSQLFactory instanceof Serializable) {
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			ObjectOutputStream out = null;
+			try {
+				out = new ObjectOutputStream(buffer);
+				out.writeObject(DSQLFactory);
+				out.flush();
+				bytes = buffer.toByteArray();
+			} catch (IOException e) {
+				e.printStackTrace();// 无法序列化时由反序列化端自行扫描和解析
+			} finally {
+				close(out);
+			}
+		}
+		return bytes;
+	}
+
+	private static DSQLFactory restore(byte[] bytes) {
+		ObjectInputStream in = null;
+		try {
+			in = new BundleObjectInputStream(new ByteArrayInputStream(bytes));
+			return (DSQLFactory) in.readObject();
+		} catch (IOException | ClassNotFoundException e) {
+			e.printStackTrace();// 无法还原时由getDSQLFactory()自行扫描和解析
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	private static void close(Closeable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * 使用加载sqltool的类加载器解析类的对象输入流。分布式计算框架的执行端通常使用自定义的类加载器加载用户程序及其依赖
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class BundleObjectInputStream extends ObjectInputStream {
+
+		private BundleObjectInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			try {
+				return Class.forName(desc.getName(), false, DSQLBundle.class.getClassLoader());
+			} catch (ClassNotFoundException e) {
+				return super.resolveClass(desc);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,355 @@
+package cn.tenmg.sqltool.dao;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import cn.tenmg.dsql.DSQLFactory;
+import cn.tenmg.dsql.factory.XMLFileDSQLFactory;
+import cn.tenmg.sqltool.datasource.Workload;
+import cn.tenmg.sqltool.exception.IllegalConfigException;
+import cn.tenmg.sqltool.sql.StatementOptions;
+
+/**
+ * 动态结构化查询语言（DSQL）索引。扫描类路径时使用SAX解析XML文件，仅读取DSQL元素的属性，建立DSQL编号到所在文件的索引，每个文件在其中的DSQL首次被使用时才解析，
+ * 同一JVM内基础包名和后缀相同的索引及已解析的文件均共享。DSQL元素上的fetchSize、maxRows、queryTimeout和workload属性作为该DSQL的语句选项一并索引。
+ * 编号在多个文件中重复定义，或所在文件无法单独解析（同一包或其子包中存在以该文件名结尾的其他文件）的DSQL不被索引，由完整的工厂处理
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+final class DSQLIndex {
+
+	private static final String DEFAULT_SUFFIX = ".dsql.xml", FILE = "file", JAR = "jar", DSQL = "dsql";
+
+	private static final char KEY_SEPARATOR = '\u0000';
+
+	private static final String ID = "id", FETCH_SIZE = "fetchSize", MAX_ROWS = "maxRows",
+			QUERY_TIMEOUT = "queryTimeout", WORKLOAD = "workload",
+			LOAD_EXTERNAL_DTD = "http://apache.org/xml/features/nonvalidating/load-external-dtd";
+
+	private static final ConcurrentHashMap<String, DSQLIndex> INDEXES = new ConcurrentHashMap<String, DSQLIndex>();
+
+	private static final ConcurrentHashMap<String, DSQLFactory> FILE_FACTORIES = new ConcurrentHashMap<String, DSQLFactory>();
+
+	/**
+	 * DSQL编号到所在文件的映射，文件以包名及文件名的数组表示
+	 */
+	private final Map<String, String[]> locations;
+
+	/**
+	 * DSQL编号到语句选项的映射
+	 */
+	private final Map<String, StatementOptions> options;
+
+	/**
+	 * 最近一个通过该索引解析的文件的工厂，用于转换命名参数SQL
+	 */
+	private volatile DSQLFactory loaded;
+
+	private DSQLIndex(Map<String, String[]> locations, Map<String, StatementOptions> options) {
+		this.locations = locations;
+		this.options = options;
+	}
+
+	/**
+	 * 获取DSQL索引，当前JVM尚无基础包名和后缀相同的索引时扫描类路径建立索引
+	 *
+	 * @param basePackages
+	 *            基础包名，多个包名之间使用“,”分隔
+	 * @param suffix
+	 *            DSQL文件后缀，为null时使用默认后缀
+	 * @return 返回DSQL索引
+	 */
+	static DSQLIndex get(String basePackages, String suffix) {
+		String key = String.valueOf(basePackages) + KEY_SEPARATOR + String.valueOf(suffix);
+		DSQLIndex index = INDEXES.get(key);
+		if (index == null) {
+			index = build(basePackages, suffix == null ? DEFAULT_SUFFIX : suffix);
+			DSQLIndex old = INDEXES.putIfAbsent(key, index);
+			if (old != null) {
+				index = old;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * 获取用于解析指定DSQL的工厂
+	 *
+	 * @param dsql
+	 *            DSQL编号或DSQL脚本，为null时获取用于转换命名参数SQL的工厂
+	 * @return 返回仅包含该DSQL所在文件的工厂。dsql为null时返回已解析的任一文件的工厂，尚未解析任何文件时返回null；
+	 *         dsql为DSQL脚本或未被索引的编号时返回null，由完整的工厂处理
+	 */
+	DSQLFactory getDSQLFactory(String dsql) {
+		if (dsql == null) {// 转换命名参数SQL与DSQL所在的文件无关
+			return loaded;
+		}
+		String[] location = locations.get(dsql);
+		if (location == null) {
+			return null;
+		}
+		String key = location[0] + KEY_SEPARATOR + location[1];
+		DSQLFactory DSQLFactory = FILE_FACTORIES.get(key);
+		if (DSQLFactory == null) {
+			DSQLFactory = new XMLFileDSQLFactory(location[0], location[1]);
+			DSQLFactory old = FILE_FACTORIES.putIfAbsent(key, DSQLFactory);
+			if (old != null) {
+				DSQLFactory = old;
+			}
+		}
+		loaded = DSQLFactory;
+		return DSQLFactory;
+	}
+
+	/**
+	 * 获取DSQL的语句选项
+	 *
+	 * @param id
+	 *            DSQL编号
+	 * @return 返回DSQL元素上配置的语句选项。未配置时返回null
+	 */
+	StatementOptions getStatementOptions(String id) {
+		return id == null ? null : options.get(id);
+	}
+
+	/**
+	 * 获取所有DSQL的语句选项
+	 *
+	 * @return 返回DSQL编号到语句选项的映射（不可修改），仅包含配置了语句选项的DSQL
+	 */
+	Map<String, StatementOptions> getStatementOptions() {
+		return Collections.unmodifiableMap(options);
+	}
+
+	private static DSQLIndex build(String basePackages, String suffix) {
+		List<String[]> files = new ArrayList<String[]>();
+		Map<String, String[]> locations = new HashMap<String, String[]>();
+		Map<String, StatementOptions> options = new HashMap<String, StatementOptions>();
+		Set<String> duplicates = new HashSet<String>();
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		if (classLoader == null) {
+			classLoader = DSQLIndex.class.getClassLoader();
+		}
+		try {
+			Indexer indexer = new Indexer(newSAXParser(), files, locations, options, duplicates);
+			String path;
+			URL url;
+			for (String basePackage : String.valueOf(basePackages).split(",")) {
+				basePackage = basePackage.trim();
+				if (basePackage.isEmpty()) {
+					continue;
+				}
+				path = basePackage.replace('.', '/');
+				for (Enumeration<URL> urls = classLoader.getResources(path); urls.hasMoreElements();) {
+					url = urls.nextElement();
+					if (FILE.equals(url.getProtocol())) {
+						scan(new File(url.toURI()), basePackage, suffix, indexer);
+					} else if (JAR.equals(url.getProtocol())) {
+						scan(url, path, suffix, indexer);
+					}
+				}
+			}
+		} catch (IOException | URISyntaxException | ParserConfigurationException | SAXException e) {
+			throw new IllegalConfigException("An exception occurred while indexing the DSQL files", e);
+		}
+		locations.keySet().removeAll(duplicates);
+		Set<String[]> ambiguous = ambiguous(files);
+		for (Iterator<Entry<String, String[]>> it = locations.entrySet().iterator(); it.hasNext();) {
+			if (ambiguous.contains(it.next().getValue())) {
+				it.remove();
+			}
+		}
+		return new DSQLIndex(locations, options);
+	}
+
+	private static SAXParser newSAXParser() throws ParserConfigurationException, SAXException {
+		SAXParserFactory factory = SAXParserFactory.newInstance();
+		factory.setNamespaceAware(true);
+		factory.setValidating(false);
+		try {
+			factory.setFeature(LOAD_EXTERNAL_DTD, false);
+		} catch (SAXException e) {// 解析器不支持该特性时由Indexer.resolveEntity忽略外部实体
+		}
+		return factory.newSAXParser();
+	}
+
+	/**
+	 * 获取无法单独解析的文件。按文件所在包名和文件名创建的工厂会同时加载该包及其子包中以该文件名结尾的其他文件（包括其他类路径中的同名文件）
+	 *
+	 * @param files
+	 *            所有文件
+	 * @return 返回无法单独解析的文件
+	 */
+	private static Set<String[]> ambiguous(List<String[]> files) {
+		Set<String[]> ambiguous = new HashSet<String[]>();
+		String[] file, other;
+		for (int i = 0, size = files.size(); i < size; i++) {
+			file = files.get(i);
+			for (int j = 0; j < size; j++) {
+				other = files.get(j);
+				if (i != j && (other[0].equals(file[0]) || other[0].startsWith(file[0].concat(".")))
+						&& other[1].endsWith(file[1])) {
+					ambiguous.add(file);
+					break;
+				}
+			}
+		}
+		return ambiguous;
+	}
+
+	private static void scan(File directory, String packageName, String suffix, Indexer indexer)
+			throws IOException, SAXException {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			String fileName;
+			for (int i = 0; i < files.length; i++) {
+				fileName = files[i].getName();
+				if (files[i].isDirectory()) {
+					scan(files[i], packageName + "." + fileName, suffix, indexer);
+				} else if (fileName.endsWith(suffix)) {
+					indexer.index(new FileInputStream(files[i]), packageName, fileName);
+				}
+			}
+		}
+	}
+
+	private static void scan(URL url, String path, String suffix, Indexer indexer) throws IOException, SAXException {
+		URLConnection connection = url.openConnection();
+		if (connection instanceof JarURLConnection) {
+			JarFile jarFile = ((JarURLConnection) connection).getJarFile();
+			String prefix = path.concat("/"), name;
+			JarEntry entry;
+			int index;
+			for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+				entry = entries.nextElement();
+				name = entry.getName();
+				if (!entry.isDirectory() && name.startsWith(prefix) && name.endsWith(suffix)) {
+					index = name.lastIndexOf('/');
+					indexer.index(jarFile.getInputStream(entry), name.substring(0, index).replace('/', '.'),
+							name.substring(index + 1));
+				}
+			}
+		}
+	}
+
+	private static Integer toInteger(String value) {
+		return value == null || value.isEmpty() ? null : Integer.valueOf(value);
+	}
+
+	private static Workload toWorkload(String value) {
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+		try {
+			return Workload.valueOf(value.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new IllegalConfigException("Unsupported workload: ".concat(value), e);
+		}
+	}
+
+	/**
+	 * DSQL文件索引器。仅处理DSQL元素的开始标签，注释和CDATA中的内容不会被误认为DSQL元素
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class Indexer extends DefaultHandler {
+
+		private final SAXParser parser;
+
+		private final List<String[]> files;
+
+		private final Map<String, String[]> locations;
+
+		private final Map<String, StatementOptions> options;
+
+		private final Set<String> duplicates;
+
+		private String[] location;
+
+		private Indexer(SAXParser parser, List<String[]> files, Map<String, String[]> locations,
+				Map<String, StatementOptions> options, Set<String> duplicates) {
+			this.parser = parser;
+			this.files = files;
+			this.locations = locations;
+			this.options = options;
+			this.duplicates = duplicates;
+		}
+
+		private void index(InputStream in, String packageName, String fileName) throws IOException, SAXException {
+			location = new String[] { packageName, fileName };
+			files.add(location);
+			try {
+				parser.reset();
+				parser.parse(in, this);
+			} finally {
+				in.close();
+			}
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes) {
+			if (!DSQL.equals(localName == null || localName.isEmpty() ? qName : localName)) {
+				return;
+			}
+			String id = value(attributes, ID);
+			if (id == null) {
+				return;
+			}
+			if (locations.put(id, location) != null) {
+				duplicates.add(id);
+			}
+			Integer fetchSize = toInteger(value(attributes, FETCH_SIZE)),
+					maxRows = toInteger(value(attributes, MAX_ROWS)),
+					queryTimeout = toInteger(value(attributes, QUERY_TIMEOUT));
+			Workload workload = toWorkload(value(attributes, WORKLOAD));
+			if (fetchSize != null || maxRows != null || queryTimeout != null || workload != null) {
+				options.put(id, new StatementOptions(fetchSize, maxRows, queryTimeout, workload));
+			}
+		}
+
+		@Override
+		public InputSource resolveEntity(String publicId, String systemId) {
+			return new InputSource(new StringReader(""));// 不加载外部实体（例如DTD）
+		}
+
+		private static String value(Attributes attributes, String name) {
+			String value = attributes.getValue(name);
+			return value == null ? null : value.trim();
+		}
+
+	}
+
+}
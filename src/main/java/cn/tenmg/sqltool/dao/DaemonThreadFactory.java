@@ -0,0 +1,30 @@
+package cn.tenmg.sqltool.dao;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 创建守护线程的线程工厂，线程名称为名称前缀加序号
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+final class DaemonThreadFactory implements ThreadFactory {
+
+	private final String name;
+
+	private final AtomicInteger count = new AtomicInteger();
+
+	DaemonThreadFactory(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, name + count.getAndIncrement());
+		thread.setDaemon(true);
+		return thread;
+	}
+
+}
@@ -0,0 +1,166 @@
+package cn.tenmg.sqltool.dao;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import cn.tenmg.dsl.utils.MapUtils;
+import cn.tenmg.sqltool.datasource.DataSourceFactory;
+import cn.tenmg.sqltool.exception.IllegalCallException;
+import cn.tenmg.sqltool.exception.IllegalConfigException;
+
+/**
+ * 数据库访问对象租用的数据源。按名称解析数据源配置，每个数据源在首次使用时才从{@link DataSourceRegistry}获取，
+ * 关闭时释放所有已获取的数据源
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+final class DataSourceLeases {
+
+	private static final String DATASOURCE_PREFIX = "sqltool.datasource.", DEFAULT_NAME = "default",
+			DATASOURCE_REGEX = "^".concat(DATASOURCE_PREFIX.replaceAll("\\.", "\\\\."))
+					.concat("([\\S]+\\.){0,1}[^\\.]+$");
+
+	private static final int DATASOURCE_PREFIX_LEN = DATASOURCE_PREFIX.length();
+
+	private final Map<String, Properties> configs;
+
+	private final String defaultName;
+
+	/**
+	 * 每个数据源名称的锁，仅在首次获取和关闭时使用
+	 */
+	private final Map<String, Object> locks;
+
+	private final Map<String, DataSource> dataSources = new ConcurrentHashMap<String, DataSource>();
+
+	private volatile boolean closed = false;
+
+	/**
+	 * 根据配置构造租用的数据源，此时不创建任何数据源
+	 *
+	 * @param properties
+	 *            配置，数据源配置为sqltool.datasource.[name.]param
+	 */
+	DataSourceLeases(Properties properties) {
+		Map<String, Properties> configs = new LinkedHashMap<String, Properties>();
+		String key, name, param, firstName = null;
+		Properties config;
+		for (Iterator<Entry<Object, Object>> it = properties.entrySet().iterator(); it.hasNext();) {
+			Entry<Object, Object> entry = it.next();
+			key = entry.getKey().toString();
+			if (key.matches(DATASOURCE_REGEX)) {
+				param = key.substring(DATASOURCE_PREFIX_LEN);
+				int index = param.indexOf(".");
+				if (index > 0 && !param.startsWith(DataSourceFactory.REPLICAS_PREFIX)) {// 从库配置属于默认数据源
+					name = param.substring(0, index);
+					param = param.substring(index + 1);
+				} else {
+					name = DEFAULT_NAME;
+				}
+				if (firstName == null) {
+					firstName = name;
+				}
+				config = configs.get(name);
+				if (config == null) {
+					config = new Properties();
+					configs.put(name, config);
+				}
+				config.put(param, entry.getValue());
+			}
+		}
+		if (MapUtils.isEmpty(configs)) {
+			throw new IllegalConfigException("No datasource is configured, please check the configuration");
+		}
+		this.configs = configs;
+		Map<String, Object> locks = new HashMap<String, Object>();
+		for (Iterator<String> it = configs.keySet().iterator(); it.hasNext();) {
+			locks.put(it.next(), new Object());
+		}
+		this.locks = locks;
+		// 默认数据源不存在则将第一个数据源作为默认数据源
+		this.defaultName = configs.containsKey(DEFAULT_NAME) ? DEFAULT_NAME : firstName;
+	}
+
+	/**
+	 * 获取默认数据源
+	 *
+	 * @return 返回默认数据源
+	 */
+	DataSource getDefault() {
+		return get(defaultName);
+	}
+
+	/**
+	 * 获取指定名称的数据源。已获取的数据源直接返回，无需加锁；首次获取时仅锁定该名称并从数据源注册表获取，不阻塞其他名称的获取
+	 *
+	 * @param name
+	 *            数据源名称
+	 * @return 返回数据源。未配置该名称的数据源时返回null
+	 */
+	DataSource get(String name) {
+		DataSource dataSource = dataSources.get(name);
+		if (dataSource != null) {
+			return dataSource;
+		}
+		Object lock = locks.get(name);
+		if (lock == null) {
+			return null;
+		}
+		synchronized (lock) {
+			dataSource = dataSources.get(name);
+			if (dataSource == null) {
+				if (closed) {
+					throw new IllegalCallException("The datasources have been closed");
+				}
+				dataSource = DataSourceRegistry.acquire(configs.get(name));
+				dataSources.put(name, dataSource);
+			}
+			return dataSource;
+		}
+	}
+
+	/**
+	 * 获取所有数据源，尚未获取的数据源将从数据源注册表获取
+	 *
+	 * @return 返回以数据源名称为键的数据源
+	 */
+	Map<String, DataSource> getAll() {
+		Map<String, DataSource> all = new HashMap<String, DataSource>();
+		String name;
+		for (Iterator<String> it = configs.keySet().iterator(); it.hasNext();) {
+			name = it.next();
+			all.put(name, get(name));
+		}
+		return Collections.unmodifiableMap(all);
+	}
+
+	/**
+	 * 释放所有已获取的数据源。关闭后不能再获取数据源
+	 */
+	void close() {
+		closed = true;
+		String name;
+		DataSource dataSource;
+		for (Iterator<Entry<String, Object>> it = locks.entrySet().iterator(); it.hasNext();) {
+			Entry<String, Object> entry = it.next();
+			name = entry.getKey();
+			synchronized (entry.getValue()) {// 等待该名称正在进行的首次获取完成，之后的获取将因已关闭而失败
+				dataSource = dataSources.remove(name);
+			}
+			if (dataSource != null) {
+				DataSourceRegistry.release(dataSource);
+			}
+		}
+	}
+
+}
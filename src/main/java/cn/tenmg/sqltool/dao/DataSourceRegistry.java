@@ -0,0 +1,207 @@
+package cn.tenmg.sqltool.dao;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.sql.DataSource;
+
+import cn.tenmg.sqltool.datasource.DataSourceFactory;
+import cn.tenmg.sqltool.exception.InitializeDataSourceException;
+import cn.tenmg.sqltool.utils.SQLDialectUtils;
+
+/**
+ * 数据源注册表。同一JVM内配置相同（忽略参数顺序及首尾空白）的数据源仅创建一次，由所有数据库访问对象共享并按引用计数，
+ * 最后一个引用释放时关闭数据源并移除以其为键的所有缓存；JVM关闭时关闭所有仍未关闭的数据源。
+ * 数据源的创建和关闭均在注册表的锁之外进行，创建或关闭较慢的数据源不会阻塞其他配置的数据源，
+ * 配置相同的并发获取等待同一次创建
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+final class DataSourceRegistry {
+
+	private static final String IN_LIST_BINDING = "inListBinding";
+
+	private static final Map<Map<String, String>, Registration> REGISTRATIONS = new HashMap<Map<String, String>,
+			Registration>();
+
+	private static final Map<DataSource, Registration> DATASOURCES = new IdentityHashMap<DataSource, Registration>();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread("sqltool") {
+			@Override
+			public void run() {
+				List<DataSource> dataSources;
+				synchronized (DataSourceRegistry.class) {
+					dataSources = new ArrayList<DataSource>(DATASOURCES.keySet());
+				}
+				for (int i = 0, size = dataSources.size(); i < size; i++) {
+					close(dataSources.get(i));
+				}
+			}
+		});
+	}
+
+	private DataSourceRegistry() {
+	}
+
+	/**
+	 * 获取数据源并增加其引用计数。配置相同的数据源尚未创建时创建该数据源，
+	 * 正在创建时等待其创建完成
+	 *
+	 * @param config
+	 *            数据源配置
+	 * @return 返回数据源
+	 */
+	static DataSource acquire(Properties config) {
+		Map<String, String> key = normalize(config);
+		Registration registration;
+		boolean creator = false;
+		synchronized (DataSourceRegistry.class) {
+			registration = REGISTRATIONS.get(key);
+			if (registration == null) {
+				registration = new Registration(key, config);
+				REGISTRATIONS.put(key, registration);
+				creator = true;
+			}
+			registration.references++;
+		}
+		if (creator) {
+			registration.creation.run();
+		}
+		try {
+			return registration.await();
+		} catch (RuntimeException | Error e) {
+			synchronized (DataSourceRegistry.class) {
+				// 创建失败的注册信息不再使用，之后的获取重新创建
+				if (REGISTRATIONS.get(key) == registration) {
+					REGISTRATIONS.remove(key);
+				}
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * 释放数据源的一个引用，引用计数为0时移除以其为键的所有缓存并关闭该数据源
+	 *
+	 * @param dataSource
+	 *            数据源
+	 */
+	static void release(DataSource dataSource) {
+		synchronized (DataSourceRegistry.class) {
+			Registration registration = DATASOURCES.get(dataSource);
+			if (registration == null || --registration.references > 0) {
+				return;
+			}
+			REGISTRATIONS.remove(registration.key);
+			DATASOURCES.remove(dataSource);
+		}
+		AbstractDao.uncache(dataSource);
+		close(dataSource);
+	}
+
+	private static Map<String, String> normalize(Properties config) {
+		Map<String, String> key = new TreeMap<String, String>();
+		for (Iterator<Entry<Object, Object>> it = config.entrySet().iterator(); it.hasNext();) {
+			Entry<Object, Object> entry = it.next();
+			Object value = entry.getValue();
+			key.put(entry.getKey().toString().trim(), value == null ? null : value.toString().trim());
+		}
+		return key;
+	}
+
+	private static void close(DataSource dataSource) {
+		if (dataSource instanceof Closeable) {
+			try {
+				((Closeable) dataSource).close();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * 数据源的注册信息，同时负责创建数据源。数据源在返回给任何获取者之前登记，
+	 * 确保其引用均可释放
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class Registration implements Callable<DataSource> {
+
+		private final Map<String, String> key;
+
+		private final Properties config;
+
+		private final FutureTask<DataSource> creation = new FutureTask<DataSource>(this);
+
+		private int references = 0;
+
+		private Registration(Map<String, String> key, Properties config) {
+			this.key = key;
+			this.config = config;
+		}
+
+		@Override
+		public DataSource call() throws Exception {
+			DataSource dataSource = DataSourceFactory.createDataSource(config);
+			try {
+				AbstractDao.cacheSQLDialect(dataSource, SQLDialectUtils.getSQLDialect(config));
+				AbstractDao.cacheInListBinding(dataSource, config.getProperty(IN_LIST_BINDING));
+			} catch (RuntimeException e) {
+				AbstractDao.uncache(dataSource);
+				close(dataSource);
+				throw e;
+			}
+			synchronized (DataSourceRegistry.class) {
+				DATASOURCES.put(dataSource, this);
+			}
+			return dataSource;
+		}
+
+		/**
+		 * 等待数据源创建完成，等待期间被中断时继续等待并在返回后恢复中断状态
+		 *
+		 * @return 返回创建的数据源
+		 */
+		private DataSource await() {
+			boolean interrupted = false;
+			try {
+				while (true) {
+					try {
+						return creation.get();
+					} catch (InterruptedException e) {
+						interrupted = true;
+					} catch (ExecutionException e) {
+						Throwable cause = e.getCause();
+						if (cause instanceof Error) {
+							throw (Error) cause;
+						}
+						throw new InitializeDataSourceException("An exception occurred while initializing datasource",
+								cause);
+					}
+				}
+			} finally {
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+	}
+
+}
@@ -1,22 +1,15 @@
 package cn.tenmg.sqltool.dao;
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Properties;
 
 import javax.sql.DataSource;
 
-import cn.tenmg.dsl.utils.MapUtils;
 import cn.tenmg.dsql.DSQLFactory;
-import cn.tenmg.dsql.factory.XMLFileDSQLFactory;
-import cn.tenmg.sqltool.datasource.DataSourceFactory;
-import cn.tenmg.sqltool.exception.IllegalConfigException;
-import cn.tenmg.sqltool.exception.InitializeDataSourceException;
-import cn.tenmg.sqltool.sql.SQLDialect;
-import cn.tenmg.sqltool.utils.SQLDialectUtils;
+import cn.tenmg.sqltool.datasource.HedgePolicy;
+import cn.tenmg.sqltool.sharding.ShardingRule;
+import cn.tenmg.sqltool.sql.StatementOptions;
 
 /**
  * 支持分布式环境的数据库访问对象
@@ -31,36 +24,49 @@ public class DistributedDao extends AbstractDao implements Serializable {
 	 */
 	private static final long serialVersionUID = -5961378350698776883L;
 
-	private static final String DATASOURCE_PREFIX = "sqltool.datasource.", DEFAULT_NAME = "default",
-			DATASOURCE_REGEX = "^".concat(DATASOURCE_PREFIX.replaceAll("\\.", "\\\\."))
-					.concat("([\\S]+\\.){0,1}[^\\.]+$");
+	private Properties properties;
 
-	private static final int DATASOURCE_PREFIX_LEN = DATASOURCE_PREFIX.length();
+	private DSQLBundle bundle;
 
-	private static final Map<String, DataSource> dataSources = new HashMap<String, DataSource>();
+	private boolean showSql;
 
-	private static volatile DataSource defaultDataSource;
+	private int defaultBatchSize = 500;
 
-	private Properties properties;
+	private int defaultPrefetch = 1;
 
-	private DSQLFactory DSQLFactory;
+	private int defaultBufferSize = 1000;
 
-	private boolean showSql;
+	private int tempTableThreshold = 10000;
 
-	private int defaultBatchSize = 500;
+	private ShardingRule shardingRule;
+
+	private int fanOutParallelism = 8;
+
+	/**
+	 * 租用的数据源、对冲读策略和合并查询均属于当前JVM，不参与序列化，反序列化后首次使用时重新创建
+	 */
+	private transient volatile boolean initialized = false;
+
+	private transient DataSourceLeases leases;
+
+	private transient HedgePolicy hedgePolicy;
+
+	private transient SingleFlight singleFlight;
 
 	private DistributedDao(Properties properties) {
 		super();
 		this.properties = properties;
 		String basePackages = properties.getProperty("sqltool.basePackages"),
 				suffix = properties.getProperty("sqltool.suffix");
-		if (suffix == null) {
-			this.DSQLFactory = new XMLFileDSQLFactory(basePackages);
-		} else {
-			this.DSQLFactory = new XMLFileDSQLFactory(basePackages, suffix);
-		}
+		this.bundle = Boolean.valueOf(properties.getProperty("sqltool.lazyLoad", "false"))
+				? DSQLBundle.lazy(basePackages, suffix) : DSQLBundle.of(basePackages, suffix);
 		this.showSql = Boolean.valueOf(properties.getProperty("sqltool.showSql", "false"));
 		this.defaultBatchSize = Integer.valueOf(properties.getProperty("sqltool.defaultBatchSize", "500"));
+		this.defaultPrefetch = Integer.valueOf(properties.getProperty("sqltool.defaultPrefetch", "1"));
+		this.defaultBufferSize = Integer.valueOf(properties.getProperty("sqltool.defaultBufferSize", "1000"));
+		this.tempTableThreshold = Integer.valueOf(properties.getProperty("sqltool.tempTableThreshold", "10000"));
+		this.shardingRule = ShardingRule.of(properties);
+		this.fanOutParallelism = Integer.valueOf(properties.getProperty("sqltool.fanOutParallelism", "8"));
 	}
 
 	public static DistributedDao build(Properties properties) {
@@ -69,31 +75,27 @@ public class DistributedDao extends AbstractDao implements Serializable {
 
 	@Override
 	public DSQLFactory getDSQLFactory() {
-		return DSQLFactory;
+		return bundle.getDSQLFactory();
 	}
 
 	@Override
-	public DataSource getDefaultDataSource() {
-		if (defaultDataSource == null) {
-			initialized(properties);
-		}
-		return defaultDataSource;
+	DSQLFactory getDSQLFactory(String dsql) {
+		return bundle.getDSQLFactory(dsql);
 	}
 
 	@Override
-	public DataSource getDataSource(String name) {
-		if (defaultDataSource == null) {
-			initialized(properties);
-		}
-		return dataSources.get(name);
+	StatementOptions getStatementOptions(String id) {
+		return bundle.getStatementOptions(id);
 	}
 
 	@Override
-	protected SQLDialect getSQLDialect(DataSource dataSource) {
-		if (defaultDataSource == null) {
-			initialized(properties);
-		}
-		return super.getSQLDialect(dataSource);
+	public DataSource getDefaultDataSource() {
+		return getLeases().getDefault();
+	}
+
+	@Override
+	public DataSource getDataSource(String name) {
+		return getLeases().get(name);
 	}
 
 	@Override
@@ -106,66 +108,75 @@ public class DistributedDao extends AbstractDao implements Serializable {
 		return defaultBatchSize;
 	}
 
+	@Override
+	int getDefaultPrefetch() {
+		return defaultPrefetch;
+	}
+
+	@Override
+	int getDefaultBufferSize() {
+		return defaultBufferSize;
+	}
+
+	@Override
+	int getTempTableThreshold() {
+		return tempTableThreshold;
+	}
+
+	@Override
+	ShardingRule getShardingRule() {
+		return shardingRule;
+	}
+
+	@Override
+	Map<String, DataSource> getDataSources() {
+		return getLeases().getAll();
+	}
+
+	@Override
+	int getFanOutParallelism() {
+		return fanOutParallelism;
+	}
+
+	@Override
+	HedgePolicy getHedgePolicy() {
+		if (!initialized) {
+			initialize();
+		}
+		return hedgePolicy;
+	}
+
+	@Override
+	SingleFlight getSingleFlight() {
+		if (!initialized) {
+			initialize();
+		}
+		return singleFlight;
+	}
+
 	/**
-	 * 初始化
+	 * 关闭数据库访问对象，释放当前JVM中租用的数据源。配置相同的数据源由同一JVM内所有数据库访问对象共享，最后一个引用释放时才关闭
 	 */
-	private synchronized void initialized(Properties properties) {
-		Map<String, Properties> datasourceConfigs = new HashMap<String, Properties>();
-		String key, name, param, firstName = null;
-		Object value;
-		Properties datasourceConfig;
-		for (Iterator<Entry<Object, Object>> it = properties.entrySet().iterator(); it.hasNext();) {
-			Entry<Object, Object> entry = it.next();
-			key = entry.getKey().toString();
-			value = entry.getValue();
-			if (key.matches(DATASOURCE_REGEX)) {
-				param = key.substring(DATASOURCE_PREFIX_LEN);
-				int index = param.indexOf(".");
-				if (index > 0) {
-					name = param.substring(0, index);
-					param = param.substring(index + 1);
-				} else {
-					name = DEFAULT_NAME;
-				}
-				if (firstName == null) {
-					firstName = name;
-				}
-				datasourceConfig = datasourceConfigs.get(name);
-				if (datasourceConfig == null) {
-					datasourceConfig = new Properties();
-					datasourceConfigs.put(name, datasourceConfig);
-				}
-				datasourceConfig.put(param, value);
-			}
-		}
-		if (MapUtils.isEmpty(datasourceConfigs)) {
-			throw new IllegalConfigException("No datasource is configured, please check the configuration");
+	public void close() {
+		if (initialized) {
+			leases.close();
 		}
-		datasourceConfig = datasourceConfigs.get(DEFAULT_NAME);
-		if (datasourceConfig == null) {// 默认数据源不存在则将第一个数据源作为默认数据源
-			name = firstName;
-			datasourceConfig = datasourceConfigs.get(firstName);
-		} else {
-			name = DEFAULT_NAME;
+	}
+
+	private DataSourceLeases getLeases() {
+		if (!initialized) {
+			initialize();
 		}
-		try {
-			defaultDataSource = DataSourceFactory.createDataSource(datasourceConfig);
-			dataSources.put(name, defaultDataSource);
-			cacheSQLDialect(defaultDataSource, SQLDialectUtils.getSQLDialect(datasourceConfig));
-			datasourceConfigs.remove(name);
-			DataSource dataSource;
-			for (Iterator<Entry<String, Properties>> it = datasourceConfigs.entrySet().iterator(); it.hasNext();) {
-				Entry<String, Properties> entry = it.next();
-				name = entry.getKey();
-				datasourceConfig = entry.getValue();
-				dataSource = DataSourceFactory.createDataSource(datasourceConfig);
-				dataSources.put(name, dataSource);
-				cacheSQLDialect(dataSource, SQLDialectUtils.getSQLDialect(datasourceConfig));
-			}
-		} catch (Exception e) {
-			throw new InitializeDataSourceException("An exception occurred while initializing datasource(s)", e);
+		return leases;
+	}
+
+	private synchronized void initialize() {
+		if (!initialized) {
+			leases = new DataSourceLeases(properties);
+			hedgePolicy = HedgePolicy.of(properties);
+			singleFlight = SingleFlight.of(properties);
+			initialized = true;
 		}
-		closeDataSourcesWhenShutdown(dataSources.values());
 	}
 
 }
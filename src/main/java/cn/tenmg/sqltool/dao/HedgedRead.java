@@ -0,0 +1,271 @@
+package cn.tenmg.sqltool.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cn.tenmg.sql.paging.utils.JDBCUtils;
+import cn.tenmg.sqltool.datasource.HedgePolicy;
+import cn.tenmg.sqltool.datasource.RoutingDataSource;
+import cn.tenmg.sqltool.sql.SQLExecuter;
+import cn.tenmg.sqltool.utils.JDBCExecuteUtils;
+
+/**
+ * 对冲读。查询在当前线程的从库连接上执行，超过对冲等待时长仍未返回时，在另一从库上发起相同的查询，先成功返回的查询胜出，
+ * 另一查询通过{@link PreparedStatement#cancel()}取消
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+final class HedgedRead<T> implements Runnable {
+
+	private static final int RUNNING = 0, FIRST = 1, SECOND = 2, ABANDONED = 3;
+
+	private static final ScheduledExecutorService TIMER = Executors
+			.newSingleThreadScheduledExecutor(new DaemonThreadFactory("sqltool-hedge-timer-"));
+
+	private static final ExecutorService EXECUTOR = Executors
+			.newCachedThreadPool(new DaemonThreadFactory("sqltool-hedge-"));
+
+	private final RoutingDataSource dataSource;
+
+	private final HedgePolicy hedgePolicy;
+
+	private final String id, sql;
+
+	private final List<Object> params;
+
+	private final boolean showSql;
+
+	private final int replica;
+
+	private final Attempt<T> first, second;
+
+	private final AtomicInteger state = new AtomicInteger(RUNNING);
+
+	private final CountDownLatch hedged = new CountDownLatch(1);
+
+	private volatile boolean started = false;
+
+	private volatile T result;
+
+	private HedgedRead(RoutingDataSource dataSource, HedgePolicy hedgePolicy, String id, String sql,
+			List<Object> params, SQLExecuter<T> sqlExecuter, boolean showSql, int replica) {
+		this.dataSource = dataSource;
+		this.hedgePolicy = hedgePolicy;
+		this.id = id;
+		this.sql = sql;
+		this.params = params;
+		this.showSql = showSql;
+		this.replica = replica;
+		this.first = new Attempt<T>(sqlExecuter);
+		this.second = new Attempt<T>(sqlExecuter);
+	}
+
+	/**
+	 * 执行只读查询，当前线程从从库获取连接且该DSQL编号的耗时样本充足时进行对冲
+	 *
+	 * @param dataSource
+	 *            读写分离数据源
+	 * @param hedgePolicy
+	 *            对冲读策略
+	 * @param id
+	 *            DSQL编号
+	 * @param sql
+	 *            SQL
+	 * @param params
+	 *            参数
+	 * @param sqlExecuter
+	 *            只读的SQL执行器
+	 * @param showSql
+	 *            是否打印SQL
+	 * @return 返回先成功返回的查询的结果
+	 * @throws SQLException
+	 *             两个查询均失败（或未发起对冲查询时查询失败）时抛出首次查询的异常
+	 */
+	static <T> T execute(RoutingDataSource dataSource, HedgePolicy hedgePolicy, String id, String sql,
+			List<Object> params, SQLExecuter<T> sqlExecuter, boolean showSql) throws SQLException {
+		Connection con = null;
+		try {
+			con = dataSource.getConnection(true);
+			con.setAutoCommit(true);
+			int replica = dataSource.getLastReplica();
+			if (replica < 0) {// 使用主库时不对冲，也不计入从库的耗时统计
+				return JDBCExecuteUtils.execute(con, sqlExecuter, id, sql, params, showSql);
+			}
+			HedgedRead<T> read = new HedgedRead<T>(dataSource, hedgePolicy, id, sql, params, sqlExecuter, showSql,
+					replica);
+			return read.execute(con);
+		} finally {
+			JDBCUtils.close(con);
+		}
+	}
+
+	private T execute(Connection con) throws SQLException {
+		long delay = hedgePolicy.getDelayNanos(id), start = System.nanoTime();
+		ScheduledFuture<?> timer = delay < 0 ? null : TIMER.schedule(this, delay, TimeUnit.NANOSECONDS);
+		try {
+			T value = JDBCExecuteUtils.execute(con, first, id, sql, params, showSql);
+			if (state.compareAndSet(RUNNING, FIRST)) {
+				second.cancel();
+			}
+			hedgePolicy.record(id, System.nanoTime() - start);
+			return value;
+		} catch (SQLException e) {
+			if (!started && state.compareAndSet(RUNNING, ABANDONED)) {
+				throw e;
+			}
+			awaitHedge();
+			if (state.get() == SECOND) {// 首次查询因对冲查询胜出而被取消，其耗时至少为当前时长
+				hedgePolicy.record(id, System.nanoTime() - start);
+				return result;
+			}
+			throw e;
+		} finally {
+			if (timer != null) {
+				timer.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * 发起对冲查询。定时器线程仅扣减预算并提交任务，获取从库连接和执行查询均在对冲线程中进行，避免阻塞其他查询的定时
+	 */
+	@Override
+	public void run() {
+		if (state.get() != RUNNING || !hedgePolicy.tryAcquire()) {
+			return;
+		}
+		started = true;
+		try {
+			EXECUTOR.execute(new Runnable() {
+				@Override
+				public void run() {
+					hedge();
+				}
+			});
+		} catch (RuntimeException e) {
+			hedgePolicy.release();
+			hedged.countDown();
+		}
+	}
+
+	private void hedge() {
+		Connection con = null;
+		try {
+			con = dataSource.getReplicaConnection(replica);
+			if (con == null || state.get() != RUNNING) {// 未实际发起对冲查询时退还预算
+				hedgePolicy.release();
+				return;
+			}
+			con.setAutoCommit(true);
+			T value = JDBCExecuteUtils.execute(con, second, id, sql, params, showSql);
+			result = value;
+			if (state.compareAndSet(RUNNING, SECOND)) {
+				first.cancel();
+			}
+		} catch (SQLException e) {
+			// 对冲查询失败或被取消时以首次查询的结果为准
+		} finally {
+			JDBCUtils.close(con);
+			hedged.countDown();
+		}
+	}
+
+	private void awaitHedge() {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				hedged.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * 单次查询。执行时记录预编译语句，以便另一查询胜出后取消
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @param <T>
+	 *            返回结果类型
+	 * @since 1.5.4
+	 */
+	private static class Attempt<T> implements SQLExecuter<T> {
+
+		private final SQLExecuter<T> sqlExecuter;
+
+		private PreparedStatement ps;
+
+		private boolean cancelled = false;
+
+		private Attempt(SQLExecuter<T> sqlExecuter) {
+			this.sqlExecuter = sqlExecuter;
+		}
+
+		@Override
+		public boolean isReadOnly() {
+			return sqlExecuter.isReadOnly();
+		}
+
+		@Override
+		public ResultSet execute(PreparedStatement ps) throws SQLException {
+			synchronized (this) {
+				if (cancelled) {
+					throw new SQLException("The query has been cancelled by hedged read");
+				}
+				this.ps = ps;
+			}
+			try {
+				return sqlExecuter.execute(ps);
+			} catch (SQLException | RuntimeException e) {
+				done();
+				throw e;
+			}
+		}
+
+		@Override
+		public T execute(PreparedStatement ps, ResultSet rs) throws SQLException {
+			try {
+				return sqlExecuter.execute(ps, rs);
+			} finally {
+				done();
+			}
+		}
+
+		/**
+		 * 语句执行结束后不再取消，避免取消同一连接上后续执行的语句
+		 */
+		private synchronized void done() {
+			ps = null;
+		}
+
+		private synchronized void cancel() {
+			cancelled = true;
+			if (ps != null) {
+				try {
+					ps.cancel();
+				} catch (SQLException e) {
+					// 驱动不支持取消时等待语句自行结束
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,182 @@
+package cn.tenmg.sqltool.dao;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.sql.DataSource;
+
+import cn.tenmg.sqltool.data.Page;
+import cn.tenmg.sqltool.exception.SQLExecutorException;
+
+/**
+ * 预取分页迭代器。第一页在创建时查询并统计总记录数，后续页复用该总记录数，不再重复统计。预取时在共享执行器中依次查询后续页，
+ * 调用方处理当前页的同时预先查询下一页；已预取的页数达到预取深度后暂停查询，调用方取走后继续，因此预取不会长期占用线程，
+ * 迭代器不再被引用时最多完成正在进行的一次查询
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @param <T>
+ *            行数据类型
+ *
+ * @since 1.5.4
+ */
+class PagesIterator<T> implements Iterator<Page<T>> {
+
+	private final AbstractDao dao;
+
+	private final DataSource dataSource;
+
+	private final Class<T> type;
+
+	private final String dsql;
+
+	private final int pageSize;
+
+	private final Object params;
+
+	private final long totalPage;
+
+	private final Long total;
+
+	private final int prefetch;
+
+	/**
+	 * 已预取的页（或查询发生的异常），由当前对象的锁保护
+	 */
+	private final Deque<Object> prefetched;
+
+	private Page<T> first;
+
+	private long currentPage = 0, fetchingPage = 2;
+
+	private boolean fetching = false;
+
+	PagesIterator(AbstractDao dao, DataSource dataSource, Class<T> type, String dsql, int pageSize, Object params,
+			int prefetch) {
+		this.dao = dao;
+		this.dataSource = dataSource;
+		this.type = type;
+		this.dsql = dsql;
+		this.pageSize = pageSize;
+		this.params = params;
+		this.first = dao.paging(dataSource, type, dsql, null, 1, pageSize, params, null);
+		Long totalPage = first.getTotalPage();
+		this.totalPage = totalPage == null ? 0 : totalPage.longValue();
+		this.total = first.getTotal();
+		this.prefetch = prefetch;
+		if (prefetch > 0 && this.totalPage > 1) {
+			this.prefetched = new ArrayDeque<Object>(prefetch);
+			synchronized (this) {
+				fetch();
+			}
+		} else {
+			this.prefetched = null;
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		return currentPage < totalPage;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Page<T> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		currentPage++;
+		if (currentPage == 1) {
+			Page<T> page = first;
+			first = null;
+			return page;
+		} else if (prefetched == null) {// 不预取
+			return dao.paging(dataSource, type, dsql, null, currentPage, pageSize, params, total);
+		}
+		Object next;
+		synchronized (this) {
+			boolean interrupted = false;
+			while (prefetched.isEmpty()) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+					break;
+				}
+			}
+			if (interrupted) {
+				currentPage--;
+				Thread.currentThread().interrupt();
+				throw new SQLExecutorException("Interrupted while waiting for the prefetched page");
+			}
+			next = prefetched.poll();
+			fetch();
+		}
+		if (next instanceof RuntimeException) {
+			throw (RuntimeException) next;
+		}
+		return (Page<T>) next;
+	}
+
+	/**
+	 * 已预取的页数未达到预取深度且没有正在进行的查询时，提交下一页的查询。调用方须持有当前对象的锁
+	 */
+	private void fetch() {
+		if (!fetching && fetchingPage <= totalPage && prefetched.size() < prefetch) {
+			fetching = true;
+			SharedExecutor.get().execute(new Fetcher<T>(this, fetchingPage));
+		}
+	}
+
+	private synchronized void fetched(Object page) {
+		prefetched.add(page);
+		fetching = false;
+		if (page instanceof RuntimeException) {// 查询失败后不再预取
+			fetchingPage = totalPage + 1;
+		} else {
+			fetchingPage++;
+			fetch();
+		}
+		notifyAll();
+	}
+
+	/**
+	 * 预取单页的任务
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @param <T>
+	 *            行数据类型
+	 *
+	 * @since 1.5.4
+	 */
+	private static class Fetcher<T> implements Runnable {
+
+		private final PagesIterator<T> owner;
+
+		private final long currentPage;
+
+		private Fetcher(PagesIterator<T> owner, long currentPage) {
+			this.owner = owner;
+			this.currentPage = currentPage;
+		}
+
+		@Override
+		public void run() {
+			Object page;
+			try {
+				page = owner.dao.paging(owner.dataSource, owner.type, owner.dsql, null, currentPage, owner.pageSize,
+						owner.params, owner.total);
+			} catch (RuntimeException e) {
+				page = e;
+			} catch (Error e) {
+				page = new SQLExecutorException(e);
+			}
+			owner.fetched(page);
+		}
+
+	}
+
+}
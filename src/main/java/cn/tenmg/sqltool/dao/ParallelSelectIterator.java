@@ -0,0 +1,325 @@
+package cn.tenmg.sqltool.dao;
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import cn.tenmg.dsl.Script;
+import cn.tenmg.sql.paging.utils.JDBCUtils;
+import cn.tenmg.sqltool.data.CloseableIterator;
+import cn.tenmg.sqltool.datasource.ConcurrencyLimitedDataSource;
+import cn.tenmg.sqltool.datasource.CurrentWorkloadHolder;
+import cn.tenmg.sqltool.datasource.RoutingDataSource;
+import cn.tenmg.sqltool.datasource.Workload;
+import cn.tenmg.sqltool.exception.SQLExecutorException;
+import cn.tenmg.sqltool.sql.StatementOptions;
+import cn.tenmg.sqltool.sql.executer.ReadOnlySQLExecuter;
+import cn.tenmg.sqltool.sql.executer.StatementOptionsSQLExecuter;
+import cn.tenmg.sqltool.utils.JDBCExecuteUtils;
+
+/**
+ * 并行查询迭代器。每个分区在独立的线程中使用独立的连接查询，查询结果逐行放入共享的有界缓冲区，由迭代器合并输出。
+ * 缓冲区满时各分区暂停读取结果集，因此在途的记录数不超过缓冲区大小。迭代器关闭、不再被引用或发生异常时各分区随之结束，
+ * 未遍历完毕即停止使用时应调用{@link #close()}，取消各分区正在执行的查询并等待其归还连接。
+ * 各分区按语句选项或调用线程的工作负载类别获取连接，均未指定时作为批量负载
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @param <T>
+ *            行数据类型
+ *
+ * @since 1.5.4
+ */
+class ParallelSelectIterator<T> implements CloseableIterator<T> {
+
+	private static final long OFFER_TIMEOUT_MILLIS = 1000, DRAIN_INTERVAL_MILLIS = 100;
+
+	private static final Object NULL = new Object(), DONE = new Object();
+
+	private final BlockingQueue<Object> queue;
+
+	private final int partitions;
+
+	private final Partition<?>[] workers;
+
+	private final Thread[] threads;
+
+	/**
+	 * 已结束（含异常结束）的分区计数，分区归还连接后计数
+	 */
+	private final CountDownLatch finished;
+
+	private volatile boolean closed = false;
+
+	private int done = 0;
+
+	private boolean ready = false;
+
+	private Object next;
+
+	ParallelSelectIterator(DataSource dataSource, Class<T> type, String id, List<Script<List<Object>>> sqls,
+			StatementOptions options, boolean showSql, int bufferSize) {
+		this.partitions = sqls.size();
+		this.queue = new ArrayBlockingQueue<Object>(Math.max(bufferSize, partitions));
+		this.workers = new Partition<?>[partitions];
+		this.threads = new Thread[partitions];
+		this.finished = new CountDownLatch(partitions);
+		WeakReference<ParallelSelectIterator<T>> owner = new WeakReference<ParallelSelectIterator<T>>(this);
+		Workload workload = options == null ? null : options.getWorkload();
+		if (workload == null) {
+			workload = CurrentWorkloadHolder.get();
+			if (workload == null) {
+				workload = Workload.BULK;
+			}
+		}
+		for (int i = 0; i < partitions; i++) {
+			workers[i] = new Partition<T>(owner, queue, finished, dataSource, type, id, sqls.get(i), options,
+					workload, showSql);
+			threads[i] = new Thread(workers[i], "sqltool-partition-" + i);
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!ready && !closed && done < partitions) {
+			Object item;
+			try {
+				item = queue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				close();
+				throw new SQLExecutorException("Interrupted while waiting for the partitioned rows", e);
+			}
+			if (item == DONE) {
+				done++;
+			} else if (item instanceof Failure) {
+				close();
+				throw ((Failure) item).exception;
+			} else {
+				next = item == NULL ? null : item;
+				ready = true;
+			}
+		}
+		return ready;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		ready = false;
+		T row = (T) next;
+		next = null;
+		return row;
+	}
+
+	/**
+	 * 关闭迭代器。取消各分区正在执行的查询并中断分区线程，然后清空缓冲区直至所有分区结束并归还连接
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		ready = false;
+		next = null;
+		for (int i = 0; i < partitions; i++) {
+			workers[i].cancel();
+			threads[i].interrupt();
+		}
+		boolean interrupted = false;
+		while (true) {
+			queue.clear();// 使等待放入记录的分区尽快结束
+			try {
+				if (finished.await(DRAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+					break;
+				}
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		queue.clear();
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static class Failure {
+
+		private final RuntimeException exception;
+
+		private Failure(RuntimeException exception) {
+			this.exception = exception;
+		}
+
+	}
+
+	/**
+	 * 分区查询任务。仅弱引用迭代器，迭代器被回收或关闭后停止读取结果集，关闭时正在执行的查询将被取消
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @param <T>
+	 *            行数据类型
+	 *
+	 * @since 1.5.4
+	 */
+	private static class Partition<T> extends ReadOnlySQLExecuter<Long> implements Runnable {
+
+		private final WeakReference<ParallelSelectIterator<T>> owner;
+
+		private final BlockingQueue<Object> queue;
+
+		private final CountDownLatch finished;
+
+		private final DataSource dataSource;
+
+		private final Class<T> type;
+
+		private final String id;
+
+		private final Script<List<Object>> sql;
+
+		private final StatementOptions options;
+
+		private final Workload workload;
+
+		private final boolean showSql;
+
+		private volatile PreparedStatement statement;
+
+		private volatile boolean cancelled = false;
+
+		private Partition(WeakReference<ParallelSelectIterator<T>> owner, BlockingQueue<Object> queue,
+				CountDownLatch finished, DataSource dataSource, Class<T> type, String id, Script<List<Object>> sql,
+				StatementOptions options, Workload workload, boolean showSql) {
+			this.owner = owner;
+			this.queue = queue;
+			this.finished = finished;
+			this.dataSource = dataSource;
+			this.type = type;
+			this.id = id;
+			this.sql = sql;
+			this.options = options;
+			this.workload = workload;
+			this.showSql = showSql;
+		}
+
+		@Override
+		public void run() {
+			Object result = DONE;
+			Connection con = null;
+			CurrentWorkloadHolder.set(workload);
+			try {
+				con = RoutingDataSource.getConnection(dataSource, true);
+				ConcurrencyLimitedDataSource.excludeFromSampling(con);// 占用时长取决于迭代器的消费速度
+				con.setAutoCommit(true);
+				// con.setReadOnly(true);
+				JDBCExecuteUtils.execute(con,
+						options == null ? this : new StatementOptionsSQLExecuter<Long>(this, options), id,
+						sql.getValue(), sql.getParams(), showSql);
+			} catch (SQLException e) {
+				result = new Failure(new SQLExecutorException(e));
+			} catch (RuntimeException e) {
+				result = new Failure(e);
+			} catch (Error e) {
+				result = new Failure(new SQLExecutorException(e));
+			} finally {
+				statement = null;
+				JDBCUtils.close(con);
+				CurrentWorkloadHolder.remove();
+				finished.countDown();
+			}
+			try {
+				offer(result);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public ResultSet execute(PreparedStatement ps) throws SQLException {
+			statement = ps;
+			if (cancelled) {// 关闭发生在语句创建之前
+				throw new SQLException("The parallel query has been closed");
+			}
+			return ps.executeQuery();
+		}
+
+		/**
+		 * 取消正在执行的查询
+		 */
+		private void cancel() {
+			cancelled = true;
+			PreparedStatement ps = statement;
+			if (ps != null) {
+				try {
+					ps.cancel();
+				} catch (SQLException e) {
+					// 语句已关闭或驱动不支持取消时，分区在下一次放入记录时结束
+				}
+			}
+		}
+
+		@Override
+		public Long execute(PreparedStatement ps, ResultSet rs) throws SQLException {
+			long count = 0;
+			T row;
+			try {
+				while (rs.next()) {
+					row = getRow(rs, type);
+					if (!offer(row == null ? NULL : row)) {
+						break;
+					}
+					count++;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQLExecutorException("Interrupted while reading the partitioned rows", e);
+			}
+			return count;
+		}
+
+		/**
+		 * 将记录放入缓冲区，缓冲区满时等待
+		 *
+		 * @param item
+		 *            记录
+		 * @return 放入成功返回true；迭代器已被回收或关闭时返回false
+		 * @throws InterruptedException
+		 *             等待时被中断
+		 */
+		private boolean offer(Object item) throws InterruptedException {
+			ParallelSelectIterator<T> iterator = owner.get();
+			if (cancelled || iterator == null || iterator.closed) {
+				return false;
+			}
+			iterator = null;
+			while (!queue.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+				iterator = owner.get();
+				if (iterator == null || iterator.closed) {
+					return false;
+				}
+				iterator = null;
+			}
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,228 @@
+package cn.tenmg.sqltool.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 并行任务
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+final class ParallelTasks {
+
+	private ParallelTasks() {
+	}
+
+	/**
+	 * 在共享执行器中并行执行任务，同时执行的任务数不超过最大并行数，单个任务失败或超时不影响其他任务。不超时时当前线程也参与执行，
+	 * 占用其中一个并行数，即使共享执行器繁忙（例如在共享执行器的线程中调用）也能完成
+	 *
+	 * @param tasks
+	 *            任务
+	 * @param parallelism
+	 *            最大并行数
+	 * @param timeoutMillis
+	 *            单个任务从开始执行起的超时时长（毫秒），不大于0表示不超时。超时的任务将被中断，其结果不再等待
+	 * @return 返回与任务一一对应的执行结果
+	 */
+	static <R> List<Outcome<R>> invokeEach(List<Callable<R>> tasks, int parallelism, long timeoutMillis) {
+		int size = tasks.size(), lanes = Math.max(1, Math.min(parallelism, size));
+		List<Outcome<R>> outcomes = new ArrayList<Outcome<R>>(size);
+		if (size == 0) {
+			return outcomes;
+		}
+		Queue<Timed<R>> pending = new ConcurrentLinkedQueue<Timed<R>>();
+		List<Timed<R>> timeds = new ArrayList<Timed<R>>(size);
+		for (int i = 0; i < size; i++) {
+			Timed<R> timed = new Timed<R>(tasks.get(i), pending);
+			timeds.add(timed);
+			pending.add(timed);
+		}
+		if (timeoutMillis <= 0) {
+			for (int i = 1; i < lanes; i++) {
+				dispatch(pending);
+			}
+			Timed<R> timed;
+			while ((timed = pending.poll()) != null) {
+				timed.runInline();
+			}
+			// 已提交但共享执行器尚未开始执行的任务也由当前线程执行，已开始或已结束的任务不会重复执行
+			for (int i = 0; i < size; i++) {
+				timeds.get(i).runInline();
+			}
+		} else {
+			for (int i = 0; i < lanes; i++) {
+				dispatch(pending);
+			}
+		}
+		// 未开始执行的任务最迟在各批任务依次超时后开始执行，以此作为等待其开始的上限，避免共享执行器繁忙时无限等待
+		long deadline = timeoutMillis > 0
+				? System.currentTimeMillis() + timeoutMillis * ((size + lanes - 1) / lanes) : 0;
+		try {
+			for (int i = 0; i < size; i++) {
+				outcomes.add(await(timeds.get(i), timeoutMillis, deadline));
+			}
+		} finally {
+			pending.clear();
+			for (int i = 0; i < size; i++) {
+				timeds.get(i).cancel(true);
+			}
+		}
+		return outcomes;
+	}
+
+	/**
+	 * 将下一个等待执行的任务提交到共享执行器
+	 *
+	 * @param pending
+	 *            等待执行的任务
+	 */
+	private static <R> void dispatch(Queue<Timed<R>> pending) {
+		Timed<R> next = pending.poll();
+		if (next != null) {
+			SharedExecutor.get().execute(next);
+		}
+	}
+
+	private static <R> Outcome<R> await(Timed<R> timed, long timeoutMillis, long deadline) {
+		Outcome<R> outcome = new Outcome<R>();
+		try {
+			while (true) {
+				try {
+					if (timeoutMillis <= 0) {
+						outcome.result = timed.get();
+						return outcome;
+					}
+					long now = System.currentTimeMillis(), startedAt = timed.startedAt,
+							until = startedAt > 0 ? startedAt + timeoutMillis : Math.min(now + timeoutMillis, deadline);
+					if (until <= now) {
+						timed.cancel(true);
+						outcome.failure = new TimeoutException("The task did not complete within " + timeoutMillis
+								+ " milliseconds");
+						return outcome;
+					}
+					outcome.result = timed.get(until - now, TimeUnit.MILLISECONDS);
+					return outcome;
+				} catch (TimeoutException e) {
+					// 重新计算等待时长，任务可能刚刚开始执行
+				} catch (CancellationException e) {
+					outcome.failure = e;
+					return outcome;
+				} catch (ExecutionException e) {
+					outcome.failure = e.getCause();
+					return outcome;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					timed.cancel(true);
+					outcome.failure = e;
+					return outcome;
+				}
+			}
+		} finally {
+			long startedAt = timed.startedAt;
+			outcome.elapsedMillis = startedAt > 0 ? Math.max(timed.finishedAt, startedAt) - startedAt : 0;
+		}
+	}
+
+	/**
+	 * 单个任务的执行结果
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	static final class Outcome<R> {
+
+		private R result;
+
+		private Throwable failure;
+
+		private long elapsedMillis;
+
+		R getResult() {
+			return result;
+		}
+
+		/**
+		 * 获取任务执行失败或超时的异常
+		 *
+		 * @return 返回异常，任务执行成功时返回null
+		 */
+		Throwable getFailure() {
+			return failure;
+		}
+
+		/**
+		 * 获取任务从开始执行到结束或超时的时长
+		 *
+		 * @return 返回任务执行的时长（毫秒），任务未开始执行时返回0
+		 */
+		long getElapsedMillis() {
+			return elapsedMillis;
+		}
+
+	}
+
+	/**
+	 * 记录开始和结束时间的任务，执行线程结束执行后提交下一个等待执行的任务
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class Timed<R> extends FutureTask<R> {
+
+		private final Queue<Timed<R>> pending;
+
+		private volatile long startedAt = 0, finishedAt = 0;
+
+		/**
+		 * 是否在调用者线程中执行。调用者线程自行获取下一个任务，结束后无需提交
+		 */
+		private volatile boolean inline = false;
+
+		private Timed(Callable<R> task, Queue<Timed<R>> pending) {
+			super(task);
+			this.pending = pending;
+		}
+
+		@Override
+		public void run() {
+			if (startedAt == 0 && !isDone()) {
+				startedAt = System.currentTimeMillis();
+			}
+			try {
+				super.run();
+			} finally {// 超时取消的任务在驱动返回、线程真正空闲后才提交下一个任务，避免超出最大并行数
+				if (!inline) {
+					dispatch(pending);
+				}
+			}
+		}
+
+		/**
+		 * 在调用者线程中执行任务
+		 */
+		private void runInline() {
+			inline = true;
+			run();
+		}
+
+		@Override
+		protected void done() {
+			finishedAt = System.currentTimeMillis();
+		}
+
+	}
+
+}
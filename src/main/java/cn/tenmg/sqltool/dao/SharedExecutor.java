@@ -0,0 +1,46 @@
+package cn.tenmg.sqltool.dao;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import cn.tenmg.sqltool.SqltoolContext;
+
+/**
+ * 共享执行器。同一JVM内的分页预取、并行查询等后台任务共用一个有界的守护线程池，线程数由shared.executor.threads配置，
+ * 超出的任务排队等待；空闲的线程在一段时间后自动回收
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+final class SharedExecutor {
+
+	private static final long KEEP_ALIVE_SECONDS = 60;
+
+	private static final class ExecutorHolder {
+		private static final ExecutorService EXECUTOR = newExecutor();
+	}
+
+	private SharedExecutor() {
+	}
+
+	/**
+	 * 获取共享的执行器
+	 *
+	 * @return 返回共享的执行器
+	 */
+	static ExecutorService get() {
+		return ExecutorHolder.EXECUTOR;
+	}
+
+	private static ExecutorService newExecutor() {
+		int threads = Integer.parseInt(SqltoolContext.getProperty("shared.executor.threads").trim());
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("sqltool-shared-"));
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+}
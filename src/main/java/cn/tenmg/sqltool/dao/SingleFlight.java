@@ -0,0 +1,305 @@
+package cn.tenmg.sqltool.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import cn.tenmg.dsl.utils.StringUtils;
+import cn.tenmg.sqltool.exception.IllegalConfigException;
+import cn.tenmg.sqltool.exception.SQLExecutorException;
+import cn.tenmg.sqltool.sql.SQLExecuter;
+
+/**
+ * 合并查询。数据源、最终执行的SQL、参数和SQL执行器均相同的并发只读查询共享同一次执行及其结果（含异常），仅对指定编号的DSQL生效；
+ * 同一次执行的等待者数量达到上限后，后续查询单独执行。结果为列表、集合或映射时每个调用方各自获得一份副本（列表中的映射同样复制），
+ * 可以独立地排序、过滤或修改；其中的实体对象仍为共享对象，调用方不应修改。配置示例：
+ *
+ * <pre>
+ * sqltool.singleFlight.ids=user.get,user.findByName
+ * sqltool.singleFlight.maxWaiters=1000
+ * </pre>
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class SingleFlight {
+
+	private static final String PREFIX = "sqltool.singleFlight.", IDS = PREFIX + "ids",
+			MAX_WAITERS = PREFIX + "maxWaiters", ALL = "*";
+
+	private final Set<String> ids;
+
+	private final int maxWaiters;
+
+	private final ConcurrentHashMap<Key, Call<?>> calls = new ConcurrentHashMap<Key, Call<?>>();
+
+	private final AtomicLong coalesced = new AtomicLong();
+
+	/**
+	 * 构造合并查询
+	 *
+	 * @param ids
+	 *            启用合并查询的DSQL编号，为null时对所有DSQL启用
+	 * @param maxWaiters
+	 *            同一次执行的最大等待者数量
+	 */
+	public SingleFlight(Set<String> ids, int maxWaiters) {
+		if (maxWaiters < 1) {
+			throw new IllegalConfigException("The max waiters of single flight must be at least 1");
+		}
+		this.ids = ids == null ? null : Collections.unmodifiableSet(new HashSet<String>(ids));
+		this.maxWaiters = maxWaiters;
+	}
+
+	/**
+	 * 根据配置创建合并查询
+	 *
+	 * @param properties
+	 *            配置
+	 * @return 返回合并查询。未配置sqltool.singleFlight.ids时返回null；配置为*时对所有DSQL启用
+	 */
+	public static SingleFlight of(Properties properties) {
+		String value = properties.getProperty(IDS);
+		if (StringUtils.isBlank(value)) {
+			return null;
+		}
+		Set<String> ids = new HashSet<String>();
+		String[] names = value.split(",");
+		for (int i = 0; i < names.length; i++) {
+			String id = names[i].trim();
+			if (ALL.equals(id)) {
+				ids = null;
+				break;
+			} else if (!id.isEmpty()) {
+				ids.add(id);
+			}
+		}
+		return new SingleFlight(ids, Integer.parseInt(properties.getProperty(MAX_WAITERS, "1000").trim()));
+	}
+
+	/**
+	 * 判断指定编号的DSQL是否启用了合并查询
+	 *
+	 * @param id
+	 *            DSQL编号
+	 * @return 已启用返回true，否则返回false。编号为null时返回false
+	 */
+	public boolean isEnabled(String id) {
+		return id != null && (ids == null || ids.contains(id));
+	}
+
+	/**
+	 * 获取累计被合并（未实际执行而共享其他查询结果）的查询次数
+	 *
+	 * @return 返回被合并的查询次数
+	 */
+	public long getCoalesced() {
+		return coalesced.get();
+	}
+
+	/**
+	 * 执行只读查询。存在相同的正在执行的查询且其等待者数量未达到上限时，等待并共享其结果，否则执行查询
+	 *
+	 * @param dataSource
+	 *            数据源
+	 * @param sql
+	 *            SQL
+	 * @param params
+	 *            参数
+	 * @param sqlExecuter
+	 *            SQL执行器。未重写equals方法的SQL执行器仅与自身相同，因此不会被合并
+	 * @param query
+	 *            实际执行查询的任务
+	 * @return 返回查询结果
+	 */
+	@SuppressWarnings("unchecked")
+	<T> T execute(DataSource dataSource, String sql, List<Object> params, SQLExecuter<T> sqlExecuter,
+			Callable<T> query) {
+		Key key = new Key(dataSource, sql, params, sqlExecuter);
+		Call<T> call = new Call<T>();
+		Call<T> current = (Call<T>) calls.putIfAbsent(key, call);
+		if (current != null) {
+			if (current.join(maxWaiters)) {
+				coalesced.incrementAndGet();
+				return copy(current.await());
+			}
+			return call(query);
+		}
+		T result;
+		try {
+			result = call(query);
+		} catch (RuntimeException | Error e) {
+			calls.remove(key, call);
+			call.complete(null, e);
+			throw e;
+		}
+		calls.remove(key, call);
+		call.complete(copy(result), null);// 共享快照，避免执行者修改结果时等待者复制失败
+		return result;
+	}
+
+	/**
+	 * 复制结果的容器，使每个调用方获得独立的列表、集合或映射。列表或集合中的映射同样复制，其他元素不复制
+	 *
+	 * @param result
+	 *            结果
+	 * @return 返回结果的副本，非容器结果返回原对象
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T copy(T result) {
+		if (result instanceof List) {
+			List<Object> list = (List<Object>) result, copy = new ArrayList<Object>(list.size());
+			for (int i = 0, size = list.size(); i < size; i++) {
+				copy.add(copyElement(list.get(i)));
+			}
+			return (T) copy;
+		} else if (result instanceof Set) {
+			Set<Object> copy = new LinkedHashSet<Object>();
+			for (Iterator<?> it = ((Set<?>) result).iterator(); it.hasNext();) {
+				copy.add(copyElement(it.next()));
+			}
+			return (T) copy;
+		} else if (result instanceof Map) {
+			return (T) new LinkedHashMap<Object, Object>((Map<?, ?>) result);
+		}
+		return result;
+	}
+
+	private static Object copyElement(Object element) {
+		if (element instanceof Map) {
+			return new LinkedHashMap<Object, Object>((Map<?, ?>) element);
+		}
+		return element;
+	}
+
+	private static <T> T call(Callable<T> query) {
+		try {
+			return query.call();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SQLExecutorException(e);
+		}
+	}
+
+	/**
+	 * 合并查询的键
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class Key {
+
+		private final DataSource dataSource;
+
+		private final String sql;
+
+		private final List<Object> params;
+
+		private final SQLExecuter<?> sqlExecuter;
+
+		private final int hashCode;
+
+		private Key(DataSource dataSource, String sql, List<Object> params, SQLExecuter<?> sqlExecuter) {
+			this.dataSource = dataSource;
+			this.sql = sql;
+			this.params = params;
+			this.sqlExecuter = sqlExecuter;
+			int hashCode = System.identityHashCode(dataSource);
+			hashCode = 31 * hashCode + sql.hashCode();
+			hashCode = 31 * hashCode + (params == null ? 0 : params.hashCode());
+			this.hashCode = 31 * hashCode + sqlExecuter.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hashCode == other.hashCode && dataSource == other.dataSource && sql.equals(other.sql)
+					&& (params == null ? other.params == null : params.equals(other.params))
+					&& sqlExecuter.equals(other.sqlExecuter);
+		}
+
+	}
+
+	/**
+	 * 正在执行的查询
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @param <T>
+	 *            返回结果类型
+	 * @since 1.5.4
+	 */
+	private static class Call<T> {
+
+		private int waiters = 0;
+
+		private boolean done = false;
+
+		private T result;
+
+		private Throwable failure;
+
+		private synchronized boolean join(int maxWaiters) {
+			if (done || waiters >= maxWaiters) {
+				return done;
+			}
+			waiters++;
+			return true;
+		}
+
+		private synchronized void complete(T result, Throwable failure) {
+			this.result = result;
+			this.failure = failure;
+			this.done = true;
+			notifyAll();
+		}
+
+		private synchronized T await() {
+			boolean interrupted = false;
+			while (!done) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			} else if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+			return result;
+		}
+
+	}
+
+}
@@ -0,0 +1,23 @@
+package cn.tenmg.sqltool.data;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * 可关闭的迭代器。未遍历完毕即停止使用时，应调用{@link #close()}释放其占用的线程和连接
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @param <T>
+ *            元素类型
+ * @since 1.5.4
+ */
+public interface CloseableIterator<T> extends Iterator<T>, Closeable {
+
+	/**
+	 * 关闭迭代器并释放其占用的资源。关闭后{@link #hasNext()}返回false，重复关闭无副作用
+	 */
+	@Override
+	void close();
+
+}
@@ -0,0 +1,104 @@
+package cn.tenmg.sqltool.data;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 多数据源并行查询结果。包含归并后的行数据、按数据源名称区分的查询结果、查询失败的数据源及其异常，以及各数据源的查询耗时
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @param <T>
+ *            行数据类型
+ * @since 1.5.4
+ */
+public class FanOutResult<T> implements Serializable {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 4727265025866453106L;
+
+	private List<T> rows;
+
+	private Map<String, List<T>> results;
+
+	private Map<String, Throwable> failures;
+
+	private Map<String, Long> elapsed;
+
+	/**
+	 * 获取归并后的行数据。查询语句最外层含排序时按排序归并，否则按数据源顺序连接；仅包含查询成功的数据源的结果
+	 *
+	 * @return 返回归并后的行数据
+	 */
+	public List<T> getRows() {
+		return rows;
+	}
+
+	public void setRows(List<T> rows) {
+		this.rows = rows;
+	}
+
+	/**
+	 * 获取查询成功的数据源的查询结果
+	 *
+	 * @return 返回以数据源名称为键的查询结果
+	 */
+	public Map<String, List<T>> getResults() {
+		return results;
+	}
+
+	public void setResults(Map<String, List<T>> results) {
+		this.results = results;
+	}
+
+	/**
+	 * 获取查询失败（含超时）的数据源及其异常
+	 *
+	 * @return 返回以数据源名称为键的异常
+	 */
+	public Map<String, Throwable> getFailures() {
+		return failures;
+	}
+
+	public void setFailures(Map<String, Throwable> failures) {
+		this.failures = failures;
+	}
+
+	/**
+	 * 获取各数据源从开始查询到查询结束或超时的时长。各数据源的超时时间从该数据源开始查询时起计算，互不影响
+	 *
+	 * @return 返回以数据源名称为键的查询耗时（毫秒），未开始查询即超时的数据源为0
+	 */
+	public Map<String, Long> getElapsed() {
+		return elapsed;
+	}
+
+	public void setElapsed(Map<String, Long> elapsed) {
+		this.elapsed = elapsed;
+	}
+
+	/**
+	 * 判断指定数据源是否查询超时
+	 *
+	 * @param dataSourceName
+	 *            数据源名称
+	 * @return 查询超时返回true，否则返回false
+	 */
+	public boolean isTimedOut(String dataSourceName) {
+		return failures != null && failures.get(dataSourceName) instanceof TimeoutException;
+	}
+
+	/**
+	 * 判断是否所有数据源均查询成功
+	 *
+	 * @return 所有数据源均查询成功返回true，否则返回false
+	 */
+	public boolean isComplete() {
+		return failures == null || failures.isEmpty();
+	}
+
+}
@@ -0,0 +1,53 @@
+package cn.tenmg.sqltool.data;
+
+import java.io.Serializable;
+
+import cn.tenmg.sqltool.exception.IllegalCallException;
+
+/**
+ * 多查询中单个查询的结果。所在的多查询执行完毕后才能获取结果
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @param <T>
+ *            结果类型
+ * @since 1.5.4
+ */
+public class Result<T> implements Serializable {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = -3389418573618519512L;
+
+	private T value;
+
+	private boolean done = false;
+
+	/**
+	 * 获取查询结果
+	 *
+	 * @return 返回查询结果
+	 */
+	public T getValue() {
+		if (!done) {
+			throw new IllegalCallException("The result is not available until the multi-query is executed");
+		}
+		return value;
+	}
+
+	public void setValue(T value) {
+		this.value = value;
+		this.done = true;
+	}
+
+	/**
+	 * 判断查询是否已执行
+	 *
+	 * @return 已执行返回true，否则返回false
+	 */
+	public boolean isDone() {
+		return done;
+	}
+
+}
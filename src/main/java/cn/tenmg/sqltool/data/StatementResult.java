@@ -0,0 +1,81 @@
+package cn.tenmg.sqltool.data;
+
+import java.io.Serializable;
+
+/**
+ * SQL脚本中单条语句的执行结果
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class StatementResult implements Serializable {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 2571440907146286386L;
+
+	/**
+	 * 语句
+	 */
+	private String sql;
+
+	/**
+	 * 受影响行数。非更新语句为-1，批处理中无法获知时为{@link java.sql.Statement#SUCCESS_NO_INFO}
+	 */
+	private int updateCount;
+
+	/**
+	 * 执行耗时（纳秒）。批处理执行的语句为所在批次的总耗时
+	 */
+	private long elapsedNanos;
+
+	/**
+	 * 是否以批处理方式执行
+	 */
+	private boolean batched;
+
+	public StatementResult() {
+	}
+
+	public StatementResult(String sql, int updateCount, long elapsedNanos, boolean batched) {
+		this.sql = sql;
+		this.updateCount = updateCount;
+		this.elapsedNanos = elapsedNanos;
+		this.batched = batched;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public void setSql(String sql) {
+		this.sql = sql;
+	}
+
+	public int getUpdateCount() {
+		return updateCount;
+	}
+
+	public void setUpdateCount(int updateCount) {
+		this.updateCount = updateCount;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public boolean isBatched() {
+		return batched;
+	}
+
+	public void setBatched(boolean batched) {
+		this.batched = batched;
+	}
+
+}
@@ -0,0 +1,23 @@
+package cn.tenmg.sqltool.datasource;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * 并发数超过上限异常。达到数据源的并发上限且在等待时长内未获取到执行许可时抛出
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class ConcurrencyLimitExceededException extends SQLTransientConnectionException {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = -6129540377421953302L;
+
+	public ConcurrencyLimitExceededException(String reason) {
+		super(reason);
+	}
+
+}
@@ -0,0 +1,238 @@
+package cn.tenmg.sqltool.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * 自适应限流数据源。获取连接前须从并发限制器获取执行许可，连接关闭时归还许可并以连接的占用时长调整并发上限；
+ * 关闭过自动提交（事务）的连接和流式读取（例如{@code selectParallel}）的连接占用时长取决于应用逻辑或消费速度，不作为调整依据。
+ * 在数据源配置中增加maxConcurrency即可使用，例如：
+ *
+ * <pre>
+ * sqltool.datasource.maxConcurrency=64
+ * sqltool.datasource.minConcurrency=4
+ * sqltool.datasource.concurrencyWaitMillis=100
+ * sqltool.datasource.latencyTolerance=2
+ * </pre>
+ *
+ * 当前并发上限、正在执行的数量和被拒绝的次数可通过
+ * <code>dataSource.unwrap(ConcurrencyLimitedDataSource.class).getConcurrencyLimiter()</code>获取
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class ConcurrencyLimitedDataSource implements DataSource, Closeable {
+
+	private static final Class<?>[] INTERFACES = { LimitedConnection.class };
+
+	private final DataSource dataSource;
+
+	private final ConcurrencyLimiter concurrencyLimiter;
+
+	public ConcurrencyLimitedDataSource(DataSource dataSource, ConcurrencyLimiter concurrencyLimiter) {
+		this.dataSource = dataSource;
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		long acquiredAt = acquire();
+		try {
+			return wrap(dataSource.getConnection(), acquiredAt);
+		} catch (SQLException | RuntimeException e) {
+			concurrencyLimiter.release(acquiredAt, false);
+			throw e;
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		long acquiredAt = acquire();
+		try {
+			return wrap(dataSource.getConnection(username, password), acquiredAt);
+		} catch (SQLException | RuntimeException e) {
+			concurrencyLimiter.release(acquiredAt, false);
+			throw e;
+		}
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return dataSource.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		dataSource.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		dataSource.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return dataSource.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return dataSource.getParentLogger();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return (T) this;
+		}
+		return dataSource.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+	}
+
+	/**
+	 * 获取并发限制器，可用于获取当前并发上限、正在执行的数量和被拒绝的次数
+	 *
+	 * @return 返回并发限制器
+	 */
+	public ConcurrencyLimiter getConcurrencyLimiter() {
+		return concurrencyLimiter;
+	}
+
+	/**
+	 * 将连接的占用时长排除在调整并发上限的依据之外，用于占用时长取决于调用方消费速度的流式读取。连接不受限流时不做任何处理
+	 *
+	 * @param connection
+	 *            连接
+	 * @throws SQLException
+	 *             判断连接是否受限流时发生异常
+	 */
+	public static void excludeFromSampling(Connection connection) throws SQLException {
+		if (connection.isWrapperFor(LimitedConnection.class)) {
+			connection.unwrap(LimitedConnection.class).excludeFromSampling();
+		}
+	}
+
+	/**
+	 * 关闭被包装的数据源
+	 */
+	@Override
+	public void close() throws IOException {
+		if (dataSource instanceof Closeable) {
+			((Closeable) dataSource).close();
+		}
+	}
+
+	private long acquire() throws SQLException {
+		boolean acquired;
+		try {
+			acquired = concurrencyLimiter.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for the concurrency limit", e);
+		}
+		if (!acquired) {
+			throw new ConcurrencyLimitExceededException(
+					"The concurrency limit " + concurrencyLimiter.getLimit() + " of the datasource has been reached");
+		}
+		return System.nanoTime();
+	}
+
+	private Connection wrap(Connection connection, long acquiredAt) {
+		return (Connection) Proxy.newProxyInstance(ConcurrencyLimitedDataSource.class.getClassLoader(), INTERFACES,
+				new LimitedConnectionHandler(connection, concurrencyLimiter, acquiredAt));
+	}
+
+	/**
+	 * 受限连接
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	public interface LimitedConnection extends Connection {
+
+		/**
+		 * 将连接的占用时长排除在调整并发上限的依据之外
+		 */
+		void excludeFromSampling();
+
+	}
+
+	/**
+	 * 受限连接代理，关闭时归还执行许可
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class LimitedConnectionHandler implements InvocationHandler {
+
+		private static final String CLOSE = "close", SET_AUTO_COMMIT = "setAutoCommit", UNWRAP = "unwrap",
+				IS_WRAPPER_FOR = "isWrapperFor", EXCLUDE_FROM_SAMPLING = "excludeFromSampling";
+
+		private final Connection connection;
+
+		private final ConcurrencyLimiter concurrencyLimiter;
+
+		private final long acquiredAt;
+
+		private boolean released = false, sampled = true;
+
+		private LimitedConnectionHandler(Connection connection, ConcurrencyLimiter concurrencyLimiter,
+				long acquiredAt) {
+			this.connection = connection;
+			this.concurrencyLimiter = concurrencyLimiter;
+			this.acquiredAt = acquiredAt;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (CLOSE.equals(name)) {
+				if (!released) {
+					released = true;
+					try {
+						connection.close();
+					} finally {
+						concurrencyLimiter.release(acquiredAt, sampled);
+					}
+				}
+				return null;
+			} else if (EXCLUDE_FROM_SAMPLING.equals(name) && args == null) {
+				sampled = false;
+				return null;
+			} else if (SET_AUTO_COMMIT.equals(name) && !((Boolean) args[0]).booleanValue()) {
+				sampled = false;
+			} else if (UNWRAP.equals(name) && ((Class<?>) args[0]).isInstance(proxy)) {
+				return proxy;
+			} else if (IS_WRAPPER_FOR.equals(name) && ((Class<?>) args[0]).isInstance(proxy)) {
+				return true;
+			}
+			try {
+				return method.invoke(connection, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+	}
+
+}
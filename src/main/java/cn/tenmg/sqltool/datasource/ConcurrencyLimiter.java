@@ -0,0 +1,194 @@
+package cn.tenmg.sqltool.datasource;
+
+import java.util.Arrays;
+
+import cn.tenmg.sqltool.exception.IllegalConfigException;
+
+/**
+ * 自适应并发限制器。按加性增、乘性减（AIMD）的方式根据观测到的耗时调整并发上限：每收集一个窗口的耗时样本，以窗口内耗时的中位数与基准耗时比较，
+ * 超过基准耗时的容忍倍数时按比例降低上限，否则在并发接近上限时提高上限。基准耗时为未超标窗口耗时中位数的指数移动平均，
+ * 少数极短的查询不会拉低基准耗时；并发上限已降至最小值时耗时仍超标，说明数据库的无负载耗时已经变化，此时以当前窗口的中位数作为新的基准耗时
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class ConcurrencyLimiter {
+
+	private static final double BACKOFF_RATIO = 0.9;
+
+	/**
+	 * 基准耗时的平滑系数，即每个未超标窗口的耗时中位数在基准耗时中所占的权重
+	 */
+	private static final double SMOOTHING = 0.1;
+
+	private static final int WINDOW = 100;
+
+	/**
+	 * 判断耗时超标时在容忍倍数之外额外允许的耗时（纳秒），避免极短查询的耗时抖动导致上限频繁降低
+	 */
+	private static final long SLACK_NANOS = 1000000L;
+
+	private final int minLimit, maxLimit;
+
+	private final long maxWaitMillis;
+
+	private final double tolerance;
+
+	private final long[] window = new long[WINDOW];
+
+	private double limit, baseline = 0;
+
+	private int inFlight = 0, peakInFlight = 0, samples = 0;
+
+	private long rejected = 0;
+
+	/**
+	 * 构造自适应并发限制器
+	 *
+	 * @param minLimit
+	 *            并发上限的最小值
+	 * @param maxLimit
+	 *            并发上限的最大值
+	 * @param maxWaitMillis
+	 *            达到并发上限时的最长等待时长（毫秒），不大于0表示立即拒绝
+	 * @param tolerance
+	 *            耗时相对基准耗时的容忍倍数
+	 */
+	public ConcurrencyLimiter(int minLimit, int maxLimit, long maxWaitMillis, double tolerance) {
+		if (minLimit < 1 || maxLimit < minLimit) {
+			throw new IllegalConfigException(
+					"The concurrency limits must satisfy 1 <= minConcurrency <= maxConcurrency");
+		}
+		if (tolerance < 1) {
+			throw new IllegalConfigException("The latency tolerance must not be less than 1");
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.maxWaitMillis = maxWaitMillis;
+		this.tolerance = tolerance;
+		this.limit = Math.max(minLimit, maxLimit / 2);
+	}
+
+	/**
+	 * 获取执行许可。达到并发上限时按配置等待或立即拒绝
+	 *
+	 * @return 获取到许可返回true，被拒绝返回false
+	 * @throws InterruptedException
+	 *             等待时被中断
+	 */
+	public synchronized boolean acquire() throws InterruptedException {
+		if (inFlight < (int) limit) {
+			acquired();
+			return true;
+		}
+		if (maxWaitMillis > 0) {
+			long deadline = System.currentTimeMillis() + maxWaitMillis, wait;
+			while (inFlight >= (int) limit) {
+				wait = deadline - System.currentTimeMillis();
+				if (wait <= 0) {
+					break;
+				}
+				wait(wait);
+			}
+			if (inFlight < (int) limit) {
+				acquired();
+				return true;
+			}
+		}
+		rejected++;
+		return false;
+	}
+
+	/**
+	 * 归还执行许可并根据耗时调整并发上限
+	 *
+	 * @param acquiredAt
+	 *            获取许可的时间（{@link System#nanoTime()}）
+	 * @param sample
+	 *            是否将本次耗时作为调整依据。例如事务的耗时取决于应用逻辑，不应作为调整依据
+	 */
+	public synchronized void release(long acquiredAt, boolean sample) {
+		int before = (int) limit;
+		inFlight--;
+		if (sample) {
+			window[samples++] = System.nanoTime() - acquiredAt;
+			if (samples >= WINDOW) {
+				adjust();
+				samples = 0;
+				peakInFlight = inFlight;
+			}
+		}
+		if ((int) limit > before) {
+			notifyAll();
+		} else {
+			notify();
+		}
+	}
+
+	/**
+	 * 获取当前的基准耗时
+	 *
+	 * @return 返回基准耗时（纳秒），尚未收集满一个窗口的样本时返回0
+	 */
+	public synchronized long getBaselineNanos() {
+		return (long) baseline;
+	}
+
+	/**
+	 * 获取当前的并发上限
+	 *
+	 * @return 返回当前的并发上限
+	 */
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	/**
+	 * 获取正在执行的数量
+	 *
+	 * @return 返回正在执行的数量
+	 */
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * 获取累计被拒绝的次数
+	 *
+	 * @return 返回累计被拒绝的次数
+	 */
+	public synchronized long getRejected() {
+		return rejected;
+	}
+
+	private void acquired() {
+		if (++inFlight > peakInFlight) {
+			peakInFlight = inFlight;
+		}
+	}
+
+	/**
+	 * 根据一个窗口的耗时样本调整并发上限和基准耗时
+	 */
+	private void adjust() {
+		long[] sorted = window.clone();
+		Arrays.sort(sorted);
+		long median = sorted[WINDOW / 2];
+		if (baseline <= 0) {
+			baseline = median;
+		} else if (median > baseline * tolerance + SLACK_NANOS) {
+			if (limit <= minLimit) {
+				baseline = median;
+			} else {
+				limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+			}
+		} else {
+			baseline += (median - baseline) * SMOOTHING;
+			if (peakInFlight >= limit / 2) {
+				limit = Math.min(maxLimit, limit + 1);
+			}
+		}
+	}
+
+}
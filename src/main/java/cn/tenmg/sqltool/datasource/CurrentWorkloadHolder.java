@@ -0,0 +1,39 @@
+package cn.tenmg.sqltool.datasource;
+
+/**
+ * 当前工作负载类别持有者。当前线程设置了工作负载类别时，该线程获取的连接均属于该类别，优先于由调用的方法隐含的类别
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public abstract class CurrentWorkloadHolder {
+
+	private static ThreadLocal<Workload> currentWorkload = new ThreadLocal<Workload>();
+
+	public static void set(Workload workload) {
+		currentWorkload.set(workload);
+	}
+
+	public static Workload get() {
+		return currentWorkload.get();
+	}
+
+	public static void remove() {
+		currentWorkload.remove();
+	}
+
+	/**
+	 * 恢复之前的工作负载类别
+	 *
+	 * @param previous
+	 *            之前的工作负载类别，为null时移除当前的工作负载类别
+	 */
+	public static void restore(Workload previous) {
+		if (previous == null) {
+			currentWorkload.remove();
+		} else {
+			currentWorkload.set(previous);
+		}
+	}
+}
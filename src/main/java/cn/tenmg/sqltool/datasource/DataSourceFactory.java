@@ -1,6 +1,12 @@
 package cn.tenmg.sqltool.datasource;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.TreeMap;
 
 import javax.sql.DataSource;
 
@@ -16,29 +22,112 @@ import cn.tenmg.sqltool.exception.IllegalConfigException;
 public final class DataSourceFactory {
 
 	public static final String TYPE_NAME = "type", DEFAULT_TYPE = "com.alibaba.druid.pool.DruidDataSource",
-			BUILDER_PREFIX = "cn.tenmg.sqltool.datasource.builder.", BUILDER_SUFFIX = "Builder";
+			BUILDER_PREFIX = "cn.tenmg.sqltool.datasource.builder.", BUILDER_SUFFIX = "Builder",
+			REPLICAS_PREFIX = "replicas.", STICKY_PRIMARY_MILLIS = "stickyPrimaryMillis",
+			REPLICA_RETRY_MILLIS = "replicaRetryMillis", MAX_CONCURRENCY = "maxConcurrency",
+			MIN_CONCURRENCY = "minConcurrency", CONCURRENCY_WAIT_MILLIS = "concurrencyWaitMillis",
+			LATENCY_TOLERANCE = "latencyTolerance", BULK_CONNECTIONS = "bulkConnections", MAX_WAIT = "maxWait",
+			TRACK_STATE = "trackState";
+
+	private static final String[] MAX_CONNECTIONS = { "maxActive", "maxTotal" };
 
 	private DataSourceFactory() {
 	}
 
 	/**
-	 * 创建数据源
+	 * 创建数据源。配置了从库（replicas.<i>从库名</i>.<i>参数</i>）时，返回读写分离数据源；配置了maxConcurrency时，主库和各从库分别使用自适应限流数据源；
+	 * 配置了bulkConnections时，主库和各从库分别使用分道数据源；配置了trackState=true时，主库和各从库的连接均跟踪状态
 	 * 
 	 * @param properties
 	 *            数据源配置
 	 * @return 返回创建的数据源
 	 * @throws Exception
 	 */
-	@SuppressWarnings("unchecked")
 	public static DataSource createDataSource(Properties properties) throws Exception {
+		Properties primaryConfig = new Properties();
+		Map<String, Properties> replicaConfigs = new TreeMap<String, Properties>();
+		String key, name;
+		Properties replicaConfig;
+		for (Iterator<Entry<Object, Object>> it = properties.entrySet().iterator(); it.hasNext();) {
+			Entry<Object, Object> entry = it.next();
+			key = entry.getKey().toString();
+			if (key.startsWith(REPLICAS_PREFIX)) {
+				key = key.substring(REPLICAS_PREFIX.length());
+				int index = key.indexOf(".");
+				if (index <= 0) {
+					throw new IllegalConfigException("Illegal replica configuration: ".concat(REPLICAS_PREFIX)
+							.concat(key).concat(", it should be replicas.<name>.<param>"));
+				}
+				name = key.substring(0, index);
+				replicaConfig = replicaConfigs.get(name);
+				if (replicaConfig == null) {
+					replicaConfig = new Properties();
+					replicaConfigs.put(name, replicaConfig);
+				}
+				replicaConfig.put(key.substring(index + 1), entry.getValue());
+			} else if (!STICKY_PRIMARY_MILLIS.equals(key) && !REPLICA_RETRY_MILLIS.equals(key)) {
+				primaryConfig.put(key, entry.getValue());
+			}
+		}
+		if (replicaConfigs.isEmpty()) {
+			return create(properties);
+		}
+		DataSource primary = create(primaryConfig);
+		List<DataSource> replicas = new ArrayList<DataSource>();
+		Properties config;
+		for (Iterator<Properties> it = replicaConfigs.values().iterator(); it.hasNext();) {
+			config = new Properties();
+			config.putAll(primaryConfig);// 从库未指定的参数与主库相同
+			config.putAll(it.next());
+			replicas.add(create(config));
+		}
+		return new RoutingDataSource(primary, replicas,
+				Long.parseLong(properties.getProperty(STICKY_PRIMARY_MILLIS, "1000")),
+				Long.parseLong(properties.getProperty(REPLICA_RETRY_MILLIS, "30000")));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static DataSource create(Properties properties) throws Exception {
 		String type = properties.getProperty(TYPE_NAME, DEFAULT_TYPE),
 				buildName = BUILDER_PREFIX.concat(type).concat(BUILDER_SUFFIX);
+		DataSource dataSource;
 		try {
 			Class<DatasourceBuilder> datasourceBuilder = (Class<DatasourceBuilder>) Class.forName(buildName);
-			return datasourceBuilder.newInstance().createDataSource(properties);
+			dataSource = datasourceBuilder.newInstance().createDataSource(properties);
 		} catch (ClassNotFoundException e) {
 			throw new IllegalConfigException("This type of datasource is not supported at the moment: ".concat(type), e);
 		}
+		if (Boolean.valueOf(properties.getProperty(TRACK_STATE, "false"))) {
+			dataSource = new StateTrackingDataSource(dataSource);
+		}
+		String maxConcurrency = properties.getProperty(MAX_CONCURRENCY);
+		if (maxConcurrency != null) {
+			int maxLimit = Integer.parseInt(maxConcurrency.trim()), minLimit = Math.max(1, maxLimit / 4);
+			String minConcurrency = properties.getProperty(MIN_CONCURRENCY);
+			if (minConcurrency != null) {
+				minLimit = Integer.parseInt(minConcurrency.trim());
+			}
+			ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(minLimit, maxLimit,
+					Long.parseLong(properties.getProperty(CONCURRENCY_WAIT_MILLIS, "100")),
+					Double.parseDouble(properties.getProperty(LATENCY_TOLERANCE, "2")));
+			dataSource = new ConcurrencyLimitedDataSource(dataSource, concurrencyLimiter);
+		}
+		String bulkConnections = properties.getProperty(BULK_CONNECTIONS);
+		if (bulkConnections == null) {
+			return dataSource;
+		}
+		String maxConnections = null;
+		for (int i = 0; i < MAX_CONNECTIONS.length && maxConnections == null; i++) {
+			maxConnections = properties.getProperty(MAX_CONNECTIONS[i]);
+		}
+		if (maxConnections == null) {
+			throw new IllegalConfigException("The maximum connections of the pool (maxActive or maxTotal) must be "
+					+ "configured together with bulkConnections");
+		}
+		// 分道数据源在限流数据源之外，等待分道期间不计入限流的耗时统计
+		return new WorkloadLaneDataSource(dataSource, Integer.parseInt(maxConnections.trim()),
+				Integer.parseInt(bulkConnections.trim()),
+				Long.parseLong(properties.getProperty(MAX_WAIT, "-1").trim()));
 	}
 
 }
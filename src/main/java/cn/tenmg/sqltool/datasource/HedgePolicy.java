@@ -0,0 +1,218 @@
+package cn.tenmg.sqltool.datasource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import cn.tenmg.dsl.utils.StringUtils;
+import cn.tenmg.sqltool.exception.IllegalConfigException;
+
+/**
+ * 对冲读策略。按DSQL编号统计只读查询的耗时，查询在从库上的耗时超过该编号耗时的指定百分位时，在另一从库上发起相同的查询并采用先返回的结果；
+ * 对冲查询受全局预算限制，额外增加的查询数不超过只读查询数的指定百分比。配置示例：
+ *
+ * <pre>
+ * sqltool.hedge.percentile=95
+ * sqltool.hedge.budgetPercent=5
+ * </pre>
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class HedgePolicy {
+
+	private static final String PREFIX = "sqltool.hedge.", PERCENTILE = PREFIX + "percentile",
+			BUDGET_PERCENT = PREFIX + "budgetPercent";
+
+	/**
+	 * 开始对冲前每个DSQL编号至少需要的耗时样本数
+	 */
+	private static final int MIN_SAMPLES = 100;
+
+	/**
+	 * 一次对冲消耗的预算，以及预算的累积上限（允许短时间内连续对冲的次数）
+	 */
+	private static final long HEDGE_COST = 100, MAX_BUDGET = HEDGE_COST * 10;
+
+	private final double percentile;
+
+	private final int budgetPercent;
+
+	private final AtomicLong budget = new AtomicLong();
+
+	private volatile Map<String, LatencyHistogram> histograms = new HashMap<String, LatencyHistogram>();
+
+	/**
+	 * 构造对冲读策略
+	 *
+	 * @param percentile
+	 *            触发对冲的耗时百分位，取值范围(0, 100)
+	 * @param budgetPercent
+	 *            对冲查询数占只读查询数的最大百分比
+	 */
+	public HedgePolicy(double percentile, int budgetPercent) {
+		if (percentile <= 0 || percentile >= 100) {
+			throw new IllegalConfigException("The percentile for hedged reads must be between 0 and 100");
+		}
+		if (budgetPercent < 0) {
+			throw new IllegalConfigException("The budget percent for hedged reads must not be negative");
+		}
+		this.percentile = percentile;
+		this.budgetPercent = budgetPercent;
+	}
+
+	/**
+	 * 根据配置创建对冲读策略
+	 *
+	 * @param properties
+	 *            配置
+	 * @return 返回对冲读策略。未配置sqltool.hedge.percentile时返回null
+	 */
+	public static HedgePolicy of(Properties properties) {
+		String percentile = properties.getProperty(PERCENTILE);
+		if (StringUtils.isBlank(percentile)) {
+			return null;
+		}
+		return new HedgePolicy(Double.parseDouble(percentile.trim()),
+				Integer.parseInt(properties.getProperty(BUDGET_PERCENT, "5").trim()));
+	}
+
+	/**
+	 * 获取发起对冲查询前的等待时长
+	 *
+	 * @param id
+	 *            DSQL编号
+	 * @return 返回该编号查询耗时的指定百分位（纳秒）。耗时样本不足时返回-1，表示不对冲
+	 */
+	public long getDelayNanos(String id) {
+		LatencyHistogram histogram = histograms.get(id);
+		return histogram == null ? -1 : histogram.percentile(percentile);
+	}
+
+	/**
+	 * 记录一次只读查询的耗时，同时按预算百分比增加对冲预算
+	 *
+	 * @param id
+	 *            DSQL编号
+	 * @param nanos
+	 *            耗时（纳秒）
+	 */
+	public void record(String id, long nanos) {
+		LatencyHistogram histogram = histograms.get(id);
+		if (histogram == null) {
+			histogram = getOrCreate(id);
+		}
+		histogram.record(nanos);
+		long current;
+		do {
+			current = budget.get();
+			if (current >= MAX_BUDGET) {
+				return;
+			}
+		} while (!budget.compareAndSet(current, Math.min(current + budgetPercent, MAX_BUDGET)));
+	}
+
+	/**
+	 * 尝试为一次对冲查询扣减预算
+	 *
+	 * @return 预算充足返回true，否则返回false
+	 */
+	public boolean tryAcquire() {
+		long current;
+		do {
+			current = budget.get();
+			if (current < HEDGE_COST) {
+				return false;
+			}
+		} while (!budget.compareAndSet(current, current - HEDGE_COST));
+		return true;
+	}
+
+	/**
+	 * 退还{@link #tryAcquire()}扣减的预算，用于无可用从库连接等未实际发起对冲查询的情况
+	 */
+	public void release() {
+		long current;
+		do {
+			current = budget.get();
+		} while (!budget.compareAndSet(current, Math.min(current + HEDGE_COST, MAX_BUDGET)));
+	}
+
+	private synchronized LatencyHistogram getOrCreate(String id) {
+		LatencyHistogram histogram = histograms.get(id);
+		if (histogram == null) {
+			Map<String, LatencyHistogram> histograms = new HashMap<String, LatencyHistogram>(this.histograms);
+			histogram = new LatencyHistogram();
+			histograms.put(id, histogram);
+			this.histograms = histograms;
+		}
+		return histogram;
+	}
+
+	/**
+	 * 耗时直方图。桶按2的幂次划分并将每个幂次区间四等分，样本数达到窗口大小时各桶计数减半，使统计结果偏向近期的查询
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class LatencyHistogram {
+
+		private static final int BUCKETS = 256, WINDOW = 1000;
+
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+		private final AtomicLong count = new AtomicLong();
+
+		private void record(long nanos) {
+			buckets.incrementAndGet(index(Math.max(nanos, 0)));
+			if (count.incrementAndGet() % WINDOW == 0) {
+				for (int i = 0; i < BUCKETS; i++) {
+					long value;
+					do {
+						value = buckets.get(i);
+					} while (!buckets.compareAndSet(i, value, value >>> 1));
+				}
+			}
+		}
+
+		private long percentile(double percentile) {
+			if (count.get() < MIN_SAMPLES) {
+				return -1;
+			}
+			long total = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				total += buckets.get(i);
+			}
+			long target = (long) Math.ceil(total * percentile / 100), sum = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				sum += buckets.get(i);
+				if (sum >= target && sum > 0) {
+					return upperBound(i);
+				}
+			}
+			return -1;
+		}
+
+		private static int index(long nanos) {
+			if (nanos < 4) {
+				return (int) nanos;
+			}
+			int msb = 63 - Long.numberOfLeadingZeros(nanos);
+			return msb * 4 + (int) ((nanos >>> (msb - 2)) & 3);
+		}
+
+		private static long upperBound(int index) {
+			if (index < 4) {
+				return index + 1;
+			}
+			int msb = index / 4;
+			return (long) (4 + index % 4 + 1) << (msb - 2);
+		}
+
+	}
+
+}
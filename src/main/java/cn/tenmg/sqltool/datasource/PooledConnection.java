@@ -0,0 +1,297 @@
+package cn.tenmg.sqltool.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 连接池中的物理连接。借出状态通过CAS切换，每次借出时创建独立的连接代理，代理关闭后连接归还连接池
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+class PooledConnection {
+
+	static final int IDLE = 0, IN_USE = 1, REMOVED = -1;
+
+	private static final String CONNECTION_EXCEPTION_PREFIX = "08";
+
+	private static final Class<?>[] INTERFACES = { Connection.class };
+
+	private final PooledDataSource pool;
+
+	private final Connection connection;
+
+	private final AtomicInteger state = new AtomicInteger(IN_USE);
+
+	private volatile long lastAccess = System.currentTimeMillis();
+
+	private volatile boolean broken = false;
+
+	PooledConnection(PooledDataSource pool, Connection connection) {
+		this.pool = pool;
+		this.connection = connection;
+	}
+
+	boolean compareAndSet(int expect, int update) {
+		return state.compareAndSet(expect, update);
+	}
+
+	int getState() {
+		return state.get();
+	}
+
+	void setState(int state) {
+		this.state.set(state);
+	}
+
+	long getLastAccess() {
+		return lastAccess;
+	}
+
+	Connection getConnection() {
+		return connection;
+	}
+
+	boolean isBroken() {
+		return broken;
+	}
+
+	/**
+	 * 创建本次借出使用的连接代理
+	 *
+	 * @return 返回连接代理
+	 */
+	Connection borrow() {
+		return (Connection) Proxy.newProxyInstance(PooledConnection.class.getClassLoader(), INTERFACES,
+				new Handle(this));
+	}
+
+	/**
+	 * 关闭物理连接
+	 */
+	void closePhysically() {
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * 归还连接。关闭借出期间创建且未关闭的语句，恢复借出期间修改的自动提交、只读、目录、模式、事务隔离级别和网络超时时间，未提交的事务将被回滚。
+	 * 恢复失败的连接将从连接池移除
+	 *
+	 * @param autoCommitChanged
+	 *            借出期间是否关闭了自动提交
+	 * @param readOnlyChanged
+	 *            借出期间是否开启了只读
+	 * @param originals
+	 *            借出期间修改的其他状态的原值，键为设置方法名，可为null
+	 * @param statements
+	 *            借出期间创建的语句
+	 */
+	private void giveBack(boolean autoCommitChanged, boolean readOnlyChanged, Map<String, Object> originals,
+			List<Statement> statements) {
+		for (int i = 0, size = statements.size(); i < size; i++) {
+			try {
+				statements.get(i).close();
+			} catch (SQLException e) {
+				broken = true;
+			}
+		}
+		if (!broken) {
+			try {
+				if (autoCommitChanged) {
+					connection.rollback();
+					connection.setAutoCommit(true);
+				}
+				if (readOnlyChanged) {
+					connection.setReadOnly(false);
+				}
+				if (originals != null) {
+					restore(originals);
+				}
+			} catch (SQLException e) {
+				broken = true;
+			}
+		}
+		lastAccess = System.currentTimeMillis();
+		pool.giveBack(this);
+	}
+
+	private void restore(Map<String, Object> originals) throws SQLException {
+		String name;
+		Object value;
+		for (Iterator<Entry<String, Object>> it = originals.entrySet().iterator(); it.hasNext();) {
+			Entry<String, Object> entry = it.next();
+			name = entry.getKey();
+			value = entry.getValue();
+			if (Handle.SET_CATALOG.equals(name)) {
+				connection.setCatalog((String) value);
+			} else if (Handle.SET_SCHEMA.equals(name)) {
+				connection.setSchema((String) value);
+			} else if (Handle.SET_TRANSACTION_ISOLATION.equals(name)) {
+				connection.setTransactionIsolation((Integer) value);
+			} else if (Handle.SET_NETWORK_TIMEOUT.equals(name)) {
+				connection.setNetworkTimeout(DirectExecutor.INSTANCE, (Integer) value);
+			}
+		}
+	}
+
+	/**
+	 * 单次借出的连接代理
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class Handle implements InvocationHandler {
+
+		private static final String CLOSE = "close", IS_CLOSED = "isClosed", SET_AUTO_COMMIT = "setAutoCommit",
+				SET_READ_ONLY = "setReadOnly", UNWRAP = "unwrap", IS_WRAPPER_FOR = "isWrapperFor",
+				EQUALS = "equals", HASH_CODE = "hashCode", TO_STRING = "toString", SET_CATALOG = "setCatalog",
+				SET_SCHEMA = "setSchema", SET_TRANSACTION_ISOLATION = "setTransactionIsolation",
+				SET_NETWORK_TIMEOUT = "setNetworkTimeout";
+
+		/**
+		 * 借出期间创建的语句数达到该值时，清理已关闭的语句
+		 */
+		private static final int PRUNE_THRESHOLD = 64;
+
+		private final PooledConnection pooledConnection;
+
+		private final List<Statement> statements = new ArrayList<Statement>();
+
+		private Map<String, Object> originals;
+
+		private boolean closed = false, autoCommitChanged = false, readOnlyChanged = false;
+
+		private Handle(PooledConnection pooledConnection) {
+			this.pooledConnection = pooledConnection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (CLOSE.equals(name)) {
+				if (!closed) {
+					closed = true;
+					pooledConnection.giveBack(autoCommitChanged, readOnlyChanged, originals, statements);
+				}
+				return null;
+			} else if (IS_CLOSED.equals(name)) {
+				return closed;
+			} else if (EQUALS.equals(name)) {
+				return proxy == args[0];
+			} else if (HASH_CODE.equals(name)) {
+				return System.identityHashCode(proxy);
+			} else if (TO_STRING.equals(name)) {
+				return "Pooled(" + pooledConnection.connection + ")";
+			} else if (closed) {
+				throw new SQLException("The connection has been closed");
+			} else if (UNWRAP.equals(name) && ((Class<?>) args[0]).isInstance(proxy)) {
+				return proxy;
+			} else if (IS_WRAPPER_FOR.equals(name) && ((Class<?>) args[0]).isInstance(proxy)) {
+				return true;
+			} else if (SET_AUTO_COMMIT.equals(name)) {
+				autoCommitChanged = !((Boolean) args[0]).booleanValue();
+			} else if (SET_READ_ONLY.equals(name)) {
+				readOnlyChanged = ((Boolean) args[0]).booleanValue();
+			} else if (SET_CATALOG.equals(name) || SET_SCHEMA.equals(name) || SET_TRANSACTION_ISOLATION.equals(name)
+					|| SET_NETWORK_TIMEOUT.equals(name)) {
+				saveOriginal(name);
+			}
+			try {
+				Object result = method.invoke(pooledConnection.connection, args);
+				if (result instanceof Statement) {
+					track((Statement) result);
+				}
+				return result;
+			} catch (InvocationTargetException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof SQLException) {
+					String sqlState = ((SQLException) cause).getSQLState();
+					if (sqlState != null && sqlState.startsWith(CONNECTION_EXCEPTION_PREFIX)) {
+						pooledConnection.broken = true;// 连接异常，归还时将从连接池移除
+					}
+				}
+				throw cause;
+			}
+		}
+
+		/**
+		 * 首次修改状态前保存原值。借出的连接均处于连接池的默认状态，原值即默认值；无法读取原值时归还后移除该连接
+		 */
+		private void saveOriginal(String name) {
+			if (originals == null) {
+				originals = new HashMap<String, Object>();
+			} else if (originals.containsKey(name)) {
+				return;
+			}
+			Connection connection = pooledConnection.connection;
+			try {
+				Object value;
+				if (SET_CATALOG.equals(name)) {
+					value = connection.getCatalog();
+				} else if (SET_SCHEMA.equals(name)) {
+					value = connection.getSchema();
+				} else if (SET_TRANSACTION_ISOLATION.equals(name)) {
+					value = connection.getTransactionIsolation();
+				} else {
+					value = connection.getNetworkTimeout();
+				}
+				originals.put(name, value);
+			} catch (SQLException | RuntimeException | AbstractMethodError e) {
+				pooledConnection.broken = true;
+			}
+		}
+
+		private void track(Statement statement) {
+			if (statements.size() >= PRUNE_THRESHOLD) {
+				for (Iterator<Statement> it = statements.iterator(); it.hasNext();) {
+					try {
+						if (it.next().isClosed()) {
+							it.remove();
+						}
+					} catch (SQLException e) {// 无法判断时保留，归还时再次关闭
+					}
+				}
+			}
+			statements.add(statement);
+		}
+
+	}
+
+	/**
+	 * 在调用线程中直接执行任务的执行器，用于恢复网络超时时间
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class DirectExecutor implements Executor {
+
+		private static final DirectExecutor INSTANCE = new DirectExecutor();
+
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+
+	}
+
+}
@@ -0,0 +1,440 @@
+package cn.tenmg.sqltool.datasource;
+
+import java.io.Closeable;
+import java.io.PrintWriter;
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import cn.tenmg.sqltool.exception.IllegalConfigException;
+
+/**
+ * 轻量级连接池。适用于分布式计算框架的执行端等短时、突发的访问场景：
+ * 借出连接时优先使用当前线程上次使用的连接，其次扫描所有空闲连接，借出和归还均通过CAS完成而不使用锁；
+ * 仅在连接空闲超过一定时间后才校验连接是否有效；仅在开启空闲连接回收时才创建后台线程。
+ * 通过设置数据源类型（sqltool.datasource.type）为cn.tenmg.sqltool.datasource.PooledDataSource使用，支持的配置如下：
+ *
+ * <pre>
+ * driverClassName                驱动类名，可省略
+ * url                            连接URL
+ * username                       用户名
+ * password                       密码
+ * connectionProperties           传递给驱动的其他连接属性，格式为key1=value1;key2=value2
+ * initialSize                    初始连接数，默认0
+ * maxActive                      最大连接数，默认8
+ * minIdle                        回收空闲连接时保留的最小连接数，默认0
+ * maxWait                        连接耗尽时最长等待时间（毫秒），默认30000
+ * validationIdleMillis           连接空闲超过该时间（毫秒）后借出时校验连接，默认500
+ * validationQueryTimeout         校验连接的超时时间（秒），默认5
+ * timeBetweenEvictionRunsMillis  回收空闲连接的间隔时间（毫秒），默认0，即不回收
+ * minEvictableIdleTimeMillis     连接可被回收的最小空闲时间（毫秒），默认1800000
+ * </pre>
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class PooledDataSource implements DataSource, Closeable {
+
+	private static final String PROPERTY_SEPARATOR = ";", KEY_VALUE_SEPARATOR = "=", USER = "user",
+			PASSWORD = "password";
+
+	private static final AtomicInteger EVICTOR_ID = new AtomicInteger();
+
+	/**
+	 * 归还连接时等待移交的最长时间，覆盖等待线程登记后到开始等待前的短暂间隙
+	 */
+	private static final long HANDOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	/**
+	 * 等待线程每次等待移交的最长时间，超过后重新扫描空闲连接，避免错过未能移交而转为空闲的连接
+	 */
+	private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+	private final CopyOnWriteArrayList<PooledConnection> connections = new CopyOnWriteArrayList<PooledConnection>();
+
+	private final ThreadLocal<WeakReference<PooledConnection>> lastUsed =
+			new ThreadLocal<WeakReference<PooledConnection>>();
+
+	private final SynchronousQueue<PooledConnection> handoff = new SynchronousQueue<PooledConnection>();
+
+	private final AtomicInteger total = new AtomicInteger(), waiters = new AtomicInteger();
+
+	private final String url;
+
+	private final Properties connectionProperties;
+
+	private final Driver driver;
+
+	private final int maxActive, minIdle, validationQueryTimeout;
+
+	private final long maxWait, validationIdleMillis, minEvictableIdleTimeMillis;
+
+	private final Thread evictor;
+
+	private volatile boolean closed = false;
+
+	private PrintWriter logWriter;
+
+	public PooledDataSource(Properties properties) throws SQLException {
+		String driverClassName = properties.getProperty("driverClassName");
+		this.url = properties.getProperty("url");
+		if (url == null) {
+			throw new IllegalConfigException("The url of the datasource must be specified");
+		}
+		if (driverClassName != null) {
+			try {
+				Class.forName(driverClassName);
+			} catch (ClassNotFoundException e) {
+				throw new IllegalConfigException("Driver class not found: ".concat(driverClassName), e);
+			}
+		}
+		this.driver = DriverManager.getDriver(url);
+		this.connectionProperties = getConnectionProperties(properties);
+		this.maxActive = Integer.parseInt(properties.getProperty("maxActive", "8"));
+		this.minIdle = Integer.parseInt(properties.getProperty("minIdle", "0"));
+		this.maxWait = Long.parseLong(properties.getProperty("maxWait", "30000"));
+		this.validationIdleMillis = Long.parseLong(properties.getProperty("validationIdleMillis", "500"));
+		this.validationQueryTimeout = Integer.parseInt(properties.getProperty("validationQueryTimeout", "5"));
+		this.minEvictableIdleTimeMillis = Long
+				.parseLong(properties.getProperty("minEvictableIdleTimeMillis", "1800000"));
+		int initialSize = Math.min(Integer.parseInt(properties.getProperty("initialSize", "0")), maxActive);
+		for (int i = 0; i < initialSize; i++) {
+			total.incrementAndGet();
+			PooledConnection connection = create();
+			connection.setState(PooledConnection.IDLE);
+		}
+		long timeBetweenEvictionRunsMillis = Long
+				.parseLong(properties.getProperty("timeBetweenEvictionRunsMillis", "0"));
+		if (timeBetweenEvictionRunsMillis > 0) {
+			this.evictor = new Thread(new Evictor(this, timeBetweenEvictionRunsMillis),
+					"sqltool-pool-evictor-" + EVICTOR_ID.incrementAndGet());
+			this.evictor.setDaemon(true);
+			this.evictor.start();
+		} else {
+			this.evictor = null;
+		}
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWait);
+		PooledConnection connection;
+		while (true) {
+			connection = acquire(deadline);
+			if (validate(connection)) {
+				lastUsed.set(new WeakReference<PooledConnection>(connection));
+				return connection.borrow();
+			}
+			remove(connection);
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("Use getConnection() with the configured username instead");
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return logWriter;
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		this.logWriter = out;
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		DriverManager.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return DriverManager.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return (T) this;
+		}
+		throw new SQLException("Not a wrapper for ".concat(iface.getName()));
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this);
+	}
+
+	/**
+	 * 获取当前连接数
+	 *
+	 * @return 返回当前连接数
+	 */
+	public int getActiveCount() {
+		return total.get();
+	}
+
+	/**
+	 * 关闭连接池。空闲连接立即关闭，借出的连接在归还时关闭
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		if (evictor != null) {
+			evictor.interrupt();
+		}
+		PooledConnection connection;
+		for (Iterator<PooledConnection> it = connections.iterator(); it.hasNext();) {
+			connection = it.next();
+			if (connection.compareAndSet(PooledConnection.IDLE, PooledConnection.REMOVED)) {
+				remove(connection);
+			}
+		}
+	}
+
+	/**
+	 * 归还连接。有线程在等待时尝试一次直接移交给等待的线程，移交失败时连接保持空闲，由等待线程重新扫描时获取
+	 *
+	 * @param connection
+	 *            连接
+	 */
+	void giveBack(PooledConnection connection) {
+		if (closed || connection.isBroken()) {
+			connection.setState(PooledConnection.REMOVED);
+			remove(connection);
+			return;
+		}
+		connection.setState(PooledConnection.IDLE);
+		// 连接池可能在检查后、置为空闲前关闭，关闭时未能清理该连接，由归还的线程关闭
+		if (closed) {
+			if (connection.compareAndSet(PooledConnection.IDLE, PooledConnection.REMOVED)) {
+				remove(connection);
+			}
+			return;
+		}
+		if (waiters.get() > 0) {
+			try {
+				handoff.offer(connection, HANDOFF_NANOS, TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * 获取一个已标记为借出的连接。仅在等待移交期间计为等待线程，创建物理连接期间不计入，以免归还连接的线程向其移交
+	 *
+	 * @param deadline
+	 *            等待的截止时间（纳秒）
+	 * @return 返回已标记为借出的连接
+	 * @throws SQLException
+	 *             连接池已关闭、等待超时或创建连接时发生异常
+	 */
+	private PooledConnection acquire(long deadline) throws SQLException {
+		if (closed) {
+			throw new SQLException("The datasource has been closed");
+		}
+		WeakReference<PooledConnection> reference = lastUsed.get();
+		PooledConnection connection = reference == null ? null : reference.get();
+		if (connection != null && connection.compareAndSet(PooledConnection.IDLE, PooledConnection.IN_USE)) {
+			return connection;
+		}
+		while (true) {
+			connection = scan();
+			if (connection != null) {
+				return connection;
+			}
+			for (int count = total.get(); count < maxActive; count = total.get()) {
+				if (total.compareAndSet(count, count + 1)) {
+					return create();
+				}
+			}
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				throw new SQLTimeoutException("Timeout waiting for an idle connection, maxActive: " + maxActive
+						+ ", maxWait: " + maxWait);
+			}
+			waiters.incrementAndGet();
+			try {
+				connection = scan();// 登记前归还的连接不会移交，须再次扫描
+				if (connection != null) {
+					return connection;
+				}
+				connection = handoff.poll(Math.min(remaining, POLL_NANOS), TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while waiting for an idle connection", e);
+			} finally {
+				waiters.decrementAndGet();
+			}
+			if (connection != null && connection.compareAndSet(PooledConnection.IDLE, PooledConnection.IN_USE)) {
+				return connection;
+			}
+			if (closed) {
+				throw new SQLException("The datasource has been closed");
+			}
+		}
+	}
+
+	private PooledConnection scan() {
+		PooledConnection connection;
+		for (Iterator<PooledConnection> it = connections.iterator(); it.hasNext();) {
+			connection = it.next();
+			if (connection.compareAndSet(PooledConnection.IDLE, PooledConnection.IN_USE)) {
+				return connection;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 创建物理连接并加入连接池，调用前须已增加连接数
+	 *
+	 * @return 返回已标记为借出的连接
+	 * @throws SQLException
+	 *             创建连接时发生异常
+	 */
+	private PooledConnection create() throws SQLException {
+		try {
+			Connection physical = driver.connect(url, connectionProperties);
+			if (physical == null) {
+				throw new SQLException("The driver does not accept the url: ".concat(url));
+			}
+			PooledConnection connection = new PooledConnection(this, physical);
+			connections.add(connection);
+			return connection;
+		} catch (SQLException | RuntimeException e) {
+			total.decrementAndGet();
+			throw e;
+		}
+	}
+
+	/**
+	 * 校验借出的连接。仅在连接空闲超过一定时间后校验
+	 *
+	 * @param connection
+	 *            已标记为借出的连接
+	 * @return 连接有效返回true，否则返回false
+	 */
+	private boolean validate(PooledConnection connection) {
+		if (System.currentTimeMillis() - connection.getLastAccess() < validationIdleMillis) {
+			return true;
+		}
+		try {
+			return connection.getConnection().isValid(validationQueryTimeout);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void remove(PooledConnection connection) {
+		connection.setState(PooledConnection.REMOVED);
+		if (connections.remove(connection)) {
+			total.decrementAndGet();
+			connection.closePhysically();
+		}
+	}
+
+	/**
+	 * 回收超过最小空闲时间的空闲连接，保留不少于最小连接数的连接
+	 */
+	private void evict() {
+		long now = System.currentTimeMillis();
+		PooledConnection connection;
+		for (Iterator<PooledConnection> it = connections.iterator(); it.hasNext() && total.get() > minIdle;) {
+			connection = it.next();
+			if (now - connection.getLastAccess() >= minEvictableIdleTimeMillis
+					&& connection.compareAndSet(PooledConnection.IDLE, PooledConnection.REMOVED)) {
+				remove(connection);
+			}
+		}
+	}
+
+	private static Properties getConnectionProperties(Properties properties) {
+		Properties connectionProperties = new Properties();
+		String value = properties.getProperty("connectionProperties");
+		if (value != null) {
+			String[] pairs = value.split(PROPERTY_SEPARATOR);
+			String pair;
+			int index;
+			for (int i = 0; i < pairs.length; i++) {
+				pair = pairs[i].trim();
+				index = pair.indexOf(KEY_VALUE_SEPARATOR);
+				if (index > 0) {
+					connectionProperties.setProperty(pair.substring(0, index).trim(),
+							pair.substring(index + 1).trim());
+				}
+			}
+		}
+		value = properties.getProperty("username");
+		if (value != null) {
+			connectionProperties.setProperty(USER, value);
+		}
+		value = properties.getProperty(PASSWORD);
+		if (value != null) {
+			connectionProperties.setProperty(PASSWORD, value);
+		}
+		return connectionProperties;
+	}
+
+	/**
+	 * 空闲连接回收任务。仅弱引用连接池，连接池被回收或关闭后结束
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class Evictor implements Runnable {
+
+		private final WeakReference<PooledDataSource> owner;
+
+		private final long interval;
+
+		private Evictor(PooledDataSource owner, long interval) {
+			this.owner = new WeakReference<PooledDataSource>(owner);
+			this.interval = interval;
+		}
+
+		@Override
+		public void run() {
+			PooledDataSource pool;
+			while (true) {
+				try {
+					Thread.sleep(interval);
+				} catch (InterruptedException e) {
+					return;
+				}
+				pool = owner.get();
+				if (pool == null || pool.closed) {
+					return;
+				}
+				pool.evict();
+				pool = null;
+			}
+		}
+
+	}
+
+}
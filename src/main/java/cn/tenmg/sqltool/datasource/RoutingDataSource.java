@@ -0,0 +1,341 @@
+package cn.tenmg.sqltool.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * 读写分离数据源。写操作和事务使用主库，只读查询在健康的从库间轮询；从库获取连接失败时将在一段时间内被跳过，
+ * 全部从库不可用时回退到主库；当前线程在主库上写入后的一段时间内，只读查询仍使用主库，以保证读到自己的写入。
+ * 在数据源配置中增加replicas.<i>从库名</i>.<i>参数</i>即可使用，从库未指定的参数与主库相同，例如：
+ *
+ * <pre>
+ * sqltool.datasource.url=jdbc:mysql://primary:3306/sqltool
+ * sqltool.datasource.replicas.r1.url=jdbc:mysql://replica1:3306/sqltool
+ * sqltool.datasource.replicas.r2.url=jdbc:mysql://replica2:3306/sqltool
+ * sqltool.datasource.stickyPrimaryMillis=1000
+ * sqltool.datasource.replicaRetryMillis=30000
+ * </pre>
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class RoutingDataSource implements DataSource, Closeable {
+
+	private static final org.slf4j.Logger log = LoggerFactory.getLogger(RoutingDataSource.class);
+
+	private static final Class<?>[] INTERFACES = { Connection.class };
+
+	private final DataSource primary;
+
+	private final Replica[] replicas;
+
+	private final long stickyPrimaryMillis, replicaRetryMillis;
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	private final ThreadLocal<long[]> lastWrite = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			return new long[] { 0 };
+		}
+	};
+
+	private final ThreadLocal<int[]> lastReplica = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[] { -1 };
+		}
+	};
+
+	/**
+	 * 构造读写分离数据源
+	 *
+	 * @param primary
+	 *            主库数据源
+	 * @param replicas
+	 *            从库数据源
+	 * @param stickyPrimaryMillis
+	 *            写入后只读查询仍使用主库的时长（毫秒），不大于0表示不保证读到自己的写入
+	 * @param replicaRetryMillis
+	 *            从库获取连接失败后被跳过的时长（毫秒）
+	 */
+	public RoutingDataSource(DataSource primary, List<DataSource> replicas, long stickyPrimaryMillis,
+			long replicaRetryMillis) {
+		this.primary = primary;
+		this.replicas = new Replica[replicas.size()];
+		for (int i = 0; i < this.replicas.length; i++) {
+			this.replicas[i] = new Replica(replicas.get(i));
+		}
+		this.stickyPrimaryMillis = stickyPrimaryMillis;
+		this.replicaRetryMillis = replicaRetryMillis;
+	}
+
+	/**
+	 * 从数据源获取连接。数据源为读写分离数据源时按是否只读路由，否则直接从数据源获取连接
+	 *
+	 * @param dataSource
+	 *            数据源
+	 * @param readOnly
+	 *            是否只读
+	 * @return 返回连接
+	 * @throws SQLException
+	 *             获取连接时发生异常
+	 */
+	public static Connection getConnection(DataSource dataSource, boolean readOnly) throws SQLException {
+		if (dataSource instanceof RoutingDataSource) {
+			return ((RoutingDataSource) dataSource).getConnection(readOnly);
+		}
+		return dataSource.getConnection();
+	}
+
+	/**
+	 * 获取主库连接。获取和关闭连接时均记录为当前线程的写入时间
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		long[] time = lastWrite.get();
+		time[0] = System.currentTimeMillis();
+		Connection connection = primary.getConnection();
+		return (Connection) Proxy.newProxyInstance(RoutingDataSource.class.getClassLoader(), INTERFACES,
+				new PrimaryConnectionHandler(connection, time));
+	}
+
+	/**
+	 * 按是否只读获取连接
+	 *
+	 * @param readOnly
+	 *            是否只读
+	 * @return 只读且当前线程不在写入后的主库粘滞期内时，返回健康从库的连接，否则返回主库连接
+	 * @throws SQLException
+	 *             获取连接时发生异常
+	 */
+	public Connection getConnection(boolean readOnly) throws SQLException {
+		int[] replica = lastReplica.get();
+		replica[0] = -1;
+		if (!readOnly) {
+			return getConnection();
+		}
+		long now = System.currentTimeMillis();
+		if (replicas.length == 0 || now - lastWrite.get()[0] < stickyPrimaryMillis) {
+			return primary.getConnection();// 只读查询不延长主库粘滞期
+		}
+		Connection connection = getReplicaConnection(next.getAndIncrement() & Integer.MAX_VALUE, -1, now, replica);
+		return connection == null ? primary.getConnection() : connection;// 无可用从库时回退到主库
+	}
+
+	/**
+	 * 获取当前线程最近一次调用{@link #getConnection(boolean)}时使用的从库序号
+	 *
+	 * @return 返回从库序号，使用主库时返回-1
+	 */
+	public int getLastReplica() {
+		return lastReplica.get()[0];
+	}
+
+	/**
+	 * 获取指定从库以外的健康从库的连接，用于在另一从库上重试或对冲查询。无可用从库时不回退到主库
+	 *
+	 * @param excluded
+	 *            排除的从库序号
+	 * @return 返回从库连接，无可用从库时返回null
+	 */
+	public Connection getReplicaConnection(int excluded) {
+		try {
+			return getReplicaConnection(excluded + 1, excluded, System.currentTimeMillis(), null);
+		} catch (ConcurrencyLimitExceededException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return primary.getConnection(username, password);
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return primary.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		primary.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		primary.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return primary.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return primary.getParentLogger();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return (T) this;
+		}
+		return primary.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || primary.isWrapperFor(iface);
+	}
+
+	/**
+	 * 获取主库数据源
+	 *
+	 * @return 返回主库数据源
+	 */
+	public DataSource getPrimary() {
+		return primary;
+	}
+
+	/**
+	 * 关闭主库和从库数据源
+	 */
+	@Override
+	public void close() throws IOException {
+		for (int i = 0; i < replicas.length; i++) {
+			close(replicas[i].dataSource);
+		}
+		close(primary);
+	}
+
+	/**
+	 * 从指定位置开始依次尝试获取健康从库的连接
+	 *
+	 * @param start
+	 *            开始位置
+	 * @param excluded
+	 *            排除的从库序号，不排除时为-1
+	 * @param now
+	 *            当前时间
+	 * @param replica
+	 *            用于记录获取到连接的从库序号，可为null
+	 * @return 返回从库连接，无可用从库时返回null
+	 * @throws ConcurrencyLimitExceededException
+	 *             可用的从库均已达到并发上限。此时不回退到主库，以免将过载转移到主库
+	 */
+	private Connection getReplicaConnection(int start, int excluded, long now, int[] replica)
+			throws ConcurrencyLimitExceededException {
+		ConcurrencyLimitExceededException limited = null;
+		int index;
+		for (int i = 0; i < replicas.length; i++) {
+			index = (start + i) % replicas.length;
+			if (index != excluded && replicas[index].retryAt <= now) {
+				try {
+					Connection connection = replicas[index].dataSource.getConnection();
+					if (replica != null) {
+						replica[0] = index;
+					}
+					return connection;
+				} catch (ConcurrencyLimitExceededException e) {
+					limited = e;// 达到并发上限的从库仍是健康的，不跳过
+				} catch (SQLException e) {
+					replicas[index].retryAt = System.currentTimeMillis() + replicaRetryMillis;
+					log.warn("Failed to get connection from replica, it will be skipped for " + replicaRetryMillis
+							+ " milliseconds", e);
+				}
+			}
+		}
+		if (limited != null) {
+			throw limited;
+		}
+		return null;
+	}
+
+	private static void close(DataSource dataSource) {
+		if (dataSource instanceof Closeable) {
+			try {
+				((Closeable) dataSource).close();
+			} catch (IOException e) {
+				log.error("Failed to close datasource", e);
+			}
+		}
+	}
+
+	/**
+	 * 从库及其健康状态
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class Replica {
+
+		private final DataSource dataSource;
+
+		private volatile long retryAt = 0;
+
+		private Replica(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+	}
+
+	/**
+	 * 主库连接代理，关闭时记录当前线程的写入时间
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class PrimaryConnectionHandler implements InvocationHandler {
+
+		private static final String CLOSE = "close", UNWRAP = "unwrap", IS_WRAPPER_FOR = "isWrapperFor";
+
+		private final Connection connection;
+
+		private final long[] lastWrite;
+
+		private PrimaryConnectionHandler(Connection connection, long[] lastWrite) {
+			this.connection = connection;
+			this.lastWrite = lastWrite;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (CLOSE.equals(name)) {
+				lastWrite[0] = System.currentTimeMillis();
+			} else if (UNWRAP.equals(name) && ((Class<?>) args[0]).isInstance(proxy)) {
+				return proxy;
+			} else if (IS_WRAPPER_FOR.equals(name) && ((Class<?>) args[0]).isInstance(proxy)) {
+				return true;
+			}
+			try {
+				return method.invoke(connection, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+	}
+
+}
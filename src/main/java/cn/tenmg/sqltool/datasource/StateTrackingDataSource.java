@@ -0,0 +1,261 @@
+package cn.tenmg.sqltool.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * 状态跟踪数据源。跟踪借出连接的自动提交、只读、事务隔离级别和模式（schema），设置的值与当前值相同时不再调用驱动，读取时直接返回跟踪的值；
+ * 连接关闭时仅恢复借出期间实际改变的状态。连接池的默认状态在首次获取连接时读取，要求连接池借出的连接均处于默认状态（各连接池归还连接时均会恢复），
+ * 且不通过执行SQL语句（例如SET autocommit=0）修改上述状态。在数据源配置中增加trackState=true即可使用，例如：
+ *
+ * <pre>
+ * sqltool.datasource.trackState=true
+ * </pre>
+ *
+ * 累计节省的驱动调用次数可通过<code>dataSource.unwrap(StateTrackingDataSource.class).getSavedRoundTrips()</code>获取
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class StateTrackingDataSource implements DataSource, Closeable {
+
+	private static final Class<?>[] INTERFACES = { Connection.class };
+
+	private static final int AUTO_COMMIT = 0, READ_ONLY = 1, ISOLATION = 2, SCHEMA = 3;
+
+	private static final String[] SETTERS = { "setAutoCommit", "setReadOnly", "setTransactionIsolation",
+			"setSchema" }, GETTERS = { "getAutoCommit", "isReadOnly", "getTransactionIsolation", "getSchema" };
+
+	/**
+	 * 未知状态。读取默认状态失败（例如驱动不支持）或设置状态时发生异常后，该状态不再跟踪
+	 */
+	private static final Object UNKNOWN = new Object();
+
+	private final DataSource dataSource;
+
+	private final AtomicLong savedRoundTrips = new AtomicLong();
+
+	private volatile Object[] defaults;
+
+	public StateTrackingDataSource(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return wrap(dataSource.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return wrap(dataSource.getConnection(username, password));
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return dataSource.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		dataSource.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		dataSource.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return dataSource.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return dataSource.getParentLogger();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return (T) this;
+		}
+		return dataSource.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+	}
+
+	/**
+	 * 获取累计节省的驱动调用次数，包括跳过的无变化设置和直接返回跟踪值的读取
+	 *
+	 * @return 返回累计节省的驱动调用次数
+	 */
+	public long getSavedRoundTrips() {
+		return savedRoundTrips.get();
+	}
+
+	/**
+	 * 关闭被包装的数据源
+	 */
+	@Override
+	public void close() throws IOException {
+		if (dataSource instanceof Closeable) {
+			((Closeable) dataSource).close();
+		}
+	}
+
+	private Connection wrap(Connection connection) {
+		Object[] defaults = this.defaults;
+		if (defaults == null) {
+			defaults = readDefaults(connection);
+		}
+		return (Connection) Proxy.newProxyInstance(StateTrackingDataSource.class.getClassLoader(), INTERFACES,
+				new TrackingConnectionHandler(connection, defaults, savedRoundTrips));
+	}
+
+	private synchronized Object[] readDefaults(Connection connection) {
+		if (defaults == null) {
+			Object[] defaults = new Object[GETTERS.length];
+			for (int i = 0; i < GETTERS.length; i++) {
+				try {
+					defaults[i] = Connection.class.getMethod(GETTERS[i]).invoke(connection);
+				} catch (Exception e) {// 驱动不支持时，反射调用抛出InvocationTargetException
+					defaults[i] = UNKNOWN;
+				}
+			}
+			this.defaults = defaults;
+		}
+		return defaults;
+	}
+
+	private static int indexOf(String[] names, String name) {
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean equals(Object value, Object other) {
+		return value == null ? other == null : value.equals(other);
+	}
+
+	/**
+	 * 状态跟踪连接代理
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class TrackingConnectionHandler implements InvocationHandler {
+
+		private static final String CLOSE = "close", UNWRAP = "unwrap", IS_WRAPPER_FOR = "isWrapperFor";
+
+		private final Connection connection;
+
+		private final Object[] defaults, current;
+
+		private final AtomicLong savedRoundTrips;
+
+		private boolean closed = false;
+
+		private TrackingConnectionHandler(Connection connection, Object[] defaults, AtomicLong savedRoundTrips) {
+			this.connection = connection;
+			this.defaults = defaults;
+			this.current = defaults.clone();
+			this.savedRoundTrips = savedRoundTrips;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (CLOSE.equals(name)) {
+				if (!closed) {
+					closed = true;
+					try {
+						restore();
+					} finally {
+						connection.close();
+					}
+				}
+				return null;
+			} else if (UNWRAP.equals(name) && ((Class<?>) args[0]).isInstance(proxy)) {
+				return proxy;
+			} else if (IS_WRAPPER_FOR.equals(name) && ((Class<?>) args[0]).isInstance(proxy)) {
+				return true;
+			} else if (!closed) {
+				int index;
+				if (args != null && args.length == 1 && (index = indexOf(SETTERS, name)) >= 0) {
+					if (current[index] != UNKNOWN && StateTrackingDataSource.equals(current[index], args[0])) {
+						savedRoundTrips.incrementAndGet();
+						return null;
+					}
+					current[index] = UNKNOWN;// 设置失败时状态未知
+					invoke(method, args);
+					current[index] = args[0];
+					return null;
+				} else if (args == null && (index = indexOf(GETTERS, name)) >= 0 && current[index] != UNKNOWN) {
+					savedRoundTrips.incrementAndGet();
+					return current[index];
+				}
+			}
+			return invoke(method, args);
+		}
+
+		/**
+		 * 恢复借出期间改变的状态。关闭了自动提交的连接先回滚未提交的事务，避免恢复自动提交时提交事务
+		 */
+		private void restore() throws SQLException {
+			if (changed(AUTO_COMMIT)) {
+				if (current[AUTO_COMMIT] == UNKNOWN ? !connection.getAutoCommit()
+						: Boolean.FALSE.equals(current[AUTO_COMMIT])) {
+					connection.rollback();
+				}
+				connection.setAutoCommit((Boolean) defaults[AUTO_COMMIT]);
+			}
+			if (changed(READ_ONLY)) {
+				connection.setReadOnly((Boolean) defaults[READ_ONLY]);
+			}
+			if (changed(ISOLATION)) {
+				connection.setTransactionIsolation((Integer) defaults[ISOLATION]);
+			}
+			if (changed(SCHEMA)) {
+				connection.setSchema((String) defaults[SCHEMA]);
+			}
+		}
+
+		private boolean changed(int index) {
+			return defaults[index] != UNKNOWN && (current[index] == UNKNOWN
+					|| !StateTrackingDataSource.equals(current[index], defaults[index]));
+		}
+
+		private Object invoke(Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(connection, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,22 @@
+package cn.tenmg.sqltool.datasource;
+
+/**
+ * 工作负载类别。配置了批量连接数（bulkConnections）的数据源为批量负载保留连接上限，其余连接留给交互负载，且获取连接时交互负载优先
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public enum Workload {
+
+	/**
+	 * 交互负载，例如按主键查询、分页查询。未指定工作负载类别时的默认值
+	 */
+	INTERACTIVE,
+
+	/**
+	 * 批量负载，例如批量插入、批量保存和执行SQL脚本
+	 */
+	BULK
+
+}
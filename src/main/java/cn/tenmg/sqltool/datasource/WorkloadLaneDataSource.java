@@ -0,0 +1,281 @@
+package cn.tenmg.sqltool.datasource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import cn.tenmg.sqltool.exception.IllegalConfigException;
+
+/**
+ * 分道数据源。按当前线程的工作负载类别分道获取连接：批量负载最多同时占用指定数量的连接，其余连接留给交互负载；
+ * 连接已满时交互负载优先获取，有交互负载在等待时批量负载不获取连接。在数据源配置中增加bulkConnections即可使用，
+ * 连接总数取连接池的maxActive（或maxTotal），等待时长取连接池的maxWait，例如：
+ *
+ * <pre>
+ * sqltool.datasource.maxActive=20
+ * sqltool.datasource.bulkConnections=5
+ * </pre>
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class WorkloadLaneDataSource implements DataSource, Closeable {
+
+	private static final Class<?>[] INTERFACES = { Connection.class };
+
+	private final DataSource dataSource;
+
+	private final int capacity, bulkCapacity;
+
+	private final long maxWaitMillis;
+
+	private int inUse = 0, bulkInUse = 0, interactiveWaiting = 0;
+
+	/**
+	 * 构造分道数据源
+	 *
+	 * @param dataSource
+	 *            被包装的数据源
+	 * @param capacity
+	 *            连接总数，应与连接池的最大连接数一致
+	 * @param bulkCapacity
+	 *            批量负载最多同时占用的连接数，须小于连接总数
+	 * @param maxWaitMillis
+	 *            获取连接的最长等待时长（毫秒），不大于0表示一直等待
+	 */
+	public WorkloadLaneDataSource(DataSource dataSource, int capacity, int bulkCapacity, long maxWaitMillis) {
+		if (bulkCapacity < 1 || bulkCapacity >= capacity) {
+			throw new IllegalConfigException(
+					"The bulk connections must be at least 1 and less than the maximum connections of the pool");
+		}
+		this.dataSource = dataSource;
+		this.capacity = capacity;
+		this.bulkCapacity = bulkCapacity;
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+	/**
+	 * 从数据源获取连接。当前线程未设置工作负载类别时，按调用方法隐含的类别获取连接
+	 *
+	 * @param dataSource
+	 *            数据源
+	 * @param workload
+	 *            调用方法隐含的工作负载类别
+	 * @return 返回连接
+	 * @throws SQLException
+	 *             获取连接时发生异常
+	 */
+	public static Connection getConnection(DataSource dataSource, Workload workload) throws SQLException {
+		if (CurrentWorkloadHolder.get() != null) {
+			return dataSource.getConnection();
+		}
+		CurrentWorkloadHolder.set(workload);
+		try {
+			return dataSource.getConnection();
+		} finally {
+			CurrentWorkloadHolder.remove();
+		}
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		boolean bulk = CurrentWorkloadHolder.get() == Workload.BULK;
+		acquire(bulk);
+		try {
+			return wrap(dataSource.getConnection(), bulk);
+		} catch (SQLException | RuntimeException e) {
+			release(bulk);
+			throw e;
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		boolean bulk = CurrentWorkloadHolder.get() == Workload.BULK;
+		acquire(bulk);
+		try {
+			return wrap(dataSource.getConnection(username, password), bulk);
+		} catch (SQLException | RuntimeException e) {
+			release(bulk);
+			throw e;
+		}
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return dataSource.getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		dataSource.setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		dataSource.setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return dataSource.getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return dataSource.getParentLogger();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return (T) this;
+		}
+		return dataSource.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+	}
+
+	/**
+	 * 获取正在使用的连接数
+	 *
+	 * @return 返回正在使用的连接数
+	 */
+	public synchronized int getInUse() {
+		return inUse;
+	}
+
+	/**
+	 * 获取批量负载正在使用的连接数
+	 *
+	 * @return 返回批量负载正在使用的连接数
+	 */
+	public synchronized int getBulkInUse() {
+		return bulkInUse;
+	}
+
+	/**
+	 * 关闭被包装的数据源
+	 */
+	@Override
+	public void close() throws IOException {
+		if (dataSource instanceof Closeable) {
+			((Closeable) dataSource).close();
+		}
+	}
+
+	private synchronized void acquire(boolean bulk) throws SQLException {
+		long deadline = maxWaitMillis > 0 ? System.currentTimeMillis() + maxWaitMillis : 0, wait;
+		if (!bulk) {
+			interactiveWaiting++;
+		}
+		try {
+			while (bulk ? inUse >= capacity || bulkInUse >= bulkCapacity || interactiveWaiting > 0
+					: inUse >= capacity) {
+				if (deadline > 0) {
+					wait = deadline - System.currentTimeMillis();
+					if (wait <= 0) {
+						throw new SQLTransientConnectionException("Timed out waiting for a " + (bulk ? "bulk"
+								: "interactive") + " connection after " + maxWaitMillis + " milliseconds");
+					}
+					wait(wait);
+				} else {
+					wait();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a connection", e);
+		} finally {
+			if (!bulk && --interactiveWaiting == 0) {
+				notifyAll();// 等待中的批量负载可以继续尝试获取连接
+			}
+		}
+		inUse++;
+		if (bulk) {
+			bulkInUse++;
+		}
+	}
+
+	private synchronized void release(boolean bulk) {
+		inUse--;
+		if (bulk) {
+			bulkInUse--;
+		}
+		notifyAll();
+	}
+
+	private Connection wrap(Connection connection, boolean bulk) {
+		return (Connection) Proxy.newProxyInstance(WorkloadLaneDataSource.class.getClassLoader(), INTERFACES,
+				new LaneConnectionHandler(this, connection, bulk));
+	}
+
+	/**
+	 * 分道连接代理，关闭时归还所占的连接数
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class LaneConnectionHandler implements InvocationHandler {
+
+		private static final String CLOSE = "close", UNWRAP = "unwrap", IS_WRAPPER_FOR = "isWrapperFor";
+
+		private final WorkloadLaneDataSource dataSource;
+
+		private final Connection connection;
+
+		private final boolean bulk;
+
+		private boolean released = false;
+
+		private LaneConnectionHandler(WorkloadLaneDataSource dataSource, Connection connection, boolean bulk) {
+			this.dataSource = dataSource;
+			this.connection = connection;
+			this.bulk = bulk;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (CLOSE.equals(name)) {
+				if (!released) {
+					released = true;
+					try {
+						connection.close();
+					} finally {
+						dataSource.release(bulk);
+					}
+				}
+				return null;
+			} else if (UNWRAP.equals(name) && ((Class<?>) args[0]).isInstance(proxy)) {
+				return proxy;
+			} else if (IS_WRAPPER_FOR.equals(name) && ((Class<?>) args[0]).isInstance(proxy)) {
+				return true;
+			}
+			try {
+				return method.invoke(connection, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+	}
+
+}
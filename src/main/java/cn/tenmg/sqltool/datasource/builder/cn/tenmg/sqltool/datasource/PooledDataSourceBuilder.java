@@ -0,0 +1,24 @@
+package cn.tenmg.sqltool.datasource.builder.cn.tenmg.sqltool.datasource;
+
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import cn.tenmg.sqltool.datasource.DatasourceBuilder;
+import cn.tenmg.sqltool.datasource.PooledDataSource;
+
+/**
+ * 内置轻量级连接池构建器
+ * 
+ * @author June wjzhao@aliyun.com
+ * 
+ * @since 1.5.4
+ */
+public class PooledDataSourceBuilder implements DatasourceBuilder {
+
+	@Override
+	public DataSource createDataSource(Properties properties) throws Exception {
+		return new PooledDataSource(properties);
+	}
+
+}
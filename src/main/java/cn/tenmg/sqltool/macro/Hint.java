@@ -0,0 +1,96 @@
+package cn.tenmg.sqltool.macro;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import cn.tenmg.dsl.DSLContext;
+import cn.tenmg.dsl.annotion.Macro;
+import cn.tenmg.sqltool.SqltoolContext;
+import cn.tenmg.sqltool.sql.SQLDialect;
+
+/**
+ * 优化器提示宏。宏的内容为使用“;”分隔的“方言名=提示内容”，仅渲染当前方言的提示内容，例如：
+ * 
+ * <pre>
+ * SELECT #[hint(oracle=PARALLEL(4) INDEX(S IDX_STAFF_NAME); mysql=MAX_EXECUTION_TIME(1000))] *
+ * FROM STAFF_INFO S WHERE S.STAFF_NAME LIKE :staffName #[hint(sqlserver=MAXDOP 4)]
+ * </pre>
+ * 
+ * MySQL、Oracle和PostgreSQL（需安装pg_hint_plan扩展）的提示渲染为“/*+ 提示内容 *&#47;”，应紧跟在SELECT、UPDATE或DELETE关键字之后；
+ * SQL Server的提示渲染为“OPTION (提示内容)”，应位于语句末尾（分页查询和计数查询会将其移至外层语句的末尾）；SQLite不支持优化器提示。未指定当前方言的提示内容时不渲染任何内容。
+ * 配置sql.hint.enabled=false（可使用同名的环境变量或JVM参数覆盖）时所有提示均不渲染
+ * 
+ * @author June wjzhao@aliyun.com
+ * 
+ * @since 1.5.4
+ */
+@Macro("hint")
+public class Hint implements cn.tenmg.dsl.Macro {
+
+	private static final boolean ENABLED = !Boolean.FALSE.toString()
+			.equalsIgnoreCase(SqltoolContext.getProperty("sql.hint.enabled"));
+
+	private static final char SEPARATOR = ';', ASSIGN = '=';
+
+	private static final ThreadLocal<SQLDialect> currentDialect = new ThreadLocal<SQLDialect>();
+
+	/**
+	 * 初始化优化器提示解析环境
+	 * 
+	 * @param dialect
+	 *            SQL方言
+	 */
+	public static void initEnv(SQLDialect dialect) {
+		currentDialect.set(dialect);
+	}
+
+	/**
+	 * 清理宏执行环境
+	 */
+	public static void clear() {
+		currentDialect.remove();
+	}
+
+	@Override
+	public boolean execute(DSLContext context, Map<String, Object> attributes, String logic, StringBuilder dslf,
+			Map<String, Object> params) throws Exception {
+		SQLDialect dialect = currentDialect.get();
+		if (ENABLED && dialect != null) {
+			String hint = dialect.hint(parse(logic));
+			if (hint != null) {
+				dslf.insert(0, hint);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 解析各方言的提示内容。仅在括号外的“;”处分隔，以便提示内容中包含带参数的提示
+	 * 
+	 * @param logic
+	 *            宏的内容
+	 * @return 返回各方言的提示内容，键为小写的方言名
+	 */
+	private static Map<String, String> parse(String logic) {
+		Map<String, String> hints = new HashMap<String, String>();
+		int depth = 0, start = 0;
+		char c;
+		for (int i = 0, len = logic.length(); i <= len; i++) {
+			c = i < len ? logic.charAt(i) : SEPARATOR;
+			if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				depth--;
+			} else if (c == SEPARATOR && depth <= 0) {
+				String entry = logic.substring(start, i);
+				int index = entry.indexOf(ASSIGN);
+				if (index > 0) {
+					hints.put(entry.substring(0, index).trim().toLowerCase(), entry.substring(index + 1).trim());
+				}
+				start = i + 1;
+			}
+		}
+		return hints;
+	}
+
+}
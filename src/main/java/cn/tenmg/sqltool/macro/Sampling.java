@@ -0,0 +1,93 @@
+package cn.tenmg.sqltool.macro;
+
+import java.util.Map;
+
+import cn.tenmg.dsl.DSLContext;
+import cn.tenmg.dsl.annotion.Macro;
+import cn.tenmg.sqltool.sql.SQLDialect;
+
+/**
+ * 抽样宏。宏的内容为表名，以及可选的使用“,”分隔的抽样比例，按当前SQL方言渲染为抽样查询的表（子查询），其后应指定别名，例如：
+ * 
+ * <pre>
+ * SELECT S.* FROM #[sample(STAFF_INFO, 0.01)] S WHERE S.POSITION = :position
+ * </pre>
+ * 
+ * 未指定抽样比例时使用抽样查询的抽样比例，非抽样查询时渲染为表名
+ * 
+ * @author June wjzhao@aliyun.com
+ * 
+ * @since 1.5.4
+ */
+@Macro("sample")
+public class Sampling implements cn.tenmg.dsl.Macro {
+
+	private static final ThreadLocal<SQLDialect> currentDialect = new ThreadLocal<SQLDialect>();
+
+	private static final ThreadLocal<Double> currentFraction = new ThreadLocal<Double>();
+
+	private static final ThreadLocal<Boolean> sampled = new ThreadLocal<Boolean>();
+
+	/**
+	 * 是否已生成抽样查询的表
+	 * 
+	 * @return 返回{@code true}表示已生成抽样查询的表，否则未生成。
+	 */
+	public static boolean isSampled() {
+		return Boolean.TRUE.equals(sampled.get());
+	}
+
+	/**
+	 * 初始化普通查询SQL解析环境
+	 * 
+	 * @param dialect
+	 *            SQL方言
+	 */
+	public static void initEnv(SQLDialect dialect) {
+		currentDialect.set(dialect);
+		sampled.set(Boolean.FALSE);
+	}
+
+	/**
+	 * 初始化抽样查询SQL解析环境
+	 * 
+	 * @param dialect
+	 *            SQL方言
+	 * @param fraction
+	 *            抽样比例
+	 */
+	public static void initSampleEnv(SQLDialect dialect, double fraction) {
+		initEnv(dialect);
+		currentFraction.set(fraction);
+	}
+
+	/**
+	 * 清理宏执行环境
+	 */
+	public static void clear() {
+		currentDialect.remove();
+		currentFraction.remove();
+		sampled.remove();
+	}
+
+	@Override
+	public boolean execute(DSLContext context, Map<String, Object> attributes, String logic, StringBuilder dslf,
+			Map<String, Object> params) throws Exception {
+		String tableName = logic.trim();
+		Double fraction = currentFraction.get();
+		int index = tableName.lastIndexOf(',');
+		if (index > 0) {
+			fraction = Double.valueOf(tableName.substring(index + 1).trim());
+			tableName = tableName.substring(0, index).trim();
+		}
+		SQLDialect dialect = currentDialect.get();
+		if (dialect == null || fraction == null) {
+			dslf.insert(0, tableName);
+		} else {
+			sampled.set(Boolean.TRUE);
+			dslf.insert(0, dialect.sampleTable(tableName, fraction));
+		}
+		return false;
+	}
+
+}
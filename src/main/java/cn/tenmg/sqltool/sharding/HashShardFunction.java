@@ -0,0 +1,29 @@
+package cn.tenmg.sqltool.sharding;
+
+/**
+ * 哈希分片函数。整数类型的分片键按值取模，其他类型按哈希值取模
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class HashShardFunction implements ShardFunction {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -2218651396004325577L;
+
+	@Override
+	public int shard(Object shardKey, int shards) {
+		long value;
+		if (shardKey instanceof Long || shardKey instanceof Integer || shardKey instanceof Short
+				|| shardKey instanceof Byte) {
+			value = ((Number) shardKey).longValue();
+		} else {
+			value = shardKey.hashCode();
+		}
+		return (int) Math.floorMod(value, (long) shards);
+	}
+
+}
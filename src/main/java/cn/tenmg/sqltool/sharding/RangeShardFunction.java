@@ -0,0 +1,85 @@
+package cn.tenmg.sqltool.sharding;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import cn.tenmg.sqltool.exception.IllegalCallException;
+import cn.tenmg.sqltool.exception.IllegalConfigException;
+
+/**
+ * 范围分片函数。分片键须为数值，按升序排列的边界值确定分片：小于第1个边界值的位于第1个分片，不小于第1个但小于第2个边界值的位于第2个分片，依此类推，
+ * 不小于最后一个边界值的位于最后一个分片，因此分片数应为边界值个数加1
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class RangeShardFunction implements ShardFunction {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 4626735581340939522L;
+
+	private final BigDecimal[] bounds;
+
+	/**
+	 * 构造范围分片函数
+	 *
+	 * @param bounds
+	 *            升序排列的边界值
+	 */
+	public RangeShardFunction(BigDecimal... bounds) {
+		for (int i = 1; i < bounds.length; i++) {
+			if (bounds[i - 1].compareTo(bounds[i]) >= 0) {
+				throw new IllegalConfigException("The bounds of range sharding must be in ascending order: "
+						.concat(Arrays.toString(bounds)));
+			}
+		}
+		this.bounds = bounds;
+	}
+
+	/**
+	 * 根据逗号分隔的边界值构造范围分片函数
+	 *
+	 * @param bounds
+	 *            逗号分隔的升序排列的边界值，例如“1000000,2000000”
+	 * @return 返回范围分片函数
+	 */
+	public static RangeShardFunction of(String bounds) {
+		if (bounds == null || bounds.trim().isEmpty()) {
+			throw new IllegalConfigException("The bounds of range sharding must be specified");
+		}
+		String[] values = bounds.split(",");
+		BigDecimal[] decimals = new BigDecimal[values.length];
+		for (int i = 0; i < values.length; i++) {
+			decimals[i] = new BigDecimal(values[i].trim());
+		}
+		return new RangeShardFunction(decimals);
+	}
+
+	@Override
+	public int shard(Object shardKey, int shards) {
+		if (bounds.length + 1 != shards) {
+			throw new IllegalConfigException("The range sharding with " + bounds.length + " bound(s) requires "
+					+ (bounds.length + 1) + " shards, but there are " + shards);
+		}
+		if (!(shardKey instanceof Number)) {
+			throw new IllegalCallException("The shard key of range sharding must be a number, but it is a "
+					.concat(shardKey.getClass().getName()));
+		}
+		BigDecimal value = shardKey instanceof BigDecimal ? (BigDecimal) shardKey
+				: new BigDecimal(shardKey.toString());
+		int low = 0, high = bounds.length;
+		while (low < high) {// 查找第一个大于该值的边界值
+			int mid = (low + high) >>> 1;
+			if (bounds[mid].compareTo(value) > 0) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low;
+	}
+
+}
@@ -0,0 +1,25 @@
+package cn.tenmg.sqltool.sharding;
+
+import java.io.Serializable;
+
+/**
+ * 分片函数。根据分片键的值确定数据所在的分片
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public interface ShardFunction extends Serializable {
+
+	/**
+	 * 确定分片键的值所在的分片
+	 *
+	 * @param shardKey
+	 *            分片键的值，不为null
+	 * @param shards
+	 *            分片数
+	 * @return 返回分片序号，取值范围为[0, shards)
+	 */
+	int shard(Object shardKey, int shards);
+
+}
@@ -0,0 +1,83 @@
+package cn.tenmg.sqltool.sharding;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import cn.tenmg.sqltool.exception.IllegalConfigException;
+
+/**
+ * 分片规则。包含按分片序号排列的数据源名称和分片函数，支持的配置如下：
+ *
+ * <pre>
+ * sqltool.sharding.dataSources  逗号分隔的数据源名称，按分片序号排列
+ * sqltool.sharding.function     分片函数：hash（默认）、range或实现{@link ShardFunction}的类名
+ * sqltool.sharding.ranges       范围分片的边界值，逗号分隔且按升序排列
+ * </pre>
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class ShardingRule implements Serializable {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 7335893706307941472L;
+
+	private static final String PREFIX = "sqltool.sharding.", HASH = "hash", RANGE = "range";
+
+	private final List<String> dataSourceNames;
+
+	private final ShardFunction shardFunction;
+
+	public ShardingRule(List<String> dataSourceNames, ShardFunction shardFunction) {
+		super();
+		this.dataSourceNames = dataSourceNames;
+		this.shardFunction = shardFunction;
+	}
+
+	/**
+	 * 根据配置创建分片规则
+	 *
+	 * @param properties
+	 *            配置
+	 * @return 返回分片规则。未配置分片数据源时返回null
+	 */
+	public static ShardingRule of(Properties properties) {
+		String dataSources = properties.getProperty(PREFIX.concat("dataSources"));
+		if (dataSources == null || dataSources.trim().isEmpty()) {
+			return null;
+		}
+		List<String> dataSourceNames = new ArrayList<String>();
+		String[] names = dataSources.split(",");
+		for (int i = 0; i < names.length; i++) {
+			dataSourceNames.add(names[i].trim());
+		}
+		String function = properties.getProperty(PREFIX.concat("function"), HASH).trim();
+		ShardFunction shardFunction;
+		if (HASH.equals(function)) {
+			shardFunction = new HashShardFunction();
+		} else if (RANGE.equals(function)) {
+			shardFunction = RangeShardFunction.of(properties.getProperty(PREFIX.concat("ranges")));
+		} else {
+			try {
+				shardFunction = (ShardFunction) Class.forName(function).newInstance();
+			} catch (Exception e) {
+				throw new IllegalConfigException("Unable to create the shard function: ".concat(function), e);
+			}
+		}
+		return new ShardingRule(dataSourceNames, shardFunction);
+	}
+
+	public List<String> getDataSourceNames() {
+		return dataSourceNames;
+	}
+
+	public ShardFunction getShardFunction() {
+		return shardFunction;
+	}
+
+}
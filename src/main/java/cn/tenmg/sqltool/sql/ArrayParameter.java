@@ -0,0 +1,53 @@
+package cn.tenmg.sqltool.sql;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 数组参数。集合参数以单个数组参数的形式绑定时使用，执行时使用当前连接创建为JDBC数组
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class ArrayParameter {
+
+	/**
+	 * 数组元素的SQL类型名
+	 */
+	private final String typeName;
+
+	/**
+	 * 数组元素
+	 */
+	private final Object[] elements;
+
+	public ArrayParameter(String typeName, Object[] elements) {
+		super();
+		this.typeName = typeName;
+		this.elements = elements;
+	}
+
+	public String getTypeName() {
+		return typeName;
+	}
+
+	public Object[] getElements() {
+		return elements;
+	}
+
+	/**
+	 * 使用连接创建JDBC数组
+	 *
+	 * @param con
+	 *            连接对象
+	 * @return 返回JDBC数组
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public Array toArray(Connection con) throws SQLException {
+		return con.createArrayOf(typeName, elements);
+	}
+
+}
@@ -0,0 +1,69 @@
+package cn.tenmg.sqltool.sql;
+
+import java.io.Serializable;
+
+/**
+ * 已编译的SQL。包含可直接执行的JDBC SQL及其参数的提取顺序
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class CompiledSQL implements Serializable {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = 4383614328471236937L;
+
+	/**
+	 * JDBC SQL
+	 */
+	private String script;
+
+	/**
+	 * 按占位符顺序排列的参数名
+	 */
+	private String[] paramNames;
+
+	/**
+	 * 按占位符顺序排列的参数元素下标。参数为集合时表示集合中元素的下标，否则为-1
+	 */
+	private int[] paramIndexes;
+
+	public CompiledSQL() {
+		super();
+	}
+
+	public CompiledSQL(String script, String[] paramNames, int[] paramIndexes) {
+		super();
+		this.script = script;
+		this.paramNames = paramNames;
+		this.paramIndexes = paramIndexes;
+	}
+
+	public String getScript() {
+		return script;
+	}
+
+	public void setScript(String script) {
+		this.script = script;
+	}
+
+	public String[] getParamNames() {
+		return paramNames;
+	}
+
+	public void setParamNames(String[] paramNames) {
+		this.paramNames = paramNames;
+	}
+
+	public int[] getParamIndexes() {
+		return paramIndexes;
+	}
+
+	public void setParamIndexes(int[] paramIndexes) {
+		this.paramIndexes = paramIndexes;
+	}
+
+}
@@ -0,0 +1,117 @@
+package cn.tenmg.sqltool.sql;
+
+import java.io.Serializable;
+
+/**
+ * 分页查询计划。缓存计数查询SQL、分页查询SQL模板及其参数提取顺序，使相同结构的分页查询仅需替换页码、页容量并绑定参数
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class PagingPlan implements Serializable {
+
+	/**
+	 *
+	 */
+	private static final long serialVersionUID = -2470381664021859382L;
+
+	/**
+	 * 分页查询SQL模板中页容量的位置
+	 */
+	public static final int SLOT_LIMIT = 0;
+
+	/**
+	 * 分页查询SQL模板中偏移量（跳过的行数）的位置
+	 */
+	public static final int SLOT_OFFSET = 1;
+
+	/**
+	 * 分页查询SQL模板中起始行号（偏移量+1）的位置
+	 */
+	public static final int SLOT_START = 2;
+
+	/**
+	 * 分页查询SQL模板中截止行号（偏移量+页容量）的位置
+	 */
+	public static final int SLOT_END = 3;
+
+	/**
+	 * 计数查询命名参数SQL
+	 */
+	private String countScript;
+
+	/**
+	 * 已编译的计数查询SQL。无法编译时为null
+	 */
+	private CompiledSQL countSQL;
+
+	/**
+	 * 分页查询SQL是否由分页宏#[page(……)]生成
+	 */
+	private boolean paged;
+
+	/**
+	 * 分页查询SQL模板片段。无法生成模板时为null
+	 */
+	private String[] pageSegments;
+
+	/**
+	 * 分页查询SQL模板片段之间的数值类型
+	 */
+	private int[] pageSlots;
+
+	/**
+	 * 已编译的分页查询SQL，用于提取参数
+	 */
+	private CompiledSQL pageSQL;
+
+	public String getCountScript() {
+		return countScript;
+	}
+
+	public void setCountScript(String countScript) {
+		this.countScript = countScript;
+	}
+
+	public CompiledSQL getCountSQL() {
+		return countSQL;
+	}
+
+	public void setCountSQL(CompiledSQL countSQL) {
+		this.countSQL = countSQL;
+	}
+
+	public boolean isPaged() {
+		return paged;
+	}
+
+	public void setPaged(boolean paged) {
+		this.paged = paged;
+	}
+
+	public String[] getPageSegments() {
+		return pageSegments;
+	}
+
+	public void setPageSegments(String[] pageSegments) {
+		this.pageSegments = pageSegments;
+	}
+
+	public int[] getPageSlots() {
+		return pageSlots;
+	}
+
+	public void setPageSlots(int[] pageSlots) {
+		this.pageSlots = pageSlots;
+	}
+
+	public CompiledSQL getPageSQL() {
+		return pageSQL;
+	}
+
+	public void setPageSQL(CompiledSQL pageSQL) {
+		this.pageSQL = pageSQL;
+	}
+
+}
@@ -1,6 +1,7 @@
 package cn.tenmg.sqltool.sql;
 
 import java.util.List;
+import java.util.Map;
 
 import cn.tenmg.dsl.Script;
 import cn.tenmg.sql.paging.SQLPagingDialect;
@@ -113,4 +114,101 @@ public interface SQLDialect extends SQLPagingDialect {
 	 */
 	<T> Script<List<Object>> hardSave(T obj);
 
+	/**
+	 * 获取单条SQL允许绑定的最大参数个数
+	 * 
+	 * @return 返回单条SQL允许绑定的最大参数个数
+	 */
+	int getMaxParameters();
+
+	/**
+	 * 获取IN列表允许的最大元素个数
+	 * 
+	 * @return 返回IN列表允许的最大元素个数
+	 */
+	int getMaxInListSize();
+
+	/**
+	 * 获取查询语句默认每次从数据库获取的行数
+	 * 
+	 * @return 返回查询语句默认每次从数据库获取的行数。返回0时使用驱动的默认值
+	 */
+	int getDefaultFetchSize();
+
+	/**
+	 * 判断排序时是否将null值视为最大值，即未指定NULLS FIRST/LAST时null值升序排在最后、降序排在最前
+	 * 
+	 * @return null值视为最大值时返回true，视为最小值时返回false
+	 */
+	boolean isNullsLargest();
+
+	/**
+	 * 判断是否支持在一条语句中执行以分号分隔的多条查询并依次获取各查询的结果集
+	 * 
+	 * @param url
+	 *            连接的URL
+	 * @return 支持时返回true，否则返回false
+	 */
+	boolean supportsMultiQueries(String url);
+
+	/**
+	 * 获取SQL脚本语法，用于将SQL脚本拆分为可逐条执行的语句
+	 * 
+	 * @return 返回SQL脚本语法
+	 */
+	ScriptSyntax getScriptSyntax();
+
+	/**
+	 * 获取集合参数以单个数组参数绑定时数组元素的SQL类型名
+	 * 
+	 * @param elementType
+	 *            集合元素的类型
+	 * @return 返回数组元素的SQL类型名，用于{@link java.sql.Connection#createArrayOf(String, Object[])}。不支持以数组形式绑定该类型的集合时返回null
+	 */
+	String getArrayTypeName(Class<?> elementType);
+
+	/**
+	 * 获取存放集合参数元素的临时表。临时表仅对当前会话可见，仅有一列名为{@code V}，使用完毕后须执行删除（或清空）临时表的SQL
+	 * 
+	 * @param name
+	 *            临时表名，不含方言特有的前缀
+	 * @param integer
+	 *            元素是否为整数，否则为字符串
+	 * @param maxLength
+	 *            字符串元素的最大长度
+	 * @return 返回临时表对象。不支持该类型的临时表时返回null
+	 */
+	TempTable tempTable(String name, boolean integer, int maxLength);
+
+	/**
+	 * 获取优化器提示的SQL片段
+	 * 
+	 * @param hints
+	 *            各方言的提示内容，键为方言名（mysql、oracle、postgresql、sqlserver或sqlite）
+	 * @return 返回当前方言的优化器提示SQL片段。未指定当前方言的提示内容或当前方言不支持优化器提示时返回null
+	 */
+	String hint(Map<String, String> hints);
+
+	/**
+	 * 获取抽样查询的表。支持表抽样的方言按数据块或行抽样，否则使用随机数过滤，返回的SQL片段为子查询，使用时应在其后指定别名
+	 * 
+	 * @param tableName
+	 *            表名
+	 * @param fraction
+	 *            抽样比例，取值范围为(0, 1]
+	 * @return 返回抽样查询的表。抽样比例为1时返回表名
+	 */
+	String sampleTable(String tableName, double fraction);
+
+	/**
+	 * 获取抽样查询SQL。使用随机数过滤查询结果，仍需读取查询的全部记录
+	 * 
+	 * @param sql
+	 *            查询SQL
+	 * @param fraction
+	 *            抽样比例，取值范围为(0, 1]
+	 * @return 返回抽样查询SQL。抽样比例为1时返回原查询SQL
+	 */
+	String sampleSql(String sql, double fraction);
+
 }
@@ -0,0 +1,89 @@
+package cn.tenmg.sqltool.sql;
+
+import java.util.regex.Pattern;
+
+/**
+ * SQL脚本语法。用于将SQL脚本拆分为可逐条执行的语句
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class ScriptSyntax {
+
+	/**
+	 * 是否支持以“#”开头的单行注释
+	 */
+	private final boolean hashComment;
+
+	/**
+	 * 字符串中的反斜杠是否为转义符
+	 */
+	private final boolean backslashEscape;
+
+	/**
+	 * 标识符的起始引号，其中“[”对应的结束引号为“]”，其余的结束引号与起始引号相同
+	 */
+	private final String identifierQuotes;
+
+	/**
+	 * 是否支持美元符号引用的字符串（例如$$...$$或$tag$...$tag$）
+	 */
+	private final boolean dollarQuote;
+
+	/**
+	 * 是否支持使用“DELIMITER”命令修改语句分隔符
+	 */
+	private final boolean delimiterCommand;
+
+	/**
+	 * 单独成行的语句结束符（例如“/”或“GO”），不支持时为null
+	 */
+	private final String terminatorLine;
+
+	/**
+	 * 过程化语句块的开头，匹配的语句内的分号不作为语句分隔符。支持单独成行的语句结束符时，语句块在结束符处结束，否则在与BEGIN或CASE配对的最后一个END后的分号处结束
+	 */
+	private final Pattern blockPattern;
+
+	public ScriptSyntax(boolean hashComment, boolean backslashEscape, String identifierQuotes, boolean dollarQuote,
+			boolean delimiterCommand, String terminatorLine, Pattern blockPattern) {
+		super();
+		this.hashComment = hashComment;
+		this.backslashEscape = backslashEscape;
+		this.identifierQuotes = identifierQuotes;
+		this.dollarQuote = dollarQuote;
+		this.delimiterCommand = delimiterCommand;
+		this.terminatorLine = terminatorLine;
+		this.blockPattern = blockPattern;
+	}
+
+	public boolean isHashComment() {
+		return hashComment;
+	}
+
+	public boolean isBackslashEscape() {
+		return backslashEscape;
+	}
+
+	public String getIdentifierQuotes() {
+		return identifierQuotes;
+	}
+
+	public boolean isDollarQuote() {
+		return dollarQuote;
+	}
+
+	public boolean isDelimiterCommand() {
+		return delimiterCommand;
+	}
+
+	public String getTerminatorLine() {
+		return terminatorLine;
+	}
+
+	public Pattern getBlockPattern() {
+		return blockPattern;
+	}
+
+}
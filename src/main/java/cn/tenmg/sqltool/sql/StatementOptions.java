@@ -0,0 +1,134 @@
+package cn.tenmg.sqltool.sql;
+
+import java.io.Serializable;
+
+import cn.tenmg.sqltool.datasource.Workload;
+
+/**
+ * 语句选项。执行SQL前应用到预编译语句，值为null的选项保持驱动的默认值；工作负载类别在获取连接时使用
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class StatementOptions implements Serializable {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -2411590379462871346L;
+
+	/**
+	 * 每次从数据库获取的行数
+	 */
+	private Integer fetchSize;
+
+	/**
+	 * 结果集的最大行数
+	 */
+	private Integer maxRows;
+
+	/**
+	 * 查询超时时间（单位：秒）
+	 */
+	private Integer queryTimeout;
+
+	/**
+	 * 工作负载类别
+	 */
+	private Workload workload;
+
+	public StatementOptions() {
+		super();
+	}
+
+	public StatementOptions(Integer fetchSize, Integer maxRows, Integer queryTimeout) {
+		super();
+		this.fetchSize = fetchSize;
+		this.maxRows = maxRows;
+		this.queryTimeout = queryTimeout;
+	}
+
+	public StatementOptions(Integer fetchSize, Integer maxRows, Integer queryTimeout, Workload workload) {
+		super();
+		this.fetchSize = fetchSize;
+		this.maxRows = maxRows;
+		this.queryTimeout = queryTimeout;
+		this.workload = workload;
+	}
+
+	public Integer getFetchSize() {
+		return fetchSize;
+	}
+
+	public void setFetchSize(Integer fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	public Integer getMaxRows() {
+		return maxRows;
+	}
+
+	public void setMaxRows(Integer maxRows) {
+		this.maxRows = maxRows;
+	}
+
+	public Integer getQueryTimeout() {
+		return queryTimeout;
+	}
+
+	public void setQueryTimeout(Integer queryTimeout) {
+		this.queryTimeout = queryTimeout;
+	}
+
+	public Workload getWorkload() {
+		return workload;
+	}
+
+	public void setWorkload(Workload workload) {
+		this.workload = workload;
+	}
+
+	/**
+	 * 使用默认选项补齐值为null的选项
+	 *
+	 * @param defaults
+	 *            默认选项
+	 * @return 返回补齐后的新语句选项。默认选项为null时返回当前语句选项
+	 */
+	public StatementOptions withDefaults(StatementOptions defaults) {
+		if (defaults == null) {
+			return this;
+		}
+		return new StatementOptions(fetchSize == null ? defaults.fetchSize : fetchSize,
+				maxRows == null ? defaults.maxRows : maxRows,
+				queryTimeout == null ? defaults.queryTimeout : queryTimeout,
+				workload == null ? defaults.workload : workload);
+	}
+
+	@Override
+	public int hashCode() {
+		int hashCode = fetchSize == null ? 0 : fetchSize.hashCode();
+		hashCode = 31 * hashCode + (maxRows == null ? 0 : maxRows.hashCode());
+		hashCode = 31 * hashCode + (queryTimeout == null ? 0 : queryTimeout.hashCode());
+		return 31 * hashCode + (workload == null ? 0 : workload.hashCode());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof StatementOptions)) {
+			return false;
+		}
+		StatementOptions other = (StatementOptions) obj;
+		return equals(fetchSize, other.fetchSize) && equals(maxRows, other.maxRows)
+				&& equals(queryTimeout, other.queryTimeout) && workload == other.workload;
+	}
+
+	private static boolean equals(Integer value, Integer other) {
+		return value == null ? other == null : value.equals(other);
+	}
+
+}
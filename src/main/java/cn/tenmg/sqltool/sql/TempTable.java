@@ -0,0 +1,56 @@
+package cn.tenmg.sqltool.sql;
+
+/**
+ * 临时表。用于存放元素过多的集合参数，仅对当前会话可见
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public class TempTable {
+
+	/**
+	 * 表名
+	 */
+	private final String tableName;
+
+	/**
+	 * 创建临时表的SQL。使用预先创建的临时表时为null
+	 */
+	private final String createSql;
+
+	/**
+	 * 向临时表插入一个元素的SQL
+	 */
+	private final String insertSql;
+
+	/**
+	 * 删除（或清空）临时表的SQL
+	 */
+	private final String dropSql;
+
+	public TempTable(String tableName, String createSql, String insertSql, String dropSql) {
+		super();
+		this.tableName = tableName;
+		this.createSql = createSql;
+		this.insertSql = insertSql;
+		this.dropSql = dropSql;
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	public String getCreateSql() {
+		return createSql;
+	}
+
+	public String getInsertSql() {
+		return insertSql;
+	}
+
+	public String getDropSql() {
+		return dropSql;
+	}
+
+}
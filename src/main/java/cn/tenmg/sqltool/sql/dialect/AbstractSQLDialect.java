@@ -1,6 +1,7 @@
 package cn.tenmg.sqltool.sql.dialect;
 
 import java.lang.reflect.Field;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -24,9 +25,11 @@ import cn.tenmg.sqltool.exception.NoColumnForUpdateException;
 import cn.tenmg.sqltool.exception.PkNotFoundException;
 import cn.tenmg.sqltool.sql.MergeSQL;
 import cn.tenmg.sqltool.sql.SQLDialect;
+import cn.tenmg.sqltool.sql.TempTable;
 import cn.tenmg.sqltool.sql.UpdateSQL;
 import cn.tenmg.sqltool.sql.meta.EntityMeta;
 import cn.tenmg.sqltool.sql.meta.FieldMeta;
+import cn.tenmg.sqltool.sql.utils.CountSQLUtils;
 import cn.tenmg.sqltool.sql.utils.EntityUtils;
 import cn.tenmg.sqltool.utils.JDBCExecuteUtils;
 
@@ -45,6 +48,14 @@ public abstract class AbstractSQLDialect implements SQLDialect {
 	protected static final String TABLE_NAME = "tableName", COLUMNS = "columns", VALUES = "values", SETS = "sets",
 			LEFT_COLUMN_NAME = "columnName", RIGHT_COLUMN_NAME = "columnName";
 
+	protected static final String COLUMN_TYPE = "columnType", HINTS = "hints", FRACTION = "fraction",
+			PERCENT = "percent";
+
+	private static final String SAMPLE_TABLE = "(SELECT * FROM ${tableName} WHERE ${filter})",
+			SAMPLE_SQL = "SELECT * FROM (${sql}) SQLTOOL_SAMPLE WHERE ${filter}";
+
+	private static final String INSERT_TEMP_TABLE = "INSERT INTO %s (V) VALUES (?)";
+
 	protected static final int SELECT_LEN = "SELECT".length();
 
 	/**
@@ -124,9 +135,136 @@ public abstract class AbstractSQLDialect implements SQLDialect {
 	 */
 	abstract String getSetIfNotNullTemplate();
 
+	/**
+	 * 获取临时表在SQL中使用的表名。例如SQLServer数据库为<code>#${name}</code>
+	 * 
+	 * @param name
+	 *            临时表名
+	 * @return 返回临时表在SQL中使用的表名
+	 */
+	abstract String getTempTableName(String name);
+
+	/**
+	 * 获取创建临时表的SQL模板，表已存在时不应报错。例如Mysql数据库为
+	 * <code>CREATE TEMPORARY TABLE IF NOT EXISTS ${tableName} (V ${columnType})</code>
+	 * 
+	 * @return 返回创建临时表的SQL模板。使用预先创建的临时表时返回null
+	 */
+	abstract String getCreateTempTableTemplate();
+
+	/**
+	 * 获取删除（或清空）临时表的SQL模板。例如Mysql数据库为<code>DROP TEMPORARY TABLE IF EXISTS ${tableName}</code>
+	 * 
+	 * @return 返回删除（或清空）临时表的SQL模板
+	 */
+	abstract String getDropTempTableTemplate();
+
+	/**
+	 * 获取临时表整数列的类型
+	 * 
+	 * @return 返回临时表整数列的类型
+	 */
+	abstract String getIntegerColumnType();
+
+	/**
+	 * 获取临时表字符串列的类型
+	 * 
+	 * @param maxLength
+	 *            字符串的最大长度
+	 * @return 返回临时表字符串列的类型。无法存放该长度的字符串时返回null
+	 */
+	abstract String getStringColumnType(int maxLength);
+
+	/**
+	 * 获取方言名，用于选取当前方言的优化器提示内容
+	 * 
+	 * @return 返回方言名
+	 */
+	abstract String getName();
+
+	/**
+	 * 获取优化器提示模板
+	 * 
+	 * @return 返回优化器提示模板。不支持优化器提示时返回null
+	 */
+	abstract String getHintTemplate();
+
+	/**
+	 * 获取表抽样模板
+	 * 
+	 * @return 返回表抽样模板。不支持表抽样时返回null，此时使用随机数过滤
+	 */
+	abstract String getSampleTableTemplate();
+
+	/**
+	 * 获取随机数过滤条件模板
+	 * 
+	 * @return 返回随机数过滤条件模板
+	 */
+	abstract String getSampleFilterTemplate();
+
+	@Override
+	public TempTable tempTable(String name, boolean integer, int maxLength) {
+		String columnType = integer ? getIntegerColumnType() : getStringColumnType(maxLength);
+		if (columnType == null) {
+			return null;
+		}
+		String tableName = getTempTableName(name), template = getCreateTempTableTemplate();
+		return new TempTable(tableName,
+				template == null ? null
+						: PlaceHolderUtils.replace(template, TABLE_NAME, tableName, COLUMN_TYPE, columnType),
+				String.format(INSERT_TEMP_TABLE, tableName),
+				PlaceHolderUtils.replace(getDropTempTableTemplate(), TABLE_NAME, tableName));
+	}
+
+	@Override
+	public String getArrayTypeName(Class<?> elementType) {
+		return null;
+	}
+
+	@Override
+	public String hint(Map<String, String> hints) {
+		String template = getHintTemplate(), content = hints.get(getName());
+		if (template == null || StringUtils.isBlank(content)) {
+			return null;
+		}
+		return PlaceHolderUtils.replace(template, HINTS, content.trim());
+	}
+
+	@Override
+	public String sampleTable(String tableName, double fraction) {
+		if (fraction >= 1) {
+			return tableName;
+		}
+		String template = getSampleTableTemplate();
+		if (template == null) {
+			return PlaceHolderUtils.replace(SAMPLE_TABLE, TABLE_NAME, tableName, "filter", sampleFilter(fraction));
+		}
+		return PlaceHolderUtils.replace(template, TABLE_NAME, tableName, PERCENT, toPercent(fraction));
+	}
+
+	@Override
+	public String sampleSql(String sql, double fraction) {
+		if (fraction >= 1) {
+			return sql;
+		}
+		return PlaceHolderUtils.replace(SAMPLE_SQL, "sql", sql.indexOf("--") < 0 ? sql : sql + "\n", "filter",
+				sampleFilter(fraction));
+	}
+
+	private String sampleFilter(double fraction) {
+		return PlaceHolderUtils.replace(getSampleFilterTemplate(), FRACTION,
+				BigDecimal.valueOf(fraction).stripTrailingZeros().toPlainString());
+	}
+
+	private static String toPercent(double fraction) {
+		return BigDecimal.valueOf(fraction).movePointRight(2).stripTrailingZeros().toPlainString();
+	}
+
 	@Override
 	public String countSql(String namedSql, SQLMetaData sqlMetaData) {
-		return getSQLPagingDialect().countSql(namedSql, sqlMetaData);
+		String countSql = CountSQLUtils.countSql(namedSql);
+		return countSql == null ? getSQLPagingDialect().countSql(namedSql, sqlMetaData) : countSql;
 	}
 
 	@Override
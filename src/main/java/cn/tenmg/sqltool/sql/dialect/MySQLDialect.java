@@ -7,6 +7,7 @@ import java.util.Map;
 import cn.tenmg.sql.paging.SQLPagingDialect;
 import cn.tenmg.sql.paging.dialect.MySQLPagingDialect;
 import cn.tenmg.sql.paging.utils.SQLUtils;
+import cn.tenmg.sqltool.sql.ScriptSyntax;
 
 /**
  * MySQL 方言
@@ -21,10 +22,16 @@ public class MySQLDialect extends AbstractSQLDialect {
 			INSERT_IF_NOT_EXISTS_TEMPLATE = "INSERT IGNORE INTO ${tableName} (${columns}) VALUES (${values})",
 			SAVE_TEMPLATE = "INSERT INTO ${tableName} (${columns}) VALUES (${values}) ON DUPLICATE KEY UPDATE ${sets}",
 			SET_TEMPLATE = "${columnName} = VALUES(${columnName})",
-			SET_IF_NOT_NULL_TEMPLATE = "${columnName} = IFNULL(VALUES(${columnName}), ${columnName})";
+			SET_IF_NOT_NULL_TEMPLATE = "${columnName} = IFNULL(VALUES(${columnName}), ${columnName})",
+			CREATE_TEMP_TABLE_TEMPLATE = "CREATE TEMPORARY TABLE IF NOT EXISTS ${tableName} (V ${columnType})",
+			DROP_TEMP_TABLE_TEMPLATE = "DROP TEMPORARY TABLE IF EXISTS ${tableName}",
+			NAME = "mysql", HINT_TEMPLATE = "/*+ ${hints} */",
+			SAMPLE_FILTER_TEMPLATE = "RAND() < ${fraction}";
 
 	private static final List<String> NEEDS_COMMA_PARAM_NAMES = Arrays.asList(COLUMNS, VALUES);
 
+	private static final ScriptSyntax SCRIPT_SYNTAX = new ScriptSyntax(true, true, "`", false, true, null, null);
+
 	private static final MySQLDialect INSTANCE = new MySQLDialect();
 
 	private MySQLDialect() {
@@ -86,4 +93,80 @@ public class MySQLDialect extends AbstractSQLDialect {
 		return SET_IF_NOT_NULL_TEMPLATE;
 	}
 
+	@Override
+	public int getMaxParameters() {
+		return 65535;
+	}
+
+	@Override
+	public int getMaxInListSize() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public int getDefaultFetchSize() {
+		return 0;
+	}
+
+	@Override
+	public boolean isNullsLargest() {
+		return false;
+	}
+
+	@Override
+	public boolean supportsMultiQueries(String url) {// 需开启allowMultiQueries且未使用服务端预编译
+		String lower = url == null ? "" : url.toLowerCase();
+		return lower.contains("allowmultiqueries=true") && !lower.contains("useserverprepstmts=true");
+	}
+
+	@Override
+	public ScriptSyntax getScriptSyntax() {
+		return SCRIPT_SYNTAX;
+	}
+
+	@Override
+	String getTempTableName(String name) {
+		return name;
+	}
+
+	@Override
+	String getCreateTempTableTemplate() {
+		return CREATE_TEMP_TABLE_TEMPLATE;
+	}
+
+	@Override
+	String getDropTempTableTemplate() {
+		return DROP_TEMP_TABLE_TEMPLATE;
+	}
+
+	@Override
+	String getName() {
+		return NAME;
+	}
+
+	@Override
+	String getHintTemplate() {
+		return HINT_TEMPLATE;
+	}
+
+	@Override
+	String getSampleTableTemplate() {
+		return null;
+	}
+
+	@Override
+	String getSampleFilterTemplate() {
+		return SAMPLE_FILTER_TEMPLATE;
+	}
+
+	@Override
+	String getIntegerColumnType() {
+		return "BIGINT";
+	}
+
+	@Override
+	String getStringColumnType(int maxLength) {
+		return maxLength > 16383 ? "TEXT" : "VARCHAR(" + Math.max(maxLength, 1) + ")";
+	}
+
 }
\ No newline at end of file
@@ -3,14 +3,24 @@ package cn.tenmg.sqltool.sql.dialect;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
+import cn.tenmg.dsl.utils.PlaceHolderUtils;
 import cn.tenmg.sql.paging.SQLPagingDialect;
 import cn.tenmg.sql.paging.dialect.OraclePagingDialect;
 import cn.tenmg.sql.paging.utils.SQLUtils;
+import cn.tenmg.sqltool.sql.ScriptSyntax;
+import cn.tenmg.sqltool.sql.TempTable;
 import cn.tenmg.sqltool.utils.JDBCExecuteUtils;
 
 /**
- * Oracle方言
+ * Oracle方言。Oracle数据库的全局临时表需预先创建（建表属于DDL，会隐式提交事务且需要建表权限），
+ * 集合参数的元素按临时表名分别存放于以下两张表中：
+ * 
+ * <pre>
+ * CREATE GLOBAL TEMPORARY TABLE SQLTOOL_TMP_I (K VARCHAR2(30), V NUMBER(38)) ON COMMIT PRESERVE ROWS;
+ * CREATE GLOBAL TEMPORARY TABLE SQLTOOL_TMP_S (K VARCHAR2(30), V VARCHAR2(4000)) ON COMMIT PRESERVE ROWS;
+ * </pre>
  * 
  * @author June wjzhao@aliyun.com
  * 
@@ -22,11 +32,22 @@ public class OracleDialect extends AbstractSQLDialect {
 			INSERT_IF_NOT_EXISTS_TEMPLATE = "MERGE INTO ${tableName} X USING (SELECT ${fields} FROM DUAL) Y ON (${condition}) WHEN NOT MATCHED THEN INSERT (${columns}) VALUES(${values})",
 			SAVE_TEMPLATE = "MERGE INTO ${tableName} X USING (SELECT ${fields} FROM DUAL) Y ON (${condition}) WHEN MATCHED THEN UPDATE SET ${sets} WHEN NOT MATCHED THEN INSERT (${columns}) VALUES(${values})",
 			FIELDS = "fields", CONDITION = "condition", SPACE = " ", SET_TEMPLATE = "X.${columnName} = Y.${columnName}",
-			SET_IF_NOT_NULL_TEMPLATE = "X.${columnName} = NVL(Y.${columnName}, X.${columnName})";
+			SET_IF_NOT_NULL_TEMPLATE = "X.${columnName} = NVL(Y.${columnName}, X.${columnName})",
+			TEMP_TABLE_TEMPLATE = "(SELECT V FROM ${tableName} WHERE K = '${key}')",
+			INSERT_TEMP_TABLE_TEMPLATE = "INSERT INTO ${tableName} (K, V) VALUES ('${key}', ?)",
+			CLEAR_TEMP_TABLE_TEMPLATE = "DELETE FROM ${tableName} WHERE K = '${key}'", KEY = "key",
+			INTEGER_TEMP_TABLE = "SQLTOOL_TMP_I", STRING_TEMP_TABLE = "SQLTOOL_TMP_S",
+			NAME = "oracle", HINT_TEMPLATE = "/*+ ${hints} */",
+			SAMPLE_TABLE_TEMPLATE = "(SELECT * FROM ${tableName} SAMPLE (${percent}))",
+			SAMPLE_FILTER_TEMPLATE = "DBMS_RANDOM.VALUE < ${fraction}";
 
 	private static final List<String> EXT_SQL_TEMPLATE_PARAM_NAMES = Arrays.asList(FIELDS, CONDITION),
 			NEEDS_COMMA_PARAM_NAMES = Arrays.asList(FIELDS, COLUMNS, VALUES);
 
+	private static final ScriptSyntax SCRIPT_SYNTAX = new ScriptSyntax(false, false, "\"", false, false, "/",
+			Pattern.compile("(CREATE\\s+(OR\\s+REPLACE\\s+)?((NON)?EDITIONABLE\\s+)?"
+					+ "(PROCEDURE|FUNCTION|PACKAGE|TRIGGER|TYPE)|DECLARE|BEGIN)\\b", Pattern.CASE_INSENSITIVE));
+
 	private static final OracleDialect INSTANCE = new OracleDialect();
 
 	private OracleDialect() {
@@ -94,4 +115,93 @@ public class OracleDialect extends AbstractSQLDialect {
 		return OraclePagingDialect.getInstance();
 	}
 
+	@Override
+	public int getMaxParameters() {
+		return 65535;
+	}
+
+	@Override
+	public int getMaxInListSize() {
+		return 1000;
+	}
+
+	@Override
+	public int getDefaultFetchSize() {
+		return 500;
+	}
+
+	@Override
+	public boolean isNullsLargest() {
+		return true;
+	}
+
+	@Override
+	public boolean supportsMultiQueries(String url) {
+		return false;
+	}
+
+	@Override
+	public ScriptSyntax getScriptSyntax() {
+		return SCRIPT_SYNTAX;
+	}
+
+	@Override
+	String getTempTableName(String name) {
+		return name;
+	}
+
+	@Override
+	String getCreateTempTableTemplate() {
+		return null;
+	}
+
+	@Override
+	String getDropTempTableTemplate() {
+		return CLEAR_TEMP_TABLE_TEMPLATE;
+	}
+
+	/**
+	 * 获取存放集合参数元素的临时表。使用预先创建的全局临时表，元素以临时表名为键插入，使用完毕后按键删除，不执行任何DDL
+	 */
+	@Override
+	public TempTable tempTable(String name, boolean integer, int maxLength) {
+		if (!integer && getStringColumnType(maxLength) == null) {
+			return null;
+		}
+		String tableName = integer ? INTEGER_TEMP_TABLE : STRING_TEMP_TABLE;
+		return new TempTable(PlaceHolderUtils.replace(TEMP_TABLE_TEMPLATE, TABLE_NAME, tableName, KEY, name), null,
+				PlaceHolderUtils.replace(INSERT_TEMP_TABLE_TEMPLATE, TABLE_NAME, tableName, KEY, name),
+				PlaceHolderUtils.replace(CLEAR_TEMP_TABLE_TEMPLATE, TABLE_NAME, tableName, KEY, name));
+	}
+
+	@Override
+	String getName() {
+		return NAME;
+	}
+
+	@Override
+	String getHintTemplate() {
+		return HINT_TEMPLATE;
+	}
+
+	@Override
+	String getSampleTableTemplate() {
+		return SAMPLE_TABLE_TEMPLATE;
+	}
+
+	@Override
+	String getSampleFilterTemplate() {
+		return SAMPLE_FILTER_TEMPLATE;
+	}
+
+	@Override
+	String getIntegerColumnType() {
+		return "NUMBER(38)";
+	}
+
+	@Override
+	String getStringColumnType(int maxLength) {
+		return maxLength > 4000 ? null : "VARCHAR2(4000)";
+	}
+
 }
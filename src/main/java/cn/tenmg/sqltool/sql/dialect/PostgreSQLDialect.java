@@ -1,12 +1,18 @@
 package cn.tenmg.sqltool.sql.dialect;
 
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import cn.tenmg.sql.paging.SQLPagingDialect;
 import cn.tenmg.sql.paging.dialect.PostgreSQLPagingDialect;
 import cn.tenmg.sql.paging.utils.SQLUtils;
+import cn.tenmg.sqltool.sql.ScriptSyntax;
 import cn.tenmg.sqltool.utils.JDBCExecuteUtils;
 
 /**
@@ -22,11 +28,34 @@ public class PostgreSQLDialect extends AbstractSQLDialect {
 			INSERT_IF_NOT_EXISTS_TEMPLATE = "INSERT INTO ${tableName} (${columns}) VALUES (${values}) ON CONFLICT(${ids}) DO NOTHING",
 			SAVE_TEMPLATE = "INSERT INTO ${tableName} AS X(${columns}) VALUES (${values}) ON CONFLICT(${ids}) DO UPDATE SET ${sets}",
 			SET_TEMPLATE = "${columnName} = EXCLUDED.${columnName}", IDS = "ids",
-			SET_IF_NOT_NULL_TEMPLATE = "${columnName} = COALESCE(EXCLUDED.${columnName}, X.${columnName})";
+			SET_IF_NOT_NULL_TEMPLATE = "${columnName} = COALESCE(EXCLUDED.${columnName}, X.${columnName})",
+			CREATE_TEMP_TABLE_TEMPLATE = "CREATE TEMPORARY TABLE IF NOT EXISTS ${tableName} (V ${columnType})",
+			DROP_TEMP_TABLE_TEMPLATE = "DROP TABLE IF EXISTS ${tableName}",
+			NAME = "postgresql", HINT_TEMPLATE = "/*+ ${hints} */",
+			SAMPLE_TABLE_TEMPLATE = "(SELECT * FROM ${tableName} TABLESAMPLE SYSTEM (${percent}))",
+			SAMPLE_FILTER_TEMPLATE = "RANDOM() < ${fraction}";
 
 	private static final List<String> EXT_SQL_TEMPLATE_PARAM_NAMES = Arrays.asList(IDS),
 			NEEDS_COMMA_PARAM_NAMES = Arrays.asList(COLUMNS, VALUES);
 
+	private static final Map<Class<?>, String> ARRAY_TYPE_NAMES = new HashMap<Class<?>, String>();
+
+	static {
+		ARRAY_TYPE_NAMES.put(String.class, "varchar");
+		ARRAY_TYPE_NAMES.put(Short.class, "int2");
+		ARRAY_TYPE_NAMES.put(Integer.class, "int4");
+		ARRAY_TYPE_NAMES.put(Long.class, "int8");
+		ARRAY_TYPE_NAMES.put(Float.class, "float4");
+		ARRAY_TYPE_NAMES.put(Double.class, "float8");
+		ARRAY_TYPE_NAMES.put(BigDecimal.class, "numeric");
+		ARRAY_TYPE_NAMES.put(Boolean.class, "bool");
+		ARRAY_TYPE_NAMES.put(UUID.class, "uuid");
+		ARRAY_TYPE_NAMES.put(Date.class, "date");
+		ARRAY_TYPE_NAMES.put(Timestamp.class, "timestamp");
+	}
+
+	private static final ScriptSyntax SCRIPT_SYNTAX = new ScriptSyntax(false, false, "\"", true, false, null, null);
+
 	private static final PostgreSQLDialect INSTANCE = new PostgreSQLDialect();
 
 	private PostgreSQLDialect() {
@@ -92,4 +121,84 @@ public class PostgreSQLDialect extends AbstractSQLDialect {
 		return PostgreSQLPagingDialect.getInstance();
 	}
 
+	@Override
+	public int getMaxParameters() {
+		return 32767;
+	}
+
+	@Override
+	public int getMaxInListSize() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public int getDefaultFetchSize() {
+		return 1000;
+	}
+
+	@Override
+	public boolean isNullsLargest() {
+		return true;
+	}
+
+	@Override
+	public boolean supportsMultiQueries(String url) {
+		return true;
+	}
+
+	@Override
+	public ScriptSyntax getScriptSyntax() {
+		return SCRIPT_SYNTAX;
+	}
+
+	@Override
+	public String getArrayTypeName(Class<?> elementType) {
+		return ARRAY_TYPE_NAMES.get(elementType);
+	}
+
+	@Override
+	String getTempTableName(String name) {
+		return "pg_temp.".concat(name);
+	}
+
+	@Override
+	String getCreateTempTableTemplate() {
+		return CREATE_TEMP_TABLE_TEMPLATE;
+	}
+
+	@Override
+	String getDropTempTableTemplate() {
+		return DROP_TEMP_TABLE_TEMPLATE;
+	}
+
+	@Override
+	String getName() {
+		return NAME;
+	}
+
+	@Override
+	String getHintTemplate() {
+		return HINT_TEMPLATE;
+	}
+
+	@Override
+	String getSampleTableTemplate() {
+		return SAMPLE_TABLE_TEMPLATE;
+	}
+
+	@Override
+	String getSampleFilterTemplate() {
+		return SAMPLE_FILTER_TEMPLATE;
+	}
+
+	@Override
+	String getIntegerColumnType() {
+		return "BIGINT";
+	}
+
+	@Override
+	String getStringColumnType(int maxLength) {
+		return "VARCHAR";
+	}
+
 }
@@ -1,16 +1,22 @@
 package cn.tenmg.sqltool.sql.dialect;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
+import cn.tenmg.sql.paging.SQLMetaData;
 import cn.tenmg.sql.paging.SQLPagingDialect;
 import cn.tenmg.sql.paging.dialect.SQLServerPagingDialect;
 import cn.tenmg.sql.paging.utils.SQLUtils;
+import cn.tenmg.sqltool.sql.ScriptSyntax;
+import cn.tenmg.sqltool.sql.utils.CountSQLUtils;
 import cn.tenmg.sqltool.utils.JDBCExecuteUtils;
 
 /**
- * SQLServer方言
+ * SQLServer方言。查询提示子句<code>OPTION (...)</code>仅能位于最外层语句的末尾，生成计数查询和分页查询时先将其移除，再追加到生成的语句末尾
  * 
  * @author June wjzhao@aliyun.com
  * 
@@ -22,11 +28,21 @@ public class SQLServerDialect extends AbstractSQLDialect {
 			INSERT_IF_NOT_EXISTS_TEMPLATE = "MERGE INTO ${tableName} X USING (SELECT ${fields}) Y ON (${condition}) WHEN NOT MATCHED THEN INSERT (${columns}) VALUES(${values});",
 			SAVE_TEMPLATE = "MERGE INTO ${tableName} X USING (SELECT ${fields}) Y ON (${condition}) WHEN MATCHED THEN UPDATE SET ${sets} WHEN NOT MATCHED THEN INSERT (${columns}) VALUES(${values});",
 			SET_TEMPLATE = "X.${columnName} = Y.${columnName}", FIELDS = "fields", CONDITION = "condition", SPACE = " ",
-			SET_IF_NOT_NULL_TEMPLATE = "X.${columnName} = ISNULL(Y.${columnName}, X.${columnName})";
+			SET_IF_NOT_NULL_TEMPLATE = "X.${columnName} = ISNULL(Y.${columnName}, X.${columnName})",
+			CREATE_TEMP_TABLE_TEMPLATE = "IF OBJECT_ID('tempdb..${tableName}') IS NULL CREATE TABLE ${tableName} (V ${columnType})",
+			DROP_TEMP_TABLE_TEMPLATE = "IF OBJECT_ID('tempdb..${tableName}') IS NOT NULL DROP TABLE ${tableName}",
+			NAME = "sqlserver", OPTION = "OPTION", HINT_TEMPLATE = "OPTION (${hints})", LINE_SEPARATOR = "\n",
+			SINGLE_LINE_COMMENT = "--",
+			SAMPLE_TABLE_TEMPLATE = "(SELECT * FROM ${tableName} TABLESAMPLE SYSTEM (${percent} PERCENT))",
+			SAMPLE_FILTER_TEMPLATE = "RAND(CHECKSUM(NEWID())) < ${fraction}";
 
 	private static final List<String> EXT_SQL_TEMPLATE_PARAM_NAMES = Arrays.asList(FIELDS, CONDITION),
 			NEEDS_COMMA_PARAM_NAMES = Arrays.asList(FIELDS, COLUMNS, VALUES);
 
+	private static final ScriptSyntax SCRIPT_SYNTAX = new ScriptSyntax(false, false, "\"[", false, false, "GO",
+			Pattern.compile("(CREATE\\s+(OR\\s+ALTER\\s+)?|ALTER\\s+)(PROCEDURE|PROC|FUNCTION|TRIGGER|VIEW)\\b",
+					Pattern.CASE_INSENSITIVE));
+
 	private static final SQLServerDialect INSTANCE = new SQLServerDialect();
 
 	private SQLServerDialect() {
@@ -94,4 +110,113 @@ public class SQLServerDialect extends AbstractSQLDialect {
 		return SQLServerPagingDialect.getInstance();
 	}
 
+	@Override
+	public int getMaxParameters() {
+		return 2000;
+	}
+
+	@Override
+	public int getMaxInListSize() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public int getDefaultFetchSize() {
+		return 0;
+	}
+
+	@Override
+	public boolean isNullsLargest() {
+		return false;
+	}
+
+	@Override
+	public boolean supportsMultiQueries(String url) {
+		return true;
+	}
+
+	@Override
+	public ScriptSyntax getScriptSyntax() {
+		return SCRIPT_SYNTAX;
+	}
+
+	@Override
+	String getTempTableName(String name) {
+		return "#".concat(name);
+	}
+
+	@Override
+	String getCreateTempTableTemplate() {
+		return CREATE_TEMP_TABLE_TEMPLATE;
+	}
+
+	@Override
+	String getDropTempTableTemplate() {
+		return DROP_TEMP_TABLE_TEMPLATE;
+	}
+
+	@Override
+	String getName() {
+		return NAME;
+	}
+
+	@Override
+	String getHintTemplate() {
+		return HINT_TEMPLATE;
+	}
+
+	@Override
+	String getSampleTableTemplate() {
+		return SAMPLE_TABLE_TEMPLATE;
+	}
+
+	@Override
+	String getSampleFilterTemplate() {
+		return SAMPLE_FILTER_TEMPLATE;
+	}
+
+	@Override
+	public String countSql(String namedSql, SQLMetaData sqlMetaData) {
+		int index = CountSQLUtils.indexOfTrailingClause(namedSql, OPTION);
+		if (index < 0) {
+			return super.countSql(namedSql, sqlMetaData);
+		}
+		String sql = namedSql.substring(0, index);
+		return append(super.countSql(sql, SQLUtils.getSQLMetaData(sql)), namedSql.substring(index));
+	}
+
+	@Override
+	public String pageSql(Connection con, String sql, Map<String, ?> params, SQLMetaData sqlMetaData, int pageSize,
+			long currentPage) throws SQLException {
+		int index = CountSQLUtils.indexOfTrailingClause(sql, OPTION);
+		if (index < 0) {
+			return super.pageSql(con, sql, params, sqlMetaData, pageSize, currentPage);
+		}
+		String query = sql.substring(0, index);
+		return append(super.pageSql(con, query, params, SQLUtils.getSQLMetaData(query), pageSize, currentPage),
+				sql.substring(index));
+	}
+
+	@Override
+	String getIntegerColumnType() {
+		return "BIGINT";
+	}
+
+	@Override
+	String getStringColumnType(int maxLength) {
+		return maxLength > 4000 ? "NVARCHAR(MAX)" : "NVARCHAR(" + Math.max(maxLength, 1) + ")";
+	}
+
+	/**
+	 * 将查询提示子句追加到语句末尾。语句中含单行注释时另起一行，避免子句被注释
+	 */
+	private static String append(String sql, String option) {
+		int length = sql.length();
+		while (length > 0 && Character.isWhitespace(sql.charAt(length - 1))) {
+			length--;
+		}
+		sql = sql.substring(0, length);
+		return sql.concat(sql.contains(SINGLE_LINE_COMMENT) ? LINE_SEPARATOR : SPACE).concat(option.trim());
+	}
+
 }
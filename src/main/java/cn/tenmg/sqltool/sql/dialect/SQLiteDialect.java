@@ -3,10 +3,12 @@ package cn.tenmg.sqltool.sql.dialect;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import cn.tenmg.sql.paging.SQLPagingDialect;
 import cn.tenmg.sql.paging.dialect.SQLitePagingDialect;
 import cn.tenmg.sql.paging.utils.SQLUtils;
+import cn.tenmg.sqltool.sql.ScriptSyntax;
 import cn.tenmg.sqltool.utils.JDBCExecuteUtils;
 
 /**
@@ -22,11 +24,18 @@ public class SQLiteDialect extends AbstractSQLDialect {
 			INSERT_IF_NOT_EXISTS_TEMPLATE = "INSERT OR IGNORE INTO ${tableName} (${columns}) VALUES (${values})",
 			SAVE_TEMPLATE = "INSERT INTO ${tableName} AS X(${columns}) VALUES (${values}) ON CONFLICT(STAFF_ID) DO UPDATE SET ${sets}",
 			SET_TEMPLATE = "${columnName} = EXCLUDED.${columnName}", IDS = "ids",
-			SET_IF_NOT_NULL_TEMPLATE = "${columnName} = IFNULL(EXCLUDED.${columnName}, X.${columnName})";
+			SET_IF_NOT_NULL_TEMPLATE = "${columnName} = IFNULL(EXCLUDED.${columnName}, X.${columnName})",
+			CREATE_TEMP_TABLE_TEMPLATE = "CREATE TEMP TABLE IF NOT EXISTS ${tableName} (V ${columnType})",
+			DROP_TEMP_TABLE_TEMPLATE = "DROP TABLE IF EXISTS ${tableName}",
+			NAME = "sqlite",
+			SAMPLE_FILTER_TEMPLATE = "ABS(RANDOM() % 1000000) < ${fraction} * 1000000";
 
 	private static final List<String> EXT_SQL_TEMPLATE_PARAM_NAMES = Arrays.asList(IDS),
 			NEEDS_COMMA_PARAM_NAMES = Arrays.asList(COLUMNS, VALUES);
 
+	private static final ScriptSyntax SCRIPT_SYNTAX = new ScriptSyntax(false, false, "\"`[", false, false, null,
+			Pattern.compile("CREATE\\s+(TEMP(ORARY)?\\s+)?TRIGGER\\b", Pattern.CASE_INSENSITIVE));
+
 	private static final SQLiteDialect INSTANCE = new SQLiteDialect();
 
 	private SQLiteDialect() {
@@ -92,4 +101,79 @@ public class SQLiteDialect extends AbstractSQLDialect {
 		return SET_IF_NOT_NULL_TEMPLATE;
 	}
 
+	@Override
+	public int getMaxParameters() {
+		return 999;
+	}
+
+	@Override
+	public int getMaxInListSize() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public int getDefaultFetchSize() {
+		return 0;
+	}
+
+	@Override
+	public boolean isNullsLargest() {
+		return false;
+	}
+
+	@Override
+	public boolean supportsMultiQueries(String url) {
+		return false;
+	}
+
+	@Override
+	public ScriptSyntax getScriptSyntax() {
+		return SCRIPT_SYNTAX;
+	}
+
+	@Override
+	String getTempTableName(String name) {
+		return "temp.".concat(name);
+	}
+
+	@Override
+	String getCreateTempTableTemplate() {
+		return CREATE_TEMP_TABLE_TEMPLATE;
+	}
+
+	@Override
+	String getDropTempTableTemplate() {
+		return DROP_TEMP_TABLE_TEMPLATE;
+	}
+
+	@Override
+	String getName() {
+		return NAME;
+	}
+
+	@Override
+	String getHintTemplate() {
+		return null;
+	}
+
+	@Override
+	String getSampleTableTemplate() {
+		return null;
+	}
+
+	@Override
+	String getSampleFilterTemplate() {
+		return SAMPLE_FILTER_TEMPLATE;
+	}
+
+	@Override
+	String getIntegerColumnType() {
+		return "INTEGER";
+	}
+
+	@Override
+	String getStringColumnType(int maxLength) {
+		return "TEXT";
+	}
+
 }
@@ -19,6 +19,13 @@ import cn.tenmg.sqltool.exception.SQLExecutorException;
  */
 public class GetSQLExecuter<T> extends ReadOnlySQLExecuter<T> {
 
+	/**
+	 * 最多获取的行数，仅需判断是否多于一条记录
+	 * 
+	 * @since 1.5.4
+	 */
+	public static final int MAX_ROWS = 2;
+
 	protected Class<T> type;
 
 	@SuppressWarnings("unchecked")
@@ -37,6 +44,7 @@ public class GetSQLExecuter<T> extends ReadOnlySQLExecuter<T> {
 
 	@Override
 	public ResultSet execute(PreparedStatement ps) throws SQLException {
+		ps.setMaxRows(MAX_ROWS);
 		return ps.executeQuery();
 	}
 
@@ -53,4 +61,24 @@ public class GetSQLExecuter<T> extends ReadOnlySQLExecuter<T> {
 		return row;
 	}
 
+	/**
+	 * 类型相同且查询的实体类相同的SQL执行器相等，可用于合并查询
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * getClass().hashCode() + (type == null ? 0 : type.hashCode());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || obj.getClass() != getClass()) {
+			return false;
+		}
+		Class<?> other = ((GetSQLExecuter<?>) obj).type;
+		return type == null ? other == null : type.equals(other);
+	}
+
 }
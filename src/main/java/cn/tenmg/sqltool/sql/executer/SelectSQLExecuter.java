@@ -44,4 +44,24 @@ public class SelectSQLExecuter<T> extends ReadOnlySQLExecuter<List<T>> {
 		return rows;
 	}
 
+	/**
+	 * 类型相同且查询的实体类相同的SQL执行器相等，可用于合并查询
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * getClass().hashCode() + (type == null ? 0 : type.hashCode());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || obj.getClass() != getClass()) {
+			return false;
+		}
+		Class<?> other = ((SelectSQLExecuter<?>) obj).type;
+		return type == null ? other == null : type.equals(other);
+	}
+
 }
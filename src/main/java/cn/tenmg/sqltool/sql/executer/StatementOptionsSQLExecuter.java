@@ -0,0 +1,66 @@
+package cn.tenmg.sqltool.sql.executer;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import cn.tenmg.sqltool.sql.SQLExecuter;
+import cn.tenmg.sqltool.sql.StatementOptions;
+import cn.tenmg.sqltool.utils.JDBCExecuteUtils;
+
+/**
+ * 应用语句选项的SQL执行器。执行前将语句选项应用到预编译语句，再交由被包装的SQL执行器执行
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @param <T>
+ *            返回结果类型
+ *
+ * @since 1.5.4
+ */
+public class StatementOptionsSQLExecuter<T> implements SQLExecuter<T> {
+
+	private final SQLExecuter<T> sqlExecuter;
+
+	private final StatementOptions options;
+
+	public StatementOptionsSQLExecuter(SQLExecuter<T> sqlExecuter, StatementOptions options) {
+		super();
+		this.sqlExecuter = sqlExecuter;
+		this.options = options;
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return sqlExecuter.isReadOnly();
+	}
+
+	@Override
+	public ResultSet execute(PreparedStatement ps) throws SQLException {
+		JDBCExecuteUtils.setOptions(ps, options);
+		return sqlExecuter.execute(ps);
+	}
+
+	@Override
+	public T execute(PreparedStatement ps, ResultSet rs) throws SQLException {
+		return sqlExecuter.execute(ps, rs);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * sqlExecuter.hashCode() + options.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof StatementOptionsSQLExecuter)) {
+			return false;
+		}
+		StatementOptionsSQLExecuter<?> other = (StatementOptionsSQLExecuter<?>) obj;
+		return sqlExecuter.equals(other.sqlExecuter) && options.equals(other.options);
+	}
+
+}
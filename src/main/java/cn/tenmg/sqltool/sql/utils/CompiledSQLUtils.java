@@ -0,0 +1,242 @@
+package cn.tenmg.sqltool.sql.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import cn.tenmg.dsl.Script;
+import cn.tenmg.dsql.DSQLFactory;
+import cn.tenmg.dsql.NamedSQL;
+import cn.tenmg.sqltool.SqltoolContext;
+import cn.tenmg.sqltool.sql.CompiledSQL;
+import cn.tenmg.sqltool.utils.LRUCache;
+
+/**
+ * 已编译SQL工具类
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public abstract class CompiledSQLUtils {
+
+	private static final char SHAPE_SEPARATOR = ',', SIZE_SEPARATOR = '#', KEY_SEPARATOR = '\u0000';
+
+	private static final int CAPACITY = Integer.parseInt(SqltoolContext.getProperty("compiled.sql.cache.capacity")),
+			MAX_VARIANTS = 8;
+
+	private static final class CompiledSQLCacheHolder {
+		private static final LRUCache<String, Variants> CACHE = new LRUCache<String, Variants>(CAPACITY);
+	}
+
+	/**
+	 * 将命名参数SQL对象转换为JDBC SQL对象。编译结果按动态结构化查询语言（DSQL）编号及参数集的形态签名缓存，
+	 * 缓存容量由compiled.sql.cache.capacity配置，淘汰最近最少使用的条目。同一编号因动态片段、宏或集合参数绑定方式不同可能解析出不同的命名参数SQL，
+	 * 每个键最多缓存{@value #MAX_VARIANTS}种，命中时校验命名参数SQL完全相同后直接复用已编译的SQL，仅需绑定参数。没有编号的SQL（例如直接传入的SQL脚本）不缓存
+	 *
+	 * @param DSQLFactory
+	 *            动态结构化查询语言工厂
+	 * @param namedSQL
+	 *            命名参数SQL对象
+	 * @return 返回JDBC SQL对象
+	 */
+	public static Script<List<Object>> toJDBC(DSQLFactory DSQLFactory, NamedSQL namedSQL) {
+		return toJDBC(DSQLFactory, namedSQL.getId(), namedSQL.getScript(), namedSQL.getParams());
+	}
+
+	/**
+	 * 将命名参数SQL转换为JDBC SQL对象，编译结果的缓存方式与{@link #toJDBC(DSQLFactory, NamedSQL)}相同
+	 *
+	 * @param DSQLFactory
+	 *            动态结构化查询语言工厂
+	 * @param id
+	 *            动态结构化查询语言（DSQL）编号，为null时不缓存
+	 * @param namedScript
+	 *            命名参数SQL
+	 * @param params
+	 *            参数集
+	 * @return 返回JDBC SQL对象
+	 */
+	public static Script<List<Object>> toJDBC(DSQLFactory DSQLFactory, String id, String namedScript,
+			Map<String, ?> params) {
+		String shape = id == null ? null : shapeOf(params);
+		if (shape == null) {// 没有编号或参数形态无法确定，不编译也不缓存
+			return DSQLFactory.toJDBC(namedScript, params);
+		}
+		String key = new StringBuilder(id).append(KEY_SEPARATOR).append(shape).toString();
+		Variants variants = CompiledSQLCacheHolder.CACHE.get(key);
+		CompiledSQL compiledSQL = variants == null ? null : variants.get(namedScript);
+		if (compiledSQL == null) {
+			compiledSQL = compile(DSQLFactory, namedScript, params);
+			if (compiledSQL == null) {
+				return DSQLFactory.toJDBC(namedScript, params);
+			}
+			if (variants == null) {
+				variants = new Variants();
+				Variants cached = CompiledSQLCacheHolder.CACHE.putIfAbsent(key, variants);
+				if (cached != null) {// 其他线程已缓存该键
+					variants = cached;
+				}
+			}
+			variants.put(namedScript, compiledSQL);
+		}
+		return new Script<List<Object>>(compiledSQL.getScript(), bind(compiledSQL, params));
+	}
+
+	/**
+	 * 将命名参数SQL编译为JDBC SQL，并记录参数的提取顺序。编译时使用标记对象代替参数值交由动态结构化查询语言（DSQL）工厂转换，
+	 * 从而得到与转换结果完全一致的参数顺序（包括集合参数展开后的顺序）
+	 *
+	 * @param DSQLFactory
+	 *            动态结构化查询语言工厂
+	 * @param namedScript
+	 *            命名参数SQL
+	 * @param params
+	 *            参数集
+	 * @return 返回已编译的SQL。如参数中含有数组等无法确定参数顺序的类型，则返回null
+	 */
+	public static CompiledSQL compile(DSQLFactory DSQLFactory, String namedScript, Map<String, ?> params) {
+		Map<String, Object> markers = new HashMap<String, Object>();
+		Map<Object, Object[]> refs = new IdentityHashMap<Object, Object[]>();
+		if (params != null) {
+			String name;
+			Object value, marker;
+			for (Iterator<? extends Entry<String, ?>> it = params.entrySet().iterator(); it.hasNext();) {
+				Entry<String, ?> entry = it.next();
+				name = entry.getKey();
+				value = entry.getValue();
+				if (value instanceof Collection) {
+					int size = ((Collection<?>) value).size();
+					List<Object> elements = new ArrayList<Object>(size);
+					for (int i = 0; i < size; i++) {
+						marker = new Object();
+						elements.add(marker);
+						refs.put(marker, new Object[] { name, i });
+					}
+					refs.put(elements, new Object[] { name, -1 });
+					markers.put(name, elements);
+				} else if (value != null && value.getClass().isArray()) {
+					return null;
+				} else {
+					marker = new Object();
+					refs.put(marker, new Object[] { name, -1 });
+					markers.put(name, marker);
+				}
+			}
+		}
+		Script<List<Object>> sql = DSQLFactory.toJDBC(namedScript, markers);
+		List<Object> markerParams = sql.getParams();
+		int size = markerParams == null ? 0 : markerParams.size();
+		String[] paramNames = new String[size];
+		int[] paramIndexes = new int[size];
+		Object[] ref;
+		for (int i = 0; i < size; i++) {
+			ref = refs.get(markerParams.get(i));
+			if (ref == null) {
+				return null;
+			}
+			paramNames[i] = (String) ref[0];
+			paramIndexes[i] = (Integer) ref[1];
+		}
+		return new CompiledSQL(sql.getValue(), paramNames, paramIndexes);
+	}
+
+	/**
+	 * 按已编译SQL的参数提取顺序从参数集中提取JDBC参数
+	 *
+	 * @param compiledSQL
+	 *            已编译的SQL
+	 * @param params
+	 *            参数集
+	 * @return 返回JDBC参数列表
+	 */
+	public static List<Object> bind(CompiledSQL compiledSQL, Map<String, ?> params) {
+		String[] paramNames = compiledSQL.getParamNames();
+		int[] paramIndexes = compiledSQL.getParamIndexes();
+		List<Object> values = new ArrayList<Object>(paramNames.length);
+		Map<String, Object[]> elements = null;
+		Object value;
+		for (int i = 0; i < paramNames.length; i++) {
+			value = params == null ? null : params.get(paramNames[i]);
+			if (paramIndexes[i] < 0) {
+				values.add(value);
+			} else if (value instanceof List) {
+				values.add(((List<?>) value).get(paramIndexes[i]));
+			} else {
+				if (elements == null) {
+					elements = new HashMap<String, Object[]>();
+				}
+				Object[] array = elements.get(paramNames[i]);
+				if (array == null) {
+					array = ((Collection<?>) value).toArray();
+					elements.put(paramNames[i], array);
+				}
+				values.add(array[paramIndexes[i]]);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * 获取参数集的形态签名。命名参数SQL相同时，集合参数的大小决定了编译后JDBC SQL中占位符的数量
+	 *
+	 * @param params
+	 *            参数集
+	 * @return 返回参数集的形态签名。如参数中含有数组等无法确定参数顺序的类型，则返回null
+	 */
+	public static String shapeOf(Map<String, ?> params) {
+		StringBuilder shape = new StringBuilder();
+		if (params != null) {
+			Object value;
+			for (Iterator<? extends Entry<String, ?>> it = params.entrySet().iterator(); it.hasNext();) {
+				Entry<String, ?> entry = it.next();
+				value = entry.getValue();
+				if (value instanceof Collection) {
+					shape.append(entry.getKey()).append(SIZE_SEPARATOR).append(((Collection<?>) value).size())
+							.append(SHAPE_SEPARATOR);
+				} else if (value != null && value.getClass().isArray()) {
+					return null;
+				}
+			}
+		}
+		return shape.toString();
+	}
+
+	/**
+	 * 同一键下的不同命名参数SQL及其编译结果，数量达到上限后替换最早缓存的条目
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class Variants {
+
+		private final String[] namedScripts = new String[MAX_VARIANTS];
+
+		private final CompiledSQL[] compiledSQLs = new CompiledSQL[MAX_VARIANTS];
+
+		private int next = 0;
+
+		private synchronized CompiledSQL get(String namedScript) {
+			for (int i = 0; i < MAX_VARIANTS; i++) {
+				if (namedScript.equals(namedScripts[i])) {
+					return compiledSQLs[i];
+				}
+			}
+			return null;
+		}
+
+		private synchronized void put(String namedScript, CompiledSQL compiledSQL) {
+			namedScripts[next] = namedScript;
+			compiledSQLs[next] = compiledSQL;
+			next = (next + 1) % MAX_VARIANTS;
+		}
+
+	}
+
+}
@@ -0,0 +1,638 @@
+package cn.tenmg.sqltool.sql.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import cn.tenmg.sqltool.SqltoolContext;
+
+/**
+ * 计数查询SQL工具类。用于将查询SQL改写为更高效的计数查询SQL：去除顶层的ORDER BY子句、未被引用的LEFT JOIN以及可证明多余的DISTINCT。
+ * 无法证明改写结果与原查询的记录数相同时，返回null，由SQL方言使用包装原查询的方式生成计数查询SQL
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public abstract class CountSQLUtils {
+
+	private static final int WORD = 0, QUOTED = 1, STRING = 2, NUMBER = 3, PARAM = 4, SYMBOL = 5;
+
+	private static final String COUNT = "SELECT COUNT(*) ", WRAPPED_COUNT = "SELECT COUNT(*) FROM (",
+			WRAPPED_COUNT_ALIAS = ") SQLTOOL_COUNT", GROUP_COUNT = "SELECT 1 AS SQLTOOL_C ";
+
+	/**
+	 * 是否假定LEFT JOIN最多只关联一条记录。为true时，普通查询（非分组、非去重）中未被引用的LEFT JOIN也会被去除
+	 */
+	private static final boolean LEFT_JOIN_UNIQUE = Boolean
+			.parseBoolean(SqltoolContext.getProperty("paging.count.left.join.unique"));
+
+	/**
+	 * 出现在顶层时无法安全改写的关键字
+	 */
+	private static final Set<String> UNSUPPORTED = new HashSet<String>(Arrays.asList("WITH", "UNION", "INTERSECT",
+			"EXCEPT", "MINUS", "LIMIT", "OFFSET", "FETCH", "FOR", "TOP", "INTO", "WINDOW", "QUALIFY", "CONNECT",
+			"START", "MODEL", "PIVOT", "UNPIVOT", "LOCK", "PROCEDURE", "ROLLUP", "CUBE", "GROUPING"));
+
+	private static final Set<String> JOIN_WORDS = new HashSet<String>(Arrays.asList("LEFT", "RIGHT", "FULL",
+			"INNER", "CROSS", "NATURAL", "OUTER", "JOIN", "STRAIGHT_JOIN", "APPLY"));
+
+	private static final Set<String> UNSUPPORTED_JOIN_WORDS = new HashSet<String>(
+			Arrays.asList("RIGHT", "FULL", "NATURAL", "APPLY"));
+
+	private static final Set<String> AGGREGATES = new HashSet<String>(Arrays.asList("COUNT", "COUNT_BIG", "SUM",
+			"AVG", "MIN", "MAX", "GROUP_CONCAT", "STRING_AGG", "LISTAGG", "ARRAY_AGG", "JSON_AGG", "JSONB_AGG",
+			"JSON_ARRAYAGG", "JSON_OBJECTAGG", "XMLAGG", "WM_CONCAT", "STDDEV", "STDDEV_POP", "STDDEV_SAMP", "STDEV",
+			"STDEVP", "VARIANCE", "VAR_POP", "VAR_SAMP", "VAR", "VARP", "BIT_AND", "BIT_OR", "BIT_XOR", "BOOL_AND",
+			"BOOL_OR", "EVERY", "MEDIAN", "COLLECT", "CORR", "COVAR_POP", "COVAR_SAMP", "PERCENTILE_CONT",
+			"PERCENTILE_DISC", "MODE", "CHECKSUM_AGG", "APPROX_COUNT_DISTINCT", "TOTAL"));
+
+	/**
+	 * 不会作为列名出现的关键字
+	 */
+	private static final Set<String> KEYWORDS = new HashSet<String>(Arrays.asList("AND", "OR", "NOT", "IN", "IS",
+			"NULL", "LIKE", "ILIKE", "BETWEEN", "EXISTS", "CASE", "WHEN", "THEN", "ELSE", "END", "AS", "ON", "TRUE",
+			"FALSE", "ASC", "DESC", "DISTINCT", "ALL", "ANY", "SOME", "SELECT", "FROM", "WHERE", "GROUP", "BY",
+			"HAVING", "ORDER", "JOIN", "LEFT", "RIGHT", "INNER", "OUTER", "CROSS", "FULL", "ESCAPE", "INTERVAL",
+			"CURRENT_DATE", "CURRENT_TIME", "CURRENT_TIMESTAMP", "LOCALTIME", "LOCALTIMESTAMP", "SYSDATE",
+			"SYSTIMESTAMP", "NULLS", "FIRST", "LAST", "OVER", "PARTITION", "COLLATE", "REGEXP", "RLIKE", "SIMILAR",
+			"TO", "DIV"));
+
+	/**
+	 * 将查询SQL改写为计数查询SQL
+	 *
+	 * @param namedSql
+	 *            命名参数查询SQL
+	 * @return 返回改写后的计数查询SQL。无法证明改写安全时返回null
+	 */
+	public static String countSql(String namedSql) {
+		List<Token> tokens = tokenize(namedSql);
+		if (tokens == null || tokens.isEmpty() || !isWord(tokens.get(0), "SELECT")) {
+			return null;
+		}
+		int size = tokens.size(), projection = 1;
+		boolean distinct = false;
+		if (size > 1) {
+			Token token = tokens.get(1);
+			if (isWord(token, "DISTINCT")) {
+				distinct = true;
+				projection = 2;
+			} else if (isWord(token, "ALL")) {
+				projection = 2;
+			}
+		}
+		int[] clauses = { -1, -1, -1, -1, -1 };// FROM、WHERE、GROUP BY、HAVING、ORDER BY
+		Token token;
+		for (int i = projection; i < size; i++) {
+			token = tokens.get(i);
+			if (token.depth > 0) {
+				continue;
+			}
+			if (isSymbol(token, ';')) {
+				return null;
+			}
+			if (token.type != WORD) {
+				continue;
+			}
+			String word = token.value;
+			if (UNSUPPORTED.contains(word)) {
+				return null;
+			}
+			int clause = -1;
+			if ("FROM".equals(word)) {
+				if (isWord(tokens.get(i - 1), "DISTINCT")) {// IS [NOT] DISTINCT FROM
+					continue;
+				}
+				clause = 0;
+			} else if ("WHERE".equals(word)) {
+				clause = 1;
+			} else if ("GROUP".equals(word) && i + 1 < size && isWord(tokens.get(i + 1), "BY")) {
+				clause = 2;
+			} else if ("HAVING".equals(word)) {
+				clause = 3;
+			} else if ("ORDER".equals(word)) {
+				if (i + 1 < size && isWord(tokens.get(i + 1), "BY")) {
+					clause = 4;
+				} else {// ORDER SIBLINGS BY等
+					return null;
+				}
+			}
+			if (clause >= 0) {
+				if (clauses[clause] >= 0) {
+					return null;
+				}
+				for (int j = clause + 1; j < clauses.length; j++) {
+					if (clauses[j] >= 0) {// 子句顺序不符合预期
+						return null;
+					}
+				}
+				clauses[clause] = i;
+			}
+		}
+		int from = clauses[0], where = clauses[1], groupBy = clauses[2], having = clauses[3], orderBy = clauses[4];
+		if (from < 0) {
+			return null;
+		}
+		int fromEnd = next(clauses, 0, size), bodyEnd = orderBy < 0 ? tokens.get(size - 1).end
+				: tokens.get(orderBy).start;
+		boolean aggregate = hasAggregate(tokens, projection, from);
+		List<int[]> refs = new ArrayList<int[]>();
+		if (where >= 0) {
+			refs.add(new int[] { where + 1, next(clauses, 1, size) });
+		}
+		String select;
+		boolean eliminable;
+		if (groupBy < 0) {
+			if (having >= 0 || aggregate) {// 聚合查询仅返回一条记录
+				return null;
+			}
+			if (distinct) {// 去重时重复记录不影响结果，可安全去除未被引用的LEFT JOIN
+				select = namedSql.substring(tokens.get(0).start, tokens.get(from).start);
+				refs.add(new int[] { projection, from });
+				eliminable = true;
+			} else {
+				select = null;
+				eliminable = LEFT_JOIN_UNIQUE;
+			}
+		} else {
+			int groupEnd = next(clauses, 2, size);
+			List<int[]> grouping = new ArrayList<int[]>();
+			grouping.add(new int[] { groupBy + 2, groupEnd });
+			if (having >= 0) {
+				grouping.add(new int[] { having + 1, next(clauses, 3, size) });
+			}
+			refs.addAll(grouping);
+			if (distinct && !sameItems(tokens, projection, from, groupBy + 2, groupEnd)) {
+				select = namedSql.substring(tokens.get(0).start, tokens.get(from).start);
+				refs.add(new int[] { projection, from });
+				eliminable = LEFT_JOIN_UNIQUE || (having < 0 && !aggregate);
+			} else {// 无DISTINCT或查询列与分组列完全相同，计数结果即分组数
+				if (referProjection(tokens, projection, from, grouping)) {
+					select = "SELECT "
+							.concat(namedSql.substring(tokens.get(projection).start, tokens.get(from).start));
+					refs.add(new int[] { projection, from });
+				} else {// 派生表的列必须具名（如SQL Server）
+					select = GROUP_COUNT;
+				}
+				eliminable = LEFT_JOIN_UNIQUE || having < 0;
+			}
+		}
+		StringBuilder sql = new StringBuilder();
+		if (select == null) {
+			sql.append(COUNT);
+		} else {
+			sql.append(WRAPPED_COUNT).append(select);
+		}
+		from(sql, namedSql, tokens, from, fromEnd, fromEnd < size ? tokens.get(fromEnd).start : bodyEnd, refs,
+				eliminable);
+		if (fromEnd < size) {
+			sql.append(namedSql, tokens.get(fromEnd).start, bodyEnd);
+		}
+		if (namedSql.indexOf("--") < 0) {// 不存在单行注释时去除末尾空白字符
+			int length = sql.length();
+			while (length > 0 && Character.isWhitespace(sql.charAt(length - 1))) {
+				length--;
+			}
+			sql.setLength(length);
+		}
+		if (select != null) {
+			sql.append(WRAPPED_COUNT_ALIAS);
+		}
+		return sql.toString();
+	}
+
+	/**
+	 * 获取语句末尾的查询提示子句（例如SQL Server的<code>OPTION (MAXDOP 4)</code>）的位置。该子句仅能位于最外层语句的末尾，
+	 * 将语句作为子查询包装前须将其移除，包装后再追加到外层语句的末尾
+	 *
+	 * @param namedSql
+	 *            命名参数查询SQL
+	 * @param keyword
+	 *            子句的关键字，例如<code>OPTION</code>
+	 * @return 返回子句在SQL中的起始位置。不存在该子句或无法解析SQL时返回-1
+	 */
+	public static int indexOfTrailingClause(String namedSql, String keyword) {
+		List<Token> tokens = tokenize(namedSql);
+		if (tokens == null) {
+			return -1;
+		}
+		int last = tokens.size() - 1;
+		if (last >= 0 && isSymbol(tokens.get(last), ';')) {
+			last--;
+		}
+		if (last < 2 || !isSymbol(tokens.get(last), ')')) {
+			return -1;
+		}
+		for (int i = last - 1; i > 0; i--) {
+			if (tokens.get(i).match == last) {// 与末尾右括号匹配的左括号
+				Token token = tokens.get(i - 1);
+				return token.depth == 0 && isWord(token, keyword) ? token.start : -1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 追加FROM子句，并在可以证明安全的情况下去除未被引用的LEFT JOIN
+	 */
+	private static void from(StringBuilder sql, String namedSql, List<Token> tokens, int from, int end, int stop,
+			List<int[]> refs, boolean eliminable) {
+		int start = tokens.get(from).start;
+		List<int[]> joins = eliminable ? joins(tokens, from, end) : null;
+		if (joins == null || joins.isEmpty()) {
+			sql.append(namedSql, start, stop);
+			return;
+		}
+		List<int[]> ranges = new ArrayList<int[]>(refs);
+		int[] join;
+		for (int i = 0, size = joins.size(); i < size; i++) {
+			join = joins.get(i);
+			if (join[3] >= 0) {
+				ranges.add(new int[] { join[3] + 1, join[1] });
+			}
+		}
+		for (int i = 0, size = ranges.size(); i < size; i++) {
+			int[] range = ranges.get(i);
+			if (hasUnqualified(tokens, range[0], range[1])) {// 存在无法确定归属的列
+				sql.append(namedSql, start, stop);
+				return;
+			}
+		}
+		boolean[] removed = new boolean[joins.size()];
+		for (int i = joins.size() - 1; i >= 0; i--) {
+			join = joins.get(i);
+			String name = join[2] == 1 ? referenceName(tokens, join) : null;
+			if (name == null) {
+				continue;
+			}
+			Set<String> qualifiers = new HashSet<String>();
+			for (int j = 0, size = refs.size(); j < size; j++) {
+				int[] range = refs.get(j);
+				collectQualifiers(tokens, range[0], range[1], qualifiers);
+			}
+			for (int j = 0; j < removed.length; j++) {
+				int[] other = joins.get(j);
+				if (j != i && !removed[j] && other[3] >= 0) {
+					collectQualifiers(tokens, other[3] + 1, other[1], qualifiers);
+				}
+			}
+			removed[i] = !qualifiers.contains(name);
+		}
+		int position = start;
+		for (int i = 0; i < removed.length; i++) {
+			if (removed[i]) {
+				join = joins.get(i);
+				sql.append(namedSql, position, tokens.get(join[0]).start);
+				position = join[1] < end ? tokens.get(join[1]).start : stop;
+			}
+		}
+		sql.append(namedSql, position, stop);
+	}
+
+	/**
+	 * 拆分FROM子句中的连接。返回的每个连接依次为：连接关键字开始位置、结束位置（不含）、是否为LEFT JOIN（1是0否）、ON关键字位置（无则为-1）。
+	 * 存在RIGHT/FULL/NATURAL JOIN、APPLY、LATERAL或USING时返回null
+	 */
+	private static List<int[]> joins(List<Token> tokens, int from, int end) {
+		List<int[]> joins = new ArrayList<int[]>();
+		int[] current = null;
+		Token token;
+		for (int i = from + 1; i < end; i++) {
+			token = tokens.get(i);
+			if (token.depth > 0) {
+				continue;
+			}
+			if (token.type == WORD) {
+				if ("LATERAL".equals(token.value) || "USING".equals(token.value)) {
+					return null;
+				} else if (JOIN_WORDS.contains(token.value)) {
+					if (current != null) {
+						current[1] = i;
+					}
+					current = new int[] { i, end, 0, -1 };
+					joins.add(current);
+					for (; i < end && tokens.get(i).type == WORD && JOIN_WORDS.contains(tokens.get(i).value); i++) {
+						String word = tokens.get(i).value;
+						if (UNSUPPORTED_JOIN_WORDS.contains(word)) {
+							return null;
+						} else if ("LEFT".equals(word)) {
+							current[2] = 1;
+						}
+					}
+					i--;
+				} else if ("ON".equals(token.value) && current != null && current[3] < 0) {
+					current[3] = i;
+				}
+			} else if (isSymbol(token, ',')) {
+				if (current != null) {
+					current[1] = i;
+				}
+				current = new int[] { i, end, 0, -1 };
+				joins.add(current);
+			}
+		}
+		return joins;
+	}
+
+	/**
+	 * 获取LEFT JOIN的表的引用名称（别名，无别名时为表名）。无法解析时返回null
+	 */
+	private static String referenceName(List<Token> tokens, int[] join) {
+		if (join[3] < 0) {
+			return null;
+		}
+		int i = join[0];
+		while (tokens.get(i).type == WORD && JOIN_WORDS.contains(tokens.get(i).value)) {
+			i++;
+		}
+		Token token = tokens.get(i);
+		String name = null;
+		if (isSymbol(token, '(')) {
+			i = token.match + 1;
+		} else if (token.type == WORD || token.type == QUOTED) {
+			name = token.value;
+			i++;
+			while (i + 1 < join[3] && isSymbol(tokens.get(i), '.')
+					&& (tokens.get(i + 1).type == WORD || tokens.get(i + 1).type == QUOTED)) {
+				name = tokens.get(i + 1).value;
+				i += 2;
+			}
+		} else {
+			return null;
+		}
+		if (i < join[3] && isWord(tokens.get(i), "AS")) {
+			i++;
+		}
+		if (i < join[3] && (tokens.get(i).type == WORD || tokens.get(i).type == QUOTED)) {
+			name = tokens.get(i).value;
+			i++;
+		}
+		return i == join[3] ? name : null;// 存在索引提示等其他内容时不去除
+	}
+
+	/**
+	 * 判断查询列是否与分组列完全相同
+	 */
+	private static boolean sameItems(List<Token> tokens, int projection, int from, int groupBy, int groupEnd) {
+		Set<String> items = items(tokens, projection, from);
+		return items != null && items.equals(items(tokens, groupBy, groupEnd));
+	}
+
+	private static Set<String> items(List<Token> tokens, int start, int end) {
+		Set<String> items = new HashSet<String>();
+		StringBuilder item = new StringBuilder();
+		Token token;
+		for (int i = start; i < end; i++) {
+			token = tokens.get(i);
+			if (token.depth == 0 && isSymbol(token, ',')) {
+				items.add(item.toString());
+				item.setLength(0);
+			} else if (isSymbol(token, '*') || isWord(token, "AS")) {
+				return null;
+			} else {
+				item.append(token.value).append(' ');
+			}
+		}
+		items.add(item.toString());
+		return items;
+	}
+
+	/**
+	 * 判断分组子句或HAVING子句是否引用了查询列的别名或位置
+	 */
+	private static boolean referProjection(List<Token> tokens, int projection, int from, List<int[]> ranges) {
+		Set<String> aliases = new HashSet<String>();
+		int count = 0;
+		Token token;
+		for (int i = projection; i < from; i++) {
+			token = tokens.get(i);
+			if (i + 1 == from || tokens.get(i + 1).depth == 0 && isSymbol(tokens.get(i + 1), ',')) {
+				if (count > 0 && (token.type == WORD || token.type == QUOTED)) {
+					aliases.add(token.value);
+				}
+				count = 0;
+			} else if (!(token.depth == 0 && isSymbol(token, ','))) {
+				count++;
+			}
+		}
+		for (int i = 0, size = ranges.size(); i < size; i++) {
+			int[] range = ranges.get(i);
+			for (int j = range[0]; j < range[1]; j++) {
+				token = tokens.get(j);
+				if (token.depth == 0 && token.type == NUMBER
+						|| isUnqualified(tokens, j) && aliases.contains(token.value)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 判断查询列中是否含有聚合函数（不含窗口函数和子查询中的聚合函数）
+	 */
+	private static boolean hasAggregate(List<Token> tokens, int start, int end) {
+		Token token;
+		for (int i = start; i < end; i++) {
+			token = tokens.get(i);
+			if (token.type == WORD && !token.inSubquery && AGGREGATES.contains(token.value) && i + 1 < end
+					&& isSymbol(tokens.get(i + 1), '(')) {
+				int next = tokens.get(i + 1).match + 1;
+				if (next >= end || !isWord(tokens.get(next), "OVER")) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasUnqualified(List<Token> tokens, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (isUnqualified(tokens, i)) {
+				return true;
+			}
+			Token token = tokens.get(i);
+			if (isSymbol(token, '*') && i > 0) {// SELECT *
+				Token prev = tokens.get(i - 1);
+				if (isSymbol(prev, ',') || isWord(prev, "SELECT") || isWord(prev, "DISTINCT")
+						|| isWord(prev, "ALL")) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isUnqualified(List<Token> tokens, int i) {
+		Token token = tokens.get(i);
+		if (token.type == QUOTED || token.type == WORD && !KEYWORDS.contains(token.value)) {
+			Token prev = i > 0 ? tokens.get(i - 1) : null, next = i + 1 < tokens.size() ? tokens.get(i + 1) : null;
+			if (isSymbol(prev, '.') || isSymbol(next, '.') || isWord(prev, "AS")
+					|| token.type == WORD && isSymbol(next, '(')) {
+				return false;
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private static void collectQualifiers(List<Token> tokens, int start, int end, Set<String> qualifiers) {
+		Token token;
+		for (int i = start; i < end; i++) {
+			token = tokens.get(i);
+			if ((token.type == WORD || token.type == QUOTED) && i + 1 < tokens.size()
+					&& isSymbol(tokens.get(i + 1), '.')) {
+				qualifiers.add(token.value);
+			}
+		}
+	}
+
+	private static int next(int[] clauses, int clause, int size) {
+		for (int i = clause + 1; i < clauses.length; i++) {
+			if (clauses[i] >= 0) {
+				return clauses[i];
+			}
+		}
+		return size;
+	}
+
+	private static boolean isWord(Token token, String word) {
+		return token != null && token.type == WORD && word.equals(token.value);
+	}
+
+	private static boolean isSymbol(Token token, char symbol) {
+		return token != null && token.type == SYMBOL && token.value.charAt(0) == symbol;
+	}
+
+	/**
+	 * 词法分析。遇到含反斜杠的字符串、未闭合的字符串/注释或不匹配的括号时返回null
+	 */
+	private static List<Token> tokenize(String sql) {
+		List<Token> tokens = new ArrayList<Token>();
+		List<Token> opens = new ArrayList<Token>();
+		List<Boolean> subqueries = new ArrayList<Boolean>();
+		int len = sql.length(), i = 0, subquery = 0;
+		Token token;
+		while (i < len) {
+			char c = sql.charAt(i);
+			int j = i + 1;
+			if (Character.isWhitespace(c)) {
+				i++;
+				continue;
+			} else if (c == '-' && j < len && sql.charAt(j) == '-') {
+				j = sql.indexOf('\n', j);
+				i = j < 0 ? len : j + 1;
+				continue;
+			} else if (c == '/' && j < len && sql.charAt(j) == '*') {
+				j = sql.indexOf("*/", j + 1);
+				if (j < 0) {
+					return null;
+				}
+				i = j + 2;
+				continue;
+			} else if (c == '\'' || c == '"' || c == '`' || c == '[') {
+				char close = c == '[' ? ']' : c;
+				while (true) {
+					j = sql.indexOf(close, j);
+					if (j < 0) {
+						return null;
+					}
+					if (j + 1 < len && sql.charAt(j + 1) == close && c != '[') {
+						j += 2;
+					} else {
+						break;
+					}
+				}
+				j++;
+				if (c == '\'') {
+					if (sql.substring(i, j).indexOf('\\') >= 0) {
+						return null;
+					}
+					token = new Token(STRING, i, j, sql.substring(i, j));
+				} else {
+					token = new Token(QUOTED, i, j, sql.substring(i + 1, j - 1).toUpperCase());
+				}
+			} else if (c == ':' && j < len && isIdentifierStart(sql.charAt(j))) {
+				while (j < len && (isIdentifierPart(sql.charAt(j)) || sql.charAt(j) == '.')) {
+					j++;
+				}
+				token = new Token(PARAM, i, j, sql.substring(i, j));
+			} else if (Character.isDigit(c) || (c == '.' && j < len && Character.isDigit(sql.charAt(j)))) {
+				while (j < len && (isIdentifierPart(sql.charAt(j)) || sql.charAt(j) == '.')) {
+					j++;
+				}
+				token = new Token(NUMBER, i, j, sql.substring(i, j));
+			} else if (isIdentifierStart(c)) {
+				while (j < len && isIdentifierPart(sql.charAt(j))) {
+					j++;
+				}
+				token = new Token(WORD, i, j, sql.substring(i, j).toUpperCase());
+			} else {
+				token = new Token(SYMBOL, i, j, String.valueOf(c));
+			}
+			int index = tokens.size();
+			if (c == ')' && token.type == SYMBOL) {
+				if (opens.isEmpty()) {
+					return null;
+				}
+				Token open = opens.remove(opens.size() - 1);
+				if (subqueries.remove(subqueries.size() - 1)) {
+					subquery--;
+				}
+				open.match = index;
+				token.match = index - 1;
+			}
+			token.depth = opens.size();
+			token.inSubquery = subquery > 0;
+			tokens.add(token);
+			if (index > 0) {
+				Token prev = tokens.get(index - 1);
+				if (isSymbol(prev, '(') && prev.match < 0 && prev.end <= token.start) {
+					boolean isSubquery = token.type == WORD
+							&& ("SELECT".equals(token.value) || "WITH".equals(token.value));
+					subqueries.set(subqueries.size() - 1, isSubquery);
+					if (isSubquery) {
+						subquery++;
+						token.inSubquery = true;
+					}
+				}
+			}
+			if (c == '(' && token.type == SYMBOL) {
+				opens.add(token);
+				subqueries.add(Boolean.FALSE);
+			}
+			i = j;
+		}
+		return opens.isEmpty() ? tokens : null;
+	}
+
+	private static boolean isIdentifierStart(char c) {
+		return Character.isLetter(c) || c == '_' || c == '$' || c == '#' || c == '@';
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#' || c == '@';
+	}
+
+	private static final class Token {
+
+		private final int type, start, end;
+
+		private final String value;
+
+		private int depth, match = -1;
+
+		private boolean inSubquery;
+
+		private Token(int type, int start, int end, String value) {
+			this.type = type;
+			this.start = start;
+			this.end = end;
+			this.value = value;
+		}
+
+	}
+
+}
@@ -0,0 +1,205 @@
+package cn.tenmg.sqltool.sql.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import cn.tenmg.dsl.Script;
+import cn.tenmg.sqltool.sql.ArrayParameter;
+import cn.tenmg.sqltool.sql.SQLDialect;
+
+/**
+ * IN列表工具类。集合参数展开为IN列表时，每种不同的集合大小都会产生不同的SQL，导致连接池的预编译语句缓存和数据库的执行计划缓存失效。
+ * 该工具类将集合参数按2的幂次补齐（重复最后一个元素），或在方言支持时改写为绑定单个数组参数，从而使不同大小的集合共用同一条SQL。
+ * 仅规范化只出现在{@code IN (:name)}或{@code NOT IN (:name)}中的集合参数，在其他位置（例如函数参数）被引用的集合参数保持原样
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public abstract class InListUtils {
+
+	/**
+	 * 集合参数的绑定方式：原样展开、按2的幂次补齐、绑定为数组参数（方言不支持时按2的幂次补齐）
+	 */
+	public static final String EXPAND = "expand", PAD = "pad", ARRAY = "array";
+
+	private static final String IN_TEMPLATE = "(?i)(\\bNOT\\s+)?\\bIN\\s*\\(\\s*:%s\\s*\\)",
+			PARAM_TEMPLATE = "(?<![:\\w]):%s(?![\\w])", ANY = "= ANY(", ALL = "<> ALL(", PARAM_MARK = ":",
+			RIGHT_BRACKET = ")";
+
+	/**
+	 * 按绑定方式规范化命名参数SQL中的集合参数
+	 *
+	 * @param namedScript
+	 *            命名参数SQL
+	 * @param params
+	 *            参数集
+	 * @param binding
+	 *            集合参数的绑定方式
+	 * @param dialect
+	 *            SQL方言
+	 * @return 返回规范化后的命名参数SQL及参数集。无需规范化时返回原命名参数SQL及参数集
+	 */
+	public static Script<Map<String, Object>> normalize(String namedScript, Map<String, Object> params, String binding,
+			SQLDialect dialect) {
+		if (params == null || binding == null || EXPAND.equals(binding)) {
+			return new Script<Map<String, Object>>(namedScript, params);
+		}
+		boolean array = ARRAY.equals(binding);
+		int capacity = Math.min(dialect.getMaxInListSize(), dialect.getMaxParameters());
+		String script = namedScript, name, typeName, rewritten;
+		Object value;
+		Map<String, Object> normalized = null;
+		for (Iterator<Entry<String, Object>> it = params.entrySet().iterator(); it.hasNext();) {
+			Entry<String, Object> entry = it.next();
+			value = entry.getValue();
+			if (!(value instanceof Collection) || ((Collection<?>) value).isEmpty()) {
+				continue;
+			}
+			name = entry.getKey();
+			Collection<?> collection = (Collection<?>) value;
+			if (array && (typeName = getArrayTypeName(dialect, collection)) != null
+					&& (rewritten = toArrayPredicate(script, name)) != null) {
+				script = rewritten;
+				value = new ArrayParameter(typeName, collection.toArray());
+			} else if (isInListOnly(script, name)) {
+				value = pad(collection, capacity);
+				if (value == collection) {
+					continue;
+				}
+			} else {// 补齐会改变IN列表以外引用的含义
+				continue;
+			}
+			if (normalized == null) {
+				normalized = new HashMap<String, Object>(params);
+			}
+			normalized.put(name, value);
+		}
+		return new Script<Map<String, Object>>(script, normalized == null ? params : normalized);
+	}
+
+	/**
+	 * 将集合按2的幂次补齐，补齐的元素为集合的最后一个元素。补齐后的大小不超过容量，集合大小已达到容量时不补齐
+	 *
+	 * @param collection
+	 *            集合
+	 * @param capacity
+	 *            容量
+	 * @return 返回补齐后的集合。无需补齐时返回原集合
+	 */
+	private static Collection<?> pad(Collection<?> collection, int capacity) {
+		int size = collection.size();
+		if (size >= capacity) {
+			return collection;
+		}
+		int bucket = Math.min(size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1, capacity);
+		if (bucket == size) {
+			return collection;
+		}
+		List<Object> padded = new ArrayList<Object>(bucket);
+		padded.addAll(collection);
+		Object last = padded.get(size - 1);
+		while (padded.size() < bucket) {
+			padded.add(last);
+		}
+		return padded;
+	}
+
+	/**
+	 * 获取集合以数组形式绑定时数组元素的SQL类型名。集合元素须非null且类型相同
+	 *
+	 * @param dialect
+	 *            SQL方言
+	 * @param collection
+	 *            集合
+	 * @return 返回数组元素的SQL类型名。无法以数组形式绑定时返回null
+	 */
+	private static String getArrayTypeName(SQLDialect dialect, Collection<?> collection) {
+		Class<?> elementType = null;
+		Object element;
+		for (Iterator<?> it = collection.iterator(); it.hasNext();) {
+			element = it.next();
+			if (element == null || (elementType != null && !elementType.equals(element.getClass()))) {
+				return null;
+			}
+			elementType = element.getClass();
+		}
+		return dialect.getArrayTypeName(elementType);
+	}
+
+	/**
+	 * 将命名参数SQL中以指定参数构成的IN列表改写为数组谓词：{@code IN (:name)}改写为{@code = ANY(:name)}，
+	 * {@code NOT IN (:name)}改写为{@code <> ALL(:name)}
+	 *
+	 * @param namedScript
+	 *            命名参数SQL
+	 * @param name
+	 *            参数名
+	 * @return 返回改写后的命名参数SQL。无法改写时返回null
+	 */
+	private static String toArrayPredicate(String namedScript, String name) {
+		String param = PARAM_MARK + name + RIGHT_BRACKET;
+		return rewrite(namedScript, name, ANY + param, ALL + param);
+	}
+
+	/**
+	 * 改写命名参数SQL中以指定参数构成的IN列表。参数在IN列表以外的位置被引用时不改写
+	 *
+	 * @param namedScript
+	 *            命名参数SQL
+	 * @param name
+	 *            参数名
+	 * @param in
+	 *            {@code IN (:name)}的替换内容
+	 * @param notIn
+	 *            {@code NOT IN (:name)}的替换内容
+	 * @return 返回改写后的命名参数SQL。无法改写时返回null
+	 */
+	static String rewrite(String namedScript, String name, String in, String notIn) {
+		String quoted = Pattern.quote(name);
+		int count = count(Pattern.compile(String.format(PARAM_TEMPLATE, quoted)).matcher(namedScript));
+		Matcher matcher = Pattern.compile(String.format(IN_TEMPLATE, quoted)).matcher(namedScript);
+		StringBuffer rewritten = new StringBuffer();
+		while (matcher.find()) {
+			count--;
+			matcher.appendReplacement(rewritten, Matcher.quoteReplacement(matcher.group(1) == null ? in : notIn));
+		}
+		if (count != 0 || rewritten.length() == 0) {
+			return null;
+		}
+		matcher.appendTail(rewritten);
+		return rewritten.toString();
+	}
+
+	/**
+	 * 判断参数是否仅在命名参数SQL的IN列表中被引用
+	 *
+	 * @param namedScript
+	 *            命名参数SQL
+	 * @param name
+	 *            参数名
+	 * @return 参数被引用且仅出现在{@code IN (:name)}或{@code NOT IN (:name)}中时返回true，否则返回false
+	 */
+	static boolean isInListOnly(String namedScript, String name) {
+		String quoted = Pattern.quote(name);
+		int count = count(Pattern.compile(String.format(IN_TEMPLATE, quoted)).matcher(namedScript));
+		return count > 0
+				&& count == count(Pattern.compile(String.format(PARAM_TEMPLATE, quoted)).matcher(namedScript));
+	}
+
+	private static int count(Matcher matcher) {
+		int count = 0;
+		while (matcher.find()) {
+			count++;
+		}
+		return count;
+	}
+
+}
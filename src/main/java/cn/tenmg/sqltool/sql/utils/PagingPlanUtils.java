@@ -0,0 +1,202 @@
+package cn.tenmg.sqltool.sql.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.sql.DataSource;
+
+import cn.tenmg.sqltool.SqltoolContext;
+import cn.tenmg.sqltool.sql.CompiledSQL;
+import cn.tenmg.sqltool.sql.PagingPlan;
+import cn.tenmg.sqltool.utils.LRUCache;
+
+/**
+ * 分页查询计划工具类
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public abstract class PagingPlanUtils {
+
+	/**
+	 * 生成分页查询SQL模板时使用的页码
+	 */
+	public static final long SENTINEL_PAGE = 3;
+
+	/**
+	 * 生成分页查询SQL模板时使用的页容量。这两个页容量在该页码下计算得到的数值均不会出现在正常的SQL中，用于定位页码相关数值在SQL中的位置并相互校验
+	 */
+	public static final int SENTINEL_PAGE_SIZE = 7654321, CHECK_PAGE_SIZE = 8765431;
+
+	private static final char KEY_SEPARATOR = '\u0000';
+
+	private static final int CAPACITY = Integer.parseInt(SqltoolContext.getProperty("paging.plan.cache.capacity"));
+
+	/**
+	 * 分页查询计划缓存。以数据源为弱引用键，数据源不再被使用时其缓存随之回收；每个数据源的缓存定容，淘汰最近最少使用的计划
+	 */
+	private static final class PagingPlanCacheHolder {
+		private static final Map<DataSource, LRUCache<String, PagingPlan>> CACHE = Collections
+				.synchronizedMap(new WeakHashMap<DataSource, LRUCache<String, PagingPlan>>());
+	}
+
+	/**
+	 * 生成分页查询计划的键
+	 *
+	 * @param dsql
+	 *            动态结构化查询语言或其编号
+	 * @param cntDsql
+	 *            统计总数的动态结构化查询语言或其编号
+	 * @param script
+	 *            动态结构化查询语言解析后的命名参数SQL
+	 * @param params
+	 *            动态结构化查询语言解析后的参数集
+	 * @param countScript
+	 *            统计总数的动态结构化查询语言解析后的命名参数SQL
+	 * @param countParams
+	 *            统计总数的动态结构化查询语言解析后的参数集
+	 * @return 返回分页查询计划的键。如参数形态无法确定，则返回null
+	 */
+	public static String getKey(String dsql, String cntDsql, String script, Map<String, ?> params,
+			String countScript, Map<String, ?> countParams) {
+		String shape = CompiledSQLUtils.shapeOf(params);
+		if (shape == null) {
+			return null;
+		}
+		StringBuilder key = new StringBuilder(dsql).append(KEY_SEPARATOR).append(script).append(KEY_SEPARATOR)
+				.append(shape);
+		if (cntDsql != null) {
+			String countShape = CompiledSQLUtils.shapeOf(countParams);
+			if (countShape == null) {
+				return null;
+			}
+			key.append(KEY_SEPARATOR).append(cntDsql).append(KEY_SEPARATOR).append(countScript)
+					.append(KEY_SEPARATOR).append(countShape);
+		}
+		return key.toString();
+	}
+
+	public static PagingPlan getCachedPagingPlan(DataSource dataSource, String key) {
+		LRUCache<String, PagingPlan> plans = PagingPlanCacheHolder.CACHE.get(dataSource);
+		return plans == null ? null : plans.get(key);
+	}
+
+	public static void cachePagingPlan(DataSource dataSource, String key, PagingPlan pagingPlan) {
+		LRUCache<String, PagingPlan> plans;
+		synchronized (PagingPlanCacheHolder.CACHE) {
+			plans = PagingPlanCacheHolder.CACHE.get(dataSource);
+			if (plans == null) {
+				plans = new LRUCache<String, PagingPlan>(CAPACITY);
+				PagingPlanCacheHolder.CACHE.put(dataSource, plans);
+			}
+		}
+		plans.put(key, pagingPlan);
+	}
+
+	/**
+	 * 移除数据源缓存的所有分页查询计划
+	 *
+	 * @param dataSource
+	 *            数据源
+	 */
+	public static void uncache(DataSource dataSource) {
+		PagingPlanCacheHolder.CACHE.remove(dataSource);
+	}
+
+	/**
+	 * 使用以{@link #SENTINEL_PAGE_SIZE}和{@link #CHECK_PAGE_SIZE}为页容量分别编译的分页查询SQL生成分页查询SQL模板，
+	 * 并设置到分页查询计划中。两者无法相互印证时（例如方言未以数值字面量的形式输出页码相关的数值）不生成模板
+	 *
+	 * @param pagingPlan
+	 *            分页查询计划
+	 * @param sentinelSQL
+	 *            以{@link #SENTINEL_PAGE_SIZE}为页容量编译的分页查询SQL
+	 * @param checkSQL
+	 *            以{@link #CHECK_PAGE_SIZE}为页容量编译的分页查询SQL
+	 */
+	public static void template(PagingPlan pagingPlan, CompiledSQL sentinelSQL, CompiledSQL checkSQL) {
+		if (sentinelSQL == null || checkSQL == null
+				|| !Arrays.equals(sentinelSQL.getParamNames(), checkSQL.getParamNames())
+				|| !Arrays.equals(sentinelSQL.getParamIndexes(), checkSQL.getParamIndexes())) {
+			return;
+		}
+		String script = sentinelSQL.getScript();
+		String[] sentinels = values(SENTINEL_PAGE_SIZE, SENTINEL_PAGE);
+		List<String> segments = new ArrayList<String>();
+		List<Integer> slots = new ArrayList<Integer>();
+		int len = script.length(), last = 0, i = 0;
+		while (i < len) {
+			if (Character.isDigit(script.charAt(i)) && (i == 0 || !isIdentifierPart(script.charAt(i - 1)))) {
+				int j = i + 1;
+				while (j < len && Character.isDigit(script.charAt(j))) {
+					j++;
+				}
+				if (j == len || !isIdentifierPart(script.charAt(j))) {
+					String token = script.substring(i, j);
+					for (int slot = 0; slot < sentinels.length; slot++) {
+						if (sentinels[slot].equals(token)) {
+							segments.add(script.substring(last, i));
+							slots.add(slot);
+							last = j;
+							break;
+						}
+					}
+				}
+				i = j;
+			} else {
+				i++;
+			}
+		}
+		segments.add(script.substring(last));
+		String[] pageSegments = segments.toArray(new String[segments.size()]);
+		int[] pageSlots = new int[slots.size()];
+		for (int k = 0; k < pageSlots.length; k++) {
+			pageSlots[k] = slots.get(k);
+		}
+		if (render(pageSegments, pageSlots, CHECK_PAGE_SIZE, SENTINEL_PAGE).equals(checkSQL.getScript())) {
+			pagingPlan.setPageSegments(pageSegments);
+			pagingPlan.setPageSlots(pageSlots);
+			pagingPlan.setPageSQL(sentinelSQL);
+		}
+	}
+
+	/**
+	 * 使用分页查询计划中的模板生成指定页码和页容量的分页查询JDBC SQL
+	 *
+	 * @param pagingPlan
+	 *            分页查询计划
+	 * @param pageSize
+	 *            页容量
+	 * @param currentPage
+	 *            页码
+	 * @return 返回分页查询JDBC SQL
+	 */
+	public static String render(PagingPlan pagingPlan, int pageSize, long currentPage) {
+		return render(pagingPlan.getPageSegments(), pagingPlan.getPageSlots(), pageSize, currentPage);
+	}
+
+	private static String render(String[] segments, int[] slots, int pageSize, long currentPage) {
+		String[] values = values(pageSize, currentPage);
+		StringBuilder sql = new StringBuilder(segments[0]);
+		for (int i = 0; i < slots.length; i++) {
+			sql.append(values[slots[i]]).append(segments[i + 1]);
+		}
+		return sql.toString();
+	}
+
+	private static String[] values(int pageSize, long currentPage) {
+		long offset = (currentPage - 1) * pageSize;
+		return new String[] { String.valueOf(pageSize), String.valueOf(offset), String.valueOf(offset + 1),
+				String.valueOf(offset + pageSize) };
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '$';
+	}
+
+}
@@ -0,0 +1,74 @@
+package cn.tenmg.sqltool.sql.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分区查询工具类。按数值列的取值范围将查询拆分为多个分区，拆分方式与Spark JDBC数据源的分区方式一致：上下界仅用于计算分区步长，
+ * 第一个分区包含小于第一个分界值及分区列为NULL的记录，最后一个分区包含不小于最后一个分界值的记录，因此不会遗漏任何记录
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public abstract class PartitionUtils {
+
+	private static final String PARTITION_ALIAS = "SQLTOOL_PARTITION";
+
+	/**
+	 * 生成各分区的过滤条件
+	 *
+	 * @param partitionColumn
+	 *            分区列
+	 * @param lowerBound
+	 *            分区列的下界
+	 * @param upperBound
+	 *            分区列的上界
+	 * @param numPartitions
+	 *            分区数
+	 * @return 返回各分区的过滤条件。只有一个分区时，返回仅含null的列表
+	 */
+	public static List<String> predicates(String partitionColumn, long lowerBound, long upperBound,
+			int numPartitions) {
+		List<String> predicates = new ArrayList<String>();
+		if (numPartitions <= 1 || lowerBound >= upperBound) {
+			predicates.add(null);
+			return predicates;
+		}
+		long partitions = upperBound - lowerBound >= numPartitions || upperBound - lowerBound < 0 ? numPartitions
+				: upperBound - lowerBound;
+		long stride = upperBound / partitions - lowerBound / partitions, current = lowerBound;
+		String lower, upper;
+		for (int i = 0; i < partitions; i++) {
+			lower = i == 0 ? null : partitionColumn + " >= " + current;
+			current += stride;
+			upper = i == partitions - 1 ? null : partitionColumn + " < " + current;
+			if (lower == null) {
+				predicates.add("(" + upper + " OR " + partitionColumn + " IS NULL)");
+			} else if (upper == null) {
+				predicates.add(lower);
+			} else {
+				predicates.add(lower + " AND " + upper);
+			}
+		}
+		return predicates;
+	}
+
+	/**
+	 * 使用过滤条件包装查询SQL
+	 *
+	 * @param namedSql
+	 *            命名参数查询SQL
+	 * @param predicate
+	 *            过滤条件
+	 * @return 返回包装后的命名参数查询SQL。过滤条件为null时，返回原查询SQL
+	 */
+	public static String wrap(String namedSql, String predicate) {
+		if (predicate == null) {
+			return namedSql;
+		}
+		return "SELECT * FROM (" + namedSql + (namedSql.indexOf("--") < 0 ? ") " : "\n) ") + PARTITION_ALIAS
+				+ " WHERE " + predicate;
+	}
+
+}
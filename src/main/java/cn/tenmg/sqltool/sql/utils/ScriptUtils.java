@@ -0,0 +1,248 @@
+package cn.tenmg.sqltool.sql.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import cn.tenmg.sqltool.sql.ScriptSyntax;
+
+/**
+ * SQL脚本工具类。按方言的脚本语法将SQL脚本拆分为可逐条执行的语句，字符串、带引号的标识符和注释中的分隔符不会拆分语句，
+ * 语句开头的注释将被去除，但语句中的注释（例如优化器提示）将被保留
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public abstract class ScriptUtils {
+
+	private static final String DEFAULT_DELIMITER = ";", BEGIN = "BEGIN", CASE = "CASE", END = "END";
+
+	private static final Pattern DELIMITER_PATTERN = Pattern.compile("^DELIMITER\\s+(\\S+)$",
+			Pattern.CASE_INSENSITIVE), DOLLAR_TAG_PATTERN = Pattern.compile("\\$([A-Za-z_][A-Za-z_0-9]*)?\\$"),
+			DML_PATTERN = Pattern.compile("^(INSERT|UPDATE|DELETE|MERGE|REPLACE|UPSERT)\\b", Pattern.CASE_INSENSITIVE);
+
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * 读取SQL脚本的全部内容
+	 *
+	 * @param reader
+	 *            SQL脚本的读取器，读取完毕后不会关闭
+	 * @return 返回SQL脚本的全部内容
+	 * @throws IOException
+	 *             读取异常
+	 */
+	public static String read(Reader reader) throws IOException {
+		StringBuilder script = new StringBuilder();
+		char[] buffer = new char[BUFFER_SIZE];
+		int count;
+		while ((count = reader.read(buffer)) != -1) {
+			script.append(buffer, 0, count);
+		}
+		return script.toString();
+	}
+
+	/**
+	 * 将SQL脚本拆分为语句
+	 *
+	 * @param script
+	 *            SQL脚本
+	 * @param syntax
+	 *            SQL脚本语法
+	 * @return 返回拆分后的语句，不含语句分隔符（过程化语句块内的分号除外）
+	 */
+	public static List<String> split(String script, ScriptSyntax syntax) {
+		List<String> statements = new ArrayList<String>();
+		StringBuilder statement = new StringBuilder();
+		String delimiter = DEFAULT_DELIMITER, terminatorLine = syntax.getTerminatorLine(), line;
+		Pattern blockPattern = syntax.getBlockPattern();
+		Matcher matcher;
+		boolean block = false;
+		int depth = 0, i = 0, length = script.length(), end;
+		char c;
+		while (i < length) {
+			if (i == 0 || script.charAt(i - 1) == '\n') {// 行首，处理单独成行的语句结束符和命令
+				end = lineEnd(script, i);
+				line = script.substring(i, end).trim();
+				if (terminatorLine != null && line.equalsIgnoreCase(terminatorLine)) {
+					add(statements, statement);
+					block = false;
+					depth = 0;
+					i = end;
+					continue;
+				}
+				if (syntax.isDelimiterCommand()) {
+					matcher = DELIMITER_PATTERN.matcher(line);
+					if (matcher.matches()) {
+						add(statements, statement);
+						block = false;
+						depth = 0;
+						delimiter = matcher.group(1);
+						i = end;
+						continue;
+					}
+				}
+			}
+			c = script.charAt(i);
+			if (Character.isWhitespace(c)) {
+				if (statement.length() > 0) {
+					statement.append(c);
+				}
+				i++;
+				continue;
+			}
+			end = commentEnd(script, i, syntax);
+			if (end > 0) {
+				if (statement.length() > 0) {
+					statement.append(script, i, end);
+				}
+				i = end;
+				continue;
+			}
+			if (script.startsWith(delimiter, i) && !(block && (terminatorLine != null || depth > 0))) {
+				add(statements, statement);
+				block = false;
+				depth = 0;
+				i += delimiter.length();
+				continue;
+			}
+			if (statement.length() == 0 && blockPattern != null) {
+				block = blockPattern.matcher(script).region(i, length).lookingAt();
+			}
+			end = literalEnd(script, i, syntax);
+			if (end < 0 && (Character.isLetter(c) || c == '_')) {
+				end = wordEnd(script, i, delimiter);
+				if (block && terminatorLine == null) {// 无语句结束符时按BEGIN、CASE与END配对确定语句块的结尾
+					String word = script.substring(i, end);
+					if (BEGIN.equalsIgnoreCase(word) || CASE.equalsIgnoreCase(word)) {
+						depth++;
+					} else if (END.equalsIgnoreCase(word) && depth > 0) {
+						depth--;
+					}
+				}
+			}
+			if (end < 0) {
+				end = i + 1;
+			}
+			statement.append(script, i, end);
+			i = end;
+		}
+		add(statements, statement);
+		return statements;
+	}
+
+	/**
+	 * 判断语句是否为数据操纵语句（插入、更新、删除或合并）
+	 *
+	 * @param sql
+	 *            拆分后的语句
+	 * @return 是数据操纵语句返回true，否则返回false
+	 */
+	public static boolean isDML(String sql) {
+		return DML_PATTERN.matcher(sql).lookingAt();
+	}
+
+	private static void add(List<String> statements, StringBuilder statement) {
+		String sql = statement.toString().trim();
+		if (!sql.isEmpty()) {
+			statements.add(sql);
+		}
+		statement.setLength(0);
+	}
+
+	private static int lineEnd(String script, int start) {
+		int end = script.indexOf('\n', start);
+		return end < 0 ? script.length() : end;
+	}
+
+	private static int wordEnd(String script, int start, String delimiter) {
+		int end = start + 1, length = script.length();
+		char c;
+		while (end < length && !script.startsWith(delimiter, end)) {// 分隔符可能由标识符中允许的字符组成，例如$$
+			c = script.charAt(end);
+			if (Character.isLetterOrDigit(c) || c == '_' || c == '$') {
+				end++;
+			} else {
+				break;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * 获取从指定位置开始的注释的结束位置
+	 *
+	 * @param script
+	 *            SQL脚本
+	 * @param start
+	 *            开始位置
+	 * @param syntax
+	 *            SQL脚本语法
+	 * @return 返回注释的结束位置（不含）。指定位置不是注释的开头时返回-1
+	 */
+	private static int commentEnd(String script, int start, ScriptSyntax syntax) {
+		char c = script.charAt(start);
+		if ((c == '-' && script.startsWith("--", start)) || (c == '#' && syntax.isHashComment())) {
+			return lineEnd(script, start);
+		} else if (c == '/' && script.startsWith("/*", start)) {
+			int end = script.indexOf("*/", start + 2);
+			return end < 0 ? script.length() : end + 2;
+		}
+		return -1;
+	}
+
+	/**
+	 * 获取从指定位置开始的字符串或带引号的标识符的结束位置
+	 *
+	 * @param script
+	 *            SQL脚本
+	 * @param start
+	 *            开始位置
+	 * @param syntax
+	 *            SQL脚本语法
+	 * @return 返回字符串或带引号的标识符的结束位置（不含）。指定位置不是字符串或带引号的标识符的开头时返回-1
+	 */
+	private static int literalEnd(String script, int start, ScriptSyntax syntax) {
+		char c = script.charAt(start);
+		if (c == '\'') {
+			boolean escape = syntax.isBackslashEscape() || (syntax.isDollarQuote() && start > 0
+					&& (script.charAt(start - 1) == 'E' || script.charAt(start - 1) == 'e'));// PostgreSQL的E''字符串
+			return quotedEnd(script, start, '\'', escape);
+		} else if (syntax.getIdentifierQuotes().indexOf(c) >= 0) {
+			return quotedEnd(script, start, c == '[' ? ']' : c, false);
+		} else if (c == '$' && syntax.isDollarQuote()) {
+			Matcher matcher = DOLLAR_TAG_PATTERN.matcher(script).region(start, script.length());
+			if (matcher.lookingAt()) {
+				String tag = matcher.group();
+				int end = script.indexOf(tag, matcher.end());
+				return end < 0 ? script.length() : end + tag.length();
+			}
+		}
+		return -1;
+	}
+
+	private static int quotedEnd(String script, int start, char quote, boolean backslashEscape) {
+		int end = start + 1, length = script.length();
+		char c;
+		while (end < length) {
+			c = script.charAt(end);
+			if (c == '\\' && backslashEscape) {
+				end += 2;
+			} else if (c == quote) {
+				if (end + 1 < length && script.charAt(end + 1) == quote) {// 连续两个引号表示引号本身
+					end += 2;
+				} else {
+					return end + 1;
+				}
+			} else {
+				end++;
+			}
+		}
+		return length;
+	}
+
+}
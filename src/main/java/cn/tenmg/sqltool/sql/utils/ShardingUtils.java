@@ -0,0 +1,526 @@
+package cn.tenmg.sqltool.sql.utils;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import cn.tenmg.dsl.utils.StringUtils;
+import cn.tenmg.sqltool.config.annotion.Column;
+import cn.tenmg.sqltool.config.annotion.ShardKey;
+import cn.tenmg.sqltool.exception.DataAccessException;
+import cn.tenmg.sqltool.exception.IllegalCallException;
+
+/**
+ * 分片工具类。用于获取实体的分片键、查询语句中限定分片键的参数，以及按查询语句最外层的排序和行数限制归并各分片的查询结果。
+ * 归并时排序列须为结果对象的属性（或结果为单列时的值本身），字符串按Java的字典顺序比较，
+ * 未指定NULLS FIRST/LAST时null值的顺序与方言一致
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public abstract class ShardingUtils {
+
+	private static final Field[] NONE = {};
+
+	private static volatile Map<Class<?>, Field[]> SHARD_KEY_FIELDS = new HashMap<Class<?>, Field[]>();
+
+	private static final String VALUE = "(\\d+|:\\w+)";
+
+	private static final Pattern ORDER_BY = Pattern.compile("\\bORDER\\s+BY\\b"),
+			LIMIT = Pattern.compile("\\bLIMIT\\s+" + VALUE + "(\\s*,\\s*" + VALUE + ")?"),
+			OFFSET = Pattern.compile("\\bOFFSET\\s+" + VALUE),
+			FETCH = Pattern.compile("\\bFETCH\\s+(FIRST|NEXT)\\s+" + VALUE + "\\s+ROWS?\\s+ONLY\\b"),
+			CLAUSE_END = Pattern.compile("\\b(LIMIT|OFFSET|FETCH|FOR)\\b"),
+			TOP = Pattern.compile("^\\s*SELECT\\s+(DISTINCT\\s+)?TOP\\s*\\(?\\s*" + VALUE, Pattern.CASE_INSENSITIVE),
+			ORDER_ITEM = Pattern.compile("^(.+?)(\\s+(ASC|DESC))?(\\s+NULLS\\s+(FIRST|LAST))?$",
+					Pattern.CASE_INSENSITIVE | Pattern.DOTALL),
+			IDENTIFIER = Pattern.compile("^[A-Za-z_][A-Za-z0-9_$]*$"),
+			WHERE = Pattern.compile("\\bWHERE\\b"),
+			WHERE_END = Pattern.compile("\\b(GROUP|HAVING|WINDOW|ORDER|LIMIT|OFFSET|FETCH|FOR|OPTION)\\b"),
+			SET_OPERATOR = Pattern.compile("\\b(UNION|INTERSECT|EXCEPT|MINUS)\\b"),
+			OR = Pattern.compile("\\bOR\\b"), AND = Pattern.compile("\\bAND\\b");
+
+	private static final String COLUMN = "([A-Za-z_][A-Za-z0-9_$]*\\.)?[\"`\\[]?%s[\"`\\]]?",
+			PARAM = ":(?<param>[A-Za-z_][A-Za-z0-9_]*)";
+
+	private static final String DESC = "DESC", FIRST = "FIRST";
+
+	/**
+	 * 获取类型中使用{@link ShardKey}注解的属性
+	 *
+	 * @param type
+	 *            类型
+	 * @return 返回分片键属性，不存在时返回null
+	 */
+	public static Field getShardKeyField(Class<?> type) {
+		Field[] fields = SHARD_KEY_FIELDS.get(type);
+		if (fields == null) {
+			fields = NONE;
+			Class<?> current = type;
+			outer: while (current != null && !Object.class.equals(current)) {
+				Field[] declaredFields = current.getDeclaredFields();
+				for (int i = 0; i < declaredFields.length; i++) {
+					if (declaredFields[i].getAnnotation(ShardKey.class) != null) {
+						declaredFields[i].setAccessible(true);
+						fields = new Field[] { declaredFields[i] };
+						break outer;
+					}
+				}
+				current = current.getSuperclass();
+			}
+			cacheShardKeyField(type, fields);
+		}
+		return fields.length == 0 ? null : fields[0];
+	}
+
+	/**
+	 * 获取对象的分片键的值
+	 *
+	 * @param obj
+	 *            实体对象
+	 * @return 返回分片键的值
+	 */
+	public static Object getShardKey(Object obj) {
+		Field field = getShardKeyField(obj.getClass());
+		if (field == null) {
+			throw new IllegalCallException("No field is annotated with @ShardKey in class "
+					.concat(obj.getClass().getName()));
+		}
+		try {
+			return field.get(obj);
+		} catch (IllegalArgumentException | IllegalAccessException e) {
+			throw new DataAccessException(e);
+		}
+	}
+
+	/**
+	 * 获取查询语句中限定分片键的参数名。仅当最外层查询（不含集合运算）的WHERE子句以AND连接（不含OR）的条件中，
+	 * 存在分片键列与单个参数的等值条件（<code>COLUMN = :param</code>）或IN条件（<code>COLUMN IN (:param)</code>）时，
+	 * 查询结果必然全部位于该参数的值所在的分片。列名按分片键属性的{@link Column}注解或属性名转换得到，列名前的限定名不做区分
+	 *
+	 * @param type
+	 *            实体类型
+	 * @param namedScript
+	 *            命名参数SQL
+	 * @return 返回限定分片键的参数名，不存在时返回null
+	 */
+	public static String getShardKeyParam(Class<?> type, String namedScript) {
+		Field field = getShardKeyField(type);
+		if (field == null || namedScript == null) {
+			return null;
+		}
+		String masked = mask(namedScript);
+		Matcher matcher = WHERE.matcher(masked);
+		if (SET_OPERATOR.matcher(masked).find() || !matcher.find()) {
+			return null;
+		}
+		int start = matcher.end();
+		matcher = WHERE_END.matcher(masked);
+		int end = matcher.find(start) ? matcher.start() : masked.length();
+		String where = masked.substring(start, end);
+		if (OR.matcher(where).find()) {// 以OR连接的条件无法限定分片
+			return null;
+		}
+		String column = String.format(COLUMN, Pattern.quote(getColumnName(field)));
+		Pattern[] predicates = { Pattern.compile(column + "\\s*=\\s*" + PARAM, Pattern.CASE_INSENSITIVE),
+				Pattern.compile(PARAM + "\\s*=\\s*" + column, Pattern.CASE_INSENSITIVE),
+				Pattern.compile(column + "\\s+IN\\s*\\(\\s*" + PARAM + "\\s*\\)", Pattern.CASE_INSENSITIVE) };
+		matcher = AND.matcher(where);
+		int conditionStart = start;
+		boolean found;
+		do {
+			found = matcher.find();
+			String condition = namedScript.substring(conditionStart, found ? start + matcher.start() : end).trim();
+			for (int i = 0; i < predicates.length; i++) {
+				Matcher predicate = predicates[i].matcher(condition);
+				if (predicate.matches()) {
+					return predicate.group("param");
+				}
+			}
+			if (found) {
+				conditionStart = start + matcher.end();
+			}
+		} while (found);
+		return null;
+	}
+
+	/**
+	 * 归并各分片的查询结果。查询语句最外层含排序时按排序多路归并，含行数限制时截取归并后的前若干行，不支持跳过行（OFFSET）
+	 *
+	 * @param results
+	 *            按分片序号排列的各分片的查询结果
+	 * @param type
+	 *            结果对象类型
+	 * @param namedScript
+	 *            命名参数SQL
+	 * @param params
+	 *            命名参数SQL的参数
+	 * @param nullsLargest
+	 *            方言是否将null值视为最大值，用于确定未指定NULLS FIRST/LAST时null值的顺序
+	 * @return 返回归并后的查询结果
+	 */
+	public static <T> List<T> merge(List<List<T>> results, Class<T> type, String namedScript,
+			Map<String, ?> params, boolean nullsLargest) {
+		String masked = mask(namedScript);
+		long limit = getLimit(namedScript, masked, params);
+		int total = 0;
+		for (int i = 0, size = results.size(); i < size; i++) {
+			total += results.get(i).size();
+		}
+		List<T> rows = new ArrayList<T>((int) Math.min(total, limit));
+		Comparator<T> comparator = getComparator(type, namedScript, masked, nullsLargest);
+		if (comparator == null) {
+			for (int i = 0, size = results.size(); i < size && rows.size() < limit; i++) {
+				List<T> result = results.get(i);
+				for (int j = 0, count = result.size(); j < count && rows.size() < limit; j++) {
+					rows.add(result.get(j));
+				}
+			}
+			return rows;
+		}
+		PriorityQueue<Cursor<T>> queue = new PriorityQueue<Cursor<T>>(Math.max(results.size(), 1),
+				new CursorComparator<T>(comparator));
+		for (int i = 0, size = results.size(); i < size; i++) {
+			if (!results.get(i).isEmpty()) {
+				queue.add(new Cursor<T>(i, results.get(i)));
+			}
+		}
+		Cursor<T> cursor;
+		while (!queue.isEmpty() && rows.size() < limit) {
+			cursor = queue.poll();
+			rows.add(cursor.current());
+			if (++cursor.index < cursor.rows.size()) {
+				queue.add(cursor);
+			}
+		}
+		return rows;
+	}
+
+	private static String getColumnName(Field field) {
+		Column column = field.getAnnotation(Column.class);
+		if (column == null || StringUtils.isBlank(column.name())) {
+			return StringUtils.camelToUnderline(field.getName(), true);
+		}
+		return column.name();
+	}
+
+	private static synchronized void cacheShardKeyField(Class<?> type, Field[] fields) {
+		Map<Class<?>, Field[]> cache = new HashMap<Class<?>, Field[]>(SHARD_KEY_FIELDS);
+		cache.put(type, fields);
+		SHARD_KEY_FIELDS = cache;
+	}
+
+	/**
+	 * 将SQL中的字符串、带引号的标识符、注释和括号内的内容替换为空格并转为大写，以便仅在最外层查找关键字
+	 *
+	 * @param sql
+	 *            SQL
+	 * @return 返回替换后的SQL，长度与原SQL相同
+	 */
+	private static String mask(String sql) {
+		char[] chars = sql.toCharArray();
+		int depth = 0, i = 0, length = chars.length, end;
+		char c;
+		while (i < length) {
+			c = chars[i];
+			if (c == '\'' || c == '"' || c == '`') {
+				end = sql.indexOf(c, i + 1);
+				end = end < 0 ? length : end + 1;
+			} else if (c == '-' && i + 1 < length && chars[i + 1] == '-') {
+				end = sql.indexOf('\n', i);
+				end = end < 0 ? length : end;
+			} else if (c == '/' && i + 1 < length && chars[i + 1] == '*') {
+				end = sql.indexOf("*/", i + 2);
+				end = end < 0 ? length : end + 2;
+			} else {
+				if (c == '(') {
+					depth++;
+				} else if (c == ')') {
+					depth--;
+					chars[i] = ' ';
+				}
+				chars[i] = depth > 0 ? ' ' : Character.toUpperCase(chars[i]);
+				i++;
+				continue;
+			}
+			while (i < end) {
+				chars[i++] = ' ';
+			}
+		}
+		return new String(chars);
+	}
+
+	private static long getLimit(String sql, String masked, Map<String, ?> params) {
+		long limit = Long.MAX_VALUE;
+		Matcher matcher = LIMIT.matcher(masked);
+		if (matcher.find()) {
+			if (matcher.group(3) == null) {
+				limit = getValue(sql, matcher.start(1), matcher.end(1), params);
+			} else {// LIMIT offset, count
+				checkOffset(getValue(sql, matcher.start(1), matcher.end(1), params));
+				limit = getValue(sql, matcher.start(3), matcher.end(3), params);
+			}
+		}
+		matcher = OFFSET.matcher(masked);
+		if (matcher.find()) {
+			checkOffset(getValue(sql, matcher.start(1), matcher.end(1), params));
+		}
+		matcher = FETCH.matcher(masked);
+		if (matcher.find()) {
+			limit = Math.min(limit, getValue(sql, matcher.start(2), matcher.end(2), params));
+		}
+		matcher = TOP.matcher(sql);
+		if (masked.trim().startsWith("SELECT") && matcher.lookingAt()) {
+			limit = Math.min(limit, getValue(sql, matcher.start(2), matcher.end(2), params));
+		}
+		return limit;
+	}
+
+	private static void checkOffset(long offset) {
+		if (offset > 0) {
+			throw new IllegalCallException("Skipping rows is not supported when merging the results of shards");
+		}
+	}
+
+	/**
+	 * 获取行数限制的值
+	 *
+	 * @param sql
+	 *            SQL
+	 * @param start
+	 *            值在SQL中的开始位置
+	 * @param end
+	 *            值在SQL中的结束位置
+	 * @param params
+	 *            参数
+	 * @return 返回行数限制的值
+	 */
+	private static long getValue(String sql, int start, int end, Map<String, ?> params) {
+		String value = sql.substring(start, end);
+		if (value.startsWith(":")) {
+			Object param = params == null ? null : params.get(value.substring(1));
+			if (param instanceof Number) {
+				return ((Number) param).longValue();
+			}
+			value = param == null ? null : param.toString();
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalCallException("Unable to determine the row limit when merging the results of shards: "
+					.concat(sql.substring(start, end)), e);
+		}
+	}
+
+	private static <T> Comparator<T> getComparator(Class<T> type, String sql, String masked,
+			boolean nullsLargest) {
+		Matcher matcher = ORDER_BY.matcher(masked);
+		int start = -1;
+		while (matcher.find()) {
+			start = matcher.end();
+		}
+		if (start < 0) {
+			return null;
+		}
+		matcher = CLAUSE_END.matcher(masked);
+		int end = matcher.find(start) ? matcher.start() : masked.length();
+		List<OrderItem> items = new ArrayList<OrderItem>();
+		int itemStart = start;
+		for (int i = start; i <= end; i++) {
+			if (i == end || masked.charAt(i) == ',') {
+				items.add(parseOrderItem(type, sql.substring(itemStart, i).trim(), nullsLargest));
+				itemStart = i + 1;
+			}
+		}
+		boolean scalar = items.size() == 1 && Comparable.class.isAssignableFrom(type);// 单列结果按值本身排序
+		for (int i = 0, size = items.size(); i < size; i++) {
+			if (items.get(i).field == null && !scalar && !Map.class.isAssignableFrom(type)) {
+				throw new IllegalCallException("Unable to merge the results of shards, no field for ordering: "
+						.concat(items.get(i).name));
+			}
+		}
+		return new RowComparator<T>(items);
+	}
+
+	private static OrderItem parseOrderItem(Class<?> type, String item, boolean nullsLargest) {
+		Matcher matcher = ORDER_ITEM.matcher(item);
+		if (!matcher.matches()) {
+			throw new IllegalCallException("Unable to merge the results of shards, illegal ordering: ".concat(item));
+		}
+		String expression = matcher.group(1).trim(), name = expression;
+		int index = name.lastIndexOf('.');
+		if (index >= 0) {
+			name = name.substring(index + 1);
+		}
+		if (name.length() > 1 && "\"`[".indexOf(name.charAt(0)) >= 0) {
+			name = name.substring(1, name.length() - 1);
+		}
+		if (!IDENTIFIER.matcher(name).matches()) {
+			throw new IllegalCallException(
+					"Unable to merge the results of shards, only columns are supported for ordering: "
+							.concat(expression));
+		}
+		boolean desc = DESC.equalsIgnoreCase(matcher.group(3)), nullsFirst = matcher.group(5) == null
+				? desc == nullsLargest : FIRST.equalsIgnoreCase(matcher.group(5));
+		String key = StringUtils.toCamelCase(name, "_", false);
+		Field field = null;
+		Class<?> current = type;
+		while (field == null && current != null && !Object.class.equals(current)) {
+			try {
+				field = current.getDeclaredField(key);
+				field.setAccessible(true);
+			} catch (NoSuchFieldException e) {
+				current = current.getSuperclass();
+			}
+		}
+		return new OrderItem(expression, key, field, desc, nullsFirst);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static int compare(Object a, Object b) {
+		if (a instanceof Number && b instanceof Number && !a.getClass().equals(b.getClass())) {
+			return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+		}
+		return ((Comparable) a).compareTo(b);
+	}
+
+	/**
+	 * 排序项
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class OrderItem {
+
+		private final String name;
+
+		private final String key;
+
+		private final Field field;
+
+		private final boolean desc;
+
+		private final boolean nullsFirst;
+
+		private OrderItem(String name, String key, Field field, boolean desc, boolean nullsFirst) {
+			this.name = name;
+			this.key = key;
+			this.field = field;
+			this.desc = desc;
+			this.nullsFirst = nullsFirst;
+		}
+
+		private Object getValue(Object row) {
+			if (row instanceof Map) {
+				return ((Map<?, ?>) row).get(key);
+			} else if (field == null) {// 单列结果
+				return row;
+			}
+			try {
+				return field.get(row);
+			} catch (IllegalArgumentException | IllegalAccessException e) {
+				throw new DataAccessException(e);
+			}
+		}
+
+	}
+
+	/**
+	 * 按排序项比较行
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class RowComparator<T> implements Comparator<T> {
+
+		private final List<OrderItem> items;
+
+		private RowComparator(List<OrderItem> items) {
+			this.items = items;
+		}
+
+		@Override
+		public int compare(T a, T b) {
+			OrderItem item;
+			Object x, y;
+			int result;
+			for (int i = 0, size = items.size(); i < size; i++) {
+				item = items.get(i);
+				x = a == null ? null : item.getValue(a);
+				y = b == null ? null : item.getValue(b);
+				if (x == null || y == null) {
+					if (x == y) {
+						continue;
+					}
+					return (x == null) == item.nullsFirst ? -1 : 1;
+				}
+				result = ShardingUtils.compare(x, y);
+				if (result != 0) {
+					return item.desc ? -result : result;
+				}
+			}
+			return 0;
+		}
+
+	}
+
+	/**
+	 * 分片查询结果的游标
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class Cursor<T> {
+
+		private final int shard;
+
+		private final List<T> rows;
+
+		private int index = 0;
+
+		private Cursor(int shard, List<T> rows) {
+			this.shard = shard;
+			this.rows = rows;
+		}
+
+		private T current() {
+			return rows.get(index);
+		}
+
+	}
+
+	/**
+	 * 按当前行比较游标，当前行相同时按分片序号比较
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @since 1.5.4
+	 */
+	private static class CursorComparator<T> implements Comparator<Cursor<T>> {
+
+		private final Comparator<T> comparator;
+
+		private CursorComparator(Comparator<T> comparator) {
+			this.comparator = comparator;
+		}
+
+		@Override
+		public int compare(Cursor<T> a, Cursor<T> b) {
+			int result = comparator.compare(a.current(), b.current());
+			return result == 0 ? a.shard - b.shard : result;
+		}
+
+	}
+
+}
@@ -0,0 +1,132 @@
+package cn.tenmg.sqltool.sql.utils;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import cn.tenmg.dsl.Script;
+import cn.tenmg.sqltool.sql.SQLDialect;
+import cn.tenmg.sqltool.sql.TempTable;
+
+/**
+ * 临时表工具类。集合参数的元素过多时，IN列表可能超出数据库的参数个数限制或导致执行效率急剧下降。
+ * 该工具类将这类集合参数构成的IN列表改写为对会话级临时表的子查询，集合元素随后在同一连接上批量插入临时表
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @since 1.5.4
+ */
+public abstract class TempTableUtils {
+
+	private static final String TEMP_TABLE_PREFIX = "SQLTOOL_TMP_", INTEGER = "I", STRING = "S",
+			SUBQUERY = "IN (SELECT V FROM %s)", NOT_IN = "NOT ";
+
+	/**
+	 * 将元素个数超过阈值的集合参数构成的IN列表改写为对临时表的子查询
+	 *
+	 * @param namedScript
+	 *            命名参数SQL
+	 * @param params
+	 *            参数集
+	 * @param dialect
+	 *            SQL方言
+	 * @param threshold
+	 *            集合参数元素个数的阈值，小于等于0时仅在超出方言的IN列表长度或参数个数限制时改写
+	 * @param tempTables
+	 *            用于存放需创建的临时表及其元素
+	 * @return 返回改写后的命名参数SQL及参数集。无需改写时返回原命名参数SQL及参数集
+	 */
+	public static Script<Map<String, Object>> toTempTables(String namedScript, Map<String, Object> params,
+			SQLDialect dialect, int threshold, Map<TempTable, Collection<?>> tempTables) {
+		if (params == null) {
+			return new Script<Map<String, Object>>(namedScript, params);
+		}
+		int limit = Math.min(dialect.getMaxInListSize(), dialect.getMaxParameters());
+		if (threshold > 0 && threshold < limit) {
+			limit = threshold;
+		}
+		String script = namedScript, name, rewritten, subquery;
+		Object value;
+		Map<String, Object> remains = null;
+		for (Iterator<Entry<String, Object>> it = params.entrySet().iterator(); it.hasNext();) {
+			Entry<String, Object> entry = it.next();
+			value = entry.getValue();
+			if (!(value instanceof Collection) || ((Collection<?>) value).size() <= limit) {
+				continue;
+			}
+			Collection<?> collection = (Collection<?>) value;
+			Boolean integer = isInteger(collection);
+			if (integer == null) {
+				continue;
+			}
+			TempTable tempTable = dialect.tempTable(
+					TEMP_TABLE_PREFIX + (integer ? INTEGER : STRING) + (tempTables.size() + 1), integer,
+					integer ? 0 : getMaxLength(collection));
+			if (tempTable == null) {
+				continue;
+			}
+			name = entry.getKey();
+			subquery = String.format(SUBQUERY, tempTable.getTableName());
+			rewritten = InListUtils.rewrite(script, name, subquery, NOT_IN + subquery);
+			if (rewritten == null) {
+				continue;
+			}
+			script = rewritten;
+			tempTables.put(tempTable, collection);
+			if (remains == null) {
+				remains = new HashMap<String, Object>(params);
+			}
+			remains.remove(name);
+		}
+		return new Script<Map<String, Object>>(script, remains == null ? params : remains);
+	}
+
+	/**
+	 * 判断集合元素是整数还是字符串。null元素不影响判断
+	 *
+	 * @param collection
+	 *            集合
+	 * @return 集合元素均为整数返回true，均为字符串返回false，否则返回null
+	 */
+	private static Boolean isInteger(Collection<?> collection) {
+		Boolean integer = null;
+		Object element;
+		boolean current;
+		for (Iterator<?> it = collection.iterator(); it.hasNext();) {
+			element = it.next();
+			if (element == null) {
+				continue;
+			}
+			if (element instanceof Long || element instanceof Integer || element instanceof Short
+					|| element instanceof Byte || element instanceof BigInteger) {
+				current = true;
+			} else if (element instanceof String) {
+				current = false;
+			} else {
+				return null;
+			}
+			if (integer == null) {
+				integer = current;
+			} else if (integer.booleanValue() != current) {
+				return null;
+			}
+		}
+		return integer;
+	}
+
+	private static int getMaxLength(Collection<?> collection) {
+		int maxLength = 0;
+		Object element;
+		for (Iterator<?> it = collection.iterator(); it.hasNext();) {
+			element = it.next();
+			if (element != null) {
+				maxLength = Math.max(maxLength, ((String) element).length());
+			}
+		}
+		return maxLength;
+	}
+
+}
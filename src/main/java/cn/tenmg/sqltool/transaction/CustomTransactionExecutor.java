@@ -25,6 +25,7 @@ import cn.tenmg.sqltool.sql.executer.SelectSQLExecuter;
 import cn.tenmg.sqltool.sql.parser.DeleteDMLParser;
 import cn.tenmg.sqltool.sql.parser.GetDMLParser;
 import cn.tenmg.sqltool.sql.parser.InsertDMLParser;
+import cn.tenmg.sqltool.sql.utils.CompiledSQLUtils;
 import cn.tenmg.sqltool.sql.utils.EntityUtils;
 import cn.tenmg.sqltool.utils.JDBCExecuteUtils;
 import cn.tenmg.sqltool.utils.SQLDialectUtils;
@@ -462,19 +463,19 @@ public class CustomTransactionExecutor implements Serializable {
 	}
 
 	private boolean execute(NamedSQL namedSQL) throws SQLException {
-		Script<List<Object>> sql = DSQLFactory.toJDBC(namedSQL);
+		Script<List<Object>> sql = CompiledSQLUtils.toJDBC(DSQLFactory, namedSQL);
 		return (boolean) JDBCExecuteUtils.execute(getCurrentConnection(), ExecuteSQLExecuter.getInstance(),
 				namedSQL.getId(), sql.getValue(), sql.getParams(), showSql);
 	}
 
 	private int executeUpdate(NamedSQL namedSQL) throws SQLException {
-		Script<List<Object>> sql = DSQLFactory.toJDBC(namedSQL);
+		Script<List<Object>> sql = CompiledSQLUtils.toJDBC(DSQLFactory, namedSQL);
 		return (int) JDBCExecuteUtils.execute(getCurrentConnection(), ExecuteUpdateSQLExecuter.getInstance(),
 				namedSQL.getId(), sql.getValue(), sql.getParams(), showSql);
 	}
 
 	private <T> T execute(Connection con, NamedSQL namedSQL, SQLExecuter<T> sqlExecuter) throws SQLException {
-		Script<List<Object>> sql = DSQLFactory.toJDBC(namedSQL);
+		Script<List<Object>> sql = CompiledSQLUtils.toJDBC(DSQLFactory, namedSQL);
 		return JDBCExecuteUtils.execute(con, sqlExecuter, namedSQL.getId(), sql.getValue(), sql.getParams(), showSql);
 	}
 
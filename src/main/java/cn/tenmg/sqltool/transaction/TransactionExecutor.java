@@ -9,6 +9,7 @@ import cn.tenmg.dsl.Script;
 import cn.tenmg.dsl.utils.CollectionUtils;
 import cn.tenmg.dsql.DSQLFactory;
 import cn.tenmg.dsql.NamedSQL;
+import cn.tenmg.sqltool.macro.Hint;
 import cn.tenmg.sqltool.sql.DML;
 import cn.tenmg.sqltool.sql.SQLDialect;
 import cn.tenmg.sqltool.sql.executer.ExecuteSQLExecuter;
@@ -19,6 +20,7 @@ import cn.tenmg.sqltool.sql.parser.DeleteDMLParser;
 import cn.tenmg.sqltool.sql.parser.GetDMLParser;
 import cn.tenmg.sqltool.sql.parser.InsertDMLParser;
 import cn.tenmg.sqltool.sql.parser.UpdateDMLParser;
+import cn.tenmg.sqltool.sql.utils.CompiledSQLUtils;
 import cn.tenmg.sqltool.sql.utils.EntityUtils;
 import cn.tenmg.sqltool.utils.JDBCExecuteUtils;
 
@@ -341,7 +343,7 @@ public class TransactionExecutor implements Serializable {
 	 *             SQL异常
 	 */
 	public <T extends Serializable> T get(Class<T> type, String dsql, Object... params) throws SQLException {
-		return get(DSQLFactory.parse(dsql, params), type);
+		return get(parse(dsql, params), type);
 	}
 
 	/**
@@ -359,7 +361,7 @@ public class TransactionExecutor implements Serializable {
 	 *             SQL异常
 	 */
 	public <T extends Serializable> T get(Class<T> type, String dsql, Map<String, ?> params) throws SQLException {
-		return get(DSQLFactory.parse(dsql, params), type);
+		return get(parse(dsql, params), type);
 	}
 
 	/**
@@ -377,7 +379,7 @@ public class TransactionExecutor implements Serializable {
 	 *             SQL异常
 	 */
 	public <T extends Serializable> List<T> select(Class<T> type, String dsql, Object... params) throws SQLException {
-		return select(DSQLFactory.parse(dsql, params), type);
+		return select(parse(dsql, params), type);
 	}
 
 	/**
@@ -396,7 +398,7 @@ public class TransactionExecutor implements Serializable {
 	 */
 	public <T extends Serializable> List<T> select(Class<T> type, String dsql, Map<String, ?> params)
 			throws SQLException {
-		return select(DSQLFactory.parse(dsql, params), type);
+		return select(parse(dsql, params), type);
 	}
 
 	/**
@@ -411,7 +413,7 @@ public class TransactionExecutor implements Serializable {
 	 *             SQL异常
 	 */
 	public boolean execute(String dsql, Object... params) throws SQLException {
-		return this.execute(DSQLFactory.parse(dsql, params));
+		return this.execute(parse(dsql, params));
 	}
 
 	/**
@@ -426,7 +428,7 @@ public class TransactionExecutor implements Serializable {
 	 *             SQL异常
 	 */
 	public boolean execute(String dsql, Map<String, ?> params) throws SQLException {
-		return this.execute(DSQLFactory.parse(dsql, params));
+		return this.execute(parse(dsql, params));
 	}
 
 	/**
@@ -441,7 +443,7 @@ public class TransactionExecutor implements Serializable {
 	 *             SQL异常
 	 */
 	public int executeUpdate(String dsql, Object... params) throws SQLException {
-		return executeUpdate(DSQLFactory.parse(dsql, params));
+		return executeUpdate(parse(dsql, params));
 	}
 
 	/**
@@ -456,29 +458,47 @@ public class TransactionExecutor implements Serializable {
 	 *             SQL异常
 	 */
 	public int executeUpdate(String dsql, Map<String, ?> params) throws SQLException {
-		return executeUpdate(DSQLFactory.parse(dsql, params));
+		return executeUpdate(parse(dsql, params));
+	}
+
+	private NamedSQL parse(String dsql, Object... params) {
+		Hint.initEnv(dialect);// 初始化Hint的优化器提示解析环境
+		try {
+			return DSQLFactory.parse(dsql, params);
+		} finally {
+			Hint.clear();
+		}
+	}
+
+	private NamedSQL parse(String dsql, Map<String, ?> params) {
+		Hint.initEnv(dialect);// 初始化Hint的优化器提示解析环境
+		try {
+			return DSQLFactory.parse(dsql, params);
+		} finally {
+			Hint.clear();
+		}
 	}
 
 	private boolean execute(NamedSQL namedSQL) throws SQLException {
-		Script<List<Object>> sql = DSQLFactory.toJDBC(namedSQL);
+		Script<List<Object>> sql = CompiledSQLUtils.toJDBC(DSQLFactory, namedSQL);
 		return (boolean) JDBCExecuteUtils.execute(CurrentConnectionHolder.get(), ExecuteSQLExecuter.getInstance(),
 				namedSQL.getId(), sql.getValue(), sql.getParams(), showSql);
 	}
 
 	private int executeUpdate(NamedSQL namedSQL) throws SQLException {
-		Script<List<Object>> sql = DSQLFactory.toJDBC(namedSQL);
+		Script<List<Object>> sql = CompiledSQLUtils.toJDBC(DSQLFactory, namedSQL);
 		return JDBCExecuteUtils.execute(CurrentConnectionHolder.get(), ExecuteUpdateSQLExecuter.getInstance(),
 				namedSQL.getId(), sql.getValue(), sql.getParams(), showSql);
 	}
 
 	private <T extends Serializable> T get(NamedSQL namedSQL, Class<T> type) throws SQLException {
-		Script<List<Object>> sql = DSQLFactory.toJDBC(namedSQL);
+		Script<List<Object>> sql = CompiledSQLUtils.toJDBC(DSQLFactory, namedSQL);
 		return JDBCExecuteUtils.execute(CurrentConnectionHolder.get(), new GetSQLExecuter<T>(type), namedSQL.getId(),
 				sql.getValue(), sql.getParams(), showSql);
 	}
 
 	private <T extends Serializable> List<T> select(NamedSQL namedSQL, Class<T> type) throws SQLException {
-		Script<List<Object>> sql = DSQLFactory.toJDBC(namedSQL);
+		Script<List<Object>> sql = CompiledSQLUtils.toJDBC(DSQLFactory, namedSQL);
 		return JDBCExecuteUtils.execute(CurrentConnectionHolder.get(), new SelectSQLExecuter<T>(type), namedSQL.getId(),
 				sql.getValue(), sql.getParams(), showSql);
 	}
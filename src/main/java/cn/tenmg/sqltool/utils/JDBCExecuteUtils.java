@@ -1,29 +1,51 @@
 package cn.tenmg.sqltool.utils;
 
 import java.lang.reflect.Field;
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import cn.tenmg.dsl.Script;
 import cn.tenmg.dsl.utils.StringUtils;
 import cn.tenmg.sql.paging.utils.JDBCUtils;
+import cn.tenmg.sql.paging.utils.SQLUtils;
+import cn.tenmg.sqltool.data.StatementResult;
+import cn.tenmg.sqltool.datasource.Workload;
+import cn.tenmg.sqltool.datasource.WorkloadLaneDataSource;
 import cn.tenmg.sqltool.exception.DataAccessException;
 import cn.tenmg.sqltool.exception.SQLExecutorException;
+import cn.tenmg.sqltool.sql.ArrayParameter;
 import cn.tenmg.sqltool.sql.DML;
 import cn.tenmg.sqltool.sql.DMLParser;
 import cn.tenmg.sqltool.sql.MergeSQL;
 import cn.tenmg.sqltool.sql.SQLDialect;
 import cn.tenmg.sqltool.sql.SQLExecuter;
+import cn.tenmg.sqltool.sql.StatementOptions;
+import cn.tenmg.sqltool.sql.TempTable;
 import cn.tenmg.sqltool.sql.UpdateSQL;
+import cn.tenmg.sqltool.sql.executer.SelectSQLExecuter;
+import cn.tenmg.sqltool.sql.meta.EntityMeta;
 import cn.tenmg.sqltool.sql.meta.FieldMeta;
+import cn.tenmg.sqltool.sql.parser.GetDMLParser;
 import cn.tenmg.sqltool.sql.parser.UpdateDMLParser;
+import cn.tenmg.sqltool.sql.utils.EntityUtils;
+import cn.tenmg.sqltool.sql.utils.ScriptUtils;
 
 /**
  * JDBC执行工具类
@@ -65,7 +87,7 @@ public abstract class JDBCExecuteUtils {
 		ResultSet rs = null;
 		try {
 			ps = con.prepareStatement(sql);
-			JDBCUtils.setParams(ps, params);
+			JDBCUtils.setParams(ps, createArrays(con, params));
 			if (showSql && log.isInfoEnabled()) {
 				log.info(logPrefix(id, sql).append(sql).append(COMMA_SPACE).append("parameters: ")
 						.append(JSONUtils.toJSONString(params)).toString());
@@ -78,6 +100,165 @@ public abstract class JDBCExecuteUtils {
 		}
 	}
 
+	/**
+	 * 以一条语句执行多个查询，并依次使用各查询的SQL执行器处理对应的结果集。语句执行过程中产生的更新计数将被跳过。
+	 * 由于不调用各SQL执行器的{@link SQLExecuter#execute(PreparedStatement)}方法，各查询对语句的设置须合并后通过statementOptions指定
+	 * 
+	 * @param con
+	 *            连接对象
+	 * @param sqlExecuters
+	 *            与查询一一对应的SQL执行器
+	 * @param statementOptions
+	 *            应用到共享语句的语句选项，可为null
+	 * @param resultOptions
+	 *            与查询一一对应的语句选项，其中的每次获取的行数将应用到对应的结果集，可为null
+	 * @param id
+	 *            DSQL编号，仅用于打印SQL
+	 * @param sqls
+	 *            查询SQL及其参数
+	 * @param showSql
+	 *            是否打印SQL
+	 * @return 返回与查询一一对应的执行结果
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public static List<Object> executeMulti(Connection con, List<SQLExecuter<?>> sqlExecuters,
+			StatementOptions statementOptions, List<StatementOptions> resultOptions, String id,
+			List<Script<List<Object>>> sqls, boolean showSql) throws SQLException {
+		StringBuilder sql = new StringBuilder();
+		List<Object> params = new ArrayList<Object>();
+		Script<List<Object>> script;
+		String value;
+		for (int i = 0, size = sqls.size(); i < size; i++) {
+			script = sqls.get(i);
+			value = trimSemicolon(script.getValue());
+			sql.append(value);
+			if (i < size - 1) {
+				sql.append(value.indexOf("--") < 0 ? ";" : LINE_SPLITOR + ";").append(LINE_SPLITOR);
+			}
+			if (script.getParams() != null) {
+				params.addAll(script.getParams());
+			}
+		}
+		PreparedStatement ps = null;
+		try {
+			ps = con.prepareStatement(sql.toString());
+			setOptions(ps, statementOptions);
+			JDBCUtils.setParams(ps, createArrays(con, params));
+			if (showSql && log.isInfoEnabled()) {
+				log.info(logPrefix(id, sql.toString()).append(sql).append(COMMA_SPACE).append("parameters: ")
+						.append(JSONUtils.toJSONString(params)).toString());
+			}
+			List<Object> results = new ArrayList<Object>(sqlExecuters.size());
+			boolean isResultSet = ps.execute();
+			ResultSet rs;
+			StatementOptions options;
+			for (int i = 0, size = sqlExecuters.size(); i < size; i++) {
+				while (!isResultSet) {// 跳过更新计数
+					if (ps.getUpdateCount() == -1) {
+						throw new SQLExecutorException("The statement returned fewer result sets than queries");
+					}
+					isResultSet = ps.getMoreResults();
+				}
+				rs = ps.getResultSet();
+				try {
+					options = resultOptions == null ? null : resultOptions.get(i);
+					if (options != null && options.getFetchSize() != null) {
+						rs.setFetchSize(options.getFetchSize());
+					}
+					results.add(sqlExecuters.get(i).execute(ps, rs));
+				} finally {
+					JDBCUtils.close(rs);
+				}
+				isResultSet = ps.getMoreResults();
+			}
+			return results;
+		} finally {
+			JDBCUtils.close(ps);
+		}
+	}
+
+	/**
+	 * 将语句选项应用到语句，值为null的选项保持不变
+	 * 
+	 * @param statement
+	 *            语句
+	 * @param options
+	 *            语句选项，为null时不做任何设置
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public static void setOptions(Statement statement, StatementOptions options) throws SQLException {
+		if (options == null) {
+			return;
+		}
+		if (options.getFetchSize() != null) {
+			statement.setFetchSize(options.getFetchSize());
+		}
+		if (options.getMaxRows() != null) {
+			statement.setMaxRows(options.getMaxRows());
+		}
+		if (options.getQueryTimeout() != null) {
+			statement.setQueryTimeout(options.getQueryTimeout());
+		}
+	}
+
+	/**
+	 * 依次执行SQL脚本中的语句。连续的数据操纵语句合并为批处理执行，其他语句逐条执行
+	 * 
+	 * @param con
+	 *            连接对象
+	 * @param statements
+	 *            拆分后的语句
+	 * @param batchSize
+	 *            批处理的最大语句数
+	 * @param showSql
+	 *            是否打印SQL
+	 * @return 返回与语句一一对应的执行结果
+	 * @throws SQLException
+	 *             SQL异常，异常信息中包含执行失败的语句序号
+	 */
+	public static List<StatementResult> runScript(Connection con, List<String> statements, int batchSize,
+			boolean showSql) throws SQLException {
+		List<StatementResult> results = new ArrayList<StatementResult>(statements.size());
+		List<String> batch = new ArrayList<String>();
+		Statement statement = null;
+		try {
+			statement = con.createStatement();
+			String sql;
+			for (int i = 0, size = statements.size(); i < size; i++) {
+				sql = statements.get(i);
+				if (ScriptUtils.isDML(sql)) {
+					batch.add(sql);
+					if (batch.size() >= batchSize) {
+						executeBatch(statement, batch, results, showSql);
+					}
+					continue;
+				}
+				if (!batch.isEmpty()) {
+					executeBatch(statement, batch, results, showSql);
+				}
+				if (showSql && log.isInfoEnabled()) {
+					log(sql);
+				}
+				long start = System.nanoTime();
+				try {
+					statement.execute(sql);
+				} catch (SQLException e) {
+					throw new SQLException("Failed to execute statement #" + (i + 1) + " of the script",
+							e.getSQLState(), e.getErrorCode(), e);
+				}
+				results.add(new StatementResult(sql, statement.getUpdateCount(), System.nanoTime() - start, false));
+			}
+			if (!batch.isEmpty()) {
+				executeBatch(statement, batch, results, showSql);
+			}
+			return results;
+		} finally {
+			JDBCUtils.close(statement);
+		}
+	}
+
 	/**
 	 * 使用实体对象列表批处理插入、更新或删除数据
 	 * 
@@ -133,7 +314,7 @@ public abstract class JDBCExecuteUtils {
 		PreparedStatement ps = null;
 		try {
 			int size = rows.size(), current = 0, times = (int) Math.ceil(size / (double) batchSize);
-			con = dataSource.getConnection();
+			con = WorkloadLaneDataSource.getConnection(dataSource, Workload.BULK);
 			con.setAutoCommit(false);
 			con.setReadOnly(false);
 			String sql = mergeSql.getScript();
@@ -186,7 +367,7 @@ public abstract class JDBCExecuteUtils {
 		Connection con = null;
 		PreparedStatement ps = null;
 		try {
-			con = dataSource.getConnection();
+			con = WorkloadLaneDataSource.getConnection(dataSource, Workload.BULK);
 			con.setAutoCommit(false);
 			con.setReadOnly(false);
 			ps = con.prepareStatement(sql);
@@ -237,7 +418,7 @@ public abstract class JDBCExecuteUtils {
 		PreparedStatement ps = null;
 		try {
 			int size = rows.size(), current = 0, times = (int) Math.ceil(size / (double) batchSize);
-			con = dataSource.getConnection();
+			con = WorkloadLaneDataSource.getConnection(dataSource, Workload.BULK);
 			con.setAutoCommit(false);
 			con.setReadOnly(false);
 			String sql = updateSql.getScript();
@@ -404,6 +585,234 @@ public abstract class JDBCExecuteUtils {
 		}
 	}
 
+	/**
+	 * 根据主键批量查询记录。主键值去重后分批查询，单一主键使用IN列表，联合主键使用OR连接的条件组，每批的主键个数不超过批容量，且不超过SQL方言允许的IN列表长度和参数个数
+	 * 
+	 * @param con
+	 *            连接对象
+	 * @param dialect
+	 *            SQL方言
+	 * @param type
+	 *            实体类
+	 * @param keys
+	 *            主键值列表，每个元素为按主键属性顺序排列的主键值
+	 * @param batchSize
+	 *            批容量
+	 * @param showSql
+	 *            是否打印SQL
+	 * @return 返回与主键值列表顺序一一对应的记录列表，记录不存在时对应的元素为null
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public static <T> List<T> getAll(Connection con, SQLDialect dialect, Class<T> type, List<List<Object>> keys,
+			int batchSize, boolean showSql) throws SQLException {
+		List<Field> idFields = GetDMLParser.getInstance().parse(type).getFields();
+		EntityMeta entityMeta = EntityUtils.getCachedEntityMeta(type);
+		List<FieldMeta> fieldMetas = entityMeta.getFieldMetas();
+		List<String> idColumns = new ArrayList<String>();
+		StringBuilder select = new StringBuilder("SELECT ");
+		FieldMeta fieldMeta;
+		for (int i = 0, size = fieldMetas.size(); i < size; i++) {
+			fieldMeta = fieldMetas.get(i);
+			if (i > 0) {
+				select.append(COMMA_SPACE);
+			}
+			select.append(fieldMeta.getColumnName());
+			if (fieldMeta.isId()) {
+				idColumns.add(fieldMeta.getColumnName());
+			}
+		}
+		select.append(" FROM ").append(entityMeta.getTableName()).append(" WHERE ");
+		List<List<Object>> distinctKeys = new ArrayList<List<Object>>();
+		Set<List<Object>> normalizedKeys = new HashSet<List<Object>>();
+		List<Object> key;
+		for (int i = 0, size = keys.size(); i < size; i++) {
+			key = keys.get(i);
+			if (key != null && !key.contains(null) && normalizedKeys.add(normalizeKey(key))) {
+				distinctKeys.add(key);
+			}
+		}
+		int idCount = idColumns.size(), limit = Math.max(1,
+				Math.min(batchSize, Math.min(dialect.getMaxInListSize(), dialect.getMaxParameters() / idCount)));
+		Map<List<Object>, T> rows = new HashMap<List<Object>, T>();
+		SelectSQLExecuter<T> sqlExecuter = new SelectSQLExecuter<T>(type);
+		for (int from = 0, size = distinctKeys.size(); from < size; from += limit) {
+			int to = Math.min(from + limit, size);
+			StringBuilder sql = new StringBuilder(select);
+			List<Object> params = new ArrayList<Object>();
+			if (idCount == 1) {
+				sql.append(idColumns.get(0)).append(" IN (");
+				for (int i = from; i < to; i++) {
+					if (i > from) {
+						sql.append(COMMA_SPACE);
+					}
+					sql.append(SQLUtils.PARAM_MARK);
+					params.add(distinctKeys.get(i).get(0));
+				}
+				sql.append(")");
+			} else {
+				for (int i = from; i < to; i++) {
+					if (i > from) {
+						sql.append(" OR ");
+					}
+					sql.append("(");
+					key = distinctKeys.get(i);
+					for (int j = 0; j < idCount; j++) {
+						if (j > 0) {
+							sql.append(SPACE_AND_SPACE);
+						}
+						sql.append(idColumns.get(j)).append(SPACE_EQ_SPACE).append(SQLUtils.PARAM_MARK);
+						params.add(key.get(j));
+					}
+					sql.append(")");
+				}
+			}
+			List<T> result = execute(con, sqlExecuter, null, sql.toString(), params, showSql);
+			T row;
+			for (int i = 0, count = result.size(); i < count; i++) {
+				row = result.get(i);
+				rows.put(normalizeKey(EntityUtils.getParams(row, idFields)), row);
+			}
+		}
+		List<T> aligned = new ArrayList<T>(keys.size());
+		for (int i = 0, size = keys.size(); i < size; i++) {
+			key = keys.get(i);
+			aligned.add(key == null ? null : rows.get(normalizeKey(key)));
+		}
+		return aligned;
+	}
+
+	/**
+	 * 创建临时表并批量插入元素。创建前先删除（或清空）同名临时表，避免同一会话中此前未能清理的临时表导致创建失败或混入旧的元素
+	 * 
+	 * @param con
+	 *            连接对象
+	 * @param tempTable
+	 *            临时表
+	 * @param elements
+	 *            元素集合
+	 * @param batchSize
+	 *            批容量
+	 * @param showSql
+	 *            是否打印SQL
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public static void createTempTable(Connection con, TempTable tempTable, Collection<?> elements, int batchSize,
+			boolean showSql) throws SQLException {
+		executeStatement(con, tempTable.getDropSql(), showSql);
+		String sql = tempTable.getCreateSql();
+		if (sql != null) {// 使用预先创建的临时表时无需创建
+			executeStatement(con, sql, showSql);
+		}
+		sql = tempTable.getInsertSql();
+		if (showSql && log.isInfoEnabled()) {
+			log(sql);
+		}
+		PreparedStatement ps = null;
+		try {
+			ps = con.prepareStatement(sql);
+			int count = 0;
+			for (Iterator<?> it = elements.iterator(); it.hasNext();) {
+				ps.setObject(1, it.next());
+				ps.addBatch();
+				if (++count % batchSize == 0) {
+					ps.executeBatch();
+					ps.clearBatch();
+				}
+			}
+			if (count % batchSize != 0) {
+				ps.executeBatch();
+			}
+		} finally {
+			JDBCUtils.close(ps);
+		}
+	}
+
+	/**
+	 * 删除（或清空）临时表
+	 * 
+	 * @param con
+	 *            连接对象
+	 * @param tempTable
+	 *            临时表
+	 * @param showSql
+	 *            是否打印SQL
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	public static void dropTempTable(Connection con, TempTable tempTable, boolean showSql) throws SQLException {
+		executeStatement(con, tempTable.getDropSql(), showSql);
+	}
+
+	/**
+	 * 使用非预编译的语句执行SQL。SQLServer数据库在预编译语句中创建的临时表会在语句结束时删除，因此创建临时表须使用非预编译的语句
+	 * 
+	 * @param con
+	 *            连接对象
+	 * @param sql
+	 *            SQL
+	 * @param showSql
+	 *            是否打印SQL
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	private static void executeStatement(Connection con, String sql, boolean showSql) throws SQLException {
+		if (showSql && log.isInfoEnabled()) {
+			log(sql);
+		}
+		Statement statement = null;
+		try {
+			statement = con.createStatement();
+			statement.execute(sql);
+		} finally {
+			JDBCUtils.close(statement);
+		}
+	}
+
+	/**
+	 * 以批处理方式执行SQL脚本中连续的数据操纵语句，执行后清空批次
+	 * 
+	 * @param statement
+	 *            语句对象
+	 * @param batch
+	 *            批次中的语句
+	 * @param results
+	 *            已执行语句的执行结果
+	 * @param showSql
+	 *            是否打印SQL
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	private static void executeBatch(Statement statement, List<String> batch, List<StatementResult> results,
+			boolean showSql) throws SQLException {
+		String sql;
+		for (int i = 0, size = batch.size(); i < size; i++) {
+			sql = batch.get(i);
+			if (showSql && log.isInfoEnabled()) {
+				log(sql);
+			}
+			statement.addBatch(sql);
+		}
+		int first = results.size() + 1;
+		long start = System.nanoTime();
+		int[] counts;
+		try {
+			counts = statement.executeBatch();
+		} catch (SQLException e) {
+			throw new SQLException("Failed to execute statements #" + first + "-#" + (first + batch.size() - 1)
+					+ " of the script", e.getSQLState(), e.getErrorCode(), e);
+		} finally {
+			statement.clearBatch();
+		}
+		long elapsed = System.nanoTime() - start;
+		for (int i = 0, size = batch.size(); i < size; i++) {
+			results.add(new StatementResult(batch.get(i), i < counts.length ? counts[i] : Statement.SUCCESS_NO_INFO,
+					elapsed, true));
+		}
+		batch.clear();
+	}
+
 	/**
 	 * 添加一个批量
 	 * 
@@ -451,6 +860,80 @@ public abstract class JDBCExecuteUtils {
 		ps.addBatch();
 	}
 
+	/**
+	 * 规范化主键值，使数值类型不同但数值相等的主键值（例如Integer和Long）能够匹配
+	 * 
+	 * @param key
+	 *            主键值
+	 * @return 返回规范化后的主键值
+	 */
+	private static List<Object> normalizeKey(List<Object> key) {
+		List<Object> normalized = new ArrayList<Object>(key.size());
+		Object value;
+		for (int i = 0, size = key.size(); i < size; i++) {
+			value = key.get(i);
+			if (value instanceof Number) {
+				try {
+					value = new BigDecimal(value.toString()).stripTrailingZeros();
+				} catch (NumberFormatException e) {
+					// NaN或Infinity等无法转换的数值保持原值
+				}
+			}
+			normalized.add(value);
+		}
+		return normalized;
+	}
+
+	/**
+	 * 将参数中的数组参数创建为JDBC数组
+	 * 
+	 * @param con
+	 *            连接对象
+	 * @param params
+	 *            参数
+	 * @return 返回可直接绑定的参数。参数中不含数组参数时返回原参数
+	 * @throws SQLException
+	 *             SQL异常
+	 */
+	private static List<Object> createArrays(Connection con, List<Object> params) throws SQLException {
+		if (params == null) {
+			return params;
+		}
+		List<Object> values = null;
+		Object value;
+		for (int i = 0, size = params.size(); i < size; i++) {
+			value = params.get(i);
+			if (value instanceof ArrayParameter) {
+				if (values == null) {
+					values = new ArrayList<Object>(params);
+				}
+				values.set(i, ((ArrayParameter) value).toArray(con));
+			}
+		}
+		return values == null ? params : values;
+	}
+
+	/**
+	 * 去除SQL末尾的空白字符和分号
+	 * 
+	 * @param sql
+	 *            SQL
+	 * @return 返回去除末尾空白字符和分号后的SQL
+	 */
+	private static String trimSemicolon(String sql) {
+		int end = sql.length();
+		char c;
+		while (end > 0) {
+			c = sql.charAt(end - 1);
+			if (c == ';' || Character.isWhitespace(c)) {
+				end--;
+			} else {
+				break;
+			}
+		}
+		return sql.substring(0, end);
+	}
+
 	/**
 	 * 根据批量提交返回结果集汇总影响行数
 	 * 
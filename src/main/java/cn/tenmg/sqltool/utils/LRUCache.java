@@ -0,0 +1,181 @@
+package cn.tenmg.sqltool.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 线程安全的定容缓存，容量已满时近似地淘汰最近最少使用的条目。读取无锁，仅记录条目的访问时钟；
+ * 写入使条目数超出容量时，由一个线程按访问时钟批量淘汰最久未访问的条目（每次淘汰容量的{@value #EVICTION_DIVISOR}分之一），
+ * 淘汰期间条目数可能短暂地超出容量
+ *
+ * @author June wjzhao@aliyun.com
+ *
+ * @param <K>
+ *            键的类型
+ * @param <V>
+ *            值的类型
+ * @since 1.5.4
+ */
+public class LRUCache<K, V> {
+
+	private static final int EVICTION_DIVISOR = 16;
+
+	private final ConcurrentHashMap<K, Node<V>> entries;
+
+	private final int capacity;
+
+	private final Object evictionLock = new Object();
+
+	/**
+	 * 访问时钟，仅在写入时前进，读取时将其记录到条目上
+	 */
+	private final AtomicLong clock = new AtomicLong();
+
+	/**
+	 * 构造定容缓存
+	 *
+	 * @param capacity
+	 *            容量
+	 */
+	public LRUCache(int capacity) {
+		this.capacity = capacity;
+		this.entries = new ConcurrentHashMap<K, Node<V>>();
+	}
+
+	/**
+	 * 获取缓存的值
+	 *
+	 * @param key
+	 *            键
+	 * @return 返回缓存的值，不存在时返回null
+	 */
+	public V get(K key) {
+		Node<V> node = entries.get(key);
+		if (node == null) {
+			return null;
+		}
+		node.touch(clock.get());
+		return node.value;
+	}
+
+	/**
+	 * 缓存值，容量已满时淘汰最近最少使用的条目
+	 *
+	 * @param key
+	 *            键
+	 * @param value
+	 *            值
+	 */
+	public void put(K key, V value) {
+		entries.put(key, new Node<V>(value, tick()));
+		evictIfNecessary();
+	}
+
+	/**
+	 * 键不存在时缓存值，容量已满时淘汰最近最少使用的条目
+	 *
+	 * @param key
+	 *            键
+	 * @param value
+	 *            值
+	 * @return 返回键已对应的值，不存在时返回null（即已缓存指定的值）
+	 */
+	public V putIfAbsent(K key, V value) {
+		Node<V> node = entries.putIfAbsent(key, new Node<V>(value, tick()));
+		if (node == null) {
+			evictIfNecessary();
+			return null;
+		}
+		node.touch(clock.get());
+		return node.value;
+	}
+
+	/**
+	 * 获取缓存的条目数
+	 *
+	 * @return 返回缓存的条目数
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * 清空缓存
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	private long tick() {
+		return clock.incrementAndGet();
+	}
+
+	private void evictIfNecessary() {
+		if (entries.size() <= capacity) {
+			return;
+		}
+		synchronized (evictionLock) {
+			int excess = entries.size() - capacity;
+			if (excess <= 0) {// 其他线程已完成淘汰
+				return;
+			}
+			List<Entry<K, Node<V>>> candidates = new ArrayList<Entry<K, Node<V>>>(entries.entrySet());
+			int size = candidates.size(),
+					evictions = Math.min(size, excess + Math.max(1, capacity / EVICTION_DIVISOR) - 1);
+			if (evictions <= 0) {
+				return;
+			}
+			// 访问时钟在淘汰期间仍可能变化，先取快照再确定淘汰的时钟阈值
+			long[] accessed = new long[size];
+			for (int i = 0; i < size; i++) {
+				accessed[i] = candidates.get(i).getValue().accessed;
+			}
+			long[] sorted = accessed.clone();
+			Arrays.sort(sorted);
+			long threshold = sorted[evictions - 1];
+			for (int i = 0; i < size && evictions > 0; i++) {
+				if (accessed[i] <= threshold) {
+					Entry<K, Node<V>> entry = candidates.get(i);
+					entries.remove(entry.getKey(), entry.getValue());
+					evictions--;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 缓存的条目
+	 *
+	 * @author June wjzhao@aliyun.com
+	 *
+	 * @param <V>
+	 *            值的类型
+	 * @since 1.5.4
+	 */
+	private static class Node<V> {
+
+		private final V value;
+
+		private volatile long accessed;
+
+		private Node(V value, long accessed) {
+			this.value = value;
+			this.accessed = accessed;
+		}
+
+		/**
+		 * 记录访问时钟。时钟未前进时不写入，避免并发读取同一条目时反复写同一缓存行
+		 */
+		private void touch(long clock) {
+			if (accessed != clock) {
+				accessed = clock;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,96 @@
+package cn.tenmg.sqltool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.tenmg.sqltool.datasource.ConcurrencyLimiter;
+
+public class ConcurrencyLimiterTest {
+
+	private static final long MILLIS = 1000000L;
+
+	@Test
+	public void testIncrease() throws InterruptedException {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 16, 0, 2);
+		Assertions.assertEquals(8, limiter.getLimit());
+		// 耗时稳定且并发达到上限时逐步提高上限，直至最大值
+		for (int i = 0; i < 200; i++) {
+			run(limiter, limiter.getLimit(), 5 * MILLIS);
+		}
+		Assertions.assertEquals(16, limiter.getLimit());
+		// 并发远低于上限时不再提高
+		limiter = new ConcurrencyLimiter(4, 16, 0, 2);
+		for (int i = 0; i < 200; i++) {
+			run(limiter, 1, 5 * MILLIS);
+		}
+		Assertions.assertEquals(8, limiter.getLimit());
+	}
+
+	@Test
+	public void testDecrease() throws InterruptedException {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 16, 0, 2);
+		for (int i = 0; i < 10; i++) {
+			window(limiter, 5 * MILLIS);
+		}
+		Assertions.assertEquals(8, limiter.getLimit());
+		// 耗时超过基准耗时的容忍倍数时每个窗口降低一次上限
+		window(limiter, 50 * MILLIS);
+		Assertions.assertEquals(7, limiter.getLimit());
+		// 上限不低于最小值，降至最小值后耗时仍超标时以当前耗时作为新的基准耗时
+		for (int i = 0; i < 50 && limiter.getBaselineNanos() < 50 * MILLIS; i++) {
+			window(limiter, 50 * MILLIS);
+		}
+		Assertions.assertEquals(4, limiter.getLimit());
+		Assertions.assertTrue(limiter.getBaselineNanos() >= 50 * MILLIS);
+		// 之后耗时不再超标，并发接近上限时恢复提高
+		for (int i = 0; i < 200; i++) {
+			run(limiter, limiter.getLimit(), 50 * MILLIS);
+		}
+		Assertions.assertTrue(limiter.getLimit() > 4);
+	}
+
+	@Test
+	public void testBaselineIgnoresOutliers() throws InterruptedException {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 16, 0, 2);
+		// 少数极短的查询不会拉低基准耗时，也就不会使正常耗时的查询被判为超标
+		for (int i = 0; i < 200; i++) {
+			run(limiter, 1, i % 20 == 0 ? 0 : 5 * MILLIS);
+			run(limiter, limiter.getLimit(), 5 * MILLIS);
+		}
+		Assertions.assertEquals(16, limiter.getLimit());
+		Assertions.assertTrue(limiter.getBaselineNanos() >= 4 * MILLIS);
+	}
+
+	@Test
+	public void testRejection() throws InterruptedException {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 2, 0, 2);
+		Assertions.assertTrue(limiter.acquire());
+		Assertions.assertFalse(limiter.acquire());
+		Assertions.assertEquals(1, limiter.getRejected());
+		limiter.release(System.nanoTime(), false);
+		Assertions.assertTrue(limiter.acquire());
+		Assertions.assertEquals(1, limiter.getInFlight());
+	}
+
+	/**
+	 * 依次执行一个窗口的样本数（100）次，每次执行的耗时均为指定时长
+	 */
+	private static void window(ConcurrencyLimiter limiter, long latency) throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			run(limiter, 1, latency);
+		}
+	}
+
+	/**
+	 * 获取指定数量的许可后全部归还，每次执行的耗时均为指定时长
+	 */
+	private static void run(ConcurrencyLimiter limiter, int concurrency, long latency) throws InterruptedException {
+		for (int i = 0; i < concurrency; i++) {
+			Assertions.assertTrue(limiter.acquire());
+		}
+		for (int i = 0; i < concurrency; i++) {
+			limiter.release(System.nanoTime() - latency, true);
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+package cn.tenmg.sqltool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.tenmg.sqltool.sql.utils.CountSQLUtils;
+
+public class CountSQLUtilsTest {
+
+	@Test
+	public void testOrderByStripping() {
+		Assertions.assertEquals("SELECT COUNT(*) FROM STAFF_INFO WHERE POSITION = :position",
+				CountSQLUtils.countSql("SELECT * FROM STAFF_INFO WHERE POSITION = :position ORDER BY STAFF_ID"));
+		// 字符串中的ORDER BY不是子句
+		Assertions.assertEquals("SELECT COUNT(*) FROM STAFF_INFO WHERE STAFF_NAME = 'ORDER BY'",
+				CountSQLUtils.countSql("SELECT * FROM STAFF_INFO WHERE STAFF_NAME = 'ORDER BY' ORDER BY STAFF_ID"));
+		// 子查询中的ORDER BY保持不变，仅去除顶层的ORDER BY
+		Assertions.assertEquals("SELECT COUNT(*) FROM (SELECT * FROM STAFF_INFO ORDER BY STAFF_ID) S",
+				CountSQLUtils.countSql("SELECT * FROM (SELECT * FROM STAFF_INFO ORDER BY STAFF_ID) S ORDER BY S.POSITION"));
+		Assertions.assertEquals("SELECT COUNT(*) FROM STAFF_INFO",
+				CountSQLUtils.countSql("SELECT * FROM STAFF_INFO ORDER BY (SELECT MAX(STAFF_ID) FROM STAFF_INFO)"));
+		// 存在单行注释时保留末尾换行，避免注释吞掉后续内容
+		Assertions.assertEquals("SELECT COUNT(*) FROM STAFF_INFO WHERE POSITION = :position -- 职位\n",
+				CountSQLUtils.countSql("SELECT * FROM STAFF_INFO WHERE POSITION = :position -- 职位\nORDER BY STAFF_ID"));
+	}
+
+	@Test
+	public void testLeftJoinElimination() {
+		// 去重查询中未被引用的LEFT JOIN不影响记录数
+		Assertions.assertEquals(
+				"SELECT COUNT(*) FROM (SELECT DISTINCT S.STAFF_ID, S.STAFF_NAME FROM STAFF_INFO S WHERE S.POSITION = :position) SQLTOOL_COUNT",
+				CountSQLUtils.countSql("SELECT DISTINCT S.STAFF_ID, S.STAFF_NAME FROM STAFF_INFO S"
+						+ " LEFT JOIN DEPT D ON D.DEPT_ID = S.DEPT_ID WHERE S.POSITION = :position ORDER BY S.STAFF_ID"));
+		// 被WHERE子句引用的LEFT JOIN保留
+		Assertions.assertEquals(
+				"SELECT COUNT(*) FROM (SELECT DISTINCT S.STAFF_ID FROM STAFF_INFO S LEFT JOIN DEPT D ON D.DEPT_ID = S.DEPT_ID WHERE D.DEPT_NAME = :deptName) SQLTOOL_COUNT",
+				CountSQLUtils.countSql("SELECT DISTINCT S.STAFF_ID FROM STAFF_INFO S"
+						+ " LEFT JOIN DEPT D ON D.DEPT_ID = S.DEPT_ID WHERE D.DEPT_NAME = :deptName"));
+		// 被保留的连接的条件引用的LEFT JOIN保留，仅被已去除的连接引用的LEFT JOIN一并去除
+		Assertions.assertEquals(
+				"SELECT COUNT(*) FROM (SELECT DISTINCT S.STAFF_ID, C.CORP_NAME FROM STAFF_INFO S LEFT JOIN DEPT D ON D.DEPT_ID = S.DEPT_ID LEFT JOIN CORP C ON C.CORP_ID = D.CORP_ID) SQLTOOL_COUNT",
+				CountSQLUtils.countSql("SELECT DISTINCT S.STAFF_ID, C.CORP_NAME FROM STAFF_INFO S LEFT JOIN DEPT D"
+						+ " ON D.DEPT_ID = S.DEPT_ID LEFT JOIN CORP C ON C.CORP_ID = D.CORP_ID"));
+		Assertions.assertEquals("SELECT COUNT(*) FROM (SELECT DISTINCT S.STAFF_ID FROM STAFF_INFO S) SQLTOOL_COUNT",
+				CountSQLUtils.countSql("SELECT DISTINCT S.STAFF_ID FROM STAFF_INFO S LEFT JOIN DEPT D"
+						+ " ON D.DEPT_ID = S.DEPT_ID LEFT JOIN CORP C ON C.CORP_ID = D.CORP_ID"));
+		// 非去重查询中LEFT JOIN可能关联多条记录，默认不去除
+		Assertions.assertEquals("SELECT COUNT(*) FROM STAFF_INFO S LEFT JOIN DEPT D ON D.DEPT_ID = S.DEPT_ID",
+				CountSQLUtils.countSql("SELECT S.STAFF_ID FROM STAFF_INFO S LEFT JOIN DEPT D ON D.DEPT_ID = S.DEPT_ID"));
+		// 存在无法确定归属的列时不去除
+		Assertions.assertEquals(
+				"SELECT COUNT(*) FROM (SELECT DISTINCT STAFF_ID FROM STAFF_INFO S LEFT JOIN DEPT D ON D.DEPT_ID = S.DEPT_ID) SQLTOOL_COUNT",
+				CountSQLUtils.countSql(
+						"SELECT DISTINCT STAFF_ID FROM STAFF_INFO S LEFT JOIN DEPT D ON D.DEPT_ID = S.DEPT_ID"));
+		// RIGHT JOIN不去除
+		Assertions.assertEquals(
+				"SELECT COUNT(*) FROM (SELECT DISTINCT S.STAFF_ID FROM STAFF_INFO S RIGHT JOIN DEPT D ON D.DEPT_ID = S.DEPT_ID) SQLTOOL_COUNT",
+				CountSQLUtils.countSql(
+						"SELECT DISTINCT S.STAFF_ID FROM STAFF_INFO S RIGHT JOIN DEPT D ON D.DEPT_ID = S.DEPT_ID"));
+	}
+
+	@Test
+	public void testDistinctAndGroupByWrapping() {
+		Assertions.assertEquals("SELECT COUNT(*) FROM (SELECT DISTINCT POSITION FROM STAFF_INFO) SQLTOOL_COUNT",
+				CountSQLUtils.countSql("SELECT DISTINCT POSITION FROM STAFF_INFO ORDER BY POSITION"));
+		// 分组查询的记录数即分组数，无需计算查询列
+		Assertions.assertEquals(
+				"SELECT COUNT(*) FROM (SELECT 1 AS SQLTOOL_C FROM STAFF_INFO S GROUP BY S.POSITION) SQLTOOL_COUNT",
+				CountSQLUtils.countSql(
+						"SELECT S.POSITION, COUNT(*) FROM STAFF_INFO S GROUP BY S.POSITION ORDER BY S.POSITION"));
+		Assertions.assertEquals(
+				"SELECT COUNT(*) FROM (SELECT 1 AS SQLTOOL_C FROM STAFF_INFO S GROUP BY S.POSITION, S.STAFF_NAME) SQLTOOL_COUNT",
+				CountSQLUtils.countSql("SELECT DISTINCT S.POSITION, S.STAFF_NAME FROM STAFF_INFO S"
+						+ " GROUP BY S.POSITION, S.STAFF_NAME"));
+		// 分组子句引用了查询列的别名时保留查询列
+		Assertions.assertEquals(
+				"SELECT COUNT(*) FROM (SELECT S.POSITION AS P FROM STAFF_INFO S GROUP BY P) SQLTOOL_COUNT",
+				CountSQLUtils.countSql("SELECT S.POSITION AS P FROM STAFF_INFO S GROUP BY P"));
+		Assertions.assertEquals(
+				"SELECT COUNT(*) FROM (SELECT 1 AS SQLTOOL_C FROM STAFF_INFO GROUP BY POSITION HAVING COUNT(*) > :count) SQLTOOL_COUNT",
+				CountSQLUtils.countSql("SELECT POSITION, COUNT(*) FROM STAFF_INFO GROUP BY POSITION"
+						+ " HAVING COUNT(*) > :count ORDER BY POSITION"));
+	}
+
+	@Test
+	public void testFallback() {
+		// 无法证明改写安全时返回null，由方言包装原查询
+		Assertions.assertNull(CountSQLUtils.countSql("SELECT COUNT(*) FROM STAFF_INFO"));
+		Assertions.assertNull(CountSQLUtils.countSql("SELECT MAX(STAFF_ID) FROM STAFF_INFO HAVING COUNT(*) > 1"));
+		Assertions.assertNull(CountSQLUtils.countSql("SELECT STAFF_ID FROM STAFF_INFO UNION SELECT STAFF_ID FROM STAFF"));
+		Assertions.assertNull(CountSQLUtils.countSql("WITH S AS (SELECT * FROM STAFF_INFO) SELECT * FROM S"));
+		Assertions.assertNull(CountSQLUtils.countSql("SELECT * FROM STAFF_INFO LIMIT 10"));
+		Assertions.assertNull(CountSQLUtils.countSql("SELECT * FROM STAFF_INFO ORDER BY STAFF_ID FOR UPDATE"));
+		Assertions.assertNull(CountSQLUtils.countSql("SELECT * FROM STAFF_INFO; SELECT * FROM STAFF_INFO"));
+		Assertions.assertNull(CountSQLUtils.countSql("SELECT 1"));
+		Assertions.assertNull(CountSQLUtils.countSql("UPDATE STAFF_INFO SET POSITION = :position"));
+		Assertions.assertNull(CountSQLUtils.countSql("SELECT * FROM STAFF_INFO WHERE STAFF_NAME = 'unclosed"));
+		Assertions.assertNull(CountSQLUtils.countSql(""));
+	}
+
+	@Test
+	public void testTrailingClause() {
+		String sql = "SELECT DISTINCT POSITION FROM STAFF_INFO OPTION (MAXDOP 4)";
+		Assertions.assertEquals(sql.indexOf("OPTION"), CountSQLUtils.indexOfTrailingClause(sql, "OPTION"));
+		sql = "SELECT * FROM STAFF_INFO WHERE STAFF_ID IN (SELECT STAFF_ID FROM T) option (RECOMPILE);";
+		Assertions.assertEquals(sql.indexOf("option"), CountSQLUtils.indexOfTrailingClause(sql, "OPTION"));
+		// 子查询、字符串和注释中的OPTION不是语句末尾的子句
+		Assertions.assertEquals(-1, CountSQLUtils.indexOfTrailingClause(
+				"SELECT * FROM STAFF_INFO WHERE STAFF_ID IN (SELECT STAFF_ID FROM T OPTION (MAXDOP 1))", "OPTION"));
+		Assertions.assertEquals(-1,
+				CountSQLUtils.indexOfTrailingClause("SELECT 'OPTION (MAXDOP 4)' FROM STAFF_INFO", "OPTION"));
+		Assertions.assertEquals(-1,
+				CountSQLUtils.indexOfTrailingClause("SELECT * FROM STAFF_INFO /* OPTION (MAXDOP 4) */", "OPTION"));
+		Assertions.assertEquals(-1, CountSQLUtils.indexOfTrailingClause("SELECT * FROM STAFF_INFO", "OPTION"));
+	}
+
+}
@@ -0,0 +1,47 @@
+package cn.tenmg.sqltool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cn.tenmg.sqltool.utils.LRUCache;
+
+public class LRUCacheTest {
+
+	@Test
+	public void testEviction() {
+		LRUCache<Integer, String> cache = new LRUCache<Integer, String>(32);
+		for (int i = 0; i < 32; i++) {
+			cache.put(i, String.valueOf(i));
+		}
+		Assertions.assertEquals(32, cache.size());
+		// 最近访问过的条目不被淘汰
+		for (int i = 0; i < 8; i++) {
+			Assertions.assertEquals(String.valueOf(i), cache.get(i));
+		}
+		for (int i = 32; i < 64; i++) {
+			cache.put(i, String.valueOf(i));
+			for (int j = 0; j < 8; j++) {
+				cache.get(j);
+			}
+			Assertions.assertTrue(cache.size() <= 32);
+		}
+		for (int i = 0; i < 8; i++) {
+			Assertions.assertEquals(String.valueOf(i), cache.get(i));
+		}
+		for (int i = 8; i < 32; i++) {
+			Assertions.assertNull(cache.get(i));
+		}
+		Assertions.assertEquals(String.valueOf(63), cache.get(63));
+	}
+
+	@Test
+	public void testPutIfAbsent() {
+		LRUCache<String, String> cache = new LRUCache<String, String>(2);
+		Assertions.assertNull(cache.putIfAbsent("a", "1"));
+		Assertions.assertEquals("1", cache.putIfAbsent("a", "2"));
+		Assertions.assertEquals("1", cache.get("a"));
+		cache.clear();
+		Assertions.assertEquals(0, cache.size());
+	}
+
+}
@@ -4,6 +4,7 @@ import java.io.Serializable;
 
 import cn.tenmg.sqltool.config.annotion.Column;
 import cn.tenmg.sqltool.config.annotion.Id;
+import cn.tenmg.sqltool.config.annotion.ShardKey;
 
 public class StaffInfo implements Serializable {
 
@@ -14,6 +15,7 @@ public class StaffInfo implements Serializable {
 
 	@Id
 	@Column
+	@ShardKey
 	private String staffId;
 
 	@Column
@@ -1,15 +1,25 @@
 package cn.tenmg.sqltool;
 
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import javax.sql.DataSource;
+
 import org.junit.jupiter.api.Assertions;
 
+import cn.tenmg.sqltool.data.FanOutResult;
 import cn.tenmg.sqltool.data.Page;
+import cn.tenmg.sqltool.data.Result;
+import cn.tenmg.sqltool.data.StatementResult;
+import cn.tenmg.sqltool.sharding.HashShardFunction;
+import cn.tenmg.sqltool.sql.StatementOptions;
 
 public abstract class TestUtils {
 
@@ -86,6 +96,8 @@ public abstract class TestUtils {
 		StaffInfo june = dao.get(StaffInfo.class, "get_staff_info_by_staff_id", parameters);
 		Assertions.assertEquals(staffName, june.getStaffName());
 		Assertions.assertEquals(staffName, dao.get(staffInfo).getStaffName());
+		Assertions.assertEquals(staffName,
+				dao.get(StaffInfo.class, "get_staff_info_by_staff_id_with_hint", parameters).getStaffName());
 
 		/**
 		 * 插入多条记录
@@ -120,6 +132,82 @@ public abstract class TestUtils {
 		staffInfos.add(staffInfo);
 		dao.insert(staffInfos);
 		Assertions.assertEquals(defaultBatchSize + 1, dao.get(Long.class, "get_total_staff_count").intValue());
+
+		// 按主键批量查询，主键个数大于批容量
+		List<StaffInfo> rows = dao.get(staffInfos);
+		Assertions.assertEquals(staffInfos.size(), rows.size());
+		Assertions.assertEquals(df.format(defaultBatchSize + 1), rows.get(defaultBatchSize).getStaffId());
+		rows = dao.getAll(StaffInfo.class, Arrays.asList(df.format(0), df.format(1), df.format(defaultBatchSize)));
+		Assertions.assertNull(rows.get(0));
+		Assertions.assertEquals("1", rows.get(1).getStaffName());
+		Assertions.assertEquals("" + defaultBatchSize, rows.get(2).getStaffName());
+
+		// 使用语句选项查询，返回的记录数不超过结果集的最大行数
+		rows = dao.select(new StatementOptions(100, 10, 30), StaffInfo.class, "find_staff_info_staff_name_like",
+				"staffName", "");
+		Assertions.assertEquals(10, rows.size());
+
+		// 抽样查询，抽样比例为1时返回全部记录
+		int total = dao.get(Long.class, "get_total_staff_count").intValue();
+		Assertions.assertEquals(total,
+				dao.sample(StaffInfo.class, "find_staff_info_staff_name_like", 1, "staffName", "").size());
+		Assertions.assertTrue(dao.sample(StaffInfo.class, "sample_staff_info", 0.5).size() <= total);
+
+		// 多查询，所有查询使用同一连接执行
+		MultiQuery multi = dao.multi();
+		Result<Long> count = multi.get(Long.class, "get_total_staff_count");
+		Result<List<StaffInfo>> staffs = multi.select(StaffInfo.class, "find_staff_info_staff_name_like", "staffName",
+				"");
+		Assertions.assertFalse(count.isDone());
+		multi.execute();
+		Assertions.assertEquals(total, count.getValue().intValue());
+		Assertions.assertEquals(total, staffs.getValue().size());
+
+		// 执行SQL脚本，连续的数据操纵语句以批处理方式执行
+		List<StatementResult> results = dao.runScript(new InputStreamReader(
+				TestUtils.class.getClassLoader().getResourceAsStream("script/staff_info.sql"), StandardCharsets.UTF_8));
+		Assertions.assertEquals(3, results.size());
+		Assertions.assertTrue(results.get(0).isBatched());
+		Assertions.assertTrue(results.get(1).isBatched());
+		Assertions.assertFalse(results.get(2).isBatched());
+
+		// 分片访问，两个分片使用同一数据源。写入按分片拆分，能确定分片的查询仅查询该分片，否则查询所有分片并按排序归并
+		DataSource dataSource = dao.getDefaultDataSource();
+		Sharding sharding = dao.sharding(Arrays.asList(dataSource, dataSource), new HashShardFunction());
+		dao.execute("DELETE FROM STAFF_INFO"); // 清空表
+		staffInfos = new ArrayList<StaffInfo>();
+		for (int i = 1; i <= 100; i++) {
+			staffInfo = new StaffInfo(df.format(i));
+			staffInfo.setStaffName("" + i);
+			staffInfo.setPosition(position);
+			staffInfos.add(staffInfo);
+		}
+		sharding.insertBatch(staffInfos);
+		Assertions.assertEquals(100, dao.get(Long.class, "get_total_staff_count").intValue());
+		Assertions.assertEquals(1,
+				sharding.select(StaffInfo.class, "get_staff_info_by_staff_id", "staffId", df.format(1)).size());
+		rows = sharding.select(StaffInfo.class, "find_staff_info_staff_name_like_order_by_staff_name", "staffName", "");
+		Assertions.assertEquals(200, rows.size());
+		for (int i = 1, size = rows.size(); i < size; i++) {
+			Assertions.assertTrue(rows.get(i - 1).getStaffName().compareTo(rows.get(i).getStaffName()) <= 0);
+		}
+
+		// 在所有数据源上并行查询，按排序归并各数据源的查询结果
+		FanOutResult<StaffInfo> fanOutResult = dao.selectAll(StaffInfo.class,
+				"find_staff_info_staff_name_like_order_by_staff_name", "staffName", "");
+		Assertions.assertTrue(fanOutResult.isComplete());
+		total = 0;
+		for (Iterator<List<StaffInfo>> it = fanOutResult.getResults().values().iterator(); it.hasNext();) {
+			total += it.next().size();
+		}
+		Assertions.assertEquals(total, fanOutResult.getRows().size());
+		rows = fanOutResult.getRows();
+		for (int i = 1, size = rows.size(); i < size; i++) {
+			Assertions.assertTrue(rows.get(i - 1).getStaffName().compareTo(rows.get(i).getStaffName()) <= 0);
+		}
+
+		sharding.deleteBatch(staffInfos);
+		Assertions.assertEquals(0, dao.get(Long.class, "get_total_staff_count").intValue());
 	}
 
 	private static void insertBatch(Dao dao) {
@@ -837,6 +925,18 @@ public abstract class TestUtils {
 		Assertions.assertEquals(pageSize, page.getPageSize());
 		Assertions.assertEquals(staffNameLikeCount, page.getTotal().intValue());
 		Assertions.assertEquals(df.format(1), page.getRows().get(0).getStaffId());
+
+		int count = 0;
+		currentPage = 1;
+		for (Iterator<Page<StaffInfo>> it = dao.pages(StaffInfo.class, "select * from staff_info order by staff_id",
+				pageSize); it.hasNext();) {
+			page = it.next();
+			Assertions.assertEquals(currentPage++, page.getCurrentPage());
+			rows = page.getRows();
+			Assertions.assertEquals(df.format(count + 1), rows.get(0).getStaffId());
+			count += rows.size();
+		}
+		Assertions.assertEquals(defaultBatchSize, count);
 	}
 
 	private static void execute(Dao dao) {
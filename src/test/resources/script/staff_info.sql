@@ -0,0 +1,5 @@
+-- 不会修改任何数据的测试脚本
+UPDATE STAFF_INFO SET POSITION = 'Software Engineer; Script' WHERE 1 = 0;
+/* 块注释; */
+DELETE FROM STAFF_INFO WHERE STAFF_ID = '-1';
+SELECT COUNT(*) FROM STAFF_INFO;